@@ -0,0 +1,36 @@
+package benchmark;
+
+import repository.ResultadoBusca;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+/**
+ * Busca textual: termos seletivos combinados com um termo comum a todos os
+ * projetos, e um prefixo. O índice é montado na primeira chamada, durante o aquecimento.
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public abstract class BuscaBenchmark {
+
+    @Benchmark
+    public List<ResultadoBusca> buscar(EstadoCenario estado, EstadoThread thread) {
+        int numero = thread.aleatorio.nextInt(estado.cenario.tamanho);
+        String consulta = thread.aleatorio.nextBoolean() ? "projeto " + numero : "sintética " + numero / 10 + "*";
+        return estado.cenario.buscaService().buscar(consulta, null, 20);
+    }
+
+    @Threads(1)
+    public static class UmaThread extends BuscaBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends BuscaBenchmark {
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import model.Equipe;
+import model.Perfil;
+import model.Projeto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+
+/**
+ * Cadastros pelos serviços, com as validações. O cadastro de usuários inclui o hash
+ * da senha com as iterações do cenário.
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public abstract class CadastroBenchmark {
+
+    @Benchmark
+    public boolean cadastrarUsuario(EstadoCenario estado) {
+        Cenario cenario = estado.cenario;
+        return cenario.usuarioService.cadastrarUsuario(GeradorDados.usuario(
+                cenario.proximaChave.getAndIncrement(), Cenario.SENHA, Perfil.COLABORADOR));
+    }
+
+    @Benchmark
+    public boolean cadastrarProjeto(EstadoCenario estado, EstadoThread thread) {
+        Cenario cenario = estado.cenario;
+        long chave = cenario.proximaChave.getAndIncrement();
+        LocalDate inicio = LocalDate.now().plusDays(1 + thread.aleatorio.nextInt(365));
+        return cenario.projetoService.cadastrarProjeto(new Projeto("Projeto " + chave,
+                "Projeto sintético número " + chave, inicio, inicio.plusDays(1 + thread.aleatorio.nextInt(365)),
+                cenario.usuarios.get(thread.aleatorio.nextInt(cenario.tamanho))));
+    }
+
+    @Benchmark
+    public boolean cadastrarEquipe(EstadoCenario estado) {
+        long chave = estado.cenario.proximaChave.getAndIncrement();
+        return estado.cenario.equipeService.cadastrarEquipe(new Equipe("Equipe " + chave,
+                "Equipe sintética número " + chave, GeradorDados.MEMBROS_POR_EQUIPE));
+    }
+
+    @Threads(1)
+    public static class UmaThread extends CadastroBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends CadastroBenchmark {
+    }
+}
@@ -0,0 +1,39 @@
+package benchmark;
+
+import model.Equipe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+/**
+ * Consultas de equipes por membro e por quantidade de membros
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public abstract class ConsultasEquipeBenchmark {
+
+    @Benchmark
+    public List<Equipe> listarPorMembro(EstadoCenario estado, EstadoThread thread) {
+        Cenario cenario = estado.cenario;
+        return cenario.equipeRepository.listarPorMembro(cenario.usuarios.get(thread.aleatorio.nextInt(cenario.tamanho)));
+    }
+
+    @Benchmark
+    public List<Equipe> listarPorTamanho(EstadoCenario estado) {
+        return estado.cenario.equipeRepository.listarPorTamanho();
+    }
+
+    @Threads(1)
+    public static class UmaThread extends ConsultasEquipeBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends ConsultasEquipeBenchmark {
+    }
+}
@@ -0,0 +1,47 @@
+package benchmark;
+
+import model.Projeto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Consultas de projetos por status, por atraso e por intervalo de datas
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public abstract class ConsultasProjetoBenchmark {
+    private static final Projeto.Status[] STATUS = Projeto.Status.values();
+
+    @Benchmark
+    public List<Projeto> listarPorStatus(EstadoCenario estado, EstadoThread thread) {
+        return estado.cenario.projetoRepository.listarPorStatus(STATUS[thread.aleatorio.nextInt(STATUS.length)]);
+    }
+
+    @Benchmark
+    public List<Projeto> listarProjetosAtrasados(EstadoCenario estado) {
+        return estado.cenario.projetoRepository.listarProjetosAtrasados(estado.cenario.referencia);
+    }
+
+    // Janelas de 30 dias dentro do período em que os projetos começam
+    @Benchmark
+    public List<Projeto> listarPorIntervaloData(EstadoCenario estado, EstadoThread thread) {
+        LocalDate inicio = estado.cenario.referencia.minusDays(thread.aleatorio.nextInt(365));
+        return estado.cenario.projetoRepository.listarPorIntervaloData(inicio, inicio.plusDays(30));
+    }
+
+    @Threads(1)
+    public static class UmaThread extends ConsultasProjetoBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends ConsultasProjetoBenchmark {
+    }
+}
@@ -0,0 +1,53 @@
+package benchmark;
+
+import model.Usuario;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+
+/**
+ * Consultas de usuários por CPF e autenticações, com e sem o cache de conferências
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public abstract class ConsultasUsuarioBenchmark {
+    // Usuários que se autenticam repetidamente no caso com cache
+    private static final int USUARIOS_FREQUENTES = 64;
+
+    @Benchmark
+    public Optional<Usuario> buscarPorCPF(EstadoCenario estado, EstadoThread thread) {
+        Cenario cenario = estado.cenario;
+        return cenario.usuarioRepository.buscarPorCPF(cenario.cpfs.get(thread.aleatorio.nextInt(cenario.tamanho)));
+    }
+
+    // Confere o hash PBKDF2 a cada chamada
+    @Benchmark
+    public Optional<Usuario> autenticar(EstadoCenario estado, EstadoThread thread) {
+        Cenario cenario = estado.cenario;
+        return cenario.usuarioRepository.autenticar(
+                cenario.logins.get(thread.aleatorio.nextInt(cenario.tamanho)), Cenario.SENHA);
+    }
+
+    // Caminho com cache: um grupo pequeno de usuários que se autentica repetidamente
+    @Benchmark
+    public Optional<Usuario> autenticarComCache(EstadoCenario estado, EstadoThread thread) {
+        Cenario cenario = estado.cenario;
+        int frequentes = Math.min(cenario.tamanho, USUARIOS_FREQUENTES);
+        return cenario.usuarioService.autenticar(
+                cenario.logins.get(thread.aleatorio.nextInt(frequentes)), Cenario.SENHA);
+    }
+
+    @Threads(1)
+    public static class UmaThread extends ConsultasUsuarioBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends ConsultasUsuarioBenchmark {
+    }
+}
@@ -0,0 +1,38 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cenário compartilhado pelas threads de um benchmark, gerado uma vez por execução
+ * a partir da semente. Os benchmarks que criam entidades recebem um cenário novo a
+ * cada execução, como os de leitura.
+ */
+@State(Scope.Benchmark)
+public class EstadoCenario {
+    @Param({"1000", "100000"})
+    public int tamanho;
+
+    @Param("42")
+    public long semente;
+
+    // Iterações do hash das senhas geradas e das novas, nos cadastros
+    @Param("210000")
+    public int iteracoesSenha;
+
+    Cenario cenario;
+
+    @Setup(Level.Trial)
+    public void gerar() {
+        cenario = GeradorDados.gerar(tamanho, semente, iteracoesSenha);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        cenario.encerrar();
+    }
+}
@@ -0,0 +1,23 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.SplittableRandom;
+
+/**
+ * Gerador exclusivo de cada thread, derivado da semente do cenário e do número da
+ * thread, para que as execuções sorteiem sempre as mesmas chaves
+ */
+@State(Scope.Thread)
+public class EstadoThread {
+    SplittableRandom aleatorio;
+
+    @Setup(Level.Trial)
+    public void preparar(EstadoCenario estado, ThreadParams thread) {
+        aleatorio = new SplittableRandom(estado.semente * 31 + thread.getThreadIndex());
+    }
+}
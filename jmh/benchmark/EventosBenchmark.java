@@ -0,0 +1,35 @@
+package benchmark;
+
+import service.EventoDominio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Publicação no barramento de eventos com um assinante. Os publicadores esperam
+ * quando o vetor enche, de modo que as operações por segundo são os eventos por
+ * segundo entregues ao assinante.
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public abstract class EventosBenchmark {
+
+    @Benchmark
+    public boolean publicar(EstadoCenario estado, EstadoThread thread) {
+        Cenario cenario = estado.cenario;
+        return cenario.barramentoEventos().publicar(EventoDominio.usuarioCadastrado(
+                cenario.usuarios.get(thread.aleatorio.nextInt(cenario.tamanho))));
+    }
+
+    @Threads(1)
+    public static class UmaThread extends EventosBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends EventosBenchmark {
+    }
+}
@@ -0,0 +1,192 @@
+package benchmark;
+
+import model.Equipe;
+import model.HashSenha;
+import model.Perfil;
+import model.Projeto;
+import model.Usuario;
+import repository.ArmazenamentoPersistente;
+import repository.ConfiguracaoLog;
+import repository.FormatoSnapshot;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tempo de abertura do armazenamento persistente sobre o mesmo histórico: com a
+ * origem LOG, todo o log é reproduzido; com REGISTROS ou MAPEADO, um snapshot nesse
+ * formato, gravado antes da última rodada de alterações, é carregado e só o final
+ * do log é reproduzido. O caso heapResidente mede, além do tempo, o heap ocupado
+ * pelos repositórios recuperados.
+ *
+ * Cada medida é a primeira abertura de um processo novo, sem aquecimento: o
+ * processo só gravou o histórico, e o código de leitura ainda não foi compilado.
+ *
+ * O histórico tem o cadastro de n usuários, n projetos e n / 20 equipes com membros,
+ * seguido de rodadas em que cada projeto muda de status. Cada execução abre o
+ * diretório gerado, mede a recuperação e fecha, sem alterar os arquivos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(3)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class InicializacaoBenchmark {
+    // Rodadas de alteração de status de todos os projetos no histórico
+    private static final int RODADAS_ALTERACAO = 3;
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    @Param("100000")
+    public int tamanho;
+
+    @Param("42")
+    public long semente;
+
+    @Param({"LOG", "REGISTROS", "MAPEADO"})
+    public String origem;
+
+    private Path diretorio;
+    private ConfiguracaoLog configuracao;
+
+    /**
+     * Heap ocupado depois da abertura, em MB, medido após uma coleta completa.
+     * O JMH soma os contadores de todas as medidas; cada uma grava a sua parte da
+     * média, para que o total informado seja o heap médio de uma abertura.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public double heapResidenteMB;
+    }
+
+    @Setup(Level.Trial)
+    public void gravarHistorico() throws IOException {
+        diretorio = Files.createTempDirectory("inicializacao-");
+
+        // Sem snapshots periódicos: o único snapshot é o gravado pelo benchmark
+        FormatoSnapshot formato = "MAPEADO".equals(origem) ? FormatoSnapshot.MAPEADO : FormatoSnapshot.REGISTROS;
+        configuracao = new ConfiguracaoLog(10, 1024 * 1024, false, 0, 0, formato);
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        try (ArmazenamentoPersistente armazenamento = ArmazenamentoPersistente.abrir(diretorio, configuracao)) {
+            List<Projeto> projetos = cadastrar(armazenamento, aleatorio);
+            for (int rodada = 1; rodada < RODADAS_ALTERACAO; rodada++) {
+                alterarStatus(armazenamento, projetos, rodada);
+            }
+            if (!"LOG".equals(origem)) {
+                armazenamento.gerarSnapshot();
+            }
+            alterarStatus(armazenamento, projetos, RODADAS_ALTERACAO);
+        }
+    }
+
+    @Benchmark
+    public long abrir() throws IOException {
+        try (ArmazenamentoPersistente armazenamento = ArmazenamentoPersistente.abrir(diretorio, configuracao)) {
+            return armazenamento.getRegistrosSnapshot() + armazenamento.getRegistrosReproduzidos();
+        }
+    }
+
+    // O tempo deste caso inclui as coletas; o resultado é o contador heapResidenteMB
+    @Benchmark
+    public long heapResidente(Heap heap, BenchmarkParams parametros) throws IOException {
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        memoria.gc();
+        long antes = memoria.getHeapMemoryUsage().getUsed();
+        try (ArmazenamentoPersistente armazenamento = ArmazenamentoPersistente.abrir(diretorio, configuracao)) {
+            memoria.gc();
+            long ocupado = memoria.getHeapMemoryUsage().getUsed() - antes;
+            int medidas = Math.max(1, parametros.getForks()) * parametros.getMeasurement().getCount();
+            heap.heapResidenteMB = (double) ocupado / MEGABYTE / medidas;
+            Reference.reachabilityFence(armazenamento);
+            return armazenamento.getRegistrosSnapshot() + armazenamento.getRegistrosReproduzidos();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void apagar() throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(arquivo);
+            }
+        }
+    }
+
+    /**
+     * Cadastra usuários, projetos e equipes com membros
+     * @return Projetos cadastrados, na ordem do cadastro
+     */
+    private List<Projeto> cadastrar(ArmazenamentoPersistente armazenamento, SplittableRandom aleatorio) {
+        // O hash não é conferido neste caso; poucas iterações bastam
+        String senha = HashSenha.gerar(Cenario.SENHA, 1_000);
+        Perfil[] perfis = Perfil.values();
+        List<Usuario> usuarios = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            Usuario usuario = GeradorDados.usuario(i, senha, perfis[aleatorio.nextInt(perfis.length)]);
+            armazenamento.getUsuarioRepository().adicionar(usuario);
+            usuarios.add(usuario);
+        }
+
+        LocalDate referencia = LocalDate.of(2030, 1, 1);
+        List<Projeto> projetos = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            LocalDate inicio = referencia.minusDays(aleatorio.nextInt(365));
+            Projeto projeto = new Projeto("Projeto " + i, "Projeto sintético número " + i, inicio,
+                    inicio.plusDays(1 + aleatorio.nextInt(365)), usuarios.get(aleatorio.nextInt(tamanho)));
+            armazenamento.getProjetoRepository().adicionar(projeto);
+            projetos.add(projeto);
+        }
+
+        for (int i = 0; i < Math.max(1, tamanho / GeradorDados.MEMBROS_POR_EQUIPE); i++) {
+            String nome = "Equipe " + i;
+            armazenamento.getEquipeRepository().adicionar(new Equipe(nome, "Equipe sintética número " + i,
+                    GeradorDados.MEMBROS_POR_EQUIPE));
+            int membros = aleatorio.nextInt(GeradorDados.MEMBROS_POR_EQUIPE + 1);
+            for (int j = 0; j < membros; j++) {
+                armazenamento.getEquipeRepository().adicionarMembroNaEquipe(nome,
+                        usuarios.get(aleatorio.nextInt(tamanho)));
+            }
+        }
+        return projetos;
+    }
+
+    /**
+     * Grava uma nova versão de cada projeto, com o status seguinte ao da rodada anterior
+     */
+    private static void alterarStatus(ArmazenamentoPersistente armazenamento, List<Projeto> projetos, int rodada) {
+        Projeto.Status[] status = Projeto.Status.values();
+        for (int i = 0; i < projetos.size(); i++) {
+            Projeto copia = new Projeto(projetos.get(i));
+            copia.setStatus(status[(i + rodada) % status.length]);
+            armazenamento.getProjetoRepository().atualizar(copia);
+        }
+    }
+}
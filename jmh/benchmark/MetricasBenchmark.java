@@ -0,0 +1,33 @@
+package benchmark;
+
+import service.MetricaOperacao;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo da instrumentação de uma chamada de serviço, sem a operação
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public abstract class MetricasBenchmark {
+
+    @Benchmark
+    public MetricaOperacao concluir(EstadoCenario estado) {
+        MetricaOperacao metrica = estado.cenario.metricas.operacao("Benchmark.vazia");
+        metrica.concluir(metrica.iniciar());
+        return metrica;
+    }
+
+    @Threads(1)
+    public static class UmaThread extends MetricasBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends MetricasBenchmark {
+    }
+}
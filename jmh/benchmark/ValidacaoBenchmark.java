@@ -0,0 +1,97 @@
+package benchmark;
+
+import model.Perfil;
+import model.Usuario;
+import service.FormatoImportacao;
+import service.ImportacaoService;
+import service.RelatorioImportacao;
+import service.ValidadorUsuario;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Validações por segundo no cadastro em lote. O caso validar mede só o
+ * {@link ValidadorUsuario}; o caso importarUsuarios passa pela importação inteira
+ * (interpretação, validação, verificação de CPF e login livres e gravação com
+ * cadastrarValidados), com as senhas já em hash para que o PBKDF2 não domine a
+ * medida. Em ambos, cada operação é um usuário validado.
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public abstract class ValidacaoBenchmark {
+    // Usuários por arquivo importado
+    private static final int USUARIOS_POR_IMPORTACAO = 1_000;
+
+    /**
+     * Arquivo CSV com usuários novos, gerado antes de cada importação
+     */
+    @State(Scope.Thread)
+    public static class ArquivoImportacao {
+        ImportacaoService importacaoService;
+        String conteudo;
+
+        @Setup(Level.Trial)
+        public void criarServico(EstadoCenario estado) {
+            Cenario cenario = estado.cenario;
+            importacaoService = new ImportacaoService(cenario.usuarioService, cenario.projetoService,
+                    cenario.equipeService);
+        }
+
+        @Setup(Level.Invocation)
+        public void gerar(EstadoCenario estado) {
+            Cenario cenario = estado.cenario;
+            String senha = cenario.usuarios.get(0).getSenha();
+            StringBuilder csv = new StringBuilder(USUARIOS_POR_IMPORTACAO * 200);
+            csv.append("nomeCompleto;cpf;email;cargo;login;senha\n");
+            for (int i = 0; i < USUARIOS_POR_IMPORTACAO; i++) {
+                Usuario usuario = GeradorDados.usuario(cenario.proximaChave.getAndIncrement(), senha,
+                        Perfil.COLABORADOR);
+                csv.append(usuario.getNomeCompleto()).append(';')
+                        .append(usuario.getCpf()).append(';')
+                        .append(usuario.getEmail()).append(';')
+                        .append(usuario.getCargo()).append(';')
+                        .append(usuario.getLogin()).append(';')
+                        .append(senha).append('\n');
+            }
+            conteudo = csv.toString();
+        }
+    }
+
+    @Benchmark
+    public int validar(EstadoCenario estado, EstadoThread thread) {
+        Cenario cenario = estado.cenario;
+        return ValidadorUsuario.validar(cenario.usuarios.get(thread.aleatorio.nextInt(cenario.tamanho)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USUARIOS_POR_IMPORTACAO)
+    public RelatorioImportacao importarUsuarios(ArquivoImportacao arquivo) throws IOException {
+        RelatorioImportacao relatorio = arquivo.importacaoService.importarUsuarios(
+                new StringReader(arquivo.conteudo), FormatoImportacao.CSV, true);
+        if (relatorio.getImportados() != USUARIOS_POR_IMPORTACAO) {
+            throw new IllegalStateException("Importação com rejeições: " + relatorio.getErros());
+        }
+        return relatorio;
+    }
+
+    @Threads(1)
+    public static class UmaThread extends ValidacaoBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends ValidacaoBenchmark {
+    }
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import model.HashSenha;
+import model.Perfil;
+import model.Usuario;
+import repository.UsuarioRepository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+/**
+ * Consultas por CPF e login nos índices do repositório, comparadas à varredura da
+ * lista de usuários que o repositório fazia antes dos índices. Os mesmos usuários
+ * ficam nas duas estruturas, e cada thread sorteia as mesmas chaves nos dois casos.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public abstract class VarreduraUsuarioBenchmark {
+
+    /**
+     * Usuários gravados no repositório e na lista da varredura
+     */
+    @State(Scope.Benchmark)
+    public static class Usuarios {
+        @Param({"10000", "100000", "1000000"})
+        public int tamanho;
+
+        @Param("42")
+        public long semente;
+
+        UsuarioRepository usuarioRepository;
+
+        // Armazenamento anterior aos índices: uma lista percorrida a cada consulta
+        List<Usuario> lista;
+
+        List<String> cpfs;
+        List<String> logins;
+
+        @Setup(Level.Trial)
+        public void gerar() {
+            // O hash não é conferido nestes casos; poucas iterações bastam
+            String senha = HashSenha.gerar(Cenario.SENHA, 1_000);
+            Perfil[] perfis = Perfil.values();
+            usuarioRepository = new UsuarioRepository();
+            lista = new ArrayList<>(tamanho);
+            cpfs = new ArrayList<>(tamanho);
+            logins = new ArrayList<>(tamanho);
+            for (int i = 0; i < tamanho; i++) {
+                Usuario usuario = GeradorDados.usuario(i, senha, perfis[i % perfis.length]);
+                usuarioRepository.adicionar(usuario);
+                lista.add(usuario);
+                cpfs.add(usuario.getCpf());
+                logins.add(usuario.getLogin());
+            }
+        }
+    }
+
+    /**
+     * Gerador de cada thread, derivado da semente e do número da thread
+     */
+    @State(Scope.Thread)
+    public static class Chaves {
+        SplittableRandom aleatorio;
+
+        @Setup(Level.Trial)
+        public void preparar(Usuarios usuarios, ThreadParams thread) {
+            aleatorio = new SplittableRandom(usuarios.semente * 31 + thread.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public Optional<Usuario> buscarPorCPFIndice(Usuarios usuarios, Chaves chaves) {
+        return usuarios.usuarioRepository.buscarPorCPF(
+                usuarios.cpfs.get(chaves.aleatorio.nextInt(usuarios.tamanho)));
+    }
+
+    @Benchmark
+    public Optional<Usuario> buscarPorCPFVarredura(Usuarios usuarios, Chaves chaves) {
+        String cpf = usuarios.cpfs.get(chaves.aleatorio.nextInt(usuarios.tamanho));
+        return usuarios.lista.stream()
+                .filter(u -> u.getCpf().equals(cpf))
+                .findFirst();
+    }
+
+    @Benchmark
+    public Optional<Usuario> buscarPorLoginIndice(Usuarios usuarios, Chaves chaves) {
+        return usuarios.usuarioRepository.buscarPorLogin(
+                usuarios.logins.get(chaves.aleatorio.nextInt(usuarios.tamanho)));
+    }
+
+    @Benchmark
+    public Optional<Usuario> buscarPorLoginVarredura(Usuarios usuarios, Chaves chaves) {
+        String login = usuarios.logins.get(chaves.aleatorio.nextInt(usuarios.tamanho));
+        return usuarios.lista.stream()
+                .filter(u -> u.getLogin().equals(login))
+                .findFirst();
+    }
+
+    @Threads(1)
+    public static class UmaThread extends VarreduraUsuarioBenchmark {
+    }
+
+    @Threads(4)
+    public static class QuatroThreads extends VarreduraUsuarioBenchmark {
+    }
+}
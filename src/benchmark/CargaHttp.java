@@ -0,0 +1,209 @@
+package benchmark;
+
+import model.HashSenha;
+import service.HistogramaLatencia;
+import service.PainelService;
+import view.ServidorApi;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gerador de carga local para a API HTTP: sobe o servidor sobre um cenário gerado
+ * e dispara clientes simultâneos, cada um em uma thread virtual, que repetem
+ * requisições de leitura (usuário por login, projetos por status, maiores equipes e
+ * equipes por tamanho) até o fim do tempo. Ao final, mostra a vazão e os percentis
+ * de latência medidos após o aquecimento.
+ *
+ * Os clientes se autenticam com um grupo pequeno de usuários, de modo que, depois
+ * da primeira requisição de cada um, a autenticação usa o cache de conferências.
+ *
+ * Uso:
+ * java -cp bin benchmark.CargaHttp [--clientes=1000] [--tamanho=10000]
+ *     [--aquecimento-ms=5000] [--duracao-ms=10000] [--semente=42] [--iteracoes-senha=210000]
+ */
+public final class CargaHttp {
+    // Usuários com que os clientes se autenticam
+    private static final int USUARIOS_CLIENTES = 16;
+
+    private CargaHttp() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clientes = 1_000;
+        int tamanho = 10_000;
+        long aquecimentoMillis = 5_000;
+        long duracaoMillis = 10_000;
+        long semente = 42;
+        int iteracoesSenha = HashSenha.ITERACOES_PADRAO;
+
+        for (String argumento : args) {
+            int separador = argumento.indexOf('=');
+            if (!argumento.startsWith("--") || separador < 0) {
+                throw new IllegalArgumentException("Argumento inválido: " + argumento);
+            }
+            String valor = argumento.substring(separador + 1);
+            switch (argumento.substring(2, separador)) {
+                case "clientes":
+                    clientes = Integer.parseInt(valor);
+                    break;
+                case "tamanho":
+                    tamanho = Integer.parseInt(valor);
+                    break;
+                case "aquecimento-ms":
+                    aquecimentoMillis = Long.parseLong(valor);
+                    break;
+                case "duracao-ms":
+                    duracaoMillis = Long.parseLong(valor);
+                    break;
+                case "semente":
+                    semente = Long.parseLong(valor);
+                    break;
+                case "iteracoes-senha":
+                    iteracoesSenha = Integer.parseInt(valor);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Argumento desconhecido: " + argumento);
+            }
+        }
+
+        Cenario cenario = GeradorDados.gerar(tamanho, semente, iteracoesSenha);
+        PainelService painelService = new PainelService(cenario.usuarioRepository, cenario.projetoRepository,
+                cenario.equipeRepository);
+        try (ServidorApi servidor = new ServidorApi(cenario.usuarioService, cenario.projetoService,
+                cenario.equipeService, painelService, cenario.buscaService(), cenario.metricas)) {
+            servidor.iniciar(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            executar(cenario, URI.create("http://127.0.0.1:" + servidor.getPorta()), clientes,
+                    aquecimentoMillis, duracaoMillis);
+        }
+    }
+
+    private static void executar(Cenario cenario, URI base, int clientes, long aquecimentoMillis,
+                                 long duracaoMillis) throws InterruptedException {
+        List<String> credenciais = new ArrayList<>();
+        for (int i = 0; i < Math.min(USUARIOS_CLIENTES, cenario.tamanho); i++) {
+            String par = cenario.logins.get(i) + ":" + Cenario.SENHA;
+            credenciais.add("Basic " + Base64.getEncoder().encodeToString(par.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        Medicao medicao = new Medicao();
+        CountDownLatch terminados = new CountDownLatch(clientes);
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient cliente = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .executor(threads)
+                    .build();
+
+            long inicio = System.nanoTime();
+            long inicioMedicao = inicio + aquecimentoMillis * 1_000_000;
+            long fim = inicioMedicao + duracaoMillis * 1_000_000;
+            for (int i = 0; i < clientes; i++) {
+                String autorizacao = credenciais.get(i % credenciais.size());
+                SplittableRandom aleatorio = new SplittableRandom(cenario.semente + i);
+                threads.execute(() -> {
+                    try {
+                        repetir(cliente, base, autorizacao, aleatorio, cenario, medicao, inicioMedicao, fim);
+                    } finally {
+                        terminados.countDown();
+                    }
+                });
+            }
+            terminados.await();
+        }
+
+        HistogramaLatencia.Retrato latencias = medicao.latencias.retrato();
+        double segundos = duracaoMillis / 1000.0;
+        System.out.printf(Locale.ROOT, "Clientes: %d, usuários: %d, duração medida: %.1f s%n",
+                clientes, cenario.tamanho, segundos);
+        long erros = 0;
+        for (LongAdder quantidade : medicao.erros.values()) {
+            erros += quantidade.sum();
+        }
+        System.out.printf(Locale.ROOT, "Requisições: %d (%d com erro)%n", latencias.getTotal(), erros);
+        for (Map.Entry<String, LongAdder> erro : new TreeMap<>(medicao.erros).entrySet()) {
+            System.out.println("  " + erro.getKey() + ": " + erro.getValue().sum());
+        }
+        System.out.printf(Locale.ROOT, "Vazão: %.1f req/s%n", latencias.getTotal() / segundos);
+        System.out.printf(Locale.ROOT, "Latência (ms): média %.2f, p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, máx %.2f%n",
+                latencias.getMedia() / 1e6, latencias.percentil(50) / 1e6, latencias.percentil(90) / 1e6,
+                latencias.percentil(99) / 1e6, latencias.percentil(99.9) / 1e6, latencias.getMaximo() / 1e6);
+    }
+
+    /**
+     * Laço de um cliente: requisições em sequência até o fim do tempo, medindo as
+     * que terminam depois do aquecimento
+     */
+    private static void repetir(HttpClient cliente, URI base, String autorizacao, SplittableRandom aleatorio,
+                                Cenario cenario, Medicao medicao, long inicioMedicao, long fim) {
+        String[] status = {"PLANEJADO", "EM_ANDAMENTO", "CONCLUIDO", "CANCELADO"};
+        while (true) {
+            String caminho;
+            int sorteio = aleatorio.nextInt(10);
+            if (sorteio < 6) {
+                caminho = "/usuarios/" + cenario.logins.get(aleatorio.nextInt(cenario.tamanho));
+            } else if (sorteio < 8) {
+                caminho = "/projetos?tamanho=20&status=" + status[aleatorio.nextInt(status.length)];
+            } else if (sorteio < 9) {
+                caminho = "/equipes/maiores?quantidade=10";
+            } else {
+                caminho = "/equipes?ordem=tamanho&tamanho=20";
+            }
+            HttpRequest requisicao = HttpRequest.newBuilder(base.resolve(caminho))
+                    .header("Authorization", autorizacao)
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+
+            long inicio = System.nanoTime();
+            if (inicio >= fim) {
+                return;
+            }
+            String erro;
+            try {
+                HttpResponse<Void> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding());
+                erro = resposta.statusCode() < 300 ? null : "HTTP " + resposta.statusCode();
+            } catch (IOException e) {
+                erro = e.getClass().getSimpleName();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long termino = System.nanoTime();
+            if (termino >= inicioMedicao && termino < fim) {
+                medicao.latencias.registrar(termino - inicio);
+                if (erro != null) {
+                    medicao.erros.computeIfAbsent(erro, e -> new LongAdder()).increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Latências e erros compartilhados pelos clientes
+     */
+    private static final class Medicao {
+        private final HistogramaLatencia latencias = new HistogramaLatencia();
+        // Tipo do erro (status HTTP ou exceção) -> quantidade
+        private final ConcurrentHashMap<String, LongAdder> erros = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,117 @@
+package benchmark;
+
+import model.Usuario;
+import repository.EquipeRepository;
+import repository.IndiceTextual;
+import repository.ProjetoRepository;
+import repository.UsuarioRepository;
+import service.Autenticador;
+import service.BarramentoEventos;
+import service.BuscaService;
+import service.EquipeService;
+import service.Metricas;
+import service.ProjetoService;
+import service.UsuarioService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dados sintéticos usados por um benchmark: repositórios e serviços já
+ * populados e amostras das chaves geradas, para que as operações consultem
+ * entidades que existem.
+ */
+final class Cenario {
+    // Senha de todos os usuários gerados
+    static final String SENHA = "senha-benchmark";
+
+    final int tamanho;
+    final long semente;
+    final int iteracoesSenha;
+
+    final UsuarioRepository usuarioRepository;
+    final ProjetoRepository projetoRepository;
+    final EquipeRepository equipeRepository;
+    final UsuarioService usuarioService;
+    final ProjetoService projetoService;
+    final EquipeService equipeService;
+
+    // Métricas dos serviços do cenário, separadas do registro padrão
+    final Metricas metricas = new Metricas();
+
+    // Amostras das entidades geradas
+    final List<Usuario> usuarios;
+    final List<String> cpfs;
+    final List<String> logins;
+
+    // Data de referência dos prazos (os projetos gerados se distribuem em torno dela)
+    final LocalDate referencia;
+
+    // Sequência para as chaves únicas das entidades criadas durante a medição
+    final AtomicLong proximaChave;
+
+    // Criado no primeiro uso, para que os demais casos não paguem a indexação
+    private BuscaService buscaService;
+
+    // Criado no primeiro uso, com um assinante que conta os eventos recebidos
+    private BarramentoEventos barramentoEventos;
+    final AtomicLong eventosRecebidos = new AtomicLong();
+
+    Cenario(int tamanho, long semente, int iteracoesSenha, UsuarioRepository usuarioRepository,
+            ProjetoRepository projetoRepository, EquipeRepository equipeRepository,
+            List<Usuario> usuarios, List<String> cpfs, List<String> logins, LocalDate referencia) {
+        this.tamanho = tamanho;
+        this.semente = semente;
+        this.iteracoesSenha = iteracoesSenha;
+        this.usuarioRepository = usuarioRepository;
+        this.projetoRepository = projetoRepository;
+        this.equipeRepository = equipeRepository;
+        this.usuarioService = new UsuarioService(usuarioRepository, new Autenticador(usuarioRepository,
+                iteracoesSenha, Runtime.getRuntime().availableProcessors(),
+                Autenticador.CAPACIDADE_CACHE_PADRAO, Autenticador.VALIDADE_CACHE_PADRAO_MILLIS), metricas);
+        this.projetoService = new ProjetoService(projetoRepository, metricas);
+        this.equipeService = new EquipeService(equipeRepository, metricas);
+        this.usuarios = usuarios;
+        this.cpfs = cpfs;
+        this.logins = logins;
+        this.referencia = referencia;
+        this.proximaChave = new AtomicLong(tamanho);
+    }
+
+    /**
+     * Serviço de busca sobre os repositórios do cenário, indexados no primeiro pedido
+     * @return Serviço de busca
+     */
+    synchronized BuscaService buscaService() {
+        if (buscaService == null) {
+            buscaService = new BuscaService(IndiceTextual.acompanhar(usuarioRepository, projetoRepository,
+                    equipeRepository), metricas);
+        }
+        return buscaService;
+    }
+
+    /**
+     * Barramento de eventos com um assinante, bloqueando os publicadores quando cheio,
+     * para que a vazão medida seja a de entrega
+     * @return Barramento de eventos
+     */
+    synchronized BarramentoEventos barramentoEventos() {
+        if (barramentoEventos == null) {
+            barramentoEventos = new BarramentoEventos(BarramentoEventos.CAPACIDADE_PADRAO,
+                    BarramentoEventos.PoliticaCheio.BLOQUEAR);
+            barramentoEventos.assinar("benchmark", eventos -> eventosRecebidos.addAndGet(eventos.size()));
+        }
+        return barramentoEventos;
+    }
+
+    /**
+     * Encerra o barramento de eventos, se foi criado, e a thread do seu assinante
+     */
+    synchronized void encerrar() {
+        if (barramentoEventos != null) {
+            barramentoEventos.close();
+            barramentoEventos = null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package benchmark;
+
+import model.Equipe;
+import model.HashSenha;
+import model.Perfil;
+import model.Projeto;
+import model.Usuario;
+import repository.EquipeRepository;
+import repository.ProjetoRepository;
+import repository.UsuarioRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Gerador de dados sintéticos a partir de uma semente: a mesma semente e o mesmo
+ * tamanho produzem sempre os mesmos usuários, projetos e equipes, de modo que
+ * execuções diferentes medem a mesma carga.
+ *
+ * Para um tamanho n são gerados n usuários, n projetos (distribuídos entre os
+ * status e com prazos em torno da data de referência) e n / 20 equipes com até 20
+ * membros cada.
+ */
+final class GeradorDados {
+    // Membros por equipe, no máximo
+    static final int MEMBROS_POR_EQUIPE = 20;
+
+    // Data fixa em torno da qual os prazos são gerados
+    private static final LocalDate REFERENCIA = LocalDate.of(2030, 1, 1);
+
+    private static final String[] CARGOS = {"Desenvolvedor", "Analista", "Gerente", "Designer", "QA"};
+
+    private GeradorDados() {
+    }
+
+    /**
+     * Gera e carrega um cenário
+     * @param tamanho Quantidade de usuários e de projetos
+     * @param semente Semente do gerador
+     * @param iteracoesSenha Iterações do hash das senhas
+     * @return Cenário com os repositórios populados
+     */
+    static Cenario gerar(int tamanho, long semente, int iteracoesSenha) {
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        UsuarioRepository usuarioRepository = new UsuarioRepository();
+        ProjetoRepository projetoRepository = new ProjetoRepository();
+        EquipeRepository equipeRepository = new EquipeRepository();
+
+        // Um único hash para todos: gerar um por usuário tornaria a carga proibitiva
+        String senha = HashSenha.gerar(Cenario.SENHA, iteracoesSenha);
+
+        List<Usuario> usuarios = new ArrayList<>(tamanho);
+        List<String> cpfs = new ArrayList<>(tamanho);
+        List<String> logins = new ArrayList<>(tamanho);
+        Perfil[] perfis = Perfil.values();
+        for (int i = 0; i < tamanho; i++) {
+            Usuario usuario = usuario(i, senha, perfis[aleatorio.nextInt(perfis.length)]);
+            usuarioRepository.adicionar(usuario);
+            usuarios.add(usuario);
+            cpfs.add(usuario.getCpf());
+            logins.add(usuario.getLogin());
+        }
+
+        Projeto.Status[] status = Projeto.Status.values();
+        for (int i = 0; i < tamanho; i++) {
+            LocalDate inicio = REFERENCIA.minusDays(aleatorio.nextInt(365));
+            Projeto projeto = new Projeto("Projeto " + i, "Projeto sintético número " + i, inicio,
+                    inicio.plusDays(1 + aleatorio.nextInt(365)), usuarios.get(aleatorio.nextInt(tamanho)));
+            projeto.setStatus(status[aleatorio.nextInt(status.length)]);
+            projetoRepository.adicionar(projeto);
+        }
+
+        for (int i = 0; i < Math.max(1, tamanho / MEMBROS_POR_EQUIPE); i++) {
+            String nome = "Equipe " + i;
+            equipeRepository.adicionar(new Equipe(nome, "Equipe sintética número " + i, MEMBROS_POR_EQUIPE));
+            int membros = aleatorio.nextInt(MEMBROS_POR_EQUIPE + 1);
+            for (int j = 0; j < membros; j++) {
+                equipeRepository.adicionarMembroNaEquipe(nome, usuarios.get(aleatorio.nextInt(tamanho)));
+            }
+        }
+
+        return new Cenario(tamanho, semente, iteracoesSenha, usuarioRepository, projetoRepository,
+                equipeRepository, usuarios, cpfs, logins, REFERENCIA);
+    }
+
+    /**
+     * Usuário sintético de número i, com CPF, login e email únicos
+     * @param i Número do usuário
+     * @param senha Senha a ser gravada
+     * @param perfil Perfil do usuário
+     * @return Usuário gerado
+     */
+    static Usuario usuario(long i, String senha, Perfil perfil) {
+        return new Usuario("Usuário " + i, cpf(i), "usuario" + i + "@empresa.com",
+                CARGOS[(int) (i % CARGOS.length)], "usuario" + i, senha, perfil);
+    }
+
+    /**
+     * CPF válido derivado de um número: os nove primeiros dígitos vêm do número e os
+     * dois últimos são os dígitos verificadores
+     * @param i Número entre 0 e 999.999.999
+     * @return CPF somente com dígitos
+     */
+    static String cpf(long i) {
+        int[] digitos = new int[11];
+        long resto = i + 1;
+        for (int k = 8; k >= 0; k--) {
+            digitos[k] = (int) (resto % 10);
+            resto /= 10;
+        }
+        digitos[9] = digitoVerificador(digitos, 9);
+        digitos[10] = digitoVerificador(digitos, 10);
+
+        StringBuilder cpf = new StringBuilder(11);
+        for (int digito : digitos) {
+            cpf.append(digito);
+        }
+        return cpf.toString();
+    }
+
+    private static int digitoVerificador(int[] digitos, int quantidade) {
+        int soma = 0;
+        for (int k = 0; k < quantidade; k++) {
+            soma += digitos[k] * (quantidade + 1 - k);
+        }
+        int resto = soma % 11;
+        return resto < 2 ? 0 : 11 - resto;
+    }
+}
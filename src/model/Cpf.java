@@ -0,0 +1,73 @@
+package model;
+
+/**
+ * Validação de CPF pelos dígitos verificadores.
+ *
+ * A pontuação é ignorada: apenas os dígitos contam. A verificação é feita em uma
+ * única passada pelos caracteres, acumulando as duas somas ponderadas, sem criar
+ * textos intermediários.
+ */
+public final class Cpf {
+    // Quantidade de dígitos de um CPF
+    public static final int DIGITOS = 11;
+
+    private Cpf() {
+    }
+
+    /**
+     * Verifica se o texto é um CPF válido
+     * @param cpf CPF com ou sem pontuação
+     * @return true se tiver 11 dígitos, não for uma sequência repetida e os dígitos
+     * verificadores estiverem corretos
+     */
+    public static boolean valido(CharSequence cpf) {
+        if (cpf == null) {
+            return false;
+        }
+
+        int quantidade = 0;
+        int primeiro = -1;
+        boolean repetido = true;
+        int somaPrimeiro = 0;   // nove primeiros dígitos com pesos 10 a 2
+        int somaSegundo = 0;    // dez primeiros dígitos com pesos 11 a 2
+        int verificador1 = 0;
+        int verificador2 = 0;
+
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            if (quantidade == DIGITOS) {
+                return false;
+            }
+            int digito = c - '0';
+            if (primeiro < 0) {
+                primeiro = digito;
+            } else if (digito != primeiro) {
+                repetido = false;
+            }
+
+            if (quantidade < 9) {
+                somaPrimeiro += digito * (10 - quantidade);
+                somaSegundo += digito * (11 - quantidade);
+            } else if (quantidade == 9) {
+                verificador1 = digito;
+                somaSegundo += digito * 2;
+            } else {
+                verificador2 = digito;
+            }
+            quantidade++;
+        }
+
+        return quantidade == DIGITOS
+                && !repetido
+                && verificador1 == digitoVerificador(somaPrimeiro)
+                && verificador2 == digitoVerificador(somaSegundo);
+    }
+
+    private static int digitoVerificador(int soma) {
+        int resto = soma % 11;
+        return resto < 2 ? 0 : 11 - resto;
+    }
+}
@@ -1,30 +1,61 @@
 package model;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * Classe que representa uma Equipe no Sistema de Gestão de Projetos e Equipes.
  */
 public class Equipe {
+    // Capacidade usada quando nenhuma é informada
+    public static final int CAPACIDADE_PADRAO = 10;
+
     // Atributos privados
     private String id;
     private String nome;
     private String descricao;
-    private List<Usuario> membros;
+    private volatile Set<Usuario> membros; // Conjunto imutável, trocado a cada alteração
+    private int capacidadeMaxima;
     private LocalDateTime dataCriacao;
+    private volatile long versao; // Atribuída pelo repositório a cada atualização
 
     // Construtor
     public Equipe(String nome, String descricao) {
+        this(nome, descricao, CAPACIDADE_PADRAO);
+    }
+
+    // Construtor com capacidade máxima de membros
+    public Equipe(String nome, String descricao, int capacidadeMaxima) {
         this.id = UUID.randomUUID().toString(); // Gera ID único
         this.nome = nome;
         this.descricao = descricao;
-        this.membros = new ArrayList<>(); // Inicializa lista de membros
+        this.membros = Collections.emptySet();
+        this.capacidadeMaxima = validarCapacidade(capacidadeMaxima);
         this.dataCriacao = LocalDateTime.now(); // Registra data de criação
     }
 
+    // Construtor usado para restaurar uma equipe já persistida (sem membros)
+    public Equipe(String id, String nome, String descricao, int capacidadeMaxima,
+                  LocalDateTime dataCriacao) {
+        this.id = id;
+        this.nome = nome;
+        this.descricao = descricao;
+        this.membros = Collections.emptySet();
+        this.capacidadeMaxima = validarCapacidade(capacidadeMaxima);
+        this.dataCriacao = dataCriacao;
+    }
+
+    // Construtor de cópia, para alterar a equipe sem mexer na instância gravada
+    public Equipe(Equipe outra) {
+        this(outra.id, outra.nome, outra.descricao, outra.capacidadeMaxima, outra.dataCriacao);
+        this.membros = outra.membros; // Conjunto imutável, pode ser compartilhado
+        this.versao = outra.versao;
+    }
+
     // Getters
     public String getId() {
         return id;
@@ -38,14 +69,22 @@ public class Equipe {
         return descricao;
     }
 
-    public List<Usuario> getMembros() {
-        return new ArrayList<>(membros); // Retorna cópia para evitar modificação direta
+    public Set<Usuario> getMembros() {
+        return membros; // Já é somente leitura; não há cópia na leitura
+    }
+
+    public int getCapacidadeMaxima() {
+        return capacidadeMaxima;
     }
 
     public LocalDateTime getDataCriacao() {
         return dataCriacao;
     }
 
+    public long getVersao() {
+        return versao;
+    }
+
     // Setters
     public void setNome(String nome) {
         this.nome = nome;
@@ -55,15 +94,42 @@ public class Equipe {
         this.descricao = descricao;
     }
 
+    public void setCapacidadeMaxima(int capacidadeMaxima) {
+        this.capacidadeMaxima = validarCapacidade(capacidadeMaxima);
+    }
+
+    // Usado pelo repositório ao gravar uma atualização
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
     // Métodos para gerenciamento de membros
-    public void adicionarMembro(Usuario usuario) {
+    // Copiam o conjunto na escrita (a equipe tem poucos membros) para que as
+    // leituras vejam sempre um conjunto estável sem precisar de travas
+    public synchronized void adicionarMembro(Usuario usuario) {
+        if (membros.contains(usuario)) {
+            return;
+        }
+        Set<Usuario> novos = new LinkedHashSet<>(membros); // Mantém a ordem de entrada dos membros
+        novos.add(usuario);
+        membros = Collections.unmodifiableSet(novos);
+    }
+
+    public synchronized void removerMembro(Usuario usuario) {
         if (!membros.contains(usuario)) {
-            membros.add(usuario);
+            return;
         }
+        Set<Usuario> novos = new LinkedHashSet<>(membros);
+        novos.remove(usuario);
+        membros = Collections.unmodifiableSet(novos);
     }
 
-    public void removerMembro(Usuario usuario) {
-        membros.remove(usuario);
+    // Método para validar a capacidade máxima informada
+    private static int validarCapacidade(int capacidadeMaxima) {
+        if (capacidadeMaxima < 1) {
+            throw new IllegalArgumentException("Capacidade da equipe deve ser de pelo menos 1 membro");
+        }
+        return capacidadeMaxima;
     }
 
     // Método para verificar se usuário é membro
@@ -76,6 +142,11 @@ public class Equipe {
         return membros.size();
     }
 
+    // Método para verificar se a equipe atingiu a capacidade máxima
+    public boolean estaCompleta() {
+        return membros.size() >= capacidadeMaxima;
+    }
+
     // Método para listar gerentes na equipe
     public List<Usuario> listarGerentes() {
         return membros.stream()
@@ -90,6 +161,7 @@ public class Equipe {
                 "id='" + id + '\'' +
                 ", nome='" + nome + '\'' +
                 ", quantidadeMembros=" + quantidadeMembros() +
+                ", capacidadeMaxima=" + capacidadeMaxima +
                 ", dataCriacao=" + dataCriacao +
                 '}';
     }
@@ -0,0 +1,173 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Hash de senhas com PBKDF2 (HMAC-SHA256) e sal aleatório.
+ *
+ * O hash é guardado como texto no formato pbkdf2-sha256$iterações$sal$hash, com sal
+ * e hash em Base64. Como o número de iterações faz parte do texto, ele pode ser
+ * aumentado sem invalidar as senhas já gravadas. Senhas gravadas em texto puro,
+ * antes do hash, continuam sendo aceitas até serem substituídas.
+ *
+ * Um hash com iterações acima do limite da conferência é recusado sem ser
+ * derivado: como as iterações vêm do próprio texto armazenado, sem limite um único
+ * hash forjado ocuparia uma thread de autenticação por minutos.
+ */
+public final class HashSenha {
+    // Iterações recomendadas para PBKDF2 com HMAC-SHA256
+    public static final int ITERACOES_PADRAO = 210_000;
+
+    // Múltiplo das iterações configuradas acima do qual um hash armazenado é recusado
+    public static final int FATOR_ITERACOES_MAXIMAS = 10;
+
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final String PREFIXO = "pbkdf2-sha256$";
+    private static final int BYTES_SAL = 16;
+    private static final int BITS_HASH = 256;
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private HashSenha() {
+    }
+
+    /**
+     * Gera o hash de uma senha com um sal novo
+     * @param senha Senha em texto puro
+     * @param iteracoes Quantidade de iterações do PBKDF2
+     * @return Hash no formato pbkdf2-sha256$iterações$sal$hash
+     */
+    public static String gerar(String senha, int iteracoes) {
+        if (iteracoes < 1) {
+            throw new IllegalArgumentException("Quantidade de iterações deve ser de pelo menos 1");
+        }
+        byte[] sal = new byte[BYTES_SAL];
+        ALEATORIO.nextBytes(sal);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIXO + iteracoes + '$' + base64.encodeToString(sal) + '$'
+                + base64.encodeToString(derivar(senha, sal, iteracoes, BITS_HASH));
+    }
+
+    /**
+     * Confere uma senha digitada com a senha armazenada, em tempo que não depende
+     * de quantos caracteres coincidem, aceitando hashes de até
+     * {@link #iteracoesMaximas(int)} das iterações padrão
+     * @param armazenada Hash (ou, em dados antigos, a senha em texto puro)
+     * @param senha Senha digitada
+     * @return boolean indicando se a senha está correta
+     */
+    public static boolean confere(String armazenada, String senha) {
+        return confere(armazenada, senha, iteracoesMaximas(ITERACOES_PADRAO));
+    }
+
+    /**
+     * Confere uma senha digitada com a senha armazenada, em tempo que não depende
+     * de quantos caracteres coincidem
+     * @param armazenada Hash (ou, em dados antigos, a senha em texto puro)
+     * @param senha Senha digitada
+     * @param iteracoesMaximas Iterações acima das quais o hash é recusado sem ser derivado
+     * @return boolean indicando se a senha está correta
+     */
+    public static boolean confere(String armazenada, String senha, int iteracoesMaximas) {
+        if (armazenada == null || senha == null) {
+            return false;
+        }
+        if (!ehHash(armazenada)) {
+            return MessageDigest.isEqual(armazenada.getBytes(StandardCharsets.UTF_8),
+                    senha.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] partes = partes(armazenada, iteracoesMaximas);
+        if (partes == null) {
+            return false;
+        }
+        byte[] sal = Base64.getDecoder().decode(partes[1]);
+        byte[] esperado = Base64.getDecoder().decode(partes[2]);
+        return MessageDigest.isEqual(esperado, derivar(senha, sal, Integer.parseInt(partes[0]), esperado.length * 8));
+    }
+
+    /**
+     * Indica se o texto é um hash bem formado, com no máximo as iterações informadas
+     * @param armazenada Texto a ser verificado
+     * @param iteracoesMaximas Quantidade máxima de iterações aceita
+     * @return true se o hash pode ser conferido
+     */
+    public static boolean hashValido(String armazenada, int iteracoesMaximas) {
+        return ehHash(armazenada) && partes(armazenada, iteracoesMaximas) != null;
+    }
+
+    /**
+     * Limite de iterações aceito em um hash armazenado
+     * @param iteracoes Iterações configuradas para as senhas novas
+     * @return {@link #FATOR_ITERACOES_MAXIMAS} vezes as iterações configuradas
+     */
+    public static int iteracoesMaximas(int iteracoes) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) iteracoes * FATOR_ITERACOES_MAXIMAS);
+    }
+
+    /**
+     * Separa iterações, sal e hash, conferindo o formato e o limite de iterações
+     * @return Partes do hash, ou null se ele for inválido
+     */
+    private static String[] partes(String armazenada, int iteracoesMaximas) {
+        String[] partes = armazenada.substring(PREFIXO.length()).split("\\$");
+        if (partes.length != 3) {
+            return null;
+        }
+        try {
+            int iteracoes = Integer.parseInt(partes[0]);
+            Base64.getDecoder().decode(partes[1]);
+            if (iteracoes < 1 || iteracoes > iteracoesMaximas || Base64.getDecoder().decode(partes[2]).length == 0) {
+                return null;
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Indica se o texto armazenado é um hash gerado por esta classe
+     * @param armazenada Senha armazenada
+     * @return true se for um hash, false se for texto puro
+     */
+    public static boolean ehHash(String armazenada) {
+        return armazenada != null && armazenada.startsWith(PREFIXO);
+    }
+
+    /**
+     * Indica se a senha armazenada deve ser refeita: texto puro ou hash com menos
+     * iterações que as desejadas
+     * @param armazenada Senha armazenada
+     * @param iteracoes Quantidade de iterações desejada
+     * @return true se o hash deve ser gerado novamente
+     */
+    public static boolean precisaAtualizar(String armazenada, int iteracoes) {
+        if (!ehHash(armazenada)) {
+            return true;
+        }
+        int fim = armazenada.indexOf('$', PREFIXO.length());
+        try {
+            return fim < 0 || Integer.parseInt(armazenada.substring(PREFIXO.length(), fim)) < iteracoes;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static byte[] derivar(String senha, byte[] sal, int iteracoes, int bits) {
+        PBEKeySpec especificacao = new PBEKeySpec(senha.toCharArray(), sal, iteracoes, bits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO).generateSecret(especificacao).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 indisponível", e);
+        } finally {
+            especificacao.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Classe que representa um período entre duas datas, com as extremidades incluídas.
+ */
+public final class Periodo {
+    private final LocalDate inicio;
+    private final LocalDate fim;
+
+    // Construtor
+    public Periodo(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) {
+            throw new IllegalArgumentException("Datas do período não podem ser nulas");
+        }
+        if (inicio.isAfter(fim)) {
+            throw new IllegalArgumentException("Data inicial não pode ser posterior à data final");
+        }
+        this.inicio = inicio;
+        this.fim = fim;
+    }
+
+    // Getters
+    public LocalDate getInicio() {
+        return inicio;
+    }
+
+    public LocalDate getFim() {
+        return fim;
+    }
+
+    // Sobrescrita do método toString
+    @Override
+    public String toString() {
+        return "Periodo{" +
+                "inicio=" + inicio +
+                ", fim=" + fim +
+                '}';
+    }
+
+    // Método equals para comparação
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Periodo periodo = (Periodo) o;
+        return inicio.equals(periodo.inicio) && fim.equals(periodo.fim);
+    }
+
+    // Método hashCode para uso em coleções
+    @Override
+    public int hashCode() {
+        return Objects.hash(inicio, fim);
+    }
+}
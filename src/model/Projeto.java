@@ -12,6 +12,7 @@ public class Projeto {
     private LocalDate dataTerminoPrevista;
     private Status status;
     private Usuario gerente;
+    private volatile long versao; // Atribuída pelo repositório a cada atualização
 
     public enum Status {
         PLANEJADO,
@@ -32,6 +33,25 @@ public class Projeto {
         this.status = Status.PLANEJADO; // Status inicial
     }
 
+    // Construtor usado para restaurar um projeto já persistido
+    public Projeto(String id, String nome, String descricao, LocalDate dataInicio,
+                   LocalDate dataTerminoPrevista, Status status, Usuario gerente) {
+        this.id = id;
+        this.nome = nome;
+        this.descricao = descricao;
+        this.dataInicio = dataInicio;
+        this.dataTerminoPrevista = dataTerminoPrevista;
+        this.status = status;
+        this.gerente = gerente;
+    }
+
+    // Construtor de cópia, para alterar o projeto sem mexer na instância gravada
+    public Projeto(Projeto outro) {
+        this(outro.id, outro.nome, outro.descricao, outro.dataInicio, outro.dataTerminoPrevista,
+                outro.status, outro.gerente);
+        this.versao = outro.versao;
+    }
+
     // Getters
     public String getId() {
         return id;
@@ -61,6 +81,10 @@ public class Projeto {
         return gerente;
     }
 
+    public long getVersao() {
+        return versao;
+    }
+
     // Setters
     public void setNome(String nome) {
         this.nome = nome;
@@ -82,10 +106,24 @@ public class Projeto {
         this.gerente = gerente;
     }
 
+    // Usado pelo repositório ao gravar uma atualização
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
+    // Método para verificar se o projeto foi concluído ou cancelado
+    public boolean estaEncerrado() {
+        return status == Status.CONCLUIDO || status == Status.CANCELADO;
+    }
+
     // Método para verificar se o projeto está atrasado
     public boolean estaAtrasado() {
-        return status != Status.CONCLUIDO &&
-                LocalDate.now().isAfter(dataTerminoPrevista);
+        return estaAtrasado(LocalDate.now());
+    }
+
+    // Método para verificar se o projeto está atrasado em relação a uma data de referência
+    public boolean estaAtrasado(LocalDate hoje) {
+        return !estaEncerrado() && hoje.isAfter(dataTerminoPrevista);
     }
 
     // Método para calcular duração prevista do projeto
@@ -100,7 +138,7 @@ public class Projeto {
                 "id='" + id + '\'' +
                 ", nome='" + nome + '\'' +
                 ", status=" + status +
-                ", gerente=" + gerente.getNomeCompleto() +
+                ", gerente=" + (gerente != null ? gerente.getNomeCompleto() : null) +
                 ", dataInicio=" + dataInicio +
                 ", dataTerminoPrevista=" + dataTerminoPrevista +
                 '}';
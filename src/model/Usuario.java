@@ -14,6 +14,7 @@ public class Usuario {
     private String senha;
     private Perfil perfil;
     private LocalDateTime dataCriacao;
+    private volatile long versao; // Atribuída pelo repositório a cada atualização
 
     // Construtor
     public Usuario(String nomeCompleto, String cpf, String email,
@@ -29,6 +30,27 @@ public class Usuario {
         this.dataCriacao = LocalDateTime.now(); // Registra data de criação
     }
 
+    // Construtor usado para restaurar um usuário já persistido
+    public Usuario(String id, String nomeCompleto, String cpf, String email, String cargo,
+                   String login, String senha, Perfil perfil, LocalDateTime dataCriacao) {
+        this.id = id;
+        this.nomeCompleto = nomeCompleto;
+        this.cpf = cpf;
+        this.email = email;
+        this.cargo = cargo;
+        this.login = login;
+        this.senha = senha;
+        this.perfil = perfil;
+        this.dataCriacao = dataCriacao;
+    }
+
+    // Construtor de cópia, para alterar o usuário sem mexer na instância gravada
+    public Usuario(Usuario outro) {
+        this(outro.id, outro.nomeCompleto, outro.cpf, outro.email, outro.cargo,
+                outro.login, outro.senha, outro.perfil, outro.dataCriacao);
+        this.versao = outro.versao;
+    }
+
     // Getters
     public String getId() {
         return id;
@@ -66,6 +88,10 @@ public class Usuario {
         return dataCriacao;
     }
 
+    public long getVersao() {
+        return versao;
+    }
+
     // Setters para campos que podem ser atualizados
     public void setEmail(String email) {
         this.email = email;
@@ -83,13 +109,14 @@ public class Usuario {
         this.perfil = perfil;
     }
 
-    // Método para validar CPF (implementação simples)
-    public boolean validarCPF() {
-        // Remove caracteres não numéricos
-        String cpfLimpo = cpf.replaceAll("[^0-9]", "");
+    // Usado pelo repositório ao gravar uma atualização
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
 
-        // Verifica se tem 11 dígitos
-        return cpfLimpo.length() == 11;
+    // Método para validar CPF pelos dígitos verificadores (ver Cpf)
+    public boolean validarCPF() {
+        return Cpf.valido(cpf);
     }
 
     // Método toString para representação em texto
@@ -104,7 +131,23 @@ public class Usuario {
                 '}';
     }
 
+    // Confere a senha digitada com o hash armazenado (ver HashSenha)
     public boolean verificarSenha(String senhaDigitada) {
-        return this.senha.equals(senhaDigitada);
+        return HashSenha.confere(this.senha, senhaDigitada);
+    }
+
+    // Método equals para comparação (usuários são identificados pelo ID)
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Usuario usuario = (Usuario) o;
+        return id.equals(usuario.id);
+    }
+
+    // Método hashCode para uso em coleções
+    @Override
+    public int hashCode() {
+        return id.hashCode();
     }
 }
@@ -0,0 +1,476 @@
+package repository;
+
+import model.Equipe;
+import model.Projeto;
+import model.Usuario;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Armazenamento persistente dos repositórios de usuários, projetos e equipes.
+ *
+ * O diretório de dados guarda o log de escrita, dividido em segmentos numerados
+ * (gestao-N.wal), e snapshots do estado completo (gestao-N.snap), no formato
+ * definido em {@link ConfiguracaoLog#getFormatoSnapshot()}. O snapshot N
+ * cobre todos os segmentos anteriores a N. Ao abrir, carrega o snapshot mais
+ * recente e reproduz apenas os segmentos a partir dele; a partir daí, toda
+ * alteração aplicada aos repositórios é acrescentada ao log antes de ser
+ * confirmada em disco pela thread de sincronização.
+ *
+ * Snapshots são gerados em segundo plano conforme a {@link ConfiguracaoLog}, ou sob
+ * demanda por {@link #gerarSnapshot()}, sem bloquear as escritas nos repositórios.
+ */
+public class ArmazenamentoPersistente implements AutoCloseable {
+    // Nomes dos arquivos dentro do diretório de dados
+    private static final String PREFIXO = "gestao-";
+    private static final String EXTENSAO_LOG = ".wal";
+    private static final String EXTENSAO_SNAPSHOT = ".snap";
+    private static final String EXTENSAO_TEMPORARIO = ".tmp";
+    private static final Pattern NOME_ARQUIVO = Pattern.compile("gestao-(\\d{16})(\\.wal|\\.snap)");
+
+    // Log em arquivo único, anterior à divisão em segmentos
+    private static final String ARQUIVO_LOG_ANTIGO = "gestao.wal";
+
+    private final Path diretorio;
+    private final ConfiguracaoLog configuracao;
+    private final UsuarioRepository usuarioRepository;
+    private final ProjetoRepository projetoRepository;
+    private final EquipeRepository equipeRepository;
+    private final LogEscrita log;
+
+    // Geração de snapshots: um por vez, protegida por "travaSnapshot"
+    private final Object travaSnapshot = new Object();
+    private final ScheduledExecutorService agendador;
+    private long segmentoAtual;
+
+    // Estatísticas da recuperação feita na abertura
+    private long registrosSnapshot;
+    private long registrosReproduzidos;
+    private long tempoRecuperacaoNanos;
+
+    private ArmazenamentoPersistente(Path diretorio, ConfiguracaoLog configuracao) throws IOException {
+        this.diretorio = diretorio;
+        this.configuracao = configuracao;
+        this.usuarioRepository = new UsuarioRepository();
+        this.projetoRepository = new ProjetoRepository();
+        this.equipeRepository = new EquipeRepository();
+
+        Files.createDirectories(diretorio);
+        migrarLogAntigo();
+
+        long inicio = System.nanoTime();
+        usuarioRepository.adiarIndices();
+        projetoRepository.adiarIndices();
+        equipeRepository.adiarIndices();
+        long base = 0;
+        List<Long> snapshots = numerosDosArquivos(EXTENSAO_SNAPSHOT);
+        if (!snapshots.isEmpty()) {
+            base = snapshots.get(snapshots.size() - 1);
+            registrosSnapshot = carregarSnapshot(arquivo(base, EXTENSAO_SNAPSHOT));
+        }
+
+        List<Long> segmentos = new ArrayList<>();
+        for (long numero : numerosDosArquivos(EXTENSAO_LOG)) {
+            if (numero >= base) {
+                segmentos.add(numero);
+            }
+        }
+        if (segmentos.isEmpty()) {
+            segmentos.add(base);
+        }
+
+        // Apenas o último segmento pode terminar em um registro incompleto
+        long tamanhoValido = 0;
+        for (int i = 0; i < segmentos.size(); i++) {
+            Path segmento = arquivo(segmentos.get(i), EXTENSAO_LOG);
+            long antes = registrosReproduzidos;
+            tamanhoValido = LogEscrita.reproduzir(segmento, (tipo, leitor) -> {
+                registrosReproduzidos++;
+                aplicar(tipo, leitor);
+            });
+            if (i < segmentos.size() - 1 && tamanhoValido != Files.size(segmento)) {
+                throw new IOException("Segmento do log corrompido: " + segmento
+                        + " (" + (registrosReproduzidos - antes) + " registros válidos)");
+            }
+        }
+        usuarioRepository.reconstruirIndices();
+        projetoRepository.reconstruirIndices();
+        equipeRepository.reconstruirIndices();
+        this.tempoRecuperacaoNanos = System.nanoTime() - inicio;
+
+        // Só registra o log como ouvinte depois da recuperação, para não regravar o histórico
+        this.segmentoAtual = segmentos.get(segmentos.size() - 1);
+        this.log = new LogEscrita(arquivo(segmentoAtual, EXTENSAO_LOG), tamanhoValido, configuracao);
+        usuarioRepository.registrarOuvinte(log);
+        projetoRepository.registrarOuvinte(log);
+        equipeRepository.registrarOuvinte(log);
+
+        descartarArquivosAnteriores(base);
+
+        if (configuracao.getIntervaloSnapshotMillis() > 0) {
+            this.agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "snapshot-" + diretorio.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.agendador.scheduleWithFixedDelay(this::gerarSnapshotPeriodico,
+                    configuracao.getIntervaloSnapshotMillis(), configuracao.getIntervaloSnapshotMillis(),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.agendador = null;
+        }
+    }
+
+    /**
+     * Abre o armazenamento com a configuração padrão do log
+     * @param diretorio Diretório de dados (criado se não existir)
+     * @return Armazenamento com o estado recuperado
+     * @throws IOException em caso de erro de leitura ou escrita
+     */
+    public static ArmazenamentoPersistente abrir(Path diretorio) throws IOException {
+        return abrir(diretorio, ConfiguracaoLog.padrao());
+    }
+
+    /**
+     * Abre o armazenamento
+     * @param diretorio Diretório de dados (criado se não existir)
+     * @param configuracao Configuração do log de escrita
+     * @return Armazenamento com o estado recuperado
+     * @throws IOException em caso de erro de leitura ou escrita
+     */
+    public static ArmazenamentoPersistente abrir(Path diretorio, ConfiguracaoLog configuracao) throws IOException {
+        return new ArmazenamentoPersistente(diretorio, configuracao);
+    }
+
+    // Getters
+    public UsuarioRepository getUsuarioRepository() {
+        return usuarioRepository;
+    }
+
+    public ProjetoRepository getProjetoRepository() {
+        return projetoRepository;
+    }
+
+    public EquipeRepository getEquipeRepository() {
+        return equipeRepository;
+    }
+
+    public long getRegistrosSnapshot() {
+        return registrosSnapshot;
+    }
+
+    public long getRegistrosReproduzidos() {
+        return registrosReproduzidos;
+    }
+
+    public long getTempoRecuperacaoNanos() {
+        return tempoRecuperacaoNanos;
+    }
+
+    /**
+     * Grava um snapshot do estado atual e descarta os segmentos do log cobertos por ele.
+     * As escritas nos repositórios continuam durante a gravação.
+     * @return Quantidade de registros gravados no snapshot
+     * @throws IOException em caso de erro de escrita
+     */
+    public long gerarSnapshot() throws IOException {
+        synchronized (travaSnapshot) {
+            // A partir daqui, toda alteração vai para o novo segmento
+            long numero = segmentoAtual + 1;
+            log.rotacionar(arquivo(numero, EXTENSAO_LOG));
+            segmentoAtual = numero;
+
+            Path snapshot = arquivo(numero, EXTENSAO_SNAPSHOT);
+            long registros = configuracao.getFormatoSnapshot() == FormatoSnapshot.MAPEADO
+                    ? SnapshotMapeado.gravar(snapshot, usuarioRepository, projetoRepository, equipeRepository)
+                    : ArquivoSnapshot.gravar(snapshot, usuarioRepository, projetoRepository, equipeRepository);
+            descartarArquivosAnteriores(numero);
+            return registros;
+        }
+    }
+
+    /**
+     * Tarefa periódica: gera um snapshot se o log cresceu o suficiente desde o último
+     */
+    private void gerarSnapshotPeriodico() {
+        if (log.getTamanhoSegmento() < Math.max(1, configuracao.getTamanhoMinimoSnapshot())) {
+            return;
+        }
+        try {
+            gerarSnapshot();
+        } catch (IOException | RuntimeException e) {
+            // O log continua completo; a próxima execução tenta novamente
+            System.err.println("Erro ao gerar snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Interrompe os snapshots periódicos, grava o que estiver pendente no log e fecha o arquivo
+     * @throws IOException em caso de erro na gravação final
+     */
+    @Override
+    public void close() throws IOException {
+        if (agendador != null) {
+            agendador.shutdown();
+        }
+        // Aguarda um snapshot em andamento antes de fechar o log
+        synchronized (travaSnapshot) {
+            log.close();
+        }
+    }
+
+    /**
+     * Carrega um snapshot nos repositórios vazios, em qualquer um dos formatos
+     * @param arquivo Arquivo do snapshot
+     * @return Quantidade de registros carregados
+     * @throws IOException se o snapshot não puder ser lido ou for inválido
+     */
+    private long carregarSnapshot(Path arquivo) throws IOException {
+        if (!SnapshotMapeado.reconhecer(arquivo)) {
+            return ArquivoSnapshot.carregar(arquivo, this::aplicar);
+        }
+
+        // Materializa as entidades direto do arquivo mapeado, sem passar pelo formato de registros
+        SnapshotMapeado snapshot = SnapshotMapeado.abrir(arquivo);
+        SnapshotMapeado.VisaoUsuario usuario = snapshot.visaoUsuario();
+        for (int i = 0; i < snapshot.quantidadeUsuarios(); i++) {
+            Usuario lido = usuario.posicionar(i).materializar();
+            exigir(usuarioRepository.adicionar(lido), "usuário", lido.getId());
+        }
+        SnapshotMapeado.VisaoProjeto projeto = snapshot.visaoProjeto();
+        for (int i = 0; i < snapshot.quantidadeProjetos(); i++) {
+            Projeto lido = projeto.posicionar(i).materializar(id -> usuarioRepository.buscarPorId(id).orElse(null));
+            exigir(projetoRepository.adicionar(lido), "projeto", lido.getId());
+        }
+        SnapshotMapeado.VisaoEquipe equipe = snapshot.visaoEquipe();
+        for (int i = 0; i < snapshot.quantidadeEquipes(); i++) {
+            Equipe lida = equipe.posicionar(i).materializar();
+            exigir(equipeRepository.adicionar(lida), "equipe", lida.getId());
+        }
+
+        // Os membros de cada equipe são gravados em sequência: o índice reverso é
+        // atualizado uma vez por equipe, e não a cada membro
+        SnapshotMapeado.VisaoMembro membro = snapshot.visaoMembro();
+        Equipe atual = null;
+        for (int i = 0; i < snapshot.quantidadeMembros(); i++) {
+            membro.posicionar(i);
+            Optional<Equipe> daVez = equipeRepository.buscarPorId(membro.getIdEquipe());
+            if (daVez.isEmpty()) {
+                continue;
+            }
+            if (atual != daVez.get()) {
+                if (atual != null) {
+                    equipeRepository.restaurar(atual);
+                }
+                atual = daVez.get();
+            }
+            Equipe destino = atual;
+            usuarioRepository.buscarPorId(membro.getIdUsuario()).ifPresent(destino::adicionarMembro);
+        }
+        if (atual != null) {
+            equipeRepository.restaurar(atual);
+        }
+
+        return (long) snapshot.quantidadeUsuarios() + snapshot.quantidadeProjetos()
+                + snapshot.quantidadeEquipes() + snapshot.quantidadeMembros();
+    }
+
+    /**
+     * Renomeia o log em arquivo único para o primeiro segmento
+     * @throws IOException em caso de erro ao renomear
+     */
+    private void migrarLogAntigo() throws IOException {
+        Path antigo = diretorio.resolve(ARQUIVO_LOG_ANTIGO);
+        if (Files.exists(antigo) && numerosDosArquivos(EXTENSAO_LOG).isEmpty()) {
+            Files.move(antigo, arquivo(0, EXTENSAO_LOG), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Remove os segmentos e snapshots já cobertos pelo snapshot informado e
+     * temporários de snapshots interrompidos
+     * @param base Número do snapshot mais recente
+     * @throws IOException em caso de erro ao listar o diretório
+     */
+    private void descartarArquivosAnteriores(long base) throws IOException {
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, PREFIXO + "*")) {
+            for (Path caminho : arquivos) {
+                String nome = caminho.getFileName().toString();
+                Matcher matcher = NOME_ARQUIVO.matcher(nome);
+                boolean coberto = matcher.matches() && Long.parseLong(matcher.group(1)) < base;
+                boolean temporario = nome.endsWith(EXTENSAO_SNAPSHOT + EXTENSAO_TEMPORARIO);
+                if (coberto || temporario) {
+                    Files.deleteIfExists(caminho);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lista os números dos arquivos de um tipo, em ordem crescente
+     * @param extensao Extensão dos arquivos (log ou snapshot)
+     * @return Números encontrados
+     * @throws IOException em caso de erro ao listar o diretório
+     */
+    private List<Long> numerosDosArquivos(String extensao) throws IOException {
+        List<Long> numeros = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, PREFIXO + "*" + extensao)) {
+            for (Path caminho : arquivos) {
+                Matcher matcher = NOME_ARQUIVO.matcher(caminho.getFileName().toString());
+                if (matcher.matches()) {
+                    numeros.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(numeros);
+        return numeros;
+    }
+
+    private Path arquivo(long numero, String extensao) {
+        return diretorio.resolve(String.format("%s%016d%s", PREFIXO, numero, extensao));
+    }
+
+    /**
+     * Aplica um registro do log aos repositórios durante a recuperação
+     * @param tipo Tipo do registro
+     * @param leitor Leitor posicionado nos dados do registro
+     */
+    private void aplicar(int tipo, LeitorBinario leitor) {
+        switch (tipo) {
+            case LogEscrita.USUARIO_GRAVADO:
+                restaurarUsuario(CodificadorEntidades.lerUsuario(leitor));
+                break;
+            case LogEscrita.USUARIO_REMOVIDO:
+                usuarioRepository.removerPorId(leitor.lerTexto());
+                break;
+            case LogEscrita.PROJETO_GRAVADO:
+                restaurarProjeto(CodificadorEntidades.lerProjeto(leitor,
+                        id -> usuarioRepository.buscarPorId(id).orElse(null)));
+                break;
+            case LogEscrita.PROJETO_REMOVIDO:
+                projetoRepository.removerPorId(leitor.lerTexto());
+                break;
+            case LogEscrita.EQUIPE_GRAVADA:
+                restaurarEquipe(CodificadorEntidades.lerEquipe(leitor));
+                break;
+            case LogEscrita.EQUIPE_REMOVIDA:
+                equipeRepository.removerPorId(leitor.lerTexto());
+                break;
+            case LogEscrita.MEMBRO_ADICIONADO:
+            case LogEscrita.MEMBRO_REMOVIDO:
+                restaurarMembro(tipo == LogEscrita.MEMBRO_ADICIONADO, leitor.lerTexto(), leitor.lerTexto());
+                break;
+            default:
+                throw new IllegalStateException("Tipo de registro desconhecido no log: " + tipo);
+        }
+    }
+
+    /**
+     * Restaura um usuário. O repositório guarda cópias, e as equipes e os projetos
+     * carregados referenciam cópias próprias, como as gravadas fora da recuperação.
+     * @param lido Usuário lido do log
+     */
+    private void restaurarUsuario(Usuario lido) {
+        if (usuarioRepository.buscarPorId(lido.getId()).isEmpty()) {
+            exigir(usuarioRepository.adicionar(lido), "usuário", lido.getId());
+        } else {
+            exigir(usuarioRepository.atualizar(lido), "usuário", lido.getId());
+        }
+    }
+
+    /**
+     * Restaura um projeto, aproveitando o objeto já carregado quando possível
+     * @param lido Projeto lido do log
+     */
+    private void restaurarProjeto(Projeto lido) {
+        Optional<Projeto> existente = projetoRepository.buscarPorId(lido.getId());
+        if (existente.isEmpty()) {
+            exigir(projetoRepository.adicionar(lido), "projeto", lido.getId());
+            return;
+        }
+
+        Projeto projeto = existente.get();
+        if (Objects.equals(projeto.getDataInicio(), lido.getDataInicio())) {
+            projeto.setNome(lido.getNome());
+            projeto.setDescricao(lido.getDescricao());
+            projeto.setDataTerminoPrevista(lido.getDataTerminoPrevista());
+            projeto.setStatus(lido.getStatus());
+            projeto.setGerente(lido.getGerente());
+            exigir(projetoRepository.atualizar(projeto), "projeto", lido.getId());
+        } else {
+            exigir(projetoRepository.atualizar(lido), "projeto", lido.getId());
+        }
+    }
+
+    /**
+     * Restaura os dados de uma equipe, preservando os membros já carregados
+     * @param lida Equipe lida do log (sem membros)
+     */
+    private void restaurarEquipe(Equipe lida) {
+        Optional<Equipe> existente = equipeRepository.buscarPorId(lida.getId());
+        if (existente.isEmpty()) {
+            exigir(equipeRepository.adicionar(lida), "equipe", lida.getId());
+            return;
+        }
+
+        Equipe equipe = existente.get();
+        equipe.setNome(lida.getNome());
+        equipe.setDescricao(lida.getDescricao());
+        equipe.setCapacidadeMaxima(lida.getCapacidadeMaxima());
+        exigir(equipeRepository.restaurar(equipe), "equipe", lida.getId());
+    }
+
+    /**
+     * Interrompe a recuperação quando um registro não pode ser aplicado, em vez de
+     * descartar a entidade. Durante a recuperação os repositórios não conferem nomes,
+     * CPFs e logins, pois o snapshot pode ter copiado uma entidade antes e outra
+     * depois de a mesma chave trocar de dono; a unicidade é conferida por
+     * reconstruirIndices, depois de reproduzido o final do log. Assim, isso só
+     * acontece com um log ou snapshot inconsistente.
+     * @param aplicado Resultado da gravação no repositório
+     * @param entidade Tipo da entidade, para a mensagem
+     * @param id ID da entidade
+     * @throws IllegalStateException se o registro não foi aplicado
+     */
+    private static void exigir(boolean aplicado, String entidade, String id) {
+        if (!aplicado) {
+            throw new IllegalStateException("Registro inconsistente no log ou snapshot: "
+                    + entidade + " " + id + " não pôde ser restaurado");
+        }
+    }
+
+    /**
+     * Restaura a entrada ou saída de um membro. A capacidade da equipe não é
+     * verificada, pois a alteração já foi aceita quando foi registrada.
+     * @param adicionado true para entrada, false para saída
+     * @param idEquipe ID da equipe
+     * @param idUsuario ID do usuário
+     */
+    private void restaurarMembro(boolean adicionado, String idEquipe, String idUsuario) {
+        Optional<Equipe> equipe = equipeRepository.buscarPorId(idEquipe);
+        Optional<Usuario> usuario = usuarioRepository.buscarPorId(idUsuario);
+        if (equipe.isEmpty() || usuario.isEmpty()) {
+            return;
+        }
+        if (adicionado) {
+            equipe.get().adicionarMembro(usuario.get());
+        } else {
+            equipe.get().removerMembro(usuario.get());
+        }
+        equipeRepository.restaurar(equipe.get());
+    }
+}
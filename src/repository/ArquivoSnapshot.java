@@ -0,0 +1,133 @@
+package repository;
+
+import model.Equipe;
+import model.Projeto;
+import model.Usuario;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Snapshot do estado completo dos repositórios.
+ *
+ * Usa o mesmo formato de registros do log de escrita: um registro por usuário,
+ * projeto e equipe, um por membro de cada equipe e, por fim, um registro de
+ * encerramento com a quantidade de registros gravados. O arquivo é gravado em um
+ * temporário e renomeado atomicamente, de modo que um snapshot visível está sempre
+ * completo.
+ *
+ * A leitura dos repositórios não usa travas: cada entidade é copiada no estado em que
+ * estiver no momento da leitura. Como o log é rotacionado antes do snapshot, toda
+ * alteração feita durante a gravação também está no novo segmento do log, e a
+ * reprodução desse segmento sobre o snapshot chega ao estado final. O snapshot em si
+ * pode não ser um estado válido: se um nome, CPF ou login for liberado e tomado por
+ * outra entidade durante a cópia, as duas podem aparecer com a mesma chave. Por isso
+ * a recuperação só confere a unicidade depois de reproduzir o log.
+ */
+final class ArquivoSnapshot {
+    // Tamanho a partir do qual o conteúdo acumulado é gravado no arquivo
+    static final int TAMANHO_BLOCO = 256 * 1024;
+
+    private ArquivoSnapshot() {
+    }
+
+    /**
+     * Grava o estado atual dos repositórios
+     * @param arquivo Arquivo de destino
+     * @param usuarioRepository Repositório de usuários
+     * @param projetoRepository Repositório de projetos
+     * @param equipeRepository Repositório de equipes
+     * @return Quantidade de registros gravados
+     * @throws IOException em caso de erro de escrita
+     */
+    static long gravar(Path arquivo, UsuarioRepository usuarioRepository,
+                       ProjetoRepository projetoRepository, EquipeRepository equipeRepository) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        long registros = 0;
+
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            EscritorBinario escritor = new EscritorBinario(TAMANHO_BLOCO * 2);
+
+            // Usuários primeiro, pois projetos e equipes fazem referência a eles
+            for (Usuario usuario : usuarioRepository.listarTodos()) {
+                LogEscrita.escreverRegistro(escritor, LogEscrita.USUARIO_GRAVADO,
+                        e -> CodificadorEntidades.escreverUsuario(e, usuario));
+                registros++;
+                descarregarSeCheio(canal, escritor);
+            }
+            for (Projeto projeto : projetoRepository.listarTodos()) {
+                LogEscrita.escreverRegistro(escritor, LogEscrita.PROJETO_GRAVADO,
+                        e -> CodificadorEntidades.escreverProjeto(e, projeto));
+                registros++;
+                descarregarSeCheio(canal, escritor);
+            }
+            for (Equipe equipe : equipeRepository.listarTodas()) {
+                LogEscrita.escreverRegistro(escritor, LogEscrita.EQUIPE_GRAVADA,
+                        e -> CodificadorEntidades.escreverEquipe(e, equipe));
+                registros++;
+                for (Usuario membro : equipe.getMembros()) {
+                    LogEscrita.escreverRegistro(escritor, LogEscrita.MEMBRO_ADICIONADO, e -> {
+                        e.escreverTexto(equipe.getId());
+                        e.escreverTexto(membro.getId());
+                    });
+                    registros++;
+                }
+                descarregarSeCheio(canal, escritor);
+            }
+
+            long total = registros;
+            LogEscrita.escreverRegistro(escritor, LogEscrita.FIM_SNAPSHOT, e -> e.escreverLong(total));
+            descarregar(canal, escritor);
+            canal.force(true);
+        }
+
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return registros;
+    }
+
+    /**
+     * Lê um snapshot, entregando os registros ao aplicador na ordem em que foram gravados
+     * @param arquivo Arquivo do snapshot
+     * @param aplicador Função que recebe o tipo e os dados de cada registro
+     * @return Quantidade de registros lidos
+     * @throws IOException se o arquivo não puder ser lido ou estiver incompleto
+     */
+    static long carregar(Path arquivo, LogEscrita.AplicadorRegistros aplicador) throws IOException {
+        long[] lidos = {0};
+        long[] esperados = {-1};
+        long validos = LogEscrita.reproduzir(arquivo, (tipo, leitor) -> {
+            if (tipo == LogEscrita.FIM_SNAPSHOT) {
+                esperados[0] = leitor.lerLong();
+            } else {
+                lidos[0]++;
+                aplicador.aplicar(tipo, leitor);
+            }
+        });
+
+        if (validos != Files.size(arquivo) || esperados[0] != lidos[0]) {
+            throw new IOException("Snapshot incompleto ou corrompido: " + arquivo);
+        }
+        return lidos[0];
+    }
+
+    static void descarregarSeCheio(FileChannel canal, EscritorBinario escritor) throws IOException {
+        if (escritor.posicao() >= TAMANHO_BLOCO) {
+            descarregar(canal, escritor);
+        }
+    }
+
+    static void descarregar(FileChannel canal, EscritorBinario escritor) throws IOException {
+        ByteBuffer buffer = escritor.buffer();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        escritor.limpar();
+    }
+}
@@ -0,0 +1,141 @@
+package repository;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Normalização das chaves usadas nos índices dos repositórios.
+ */
+final class Chaves {
+
+    private Chaves() {
+    }
+
+    /**
+     * Normaliza um CPF mantendo apenas os dígitos
+     * @param cpf CPF informado, com ou sem pontuação
+     * @return CPF somente com dígitos, ou null se o CPF for nulo
+     */
+    static String cpf(String cpf) {
+        if (cpf == null) {
+            return null;
+        }
+        StringBuilder digitos = new StringBuilder(11);
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
+    }
+
+    /**
+     * Normaliza um login para comparação
+     * @param login Login informado
+     * @return Login sem espaços nas bordas e em minúsculas, ou null se o login for nulo
+     */
+    static String login(String login) {
+        if (login == null) {
+            return null;
+        }
+        return login.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normaliza um nome para comparação sem diferenciar maiúsculas de minúsculas.
+     * Usa Locale.ROOT para que o resultado não dependa do idioma da máquina.
+     * @param nome Nome informado
+     * @return Nome convertido para a forma de comparação, ou null se o nome for nulo
+     */
+    static String nome(String nome) {
+        if (nome == null) {
+            return null;
+        }
+        return nome.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Inclui uma chave ao montar um índice único a partir das entidades recuperadas
+     * @param indice Índice único em montagem
+     * @param chave Chave normalizada
+     * @param id ID da entidade
+     * @param campo Nome do campo, para a mensagem
+     * @throws IllegalStateException se a chave já pertence a outra entidade
+     */
+    static void exigirUnica(Map<String, String> indice, String chave, String id, String campo) {
+        String dono = indice.putIfAbsent(chave, id);
+        if (dono != null && !dono.equals(id)) {
+            throw new IllegalStateException("Registro inconsistente no log ou snapshot: "
+                    + campo + " " + chave + " pertence a " + dono + " e a " + id);
+        }
+    }
+
+    /**
+     * Normaliza um texto para buscas por prefixo: minúsculas, sem acentos e com os
+     * espaços reduzidos a um só entre as palavras
+     * @param texto Texto informado
+     * @return Texto normalizado, ou null se o texto for nulo
+     */
+    static String busca(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        StringBuilder normalizado = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (normalizado.length() > 0 && normalizado.charAt(normalizado.length() - 1) != ' ') {
+                    normalizado.append(' ');
+                }
+            } else {
+                normalizado.append(semAcento(Character.toLowerCase(c)));
+            }
+        }
+        int fim = normalizado.length();
+        return fim > 0 && normalizado.charAt(fim - 1) == ' ' ? normalizado.substring(0, fim - 1) : normalizado.toString();
+    }
+
+    /**
+     * Letra sem acento, para as letras acentuadas usadas em português
+     * @param c Letra em minúscula
+     * @return Letra sem acento (ou a própria letra)
+     */
+    static char semAcento(char c) {
+        switch (c) {
+            case 'á':
+            case 'à':
+            case 'â':
+            case 'ã':
+            case 'ä':
+                return 'a';
+            case 'é':
+            case 'è':
+            case 'ê':
+            case 'ë':
+                return 'e';
+            case 'í':
+            case 'ì':
+            case 'î':
+            case 'ï':
+                return 'i';
+            case 'ó':
+            case 'ò':
+            case 'ô':
+            case 'õ':
+            case 'ö':
+                return 'o';
+            case 'ú':
+            case 'ù':
+            case 'û':
+            case 'ü':
+                return 'u';
+            case 'ç':
+                return 'c';
+            case 'ñ':
+                return 'n';
+            default:
+                return c;
+        }
+    }
+}
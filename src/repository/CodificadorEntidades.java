@@ -0,0 +1,88 @@
+package repository;
+
+import model.Equipe;
+import model.Perfil;
+import model.Projeto;
+import model.Usuario;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+
+/**
+ * Conversão das entidades para o formato binário usado pelo log de escrita e pelos snapshots.
+ * Referências a outras entidades (como o gerente de um projeto) são gravadas pelo ID.
+ */
+final class CodificadorEntidades {
+
+    private CodificadorEntidades() {
+    }
+
+    static void escreverUsuario(EscritorBinario escritor, Usuario usuario) {
+        escritor.escreverTexto(usuario.getId());
+        escritor.escreverTexto(usuario.getNomeCompleto());
+        escritor.escreverTexto(usuario.getCpf());
+        escritor.escreverTexto(usuario.getEmail());
+        escritor.escreverTexto(usuario.getCargo());
+        escritor.escreverTexto(usuario.getLogin());
+        escritor.escreverTexto(usuario.getSenha());
+        escritor.escreverByte(usuario.getPerfil() == null ? -1 : usuario.getPerfil().ordinal());
+        escritor.escreverDataHora(usuario.getDataCriacao());
+    }
+
+    static Usuario lerUsuario(LeitorBinario leitor) {
+        String id = leitor.lerTexto();
+        String nomeCompleto = leitor.lerTexto();
+        String cpf = leitor.lerTexto();
+        String email = leitor.lerTexto();
+        String cargo = leitor.lerTexto();
+        String login = leitor.lerTexto();
+        String senha = leitor.lerTexto();
+        int perfil = leitor.lerByte();
+        return new Usuario(id, nomeCompleto, cpf, email, cargo, login, senha,
+                perfil < 0 ? null : Perfil.values()[perfil], leitor.lerDataHora());
+    }
+
+    static void escreverProjeto(EscritorBinario escritor, Projeto projeto) {
+        escritor.escreverTexto(projeto.getId());
+        escritor.escreverTexto(projeto.getNome());
+        escritor.escreverTexto(projeto.getDescricao());
+        escritor.escreverData(projeto.getDataInicio());
+        escritor.escreverData(projeto.getDataTerminoPrevista());
+        escritor.escreverByte(projeto.getStatus().ordinal());
+        escritor.escreverTexto(projeto.getGerente() == null ? null : projeto.getGerente().getId());
+    }
+
+    /**
+     * Lê um projeto
+     * @param leitor Leitor posicionado no início do projeto
+     * @param usuarioPorId Função que resolve o gerente pelo ID (pode devolver null)
+     * @return Projeto lido
+     */
+    static Projeto lerProjeto(LeitorBinario leitor, Function<String, Usuario> usuarioPorId) {
+        String id = leitor.lerTexto();
+        String nome = leitor.lerTexto();
+        String descricao = leitor.lerTexto();
+        LocalDate dataInicio = leitor.lerData();
+        LocalDate dataTermino = leitor.lerData();
+        Projeto.Status status = Projeto.Status.values()[leitor.lerByte()];
+        String idGerente = leitor.lerTexto();
+        Usuario gerente = idGerente == null ? null : usuarioPorId.apply(idGerente);
+        return new Projeto(id, nome, descricao, dataInicio, dataTermino, status, gerente);
+    }
+
+    static void escreverEquipe(EscritorBinario escritor, Equipe equipe) {
+        escritor.escreverTexto(equipe.getId());
+        escritor.escreverTexto(equipe.getNome());
+        escritor.escreverTexto(equipe.getDescricao());
+        escritor.escreverInt(equipe.getCapacidadeMaxima());
+        escritor.escreverDataHora(equipe.getDataCriacao());
+    }
+
+    static Equipe lerEquipe(LeitorBinario leitor) {
+        String id = leitor.lerTexto();
+        String nome = leitor.lerTexto();
+        String descricao = leitor.lerTexto();
+        int capacidade = leitor.lerInt();
+        return new Equipe(id, nome, descricao, capacidade, leitor.lerDataHora());
+    }
+}
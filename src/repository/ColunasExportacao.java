@@ -0,0 +1,68 @@
+package repository;
+
+import model.Equipe;
+import model.Projeto;
+import model.Usuario;
+
+/**
+ * Colunas usadas na exportação de cada entidade. Os nomes são os mesmos aceitos
+ * pela importação, de modo que um arquivo exportado pode ser importado novamente.
+ * Referências a usuários (gerente e membros) são escritas pelo login.
+ * A senha dos usuários não é exportada.
+ */
+final class ColunasExportacao {
+    static final String[] USUARIO = {"id", "nomeCompleto", "cpf", "email", "cargo", "login", "perfil"};
+    static final String[] PROJETO = {"id", "nome", "descricao", "dataInicio", "dataTerminoPrevista", "status", "gerente"};
+    static final String[] EQUIPE = {"id", "nome", "descricao", "capacidadeMaxima", "membros"};
+
+    // Separador dos logins na coluna de membros
+    private static final char SEPARADOR_MEMBROS = '|';
+
+    private ColunasExportacao() {
+    }
+
+    static String[] usuario(Usuario usuario) {
+        return new String[] {
+                usuario.getId(),
+                usuario.getNomeCompleto(),
+                usuario.getCpf(),
+                usuario.getEmail(),
+                usuario.getCargo(),
+                usuario.getLogin(),
+                texto(usuario.getPerfil())
+        };
+    }
+
+    static String[] projeto(Projeto projeto) {
+        return new String[] {
+                projeto.getId(),
+                projeto.getNome(),
+                projeto.getDescricao(),
+                texto(projeto.getDataInicio()),
+                texto(projeto.getDataTerminoPrevista()),
+                texto(projeto.getStatus()),
+                projeto.getGerente() == null ? null : projeto.getGerente().getLogin()
+        };
+    }
+
+    static String[] equipe(Equipe equipe) {
+        StringBuilder membros = new StringBuilder();
+        for (Usuario membro : equipe.getMembros()) {
+            if (membros.length() > 0) {
+                membros.append(SEPARADOR_MEMBROS);
+            }
+            membros.append(membro.getLogin());
+        }
+        return new String[] {
+                equipe.getId(),
+                equipe.getNome(),
+                equipe.getDescricao(),
+                Integer.toString(equipe.getCapacidadeMaxima()),
+                membros.toString()
+        };
+    }
+
+    private static String texto(Object valor) {
+        return valor == null ? null : valor.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package repository;
+
+/**
+ * Configuração do log de escrita (write-ahead log).
+ *
+ * Os registros são acumulados em memória e gravados em lote (group commit) por uma
+ * thread de sincronização, que chama fsync a cada intervalo ou quando o lote atinge
+ * o tamanho máximo. Se aguardarDurabilidade for verdadeiro, cada escrita só retorna
+ * depois do fsync do lote em que entrou; caso contrário retorna logo após o registro
+ * ser acumulado, e uma queda pode perder no máximo o último intervalo.
+ *
+ * A cada intervaloSnapshotMillis, se o segmento atual do log tiver pelo menos
+ * tamanhoMinimoSnapshot bytes, um snapshot do estado completo é gravado em segundo
+ * plano e os segmentos anteriores são descartados. Intervalo 0 desativa os snapshots
+ * periódicos. O formato padrão dos snapshots é o {@link FormatoSnapshot#REGISTROS};
+ * o {@link FormatoSnapshot#MAPEADO} é escolhido no construtor completo.
+ */
+public final class ConfiguracaoLog {
+    // Política padrão de snapshots: verificação a cada minuto, a partir de 4 MB de log
+    private static final long INTERVALO_SNAPSHOT_PADRAO = 60_000;
+    private static final long TAMANHO_MINIMO_SNAPSHOT_PADRAO = 4L * 1024 * 1024;
+
+    private final long intervaloSincronizacaoMillis;
+    private final int tamanhoMaximoLote;
+    private final boolean aguardarDurabilidade;
+    private final long intervaloSnapshotMillis;
+    private final long tamanhoMinimoSnapshot;
+    private final FormatoSnapshot formatoSnapshot;
+
+    // Construtor com a política padrão de snapshots
+    public ConfiguracaoLog(long intervaloSincronizacaoMillis, int tamanhoMaximoLote,
+                           boolean aguardarDurabilidade) {
+        this(intervaloSincronizacaoMillis, tamanhoMaximoLote, aguardarDurabilidade,
+                INTERVALO_SNAPSHOT_PADRAO, TAMANHO_MINIMO_SNAPSHOT_PADRAO);
+    }
+
+    // Construtor com o formato padrão de snapshots
+    public ConfiguracaoLog(long intervaloSincronizacaoMillis, int tamanhoMaximoLote,
+                           boolean aguardarDurabilidade, long intervaloSnapshotMillis,
+                           long tamanhoMinimoSnapshot) {
+        this(intervaloSincronizacaoMillis, tamanhoMaximoLote, aguardarDurabilidade,
+                intervaloSnapshotMillis, tamanhoMinimoSnapshot, FormatoSnapshot.REGISTROS);
+    }
+
+    // Construtor completo
+    public ConfiguracaoLog(long intervaloSincronizacaoMillis, int tamanhoMaximoLote,
+                           boolean aguardarDurabilidade, long intervaloSnapshotMillis,
+                           long tamanhoMinimoSnapshot, FormatoSnapshot formatoSnapshot) {
+        if (intervaloSincronizacaoMillis < 1) {
+            throw new IllegalArgumentException("Intervalo de sincronização deve ser de pelo menos 1 ms");
+        }
+        if (tamanhoMaximoLote < 1024) {
+            throw new IllegalArgumentException("Tamanho máximo do lote deve ser de pelo menos 1 KB");
+        }
+        if (intervaloSnapshotMillis < 0) {
+            throw new IllegalArgumentException("Intervalo de snapshot não pode ser negativo");
+        }
+        if (tamanhoMinimoSnapshot < 0) {
+            throw new IllegalArgumentException("Tamanho mínimo para snapshot não pode ser negativo");
+        }
+        if (formatoSnapshot == null) {
+            throw new IllegalArgumentException("Formato de snapshot é obrigatório");
+        }
+        this.intervaloSincronizacaoMillis = intervaloSincronizacaoMillis;
+        this.tamanhoMaximoLote = tamanhoMaximoLote;
+        this.aguardarDurabilidade = aguardarDurabilidade;
+        this.intervaloSnapshotMillis = intervaloSnapshotMillis;
+        this.tamanhoMinimoSnapshot = tamanhoMinimoSnapshot;
+        this.formatoSnapshot = formatoSnapshot;
+    }
+
+    /**
+     * Configuração padrão: fsync a cada 10 ms ou 1 MB, sem aguardar a durabilidade,
+     * e snapshot a cada minuto quando o log tiver crescido 4 MB
+     * @return Configuração padrão
+     */
+    public static ConfiguracaoLog padrao() {
+        return new ConfiguracaoLog(10, 1024 * 1024, false);
+    }
+
+    // Getters
+    public long getIntervaloSincronizacaoMillis() {
+        return intervaloSincronizacaoMillis;
+    }
+
+    public int getTamanhoMaximoLote() {
+        return tamanhoMaximoLote;
+    }
+
+    public boolean isAguardarDurabilidade() {
+        return aguardarDurabilidade;
+    }
+
+    public long getIntervaloSnapshotMillis() {
+        return intervaloSnapshotMillis;
+    }
+
+    public long getTamanhoMinimoSnapshot() {
+        return tamanhoMinimoSnapshot;
+    }
+
+    public FormatoSnapshot getFormatoSnapshot() {
+        return formatoSnapshot;
+    }
+}
@@ -0,0 +1,35 @@
+package repository;
+
+/**
+ * Lançada por uma atualização com versão esperada quando a entidade foi alterada
+ * por outra operação depois de lida. Quem atualiza deve ler a entidade de novo,
+ * reaplicar a alteração e tentar outra vez.
+ */
+public class ConflitoVersaoException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final long versaoEsperada;
+    private final long versaoAtual;
+
+    // Construtor
+    public ConflitoVersaoException(String id, long versaoEsperada, long versaoAtual) {
+        // Mensagem fixa: as métricas dos serviços agrupam os erros pela mensagem
+        super("Registro alterado por outra operação");
+        this.id = id;
+        this.versaoEsperada = versaoEsperada;
+        this.versaoAtual = versaoAtual;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getVersaoEsperada() {
+        return versaoEsperada;
+    }
+
+    public long getVersaoAtual() {
+        return versaoAtual;
+    }
+}
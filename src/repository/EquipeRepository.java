@@ -3,34 +3,173 @@ package repository;
 import model.Equipe;
 import model.Usuario;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Repositório para gerenciamento de equipes no sistema.
+ * Mantém um mapa principal por ID, um índice único pelo nome normalizado,
+ * um índice reverso de participação (usuário -> equipes), um índice ordenado por
+ * nome, usado na paginação, e um ranking por quantidade de membros, que dá a
+ * posição de uma equipe e as maiores equipes sem ordenar a coleção.
+ *
+ * É seguro para uso por várias threads: as leituras não usam travas (exceto a
+ * posição no ranking, que lê o tamanho indexado sob a trava da equipe), as escritas
+ * de uma mesma equipe (inclusive entrada e saída de membros) são serializadas por
+ * uma trava distribuída pelo ID e a unicidade do nome é garantida por reserva atômica.
  */
 public class EquipeRepository {
-    // Lista para armazenar equipes
-    private List<Equipe> equipes;
+    // Quantidade de travas distribuídas entre as equipes
+    private static final int QUANTIDADE_TRAVAS = 64;
+
+    // Mapa principal de equipes por ID
+    private ConcurrentMap<String, Equipe> equipes;
+
+    // Índice único: nome normalizado -> ID
+    private ConcurrentMap<String, String> idPorNome;
+
+    // Índice reverso de participação: ID do usuário -> IDs das equipes
+    private ConcurrentMap<String, Set<String>> idsEquipesPorMembro;
+
+    // Índice ordenado por nome, para paginação
+    private IndiceOrdenado<String> porNome;
+
+    // Ranking por quantidade de membros (maiores primeiro)
+    private RankingTamanho porTamanho;
+
+    // Valores com que cada equipe foi indexada (ID -> chaves)
+    private ConcurrentMap<String, Indexacao> indexacoes;
+
+    // Durante a recuperação o índice de nomes só é montado e conferido no final
+    private boolean unicidadeAdiada;
+
+    // Travas de escrita por ID
+    private TravasPorChave travas;
+
+    // Ouvintes notificados a cada alteração
+    private List<OuvinteAlteracoes> ouvintes;
+
+    // Exportações em andamento
+    private List<ExportacaoConsistente<Equipe>> exportacoes;
 
     // Construtor
     public EquipeRepository() {
-        this.equipes = new ArrayList<>();
+        this.equipes = new ConcurrentHashMap<>();
+        this.idPorNome = new ConcurrentHashMap<>();
+        this.idsEquipesPorMembro = new ConcurrentHashMap<>();
+        this.porNome = IndiceOrdenado.porTexto();
+        this.porTamanho = new RankingTamanho();
+        this.indexacoes = new ConcurrentHashMap<>();
+        this.travas = new TravasPorChave(QUANTIDADE_TRAVAS);
+        this.ouvintes = new CopyOnWriteArrayList<>();
+        this.exportacoes = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Registra um ouvinte para ser notificado das alterações aplicadas
+     * @param ouvinte Ouvinte a ser registrado
+     */
+    public void registrarOuvinte(OuvinteAlteracoes ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Registra um ouvinte e entrega a ele, como inclusões, as equipes e os seus
+     * membros já existentes. Cada equipe é entregue sob a sua trava, de modo que o
+     * ouvinte recebe o estado atual antes de qualquer alteração posterior; uma
+     * alteração feita durante o registro pode chegar duas vezes, por isso o ouvinte
+     * deve tratar as notificações de forma idempotente.
+     * @param ouvinte Ouvinte a ser registrado
+     */
+    public void registrarOuvinteComEstado(OuvinteAlteracoes ouvinte) {
+        ouvintes.add(ouvinte);
+        for (String id : equipes.keySet()) {
+            ReentrantLock trava = travas.trava(id);
+            trava.lock();
+            try {
+                Equipe equipe = equipes.get(id);
+                if (equipe != null) {
+                    ouvinte.equipeGravada(equipe);
+                    for (Usuario membro : equipe.getMembros()) {
+                        ouvinte.membroAdicionado(equipe, membro);
+                    }
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
     }
 
     /**
      * Adiciona uma nova equipe ao repositório
      * @param equipe Equipe a ser adicionada
-     * @return boolean indicando se a adição foi bem-sucedida
+     * @return boolean indicando se a adição foi bem-sucedida (false se já existe
+     *         equipe com o mesmo ID ou nome, ou se os membros excedem a capacidade)
      */
     public boolean adicionar(Equipe equipe) {
-        // Verifica se já existe equipe com o mesmo nome
-        if (buscarPorNome(equipe.getNome()).isPresent()) {
-            return false;
+        String id = equipe.getId();
+        String nome = Chaves.nome(equipe.getNome());
+
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            // Verifica se já existe equipe com o mesmo ID ou nome
+            if (excedeCapacidade(equipe) || equipes.containsKey(id) || !reservarNome(nome, id)) {
+                return false;
+            }
+
+            for (ExportacaoConsistente<Equipe> exportacao : exportacoes) {
+                exportacao.antesDeIncluir(id);
+            }
+            Indexacao indexacao = new Indexacao(nome);
+            indexacoes.put(id, indexacao);
+            equipes.put(id, equipe);
+            porNome.inserir(nome, id);
+            porTamanho.inserir(0, id);
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.equipeGravada(equipe);
+            }
+            sincronizarMembros(equipe, indexacao);
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Adiciona várias equipes como um lote. Cada uma é verificada e incluída como em
+     * {@link #adicionar(Equipe)}; os ouvintes são avisados do início e do fim do lote,
+     * o que permite, por exemplo, aguardar a gravação em disco uma única vez.
+     * @param novasEquipes Equipes a serem adicionadas
+     * @return Para cada equipe, na mesma posição, se a adição foi bem-sucedida
+     */
+    public boolean[] adicionarTodos(List<Equipe> novasEquipes) {
+        boolean[] adicionadas = new boolean[novasEquipes.size()];
+        for (OuvinteAlteracoes ouvinte : ouvintes) {
+            ouvinte.loteIniciado();
         }
-        return equipes.add(equipe);
+        try {
+            for (int i = 0; i < novasEquipes.size(); i++) {
+                adicionadas[i] = adicionar(novasEquipes.get(i));
+            }
+        } finally {
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.loteConcluido();
+            }
+        }
+        return adicionadas;
     }
 
     /**
@@ -39,9 +178,8 @@ public class EquipeRepository {
      * @return Optional com a equipe encontrada
      */
     public Optional<Equipe> buscarPorNome(String nome) {
-        return equipes.stream()
-                .filter(e -> e.getNome().equalsIgnoreCase(nome))
-                .findFirst();
+        String id = idPorNome.get(Chaves.nome(nome));
+        return id == null ? Optional.empty() : Optional.ofNullable(equipes.get(id));
     }
 
     /**
@@ -50,9 +188,7 @@ public class EquipeRepository {
      * @return Optional com a equipe encontrada
      */
     public Optional<Equipe> buscarPorId(String id) {
-        return equipes.stream()
-                .filter(e -> e.getId().equals(id))
-                .findFirst();
+        return Optional.ofNullable(equipes.get(id));
     }
 
     /**
@@ -60,7 +196,26 @@ public class EquipeRepository {
      * @return Lista de todas as equipes
      */
     public List<Equipe> listarTodas() {
-        return new ArrayList<>(equipes);
+        return new ArrayList<>(equipes.values());
+    }
+
+    /**
+     * Exporta todas as equipes, com os logins dos membros, no estado em que estavam no
+     * início da exportação, sem interromper as escritas e sem montar uma lista intermediária
+     * @param destino Canal de destino (não é fechado)
+     * @param formato Formato da saída
+     * @return Quantidade de equipes exportadas
+     * @throws IOException em caso de erro de escrita
+     */
+    public long exportar(WritableByteChannel destino, FormatoExportacao formato) throws IOException {
+        ExportacaoConsistente<Equipe> exportacao = new ExportacaoConsistente<>(ColunasExportacao::equipe);
+        exportacoes.add(exportacao);
+        try {
+            return exportacao.executar(equipes, travas,
+                    new EscritorLinhas(destino, formato, ColunasExportacao.EQUIPE));
+        } finally {
+            exportacoes.remove(exportacao);
+        }
     }
 
     /**
@@ -69,24 +224,121 @@ public class EquipeRepository {
      * @return Lista de equipes que contêm o membro
      */
     public List<Equipe> listarPorMembro(Usuario membro) {
-        return equipes.stream()
-                .filter(e -> e.contemMembro(membro))
-                .collect(Collectors.toList());
+        Set<String> ids = idsEquipesPorMembro.get(membro.getId());
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Equipe> resultado = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Equipe equipe = equipes.get(id);
+            if (equipe != null) {
+                resultado.add(equipe);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Verifica pelo índice reverso se um usuário é membro de uma equipe
+     * @param idEquipe ID da equipe
+     * @param membro Usuário a ser verificado
+     * @return boolean indicando se o usuário participa da equipe
+     */
+    public boolean contemMembro(String idEquipe, Usuario membro) {
+        Set<String> ids = idsEquipesPorMembro.get(membro.getId());
+        return ids != null && ids.contains(idEquipe);
     }
 
     /**
-     * Atualiza uma equipe existente
+     * Atualiza uma equipe existente.
+     * Se o nome tiver sido alterado com setNome, ou os membros com adicionarMembro
+     * e removerMembro, os índices correspondentes são atualizados.
+     * A versão não é verificada.
      * @param equipeAtualizada Equipe com informações atualizadas
-     * @return boolean indicando se a atualização foi bem-sucedida
+     * @return boolean indicando se a atualização foi bem-sucedida (false se a equipe
+     *         não existe, se o novo nome pertence a outra equipe ou se os membros
+     *         excedem a capacidade)
      */
     public boolean atualizar(Equipe equipeAtualizada) {
-        for (int i = 0; i < equipes.size(); i++) {
-            if (equipes.get(i).getId().equals(equipeAtualizada.getId())) {
-                equipes.set(i, equipeAtualizada);
-                return true;
+        return gravarAtualizacao(equipeAtualizada, false, 0, true);
+    }
+
+    /**
+     * Atualiza uma equipe somente se ela não foi alterada desde a leitura (inclusive
+     * pela entrada ou saída de membros): a versão gravada é comparada com a esperada
+     * sob a trava da equipe (compare-and-set)
+     * @param equipeAtualizada Cópia da equipe com informações atualizadas
+     * @param versaoEsperada Versão da equipe quando foi lida
+     * @return boolean indicando se a atualização foi bem-sucedida (false se a equipe
+     *         não existe, se o novo nome pertence a outra equipe ou se os membros
+     *         excedem a capacidade)
+     * @throws ConflitoVersaoException se a equipe foi alterada desde a leitura
+     */
+    public boolean atualizar(Equipe equipeAtualizada, long versaoEsperada) {
+        return gravarAtualizacao(equipeAtualizada, true, versaoEsperada, true);
+    }
+
+    /**
+     * Grava uma equipe durante a recuperação do log ou do snapshot, sem verificar a
+     * capacidade: as alterações já foram aceitas quando foram registradas, e os dados
+     * e os membros de uma mesma alteração são reproduzidos em registros separados
+     * @param equipeRestaurada Equipe com as informações restauradas
+     * @return boolean indicando se a gravação foi bem-sucedida
+     */
+    boolean restaurar(Equipe equipeRestaurada) {
+        return gravarAtualizacao(equipeRestaurada, false, 0, false);
+    }
+
+    private boolean gravarAtualizacao(Equipe equipeAtualizada, boolean verificarVersao, long versaoEsperada,
+                                      boolean verificarCapacidade) {
+        String id = equipeAtualizada.getId();
+
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            Indexacao indexacao = indexacoes.get(id);
+            if (indexacao == null) {
+                return false;
+            }
+            long versao = equipes.get(id).getVersao();
+            if (verificarVersao && versao != versaoEsperada) {
+                throw new ConflitoVersaoException(id, versaoEsperada, versao);
+            }
+            // Os membros podem ter sido alterados na cópia sem passar por adicionarMembroNaEquipe
+            if (verificarCapacidade && excedeCapacidade(equipeAtualizada)) {
+                return false;
+            }
+            for (ExportacaoConsistente<Equipe> exportacao : exportacoes) {
+                exportacao.antesDeAlterar(id, equipes.get(id));
             }
+
+            String nome = Chaves.nome(equipeAtualizada.getNome());
+            String nomeAnterior = indexacao.nome;
+            if (!Objects.equals(nome, indexacao.nome)) {
+                // Não permite renomear para o nome de outra equipe
+                if (!reservarNome(nome, id)) {
+                    return false;
+                }
+                porNome.alterar(indexacao.nome, nome, id);
+                indexacao.nome = nome;
+            }
+
+            equipeAtualizada.setVersao(versao + 1);
+            equipes.put(id, equipeAtualizada);
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.equipeGravada(equipeAtualizada);
+            }
+            sincronizarMembros(equipeAtualizada, indexacao);
+
+            // O nome anterior só é liberado depois de os ouvintes (o log de escrita)
+            // registrarem a alteração: quem o tomar é registrado depois
+            if (!Objects.equals(nomeAnterior, nome)) {
+                idPorNome.remove(nomeAnterior, id);
+            }
+            return true;
+        } finally {
+            trava.unlock();
         }
-        return false;
     }
 
     /**
@@ -95,7 +347,68 @@ public class EquipeRepository {
      * @return boolean indicando se a remoção foi bem-sucedida
      */
     public boolean remover(String nome) {
-        return equipes.removeIf(e -> e.getNome().equalsIgnoreCase(nome));
+        String chave = Chaves.nome(nome);
+        String id = idPorNome.get(chave);
+        if (id == null) {
+            return false;
+        }
+
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            // O nome pode ter sido liberado enquanto a trava era aguardada
+            if (!id.equals(idPorNome.get(chave))) {
+                return false;
+            }
+            excluir(id);
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Remove uma equipe pelo ID. Usado na recuperação, quando o índice de nomes
+     * ainda não foi montado.
+     * @param id ID da equipe a ser removida
+     * @return boolean indicando se a remoção foi bem-sucedida
+     */
+    boolean removerPorId(String id) {
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            if (!indexacoes.containsKey(id)) {
+                return false;
+            }
+            excluir(id);
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Retira a equipe do mapa e dos índices e avisa os ouvintes. Deve ser chamado
+     * sob a trava da equipe, que precisa existir.
+     * @param id ID da equipe
+     */
+    private void excluir(String id) {
+        for (ExportacaoConsistente<Equipe> exportacao : exportacoes) {
+            exportacao.antesDeAlterar(id, equipes.get(id));
+        }
+        Equipe removida = equipes.remove(id);
+        Indexacao indexacao = indexacoes.remove(id);
+        for (String idMembro : indexacao.membros.keySet()) {
+            desindexarMembro(idMembro, id);
+        }
+        porNome.remover(indexacao.nome, id);
+        porTamanho.remover(indexacao.membros.size(), id);
+        for (OuvinteAlteracoes ouvinte : ouvintes) {
+            ouvinte.equipeRemovida(removida);
+        }
+
+        // Liberado só depois do registro da remoção, como na atualização
+        idPorNome.remove(indexacao.nome, id);
     }
 
     /**
@@ -111,9 +424,66 @@ public class EquipeRepository {
      * @return Lista de equipes ordenadas por tamanho
      */
     public List<Equipe> listarPorTamanho() {
-        return equipes.stream()
-                .sorted((e1, e2) -> Integer.compare(e2.quantidadeMembros(), e1.quantidadeMembros()))
-                .collect(Collectors.toList());
+        return porTamanho.listar(equipes::get);
+    }
+
+    /**
+     * Lista as maiores equipes, sem percorrer as demais
+     * @param quantidade Quantidade máxima de equipes
+     * @return Até quantidade equipes, das maiores para as menores
+     */
+    public List<Equipe> listarMaiores(int quantidade) {
+        if (quantidade < 1) {
+            return new ArrayList<>();
+        }
+        return porTamanho.topo(quantidade, equipes::get);
+    }
+
+    /**
+     * Posição de uma equipe na ordem por quantidade de membros (maiores primeiro,
+     * equipes do mesmo tamanho em ordem de ID)
+     * @param nome Nome da equipe
+     * @return Posição a partir de 1, ou vazio se a equipe não existir
+     */
+    public OptionalInt posicaoPorTamanho(String nome) {
+        String id = idPorNome.get(Chaves.nome(nome));
+        if (id == null) {
+            return OptionalInt.empty();
+        }
+
+        // O tamanho indexado e a entrada no ranking mudam juntos sob a trava da equipe
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            Indexacao indexacao = indexacoes.get(id);
+            if (indexacao == null) {
+                return OptionalInt.empty();
+            }
+            int posicao = porTamanho.posicao(indexacao.membros.size(), id);
+            return posicao == 0 ? OptionalInt.empty() : OptionalInt.of(posicao);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Página de equipes em ordem alfabética de nome
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de equipes na página
+     * @return Página de equipes
+     */
+    public Pagina<Equipe> paginarPorNome(String cursor, int tamanho) {
+        return porNome.pagina(cursor, tamanho, equipes::get);
+    }
+
+    /**
+     * Página de equipes ordenadas por quantidade de membros, das maiores para as menores
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de equipes na página
+     * @return Página de equipes
+     */
+    public Pagina<Equipe> paginarPorTamanho(String cursor, int tamanho) {
+        return porTamanho.pagina(cursor, tamanho, equipes::get);
     }
 
     /**
@@ -123,27 +493,189 @@ public class EquipeRepository {
      * @return boolean indicando se o membro pode ser adicionado
      */
     public boolean podAdicionarMembro(Equipe equipe, Usuario membro) {
-        // Exemplo de regra: limite máximo de 10 membros por equipe
-        return equipe.quantidadeMembros() < 10;
+        // Respeita a capacidade máxima configurada na própria equipe
+        return !equipe.estaCompleta();
+    }
+
+    /**
+     * Reserva atomicamente um nome para uma equipe
+     * @param nome Nome normalizado
+     * @param id ID da equipe que está sendo gravada
+     * @return boolean indicando se o nome estava livre (sempre true enquanto a
+     *         unicidade estiver adiada)
+     */
+    private boolean reservarNome(String nome, String id) {
+        return unicidadeAdiada || idPorNome.putIfAbsent(nome, id) == null;
+    }
+
+    private static boolean excedeCapacidade(Equipe equipe) {
+        return equipe.quantidadeMembros() > equipe.getCapacidadeMaxima();
     }
 
     /**
-     * Adiciona um membro a uma equipe
+     * Adiciona um membro a uma equipe.
+     * A verificação de participação, a verificação de capacidade e a inclusão
+     * acontecem sob a trava da equipe, portanto são atômicas entre si.
      * @param nomeEquipe Nome da equipe
      * @param membro Membro a ser adicionado
      * @return boolean indicando se a adição foi bem-sucedida
      */
     public boolean adicionarMembroNaEquipe(String nomeEquipe, Usuario membro) {
         Optional<Equipe> equipeOptional = buscarPorNome(nomeEquipe);
+        if (equipeOptional.isEmpty()) {
+            return false;
+        }
 
-        if (equipeOptional.isPresent()) {
-            Equipe equipe = equipeOptional.get();
-            if (podAdicionarMembro(equipe, membro)) {
-                equipe.adicionarMembro(membro);
-                return true;
+        String id = equipeOptional.get().getId();
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            Equipe equipe = equipes.get(id);
+            if (equipe == null || equipe.contemMembro(membro) || !podAdicionarMembro(equipe, membro)) {
+                return false;
+            }
+            for (ExportacaoConsistente<Equipe> exportacao : exportacoes) {
+                exportacao.antesDeAlterar(id, equipe);
             }
+            equipe.adicionarMembro(membro);
+            equipe.setVersao(equipe.getVersao() + 1);
+            sincronizarMembros(equipe, indexacoes.get(id));
+            return true;
+        } finally {
+            trava.unlock();
         }
+    }
 
-        return false;
+    /**
+     * Remove um membro de uma equipe sob a trava da equipe
+     * @param nomeEquipe Nome da equipe
+     * @param membro Membro a ser removido
+     * @return boolean indicando se a remoção foi bem-sucedida
+     */
+    public boolean removerMembroDaEquipe(String nomeEquipe, Usuario membro) {
+        Optional<Equipe> equipeOptional = buscarPorNome(nomeEquipe);
+        if (equipeOptional.isEmpty()) {
+            return false;
+        }
+
+        String id = equipeOptional.get().getId();
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            Equipe equipe = equipes.get(id);
+            if (equipe == null || !equipe.contemMembro(membro)) {
+                return false;
+            }
+            for (ExportacaoConsistente<Equipe> exportacao : exportacoes) {
+                exportacao.antesDeAlterar(id, equipe);
+            }
+            equipe.removerMembro(membro);
+            equipe.setVersao(equipe.getVersao() + 1);
+            sincronizarMembros(equipe, indexacoes.get(id));
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Atualiza o índice reverso com os membros atuais da equipe e notifica
+     * os ouvintes sobre cada entrada e saída. Deve ser chamado sob a trava da equipe.
+     * @param equipe Equipe com os membros atuais
+     * @param indexacao Chaves indexadas da equipe
+     */
+    private void sincronizarMembros(Equipe equipe, Indexacao indexacao) {
+        Map<String, Usuario> atuais = new HashMap<>();
+        for (Usuario membro : equipe.getMembros()) {
+            atuais.put(membro.getId(), membro);
+        }
+
+        for (Usuario anterior : indexacao.membros.values()) {
+            if (!atuais.containsKey(anterior.getId())) {
+                desindexarMembro(anterior.getId(), equipe.getId());
+                for (OuvinteAlteracoes ouvinte : ouvintes) {
+                    ouvinte.membroRemovido(equipe, anterior);
+                }
+            }
+        }
+        for (Usuario atual : atuais.values()) {
+            if (!indexacao.membros.containsKey(atual.getId())) {
+                idsEquipesPorMembro.compute(atual.getId(), (chave, ids) -> {
+                    Set<String> destino = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    destino.add(equipe.getId());
+                    return destino;
+                });
+                for (OuvinteAlteracoes ouvinte : ouvintes) {
+                    ouvinte.membroAdicionado(equipe, atual);
+                }
+            }
+        }
+        porTamanho.alterar(indexacao.membros.size(), atuais.size(), equipe.getId());
+        indexacao.membros = atuais;
+    }
+
+    /**
+     * Retira uma equipe do índice reverso de um membro
+     * @param idMembro ID do usuário
+     * @param idEquipe ID da equipe
+     */
+    private void desindexarMembro(String idMembro, String idEquipe) {
+        idsEquipesPorMembro.computeIfPresent(idMembro, (chave, ids) -> {
+            ids.remove(idEquipe);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Passa a adiar os índices ordenados e o índice de nomes até
+     * {@link #reconstruirIndices()}. Usado na recuperação, antes que o repositório
+     * seja exposto a outras threads; enquanto adiados, as páginas, a listagem por
+     * tamanho e as buscas por nome não enxergam as alterações, e a unicidade do nome
+     * só é conferida no final.
+     */
+    void adiarIndices() {
+        unicidadeAdiada = true;
+        porNome.adiar();
+        porTamanho.adiar();
+    }
+
+    /**
+     * Monta os índices ordenados e o índice de nomes de uma vez, a partir das chaves
+     * já indexadas, e volta a mantê-los a cada alteração
+     * @throws IllegalStateException se duas equipes carregadas têm o mesmo nome
+     */
+    void reconstruirIndices() {
+        List<String> ids = new ArrayList<>(indexacoes.size());
+        List<String> nomes = new ArrayList<>(indexacoes.size());
+        List<Integer> tamanhos = new ArrayList<>(indexacoes.size());
+        for (Map.Entry<String, Indexacao> entrada : indexacoes.entrySet()) {
+            ids.add(entrada.getKey());
+            nomes.add(entrada.getValue().nome);
+            tamanhos.add(entrada.getValue().membros.size());
+        }
+        if (unicidadeAdiada) {
+            idPorNome.clear();
+            for (int i = 0; i < ids.size(); i++) {
+                Chaves.exigirUnica(idPorNome, nomes.get(i), ids.get(i), "nome de equipe");
+            }
+            unicidadeAdiada = false;
+        }
+        porNome.reconstruir(nomes, ids);
+        porTamanho.reconstruir(tamanhos, ids);
+    }
+
+    /**
+     * Chaves com que uma equipe está indexada, usadas para
+     * localizar as entradas antigas quando a equipe é alterada.
+     * Só é lida e alterada sob a trava da equipe.
+     */
+    private static class Indexacao {
+        private String nome;
+        private Map<String, Usuario> membros; // ID -> usuário indexado como membro
+
+        private Indexacao(String nome) {
+            this.nome = nome;
+            this.membros = new HashMap<>();
+        }
     }
 }
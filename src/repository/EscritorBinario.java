@@ -0,0 +1,120 @@
+package repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Escreve valores em formato binário sobre um ByteBuffer que cresce conforme necessário.
+ * É o formato comum do log de escrita e dos snapshots.
+ */
+final class EscritorBinario {
+    // Marca de valor nulo para textos
+    static final int TEXTO_NULO = -1;
+
+    // Marca de valor nulo para datas
+    static final long DATA_NULA = Long.MIN_VALUE;
+
+    private ByteBuffer buffer;
+
+    /**
+     * Cria o escritor
+     * @param capacidadeInicial Capacidade inicial do buffer, em bytes
+     */
+    EscritorBinario(int capacidadeInicial) {
+        this.buffer = ByteBuffer.allocate(capacidadeInicial);
+    }
+
+    /**
+     * Buffer com os bytes escritos até o momento (posição = quantidade de bytes)
+     * @return Buffer interno
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Quantidade de bytes escritos
+     * @return Posição atual do buffer
+     */
+    int posicao() {
+        return buffer.position();
+    }
+
+    /**
+     * Descarta o conteúdo escrito, mantendo a capacidade
+     */
+    void limpar() {
+        buffer.clear();
+    }
+
+    void escreverByte(int valor) {
+        garantir(1);
+        buffer.put((byte) valor);
+    }
+
+    void escreverInt(int valor) {
+        garantir(4);
+        buffer.putInt(valor);
+    }
+
+    /**
+     * Sobrescreve um inteiro em uma posição já escrita
+     * @param posicao Posição absoluta no buffer
+     * @param valor Valor a ser escrito
+     */
+    void escreverIntEm(int posicao, int valor) {
+        buffer.putInt(posicao, valor);
+    }
+
+    void escreverLong(long valor) {
+        garantir(8);
+        buffer.putLong(valor);
+    }
+
+    void escreverTexto(String valor) {
+        if (valor == null) {
+            escreverInt(TEXTO_NULO);
+            return;
+        }
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        garantir(4 + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    void escreverData(LocalDate valor) {
+        escreverLong(valor == null ? DATA_NULA : valor.toEpochDay());
+    }
+
+    void escreverDataHora(LocalDateTime valor) {
+        if (valor == null) {
+            escreverLong(DATA_NULA);
+            return;
+        }
+        escreverLong(valor.toEpochSecond(ZoneOffset.UTC));
+        escreverInt(valor.getNano());
+    }
+
+    void escreverBytes(ByteBuffer origem) {
+        garantir(origem.remaining());
+        buffer.put(origem);
+    }
+
+    /**
+     * Garante espaço livre no buffer, dobrando a capacidade quando necessário
+     * @param bytes Quantidade de bytes que serão escritos
+     */
+    private void garantir(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int capacidade = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer maior = ByteBuffer.allocate(capacidade);
+        buffer.flip();
+        maior.put(buffer);
+        buffer = maior;
+    }
+}
@@ -0,0 +1,228 @@
+package repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Escreve linhas CSV ou JSON Lines diretamente em um canal, codificando em UTF-8
+ * sobre um único buffer reaproveitado do início ao fim da exportação.
+ *
+ * Em CSV, valores com vírgula, aspas, quebra de linha ou espaços nas pontas são
+ * escritos entre aspas (aspas internas duplicadas) e valores nulos ficam vazios.
+ * Em JSON Lines, todos os valores são textos e os nulos são escritos como null.
+ */
+final class EscritorLinhas {
+    // Tamanho do buffer de saída
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private final WritableByteChannel canal;
+    private final FormatoExportacao formato;
+    private final String[] colunas;
+    private final byte[] bytes;
+    private final ByteBuffer buffer; // Envolve bytes, usado só para entregar ao canal
+    private int posicao;
+
+    /**
+     * Cria o escritor
+     * @param canal Canal de destino (não é fechado pelo escritor)
+     * @param formato Formato da saída
+     * @param colunas Nomes das colunas
+     */
+    EscritorLinhas(WritableByteChannel canal, FormatoExportacao formato, String[] colunas) {
+        this.canal = canal;
+        this.formato = formato;
+        this.colunas = colunas;
+        this.bytes = new byte[TAMANHO_BUFFER];
+        this.buffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Escreve o cabeçalho, quando o formato tem um
+     * @throws IOException em caso de erro de escrita
+     */
+    void iniciar() throws IOException {
+        if (formato == FormatoExportacao.CSV) {
+            escreverCsv(colunas);
+        }
+    }
+
+    /**
+     * Escreve uma linha
+     * @param valores Valores na ordem das colunas
+     * @throws IOException em caso de erro de escrita
+     */
+    void linha(String[] valores) throws IOException {
+        if (formato == FormatoExportacao.CSV) {
+            escreverCsv(valores);
+        } else {
+            escreverJson(valores);
+        }
+    }
+
+    /**
+     * Envia ao canal o que ainda estiver no buffer
+     * @throws IOException em caso de erro de escrita
+     */
+    void concluir() throws IOException {
+        descarregar();
+    }
+
+    private void escreverCsv(String[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                escrever(',');
+            }
+            String valor = valores[i];
+            if (valor == null) {
+                continue;
+            }
+            if (!precisaAspas(valor)) {
+                escrever(valor);
+                continue;
+            }
+            escrever('"');
+            for (int j = 0; j < valor.length(); j++) {
+                char c = valor.charAt(j);
+                if (c == '"') {
+                    escrever('"');
+                }
+                escrever(c);
+            }
+            escrever('"');
+        }
+        escrever('\n');
+    }
+
+    private static boolean precisaAspas(String valor) {
+        if (valor.isEmpty()) {
+            return false;
+        }
+        if (valor.charAt(0) == ' ' || valor.charAt(valor.length() - 1) == ' ') {
+            return true;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == ',' || c == ';' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void escreverJson(String[] valores) throws IOException {
+        escrever('{');
+        for (int i = 0; i < colunas.length; i++) {
+            if (i > 0) {
+                escrever(',');
+            }
+            escreverTextoJson(colunas[i]);
+            escrever(':');
+            if (valores[i] == null) {
+                escrever("null");
+            } else {
+                escreverTextoJson(valores[i]);
+            }
+        }
+        escrever('}');
+        escrever('\n');
+    }
+
+    private void escreverTextoJson(String valor) throws IOException {
+        escrever('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    escrever("\\\"");
+                    break;
+                case '\\':
+                    escrever("\\\\");
+                    break;
+                case '\n':
+                    escrever("\\n");
+                    break;
+                case '\r':
+                    escrever("\\r");
+                    break;
+                case '\t':
+                    escrever("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        escrever(String.format("\\u%04x", (int) c));
+                    } else {
+                        escrever(c);
+                    }
+            }
+        }
+        escrever('"');
+    }
+
+    private void escrever(String texto) throws IOException {
+        // Cada char ocupa no máximo 3 bytes (pares substitutos ocupam 4 bytes em 2 chars)
+        if (bytes.length - posicao < texto.length() * 3) {
+            descarregar();
+            if (bytes.length < texto.length() * 3) {
+                for (int i = 0; i < texto.length(); i++) {
+                    escrever(texto.charAt(i));
+                }
+                return;
+            }
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                bytes[posicao++] = (byte) c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < texto.length()
+                    && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                codificar(Character.toCodePoint(c, texto.charAt(++i)));
+            } else {
+                codificar(Character.isSurrogate(c) ? '?' : c);
+            }
+        }
+    }
+
+    /**
+     * Escreve um caractere em UTF-8. Metades de par substituto soltas viram '?'.
+     */
+    private void escrever(char c) throws IOException {
+        if (bytes.length - posicao < 3) {
+            descarregar();
+        }
+        if (c < 0x80) {
+            bytes[posicao++] = (byte) c;
+        } else {
+            codificar(Character.isSurrogate(c) ? '?' : c);
+        }
+    }
+
+    /**
+     * Codifica um ponto de código no buffer, que deve ter espaço para ele
+     */
+    private void codificar(int codigo) {
+        if (codigo < 0x80) {
+            bytes[posicao++] = (byte) codigo;
+        } else if (codigo < 0x800) {
+            bytes[posicao++] = (byte) (0xC0 | (codigo >> 6));
+            bytes[posicao++] = (byte) (0x80 | (codigo & 0x3F));
+        } else if (codigo < 0x10000) {
+            bytes[posicao++] = (byte) (0xE0 | (codigo >> 12));
+            bytes[posicao++] = (byte) (0x80 | ((codigo >> 6) & 0x3F));
+            bytes[posicao++] = (byte) (0x80 | (codigo & 0x3F));
+        } else {
+            bytes[posicao++] = (byte) (0xF0 | (codigo >> 18));
+            bytes[posicao++] = (byte) (0x80 | ((codigo >> 12) & 0x3F));
+            bytes[posicao++] = (byte) (0x80 | ((codigo >> 6) & 0x3F));
+            bytes[posicao++] = (byte) (0x80 | (codigo & 0x3F));
+        }
+    }
+
+    private void descarregar() throws IOException {
+        buffer.limit(posicao).position(0);
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        posicao = 0;
+    }
+}
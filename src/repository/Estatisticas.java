@@ -0,0 +1,348 @@
+package repository;
+
+import model.Equipe;
+import model.Perfil;
+import model.Projeto;
+import model.Usuario;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Agregados do painel, mantidos a cada alteração dos repositórios: projetos por
+ * status, por gerente e atrasados, duração prevista média, usuários por perfil e
+ * histograma do tamanho das equipes. As leituras não percorrem os dados.
+ *
+ * Para cada entidade é guardada a sua contribuição (os valores que ela soma aos
+ * agregados), e cada notificação troca a contribuição anterior pela atual. Assim as
+ * notificações são idempotentes, e o estado já existente pode ser entregue ao
+ * registrar o ouvinte sem contar nada em dobro.
+ *
+ * A quantidade de atrasados depende do dia. Os prazos dos projetos não encerrados
+ * ficam agrupados por data; na primeira leitura de um dia novo, os grupos entre a
+ * data anterior e a atual são somados (ou subtraídos) uma única vez.
+ */
+public class Estatisticas implements OuvinteAlteracoes {
+    // Agregados de projetos
+    private Map<Projeto.Status, LongAdder> projetosPorStatus;
+    private ConcurrentMap<String, Long> projetosPorGerente;
+    private LongAdder projetosComDuracao;
+    private LongAdder somaDuracaoPrevista;
+
+    // Projetos não encerrados por data de término prevista
+    private ConcurrentNavigableMap<LocalDate, Long> prazosAbertos;
+
+    // Projetos não encerrados com término previsto antes da data de referência
+    private AtomicLong atrasados;
+    private volatile LocalDate referencia;
+
+    // As notificações usam a trava compartilhada; a troca da referência, a exclusiva
+    private ReentrantReadWriteLock travaReferencia;
+
+    // Agregados de usuários e equipes
+    private Map<Perfil, LongAdder> usuariosPorPerfil;
+    private ConcurrentMap<Integer, Long> equipesPorTamanho;
+
+    // Contribuição atual de cada entidade, por ID
+    private ConcurrentMap<String, ContribuicaoProjeto> projetos;
+    private ConcurrentMap<String, Perfil> perfis;
+    private ConcurrentMap<String, Integer> tamanhos;
+
+    // Construtor
+    public Estatisticas() {
+        this.projetosPorStatus = new EnumMap<>(Projeto.Status.class);
+        for (Projeto.Status status : Projeto.Status.values()) {
+            projetosPorStatus.put(status, new LongAdder());
+        }
+        this.projetosPorGerente = new ConcurrentHashMap<>();
+        this.projetosComDuracao = new LongAdder();
+        this.somaDuracaoPrevista = new LongAdder();
+        this.prazosAbertos = new ConcurrentSkipListMap<>();
+        this.atrasados = new AtomicLong();
+        this.referencia = LocalDate.now();
+        this.travaReferencia = new ReentrantReadWriteLock();
+        this.usuariosPorPerfil = new EnumMap<>(Perfil.class);
+        for (Perfil perfil : Perfil.values()) {
+            usuariosPorPerfil.put(perfil, new LongAdder());
+        }
+        this.equipesPorTamanho = new ConcurrentHashMap<>();
+        this.projetos = new ConcurrentHashMap<>();
+        this.perfis = new ConcurrentHashMap<>();
+        this.tamanhos = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Cria as estatísticas e passa a acompanhar os repositórios, começando pelo
+     * estado que eles já têm
+     * @param usuarioRepository Repositório de usuários
+     * @param projetoRepository Repositório de projetos
+     * @param equipeRepository Repositório de equipes
+     * @return Estatísticas atualizadas a cada alteração
+     */
+    public static Estatisticas acompanhar(UsuarioRepository usuarioRepository, ProjetoRepository projetoRepository,
+                                          EquipeRepository equipeRepository) {
+        Estatisticas estatisticas = new Estatisticas();
+        usuarioRepository.registrarOuvinteComEstado(estatisticas);
+        projetoRepository.registrarOuvinteComEstado(estatisticas);
+        equipeRepository.registrarOuvinteComEstado(estatisticas);
+        return estatisticas;
+    }
+
+    /**
+     * Quantidade de projetos em um status
+     * @param status Status do projeto
+     * @return Quantidade de projetos
+     */
+    public long projetosPorStatus(Projeto.Status status) {
+        return status == null ? 0 : projetosPorStatus.get(status).sum();
+    }
+
+    /**
+     * Quantidade de projetos de cada status
+     * @return Mapa com a quantidade de projetos de cada status
+     */
+    public EnumMap<Projeto.Status, Long> projetosPorStatus() {
+        EnumMap<Projeto.Status, Long> contagem = new EnumMap<>(Projeto.Status.class);
+        for (Map.Entry<Projeto.Status, LongAdder> entrada : projetosPorStatus.entrySet()) {
+            contagem.put(entrada.getKey(), entrada.getValue().sum());
+        }
+        return contagem;
+    }
+
+    /**
+     * Quantidade de projetos gerenciados por um usuário
+     * @param gerente Gerente dos projetos
+     * @return Quantidade de projetos
+     */
+    public long projetosPorGerente(Usuario gerente) {
+        return gerente == null ? 0 : projetosPorGerente.getOrDefault(gerente.getId(), 0L);
+    }
+
+    /**
+     * Quantidade de projetos atrasados hoje
+     * @return Projetos não encerrados com término previsto antes de hoje
+     */
+    public long projetosAtrasados() {
+        return projetosAtrasados(LocalDate.now());
+    }
+
+    /**
+     * Quantidade de projetos atrasados em relação a uma data de referência. A contagem
+     * é lida sob a trava da referência, de modo que outra chamada com outra data não
+     * a altera entre a troca da referência e a leitura.
+     * @param hoje Data de referência
+     * @return Projetos não encerrados com término previsto antes da data
+     */
+    public long projetosAtrasados(LocalDate hoje) {
+        travaReferencia.readLock().lock();
+        try {
+            if (hoje.equals(referencia)) {
+                return atrasados.get();
+            }
+        } finally {
+            travaReferencia.readLock().unlock();
+        }
+        return moverReferencia(hoje);
+    }
+
+    /**
+     * Duração prevista média dos projetos, em dias
+     * @return Média de duracaoPrevista, ou 0 se não houver projetos
+     */
+    public double duracaoPrevistaMedia() {
+        long quantidade = projetosComDuracao.sum();
+        return quantidade == 0 ? 0 : (double) somaDuracaoPrevista.sum() / quantidade;
+    }
+
+    /**
+     * Quantidade de usuários com um perfil
+     * @param perfil Perfil do usuário
+     * @return Quantidade de usuários
+     */
+    public long usuariosPorPerfil(Perfil perfil) {
+        return perfil == null ? 0 : usuariosPorPerfil.get(perfil).sum();
+    }
+
+    /**
+     * Quantidade de equipes com uma quantidade de membros
+     * @param tamanho Quantidade de membros
+     * @return Quantidade de equipes
+     */
+    public long equipesComTamanho(int tamanho) {
+        return equipesPorTamanho.getOrDefault(tamanho, 0L);
+    }
+
+    /**
+     * Histograma do tamanho das equipes (custa o número de tamanhos distintos)
+     * @return Quantidade de membros -> quantidade de equipes, em ordem crescente
+     */
+    public SortedMap<Integer, Long> histogramaTamanhoEquipes() {
+        return new TreeMap<>(equipesPorTamanho);
+    }
+
+    @Override
+    public void usuarioGravado(Usuario usuario) {
+        Perfil anterior = usuario.getPerfil() == null
+                ? perfis.remove(usuario.getId())
+                : perfis.put(usuario.getId(), usuario.getPerfil());
+        if (anterior != null) {
+            usuariosPorPerfil.get(anterior).decrement();
+        }
+        if (usuario.getPerfil() != null) {
+            usuariosPorPerfil.get(usuario.getPerfil()).increment();
+        }
+    }
+
+    @Override
+    public void usuarioRemovido(Usuario usuario) {
+        Perfil anterior = perfis.remove(usuario.getId());
+        if (anterior != null) {
+            usuariosPorPerfil.get(anterior).decrement();
+        }
+    }
+
+    @Override
+    public void projetoGravado(Projeto projeto) {
+        ContribuicaoProjeto atual = new ContribuicaoProjeto(projeto);
+        trocarContribuicao(projetos.put(projeto.getId(), atual), atual);
+    }
+
+    @Override
+    public void projetoRemovido(Projeto projeto) {
+        trocarContribuicao(projetos.remove(projeto.getId()), null);
+    }
+
+    @Override
+    public void equipeGravada(Equipe equipe) {
+        trocarTamanho(tamanhos.put(equipe.getId(), equipe.quantidadeMembros()), equipe.quantidadeMembros());
+    }
+
+    @Override
+    public void equipeRemovida(Equipe equipe) {
+        trocarTamanho(tamanhos.remove(equipe.getId()), null);
+    }
+
+    @Override
+    public void membroAdicionado(Equipe equipe, Usuario membro) {
+        equipeGravada(equipe);
+    }
+
+    @Override
+    public void membroRemovido(Equipe equipe, Usuario membro) {
+        equipeGravada(equipe);
+    }
+
+    /**
+     * Retira dos agregados a contribuição anterior de um projeto e soma a atual
+     */
+    private void trocarContribuicao(ContribuicaoProjeto anterior, ContribuicaoProjeto atual) {
+        if (anterior != null) {
+            somar(anterior, -1);
+        }
+        if (atual != null) {
+            somar(atual, 1);
+        }
+    }
+
+    private void somar(ContribuicaoProjeto contribuicao, int sinal) {
+        if (contribuicao.status != null) {
+            projetosPorStatus.get(contribuicao.status).add(sinal);
+        }
+        if (contribuicao.idGerente != null) {
+            projetosPorGerente.merge(contribuicao.idGerente, (long) sinal, Estatisticas::somarOuDescartar);
+        }
+        if (contribuicao.duracao != null) {
+            projetosComDuracao.add(sinal);
+            somaDuracaoPrevista.add(sinal * contribuicao.duracao);
+        }
+        if (contribuicao.prazoAberto != null) {
+            travaReferencia.readLock().lock();
+            try {
+                prazosAbertos.merge(contribuicao.prazoAberto, (long) sinal, Estatisticas::somarOuDescartar);
+                if (contribuicao.prazoAberto.isBefore(referencia)) {
+                    atrasados.addAndGet(sinal);
+                }
+            } finally {
+                travaReferencia.readLock().unlock();
+            }
+        }
+    }
+
+    private void trocarTamanho(Integer anterior, Integer atual) {
+        if (Objects.equals(anterior, atual)) {
+            return;
+        }
+        if (anterior != null) {
+            equipesPorTamanho.merge(anterior, -1L, Estatisticas::somarOuDescartar);
+        }
+        if (atual != null) {
+            equipesPorTamanho.merge(atual, 1L, Estatisticas::somarOuDescartar);
+        }
+    }
+
+    /**
+     * Troca a data de referência dos atrasados, somando ou subtraindo os prazos
+     * entre a data anterior e a nova
+     * @return Quantidade de atrasados na nova data, lida antes de liberar a trava
+     */
+    private long moverReferencia(LocalDate hoje) {
+        travaReferencia.writeLock().lock();
+        try {
+            LocalDate anterior = referencia;
+            if (hoje.isAfter(anterior)) {
+                atrasados.addAndGet(somarPrazos(prazosAbertos.subMap(anterior, true, hoje, false)));
+            } else if (hoje.isBefore(anterior)) {
+                atrasados.addAndGet(-somarPrazos(prazosAbertos.subMap(hoje, true, anterior, false)));
+            }
+            referencia = hoje;
+            return atrasados.get();
+        } finally {
+            travaReferencia.writeLock().unlock();
+        }
+    }
+
+    private static long somarPrazos(Map<LocalDate, Long> prazos) {
+        long soma = 0;
+        for (long quantidade : prazos.values()) {
+            soma += quantidade;
+        }
+        return soma;
+    }
+
+    // Soma usada com merge: o contador é retirado do mapa quando chega a zero
+    private static Long somarOuDescartar(Long atual, Long delta) {
+        long soma = atual + delta;
+        return soma == 0 ? null : soma;
+    }
+
+    /**
+     * Valores que um projeto soma aos agregados, copiados no momento da notificação
+     * (o objeto do projeto pode ser alterado depois)
+     */
+    private static final class ContribuicaoProjeto {
+        private final Projeto.Status status;
+        private final String idGerente;
+        private final Long duracao;
+        private final LocalDate prazoAberto;
+
+        private ContribuicaoProjeto(Projeto projeto) {
+            this.status = projeto.getStatus();
+            this.idGerente = projeto.getGerente() != null ? projeto.getGerente().getId() : null;
+            this.duracao = projeto.getDataInicio() != null && projeto.getDataTerminoPrevista() != null
+                    ? Long.valueOf(projeto.duracaoPrevista())
+                    : null;
+            this.prazoAberto = projeto.estaEncerrado() ? null : projeto.getDataTerminoPrevista();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package repository;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Exportação de todas as entidades de um repositório, consistente com o estado do
+ * momento em que começou, sem bloquear o repositório e sem copiar suas entidades.
+ *
+ * As entidades são percorridas em {@link #FAIXAS} passadas, cada uma restrita aos IDs
+ * de uma faixa de hash. Antes de incluir, alterar ou remover uma entidade ainda não
+ * escrita, o repositório avisa a exportação sob a trava da entidade: o estado anterior
+ * é guardado e é ele que vai para a saída, e entidades incluídas depois do início são
+ * ignoradas. A memória usada fica limitada às entidades alteradas durante a exportação
+ * e aos IDs já escritos da faixa corrente.
+ *
+ * Alterações feitas diretamente em um objeto obtido do repositório, antes da chamada a
+ * atualizar, passam a valer no momento em que são feitas, como para qualquer leitura.
+ */
+final class ExportacaoConsistente<T> {
+    // Quantidade de passadas sobre o repositório
+    private static final int BITS_FAIXA = 3;
+    static final int FAIXAS = 1 << BITS_FAIXA;
+
+    // Marca de entidade que não existia no início da exportação
+    private static final String[] AUSENTE = new String[0];
+
+    private final Function<T, String[]> valores;
+
+    // Estado do início da exportação das entidades alteradas antes de serem escritas
+    private final ConcurrentMap<String, String[]> preservadas;
+
+    private volatile Passada passada;
+
+    /**
+     * Cria a exportação. Deve ser registrada no repositório antes de {@link #executar}.
+     * @param valores Converte uma entidade nos valores das colunas
+     */
+    ExportacaoConsistente(Function<T, String[]> valores) {
+        this.valores = valores;
+        this.preservadas = new ConcurrentHashMap<>();
+        this.passada = new Passada(0, 0);
+    }
+
+    /**
+     * Avisa que uma entidade será incluída. Chamado sob a trava da entidade.
+     * @param id ID da entidade
+     */
+    void antesDeIncluir(String id) {
+        if (!jaEscrita(id)) {
+            preservadas.putIfAbsent(id, AUSENTE);
+        }
+    }
+
+    /**
+     * Avisa que uma entidade será alterada ou removida. Chamado sob a trava da entidade.
+     * @param id ID da entidade
+     * @param atual Entidade no estado em que está no repositório
+     */
+    void antesDeAlterar(String id, T atual) {
+        if (!jaEscrita(id) && !preservadas.containsKey(id)) {
+            preservadas.put(id, valores.apply(atual));
+        }
+    }
+
+    /**
+     * Escreve as entidades do repositório
+     * @param entidades Mapa principal do repositório (ID -> entidade)
+     * @param travas Travas de escrita do repositório
+     * @param saida Destino das linhas
+     * @return Quantidade de entidades escritas
+     * @throws IOException em caso de erro de escrita
+     */
+    long executar(Map<String, T> entidades, TravasPorChave travas, EscritorLinhas saida) throws IOException {
+        long escritas = 0;
+        saida.iniciar();
+        passada = new Passada(0, entidades.size() / FAIXAS);
+        for (int faixa = 0; faixa < FAIXAS; faixa++) {
+            Passada atual = passada;
+            for (String id : entidades.keySet()) {
+                if (faixa(id) != faixa) {
+                    continue;
+                }
+
+                // Só os valores são obtidos sob a trava; a escrita no canal acontece fora dela
+                String[] linha;
+                ReentrantLock trava = travas.trava(id);
+                trava.lock();
+                try {
+                    if (!atual.escritas.add(id)) {
+                        continue;
+                    }
+                    linha = preservadas.remove(id);
+                    if (linha == null) {
+                        T entidade = entidades.get(id);
+                        linha = entidade == null ? AUSENTE : valores.apply(entidade);
+                    }
+                } finally {
+                    trava.unlock();
+                }
+                if (linha != AUSENTE) {
+                    saida.linha(linha);
+                    escritas++;
+                }
+            }
+
+            // A partir daqui os escritores consideram a faixa inteira já escrita;
+            // esperar as seções críticas em andamento garante que nada mais será preservado nela
+            passada = new Passada(faixa + 1, faixa + 1 < FAIXAS ? entidades.size() / FAIXAS : 0);
+            travas.aguardarLiberacao();
+
+            // Entidades da faixa removidas antes de serem alcançadas
+            Iterator<Map.Entry<String, String[]>> iterador = preservadas.entrySet().iterator();
+            while (iterador.hasNext()) {
+                Map.Entry<String, String[]> entrada = iterador.next();
+                if (faixa(entrada.getKey()) == faixa) {
+                    iterador.remove();
+                    if (entrada.getValue() != AUSENTE) {
+                        saida.linha(entrada.getValue());
+                        escritas++;
+                    }
+                }
+            }
+        }
+        saida.concluir();
+        return escritas;
+    }
+
+    private boolean jaEscrita(String id) {
+        Passada atual = passada;
+        int faixa = faixa(id);
+        return faixa < atual.faixa || (faixa == atual.faixa && atual.escritas.contains(id));
+    }
+
+    /**
+     * Faixa de um ID, tirada dos bits altos de um hash multiplicativo: os bits baixos
+     * continuam variados dentro da faixa e não concentram o conjunto de IDs escritos
+     * em poucos compartimentos
+     */
+    private static int faixa(String id) {
+        return (id.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - BITS_FAIXA);
+    }
+
+    /**
+     * Faixa sendo percorrida e IDs dela já escritos
+     */
+    private static final class Passada {
+        private final int faixa;
+        private final Set<String> escritas;
+
+        /**
+         * @param faixa Faixa a ser percorrida
+         * @param estimativa Quantidade esperada de IDs na faixa
+         */
+        private Passada(int faixa, int estimativa) {
+            this.faixa = faixa;
+            this.escritas = ConcurrentHashMap.newKeySet(estimativa);
+        }
+    }
+}
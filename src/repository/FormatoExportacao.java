@@ -0,0 +1,11 @@
+package repository;
+
+/**
+ * Formatos de saída da exportação dos repositórios
+ */
+public enum FormatoExportacao {
+    // Uma linha de cabeçalho com os nomes das colunas, valores separados por vírgula
+    CSV,
+    // Um objeto JSON por linha
+    JSON_LINHAS
+}
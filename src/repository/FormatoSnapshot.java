@@ -0,0 +1,14 @@
+package repository;
+
+/**
+ * Formato dos snapshots gravados pelo armazenamento persistente.
+ * Snapshots de qualquer formato são reconhecidos na abertura.
+ */
+public enum FormatoSnapshot {
+    // Sequência de registros no formato do log de escrita
+    REGISTROS,
+    // Tabelas de largura fixa e pool de textos, lidas por mapeamento em memória. A
+    // abertura ainda materializa todas as entidades nos repositórios, que precisam
+    // das chaves para os índices: o ganho é na leitura do arquivo, não no heap
+    MAPEADO
+}
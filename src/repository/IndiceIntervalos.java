@@ -0,0 +1,373 @@
+package repository;
+
+import model.Periodo;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Índice de intervalos de datas [inicio, fim] identificados por ID.
+ *
+ * É uma treap ordenada por (inicio, id) em que cada nó guarda o menor e o maior
+ * fim da sua subárvore. Nas consultas, uma subárvore já dentro da faixa de datas
+ * iniciais é resolvida na raiz quando esses limites mostram que nenhum ou todos os
+ * seus intervalos atendem ao período: no primeiro caso é descartada, no segundo é
+ * coletada sem novas comparações. Só as subárvores que misturam intervalos que
+ * atendem e que não atendem são percorridas. Uma consulta custa O(log n + k) quando
+ * os k resultados ficam agrupados em subárvores; no pior caso, com resultados
+ * alternados com não resultados, chega a O(log n + k log(n / k)), pois cada
+ * resultado isolado custa o caminho até ele. Intervalos invertidos (fim antes do
+ * início) são aceitos e seguem as mesmas definições de contido e sobreposto.
+ * Os nós são imutáveis: cada alteração copia apenas o caminho até a raiz.
+ * Assim as consultas leem uma versão estável da árvore sem usar travas,
+ * enquanto as alterações são serializadas entre si.
+ */
+class IndiceIntervalos {
+    // Raiz da árvore (null quando o índice está vazio)
+    private volatile No raiz;
+
+    /**
+     * Inclui um intervalo no índice
+     * @param id ID do elemento
+     * @param inicio Data inicial do intervalo
+     * @param fim Data final do intervalo
+     */
+    synchronized void inserir(String id, LocalDate inicio, LocalDate fim) {
+        raiz = inserir(raiz, new No(id, inicio, fim, prioridade(id), null, null));
+    }
+
+    /**
+     * Retira um intervalo do índice
+     * @param id ID do elemento
+     * @param inicio Data inicial com que o intervalo foi inserido
+     */
+    synchronized void remover(String id, LocalDate inicio) {
+        raiz = remover(raiz, id, inicio);
+    }
+
+    /**
+     * Substitui todo o conteúdo do índice. Depois da ordenação, a árvore é montada
+     * em tempo linear (árvore cartesiana pelas prioridades), o que é bem mais barato
+     * do que inserir os intervalos um a um, cada um copiando o seu caminho.
+     * @param ids IDs dos elementos
+     * @param inicios Datas iniciais, na mesma ordem dos IDs
+     * @param fins Datas finais, na mesma ordem dos IDs
+     */
+    synchronized void reconstruir(List<String> ids, List<LocalDate> inicios, List<LocalDate> fins) {
+        int quantidade = ids.size();
+        No[] nos = new No[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            nos[i] = new No(ids.get(i), inicios.get(i), fins.get(i), prioridade(ids.get(i)), null, null);
+        }
+        Arrays.sort(nos, (a, b) -> comparar(a.inicio, a.id, b));
+
+        // A pilha guarda a borda direita da árvore já montada; cada nó novo desce
+        // por ela até encontrar um ancestral de prioridade maior ou igual
+        int[] esq = new int[quantidade];
+        int[] dir = new int[quantidade];
+        int[] pilha = new int[quantidade];
+        int topo = 0;
+        for (int i = 0; i < quantidade; i++) {
+            int ultimoRetirado = -1;
+            while (topo > 0 && nos[pilha[topo - 1]].prioridade < nos[i].prioridade) {
+                ultimoRetirado = pilha[--topo];
+            }
+            esq[i] = ultimoRetirado;
+            dir[i] = -1;
+            if (topo > 0) {
+                dir[pilha[topo - 1]] = i;
+            }
+            pilha[topo++] = i;
+        }
+        raiz = topo == 0 ? null : montar(pilha[0], nos, esq, dir);
+    }
+
+    /**
+     * Lista os intervalos contidos em um período (inicio >= dataInicio e fim <= dataFim)
+     * @param dataInicio Data inicial do período
+     * @param dataFim Data final do período
+     * @return IDs dos intervalos encontrados, em ordem de data inicial
+     */
+    List<String> contidos(LocalDate dataInicio, LocalDate dataFim) {
+        List<String> ids = new ArrayList<>();
+        coletarContidos(raiz, dataInicio, dataFim, false, ids);
+        return ids;
+    }
+
+    /**
+     * Lista os intervalos que se sobrepõem a um período (inicio <= dataFim e fim >= dataInicio)
+     * @param dataInicio Data inicial do período
+     * @param dataFim Data final do período
+     * @return IDs dos intervalos encontrados, em ordem de data inicial
+     */
+    List<String> sobrepostos(LocalDate dataInicio, LocalDate dataFim) {
+        List<String> ids = new ArrayList<>();
+        coletarSobrepostos(raiz, dataInicio, dataFim, false, ids);
+        return ids;
+    }
+
+    /**
+     * Responde a consulta de contenção para vários períodos em uma única varredura.
+     * Os períodos são percorridos em ordem decrescente de data inicial enquanto os
+     * intervalos com início a partir dessa data são acumulados por data final.
+     * @param periodos Períodos a serem consultados
+     * @return Para cada período, na mesma posição, os IDs dos intervalos contidos nele
+     */
+    List<List<String>> contidosEmLote(List<Periodo> periodos) {
+        No[] nos = emOrdem();
+        Integer[] ordem = ordenarPeriodos(periodos, Comparator.comparing(Periodo::getInicio).reversed());
+        List<List<String>> resultado = resultadoVazio(periodos.size());
+
+        TreeMap<LocalDate, List<String>> porFim = new TreeMap<>();
+        int proximo = nos.length - 1;
+        for (int indice : ordem) {
+            Periodo periodo = periodos.get(indice);
+            while (proximo >= 0 && !nos[proximo].inicio.isBefore(periodo.getInicio())) {
+                porFim.computeIfAbsent(nos[proximo].fim, fim -> new ArrayList<>()).add(nos[proximo].id);
+                proximo--;
+            }
+            coletarFaixa(porFim.headMap(periodo.getFim(), true), resultado.get(indice));
+        }
+        return resultado;
+    }
+
+    /**
+     * Responde a consulta de sobreposição para vários períodos em uma única varredura.
+     * Os períodos são percorridos em ordem crescente de data final enquanto os
+     * intervalos que começam até essa data são acumulados por data final.
+     * @param periodos Períodos a serem consultados
+     * @return Para cada período, na mesma posição, os IDs dos intervalos sobrepostos a ele
+     */
+    List<List<String>> sobrepostosEmLote(List<Periodo> periodos) {
+        No[] nos = emOrdem();
+        Integer[] ordem = ordenarPeriodos(periodos, Comparator.comparing(Periodo::getFim));
+        List<List<String>> resultado = resultadoVazio(periodos.size());
+
+        TreeMap<LocalDate, List<String>> porFim = new TreeMap<>();
+        int proximo = 0;
+        for (int indice : ordem) {
+            Periodo periodo = periodos.get(indice);
+            while (proximo < nos.length && !nos[proximo].inicio.isAfter(periodo.getFim())) {
+                porFim.computeIfAbsent(nos[proximo].fim, fim -> new ArrayList<>()).add(nos[proximo].id);
+                proximo++;
+            }
+            coletarFaixa(porFim.tailMap(periodo.getInicio(), true), resultado.get(indice));
+        }
+        return resultado;
+    }
+
+    /**
+     * Coleta os intervalos contidos no período
+     * @param inicioAtendido Se todos os intervalos da subárvore começam em dataInicio ou depois
+     */
+    private static void coletarContidos(No no, LocalDate dataInicio, LocalDate dataFim, boolean inicioAtendido,
+                                        List<String> ids) {
+        if (no == null || no.minFim.isAfter(dataFim)) {
+            return;
+        }
+        if (inicioAtendido && !no.maxFim.isAfter(dataFim)) {
+            coletarTodos(no, ids);
+            return;
+        }
+        if (no.inicio.isBefore(dataInicio)) {
+            coletarContidos(no.dir, dataInicio, dataFim, false, ids);
+            return;
+        }
+        // Um início depois de dataFim não descarta o nó nem a subárvore direita: o
+        // repositório aceita intervalos invertidos (fim antes do início), que podem
+        // terminar até dataFim. Com intervalos normais, a subárvore direita é
+        // descartada logo na entrada pelo menor fim.
+        coletarContidos(no.esq, dataInicio, dataFim, inicioAtendido, ids);
+        if (!no.fim.isAfter(dataFim)) {
+            ids.add(no.id);
+        }
+        coletarContidos(no.dir, dataInicio, dataFim, true, ids);
+    }
+
+    /**
+     * Coleta os intervalos sobrepostos ao período
+     * @param inicioAtendido Se todos os intervalos da subárvore começam até dataFim
+     */
+    private static void coletarSobrepostos(No no, LocalDate dataInicio, LocalDate dataFim, boolean inicioAtendido,
+                                           List<String> ids) {
+        if (no == null || no.maxFim.isBefore(dataInicio)) {
+            return;
+        }
+        if (inicioAtendido && !no.minFim.isBefore(dataInicio)) {
+            coletarTodos(no, ids);
+            return;
+        }
+        boolean noAtendeInicio = !no.inicio.isAfter(dataFim);
+        coletarSobrepostos(no.esq, dataInicio, dataFim, inicioAtendido || noAtendeInicio, ids);
+        if (!noAtendeInicio) {
+            return;
+        }
+        if (!no.fim.isBefore(dataInicio)) {
+            ids.add(no.id);
+        }
+        coletarSobrepostos(no.dir, dataInicio, dataFim, inicioAtendido, ids);
+    }
+
+    // Coleta toda a subárvore, em ordem de data inicial
+    private static void coletarTodos(No no, List<String> ids) {
+        while (no != null) {
+            coletarTodos(no.esq, ids);
+            ids.add(no.id);
+            no = no.dir;
+        }
+    }
+
+    private static void coletarFaixa(Map<LocalDate, List<String>> faixa, List<String> destino) {
+        for (List<String> ids : faixa.values()) {
+            destino.addAll(ids);
+        }
+    }
+
+    private static Integer[] ordenarPeriodos(List<Periodo> periodos, Comparator<Periodo> comparador) {
+        Integer[] ordem = new Integer[periodos.size()];
+        for (int i = 0; i < ordem.length; i++) {
+            ordem[i] = i;
+        }
+        Arrays.sort(ordem, (a, b) -> comparador.compare(periodos.get(a), periodos.get(b)));
+        return ordem;
+    }
+
+    private static List<List<String>> resultadoVazio(int tamanho) {
+        List<List<String>> resultado = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            resultado.add(new ArrayList<>());
+        }
+        return resultado;
+    }
+
+    /**
+     * Percorre a árvore em ordem de (inicio, id)
+     * @return Nós do índice ordenados por data inicial
+     */
+    private No[] emOrdem() {
+        List<No> nos = new ArrayList<>();
+        List<No> pilha = new ArrayList<>();
+        No atual = raiz;
+        while (atual != null || !pilha.isEmpty()) {
+            while (atual != null) {
+                pilha.add(atual);
+                atual = atual.esq;
+            }
+            atual = pilha.remove(pilha.size() - 1);
+            nos.add(atual);
+            atual = atual.dir;
+        }
+        return nos.toArray(new No[0]);
+    }
+
+    private static No inserir(No no, No novo) {
+        if (no == null) {
+            return novo;
+        }
+        if (comparar(novo.inicio, novo.id, no) < 0) {
+            No esq = inserir(no.esq, novo);
+            if (esq.prioridade > no.prioridade) {
+                // Rotação à direita
+                return esq.com(esq.esq, no.com(esq.dir, no.dir));
+            }
+            return no.com(esq, no.dir);
+        }
+        No dir = inserir(no.dir, novo);
+        if (dir.prioridade > no.prioridade) {
+            // Rotação à esquerda
+            return dir.com(no.com(no.esq, dir.esq), dir.dir);
+        }
+        return no.com(no.esq, dir);
+    }
+
+    private static No montar(int indice, No[] nos, int[] esq, int[] dir) {
+        if (indice < 0) {
+            return null;
+        }
+        return nos[indice].com(montar(esq[indice], nos, esq, dir), montar(dir[indice], nos, esq, dir));
+    }
+
+    private static No remover(No no, String id, LocalDate inicio) {
+        if (no == null) {
+            return null;
+        }
+        int comparacao = comparar(inicio, id, no);
+        if (comparacao < 0) {
+            return no.com(remover(no.esq, id, inicio), no.dir);
+        }
+        if (comparacao > 0) {
+            return no.com(no.esq, remover(no.dir, id, inicio));
+        }
+        return juntar(no.esq, no.dir);
+    }
+
+    private static No juntar(No esq, No dir) {
+        if (esq == null) {
+            return dir;
+        }
+        if (dir == null) {
+            return esq;
+        }
+        if (esq.prioridade > dir.prioridade) {
+            return esq.com(esq.esq, juntar(esq.dir, dir));
+        }
+        return dir.com(juntar(esq, dir.esq), dir.dir);
+    }
+
+    private static int comparar(LocalDate inicio, String id, No no) {
+        int comparacao = inicio.compareTo(no.inicio);
+        return comparacao != 0 ? comparacao : id.compareTo(no.id);
+    }
+
+    private static int prioridade(String id) {
+        // Espalha os bits do hash para obter prioridades bem distribuídas
+        int h = id.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Nó imutável da treap.
+     */
+    private static final class No {
+        private final String id;
+        private final LocalDate inicio;
+        private final LocalDate fim;
+        private final int prioridade;
+        private final No esq;
+        private final No dir;
+        private final LocalDate minFim;
+        private final LocalDate maxFim;
+
+        private No(String id, LocalDate inicio, LocalDate fim, int prioridade, No esq, No dir) {
+            this.id = id;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.prioridade = prioridade;
+            this.esq = esq;
+            this.dir = dir;
+
+            LocalDate menor = fim;
+            LocalDate maior = fim;
+            if (esq != null) {
+                menor = esq.minFim.isBefore(menor) ? esq.minFim : menor;
+                maior = esq.maxFim.isAfter(maior) ? esq.maxFim : maior;
+            }
+            if (dir != null) {
+                menor = dir.minFim.isBefore(menor) ? dir.minFim : menor;
+                maior = dir.maxFim.isAfter(maior) ? dir.maxFim : maior;
+            }
+            this.minFim = menor;
+            this.maxFim = maior;
+        }
+
+        // Cria uma cópia do nó com outros filhos
+        private No com(No esq, No dir) {
+            return new No(id, inicio, fim, prioridade, esq, dir);
+        }
+    }
+}
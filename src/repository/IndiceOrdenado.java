@@ -0,0 +1,301 @@
+package repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Índice ordenado por uma chave de ordenação, com desempate pelo ID, usado na
+ * paginação por cursor. Cada página continua a partir da última entrada da página
+ * anterior, de modo que obter uma página custa O(log n + tamanho da página).
+ *
+ * As alterações são feitas pelos repositórios sob a trava da entidade; as leituras
+ * não usam travas e enxergam o índice como ele estiver durante a varredura.
+ * Em uma carga em massa o índice pode ser adiado e montado de uma vez no final.
+ * @param <K> Tipo da chave de ordenação
+ */
+final class IndiceOrdenado<K> {
+    // Separa a chave do ID no conteúdo do cursor
+    private static final char SEPARADOR = '\u0000';
+
+    private final Comparator<Entrada<K>> ordem;
+    private final Function<K, String> codificar;
+    private final Function<String, K> decodificar;
+
+    // Entradas do índice (o valor não é usado)
+    private volatile ConcurrentNavigableMap<Entrada<K>, Boolean> entradas;
+
+    // Durante uma carga em massa as alterações são ignoradas até a reconstrução
+    private volatile boolean adiado;
+
+    /**
+     * Cria o índice
+     * @param ordem Ordem das chaves (chaves nulas vêm primeiro)
+     * @param codificar Converte uma chave em texto para o cursor
+     * @param decodificar Converte o texto do cursor de volta na chave
+     */
+    IndiceOrdenado(Comparator<K> ordem, Function<K, String> codificar, Function<String, K> decodificar) {
+        Comparator<K> chaves = Comparator.nullsFirst(ordem);
+        this.ordem = (a, b) -> {
+            int comparacao = chaves.compare(a.chave, b.chave);
+            return comparacao != 0 ? comparacao : a.id.compareTo(b.id);
+        };
+        this.entradas = new ConcurrentSkipListMap<>(this.ordem);
+        this.codificar = codificar;
+        this.decodificar = decodificar;
+    }
+
+    /**
+     * Cria um índice ordenado por uma chave de texto (por exemplo, um nome normalizado)
+     * @return Índice em ordem crescente da chave
+     */
+    static IndiceOrdenado<String> porTexto() {
+        return new IndiceOrdenado<>(Comparator.<String>naturalOrder(), Function.identity(), Function.identity());
+    }
+
+    void inserir(K chave, String id) {
+        if (!adiado) {
+            entradas.put(new Entrada<>(chave, id), Boolean.TRUE);
+        }
+    }
+
+    void remover(K chave, String id) {
+        if (!adiado) {
+            entradas.remove(new Entrada<>(chave, id));
+        }
+    }
+
+    /**
+     * Troca a chave de uma entidade, se tiver mudado
+     * @param anterior Chave com que a entidade está indexada
+     * @param atual Nova chave
+     * @param id ID da entidade
+     */
+    void alterar(K anterior, K atual, String id) {
+        if (!Objects.equals(anterior, atual)) {
+            inserir(atual, id);
+            remover(anterior, id);
+        }
+    }
+
+    /**
+     * Monta uma página, resolvendo os IDs nas entidades. IDs cuja entidade foi
+     * removida durante a leitura são ignorados.
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de itens
+     * @param resolver Obtém a entidade pelo ID (null se não existir mais)
+     * @return Página com até tamanho itens
+     */
+    <T> Pagina<T> pagina(String cursor, int tamanho, Function<String, T> resolver) {
+        if (tamanho < 1) {
+            throw new IllegalArgumentException("Tamanho da página deve ser de pelo menos 1 item");
+        }
+        NavigableSet<Entrada<K>> restantes = cursor == null
+                ? entradas.keySet() : entradas.tailMap(lerCursor(cursor), false).keySet();
+
+        List<T> itens = new ArrayList<>(tamanho);
+        Entrada<K> ultima = null;
+        Iterator<Entrada<K>> iterador = restantes.iterator();
+        while (iterador.hasNext() && itens.size() < tamanho) {
+            Entrada<K> entrada = iterador.next();
+            T item = resolver.apply(entrada.id);
+            if (item != null) {
+                itens.add(item);
+            }
+            ultima = entrada;
+        }
+        return new Pagina<>(itens, iterador.hasNext() ? escreverCursor(ultima) : null);
+    }
+
+    /**
+     * Lista todas as entidades na ordem do índice
+     * @param resolver Obtém a entidade pelo ID (null se não existir mais)
+     * @return Entidades em ordem
+     */
+    <T> List<T> listar(Function<String, T> resolver) {
+        List<T> itens = new ArrayList<>(entradas.size());
+        for (Entrada<K> entrada : entradas.keySet()) {
+            T item = resolver.apply(entrada.id);
+            if (item != null) {
+                itens.add(item);
+            }
+        }
+        return itens;
+    }
+
+    int tamanho() {
+        return entradas.size();
+    }
+
+    /**
+     * Passa a ignorar as alterações até {@link #reconstruir}. Usado na recuperação,
+     * antes que o repositório seja exposto a outras threads.
+     */
+    void adiar() {
+        adiado = true;
+    }
+
+    /**
+     * Monta o índice de uma vez: as entradas são ordenadas em um vetor e a lista
+     * ordenada é construída em tempo linear a partir dele, sem inserções individuais
+     * @param chaves Chave de cada entidade
+     * @param ids ID de cada entidade, na mesma posição da chave
+     */
+    void reconstruir(List<K> chaves, List<String> ids) {
+        List<Entrada<K>> ordenadas = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            ordenadas.add(new Entrada<>(chaves.get(i), ids.get(i)));
+        }
+        ordenadas.sort(ordem);
+        entradas = new ConcurrentSkipListMap<>(new EntradasOrdenadas<>(ordenadas, ordem));
+        adiado = false;
+    }
+
+    /**
+     * Monta índices que particionam um índice já montado (por exemplo, um índice por
+     * perfil com a mesma chave do índice geral). As entradas do índice geral já estão
+     * em ordem, então cada partição é montada em tempo linear, sem nova ordenação.
+     * @param base Índice geral, já reconstruído
+     * @param grupos Índice de cada grupo
+     * @param grupo Grupo de uma entidade pelo ID (null se a entidade não pertence a nenhum)
+     */
+    static <K, G> void reconstruirPorGrupo(IndiceOrdenado<K> base, Map<G, IndiceOrdenado<K>> grupos,
+                                           Function<String, G> grupo) {
+        Map<G, List<Entrada<K>>> particoes = new HashMap<>();
+        for (G chave : grupos.keySet()) {
+            particoes.put(chave, new ArrayList<>());
+        }
+        for (Entrada<K> entrada : base.entradas.keySet()) {
+            List<Entrada<K>> particao = particoes.get(grupo.apply(entrada.id));
+            if (particao != null) {
+                particao.add(entrada);
+            }
+        }
+        for (Map.Entry<G, IndiceOrdenado<K>> indice : grupos.entrySet()) {
+            IndiceOrdenado<K> destino = indice.getValue();
+            destino.entradas = new ConcurrentSkipListMap<>(
+                    new EntradasOrdenadas<>(particoes.get(indice.getKey()), destino.ordem));
+            destino.adiado = false;
+        }
+    }
+
+    private String escreverCursor(Entrada<K> entrada) {
+        String chave = entrada.chave == null ? "" : "=" + codificar.apply(entrada.chave);
+        byte[] conteudo = (chave + SEPARADOR + entrada.id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(conteudo);
+    }
+
+    private Entrada<K> lerCursor(String cursor) {
+        try {
+            String conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = conteudo.lastIndexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            String chave = conteudo.substring(0, separador);
+            return new Entrada<>(chave.isEmpty() ? null : decodificar.apply(chave.substring(1)),
+                    conteudo.substring(separador + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    /**
+     * Visão de um vetor já ordenado como SortedMap, apenas para o construtor de
+     * ConcurrentSkipListMap, que nesse caso monta a estrutura em tempo linear.
+     * Só a iteração, o tamanho e o comparador são suportados.
+     */
+    private static final class EntradasOrdenadas<K> extends AbstractMap<Entrada<K>, Boolean>
+            implements SortedMap<Entrada<K>, Boolean> {
+        private final List<Entrada<K>> ordenadas;
+        private final Comparator<Entrada<K>> ordem;
+
+        private EntradasOrdenadas(List<Entrada<K>> ordenadas, Comparator<Entrada<K>> ordem) {
+            this.ordenadas = ordenadas;
+            this.ordem = ordem;
+        }
+
+        @Override
+        public Comparator<? super Entrada<K>> comparator() {
+            return ordem;
+        }
+
+        @Override
+        public Set<Map.Entry<Entrada<K>, Boolean>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<Entrada<K>, Boolean>> iterator() {
+                    Iterator<Entrada<K>> iterador = ordenadas.iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterador.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<Entrada<K>, Boolean> next() {
+                            return Map.entry(iterador.next(), Boolean.TRUE);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return ordenadas.size();
+                }
+            };
+        }
+
+        @Override
+        public SortedMap<Entrada<K>, Boolean> subMap(Entrada<K> de, Entrada<K> ate) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<Entrada<K>, Boolean> headMap(Entrada<K> ate) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<Entrada<K>, Boolean> tailMap(Entrada<K> de) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Entrada<K> firstKey() {
+            return ordenadas.get(0);
+        }
+
+        @Override
+        public Entrada<K> lastKey() {
+            return ordenadas.get(ordenadas.size() - 1);
+        }
+    }
+
+    /**
+     * Chave de ordenação e ID de uma entidade
+     */
+    private static final class Entrada<K> {
+        private final K chave;
+        private final String id;
+
+        private Entrada(K chave, String id) {
+            this.chave = chave;
+            this.id = id;
+        }
+    }
+}
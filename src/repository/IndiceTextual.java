@@ -0,0 +1,669 @@
+package repository;
+
+import model.Equipe;
+import model.Projeto;
+import model.Usuario;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido, em memória, do nome e da descrição de projetos e equipes e do
+ * nome completo e do cargo dos usuários, mantido a cada alteração dos repositórios.
+ *
+ * Os textos são divididos em termos sem acento e em minúsculas ("Migração" e
+ * "migracao" são o mesmo termo), ignorando palavras vazias como "de" e "para". Uma
+ * consulta encontra as entidades que têm todos os seus termos; um termo terminado em
+ * "*" vale como prefixo. O resultado vem ordenado pela pontuação BM25, em que as
+ * ocorrências no nome valem o dobro das ocorrências na descrição.
+ *
+ * Cada versão indexada de uma entidade recebe um número de documento novo, em ordem
+ * crescente, e o conteúdo de um documento nunca muda. Assim as listas de cada termo
+ * são vetores de inteiros em ordem, só acrescidos no fim; os documentos substituídos
+ * ou removidos ficam nas listas até que a lista seja compactada, quando passam a ser
+ * maioria nela. Quando os documentos ou termos descartados passam a ser maioria no
+ * índice, tudo é renumerado de uma vez.
+ */
+public class IndiceTextual implements OuvinteAlteracoes {
+    // Parâmetros do BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Peso das ocorrências no nome em relação às da descrição
+    private static final int PESO_NOME = 2;
+
+    // Termos mais longos são truncados
+    private static final int TAMANHO_MAXIMO_TERMO = 32;
+
+    // Quantidade máxima de termos alcançados por um prefixo (os primeiros em ordem alfabética)
+    public static final int MAXIMO_EXPANSOES = 256;
+
+    // Folga antes de compactar uma lista ou renumerar o índice
+    private static final int FOLGA_DESCARTADOS = 1_024;
+
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of("a", "o", "as", "os", "e", "de", "da", "do",
+            "das", "dos", "em", "na", "no", "nas", "nos", "um", "uma", "para", "por", "com");
+
+    // Escritas usam a trava exclusiva; consultas, a compartilhada
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    // Termo -> número do termo, em ordem alfabética para as consultas por prefixo
+    private TreeMap<String, Integer> vocabulario = new TreeMap<>();
+
+    // Por número de termo: texto, documentos (em ordem crescente, incluindo descartados),
+    // posições usadas da lista e documentos vivos que têm o termo
+    private String[] termos = new String[64];
+    private int[][] listas = new int[64][];
+    private int[] tamanhosListas = new int[64];
+    private int[] documentosComTermo = new int[64];
+    private int quantidadeTermos;
+    private int termosVivos;
+
+    // Por número de documento: entidade (null se descartado), textos indexados,
+    // termos em ordem crescente com a frequência ponderada de cada um e comprimento
+    private Object[] entidades = new Object[64];
+    private String[] nomes = new String[64];
+    private String[] descricoes = new String[64];
+    private int[][] termosDocumento = new int[64][];
+    private byte[][] frequencias = new byte[64][];
+    private int[] comprimentos = new int[64];
+    private int quantidadeDocumentos;
+    private int documentosVivos;
+    private long somaComprimentos;
+
+    // ID da entidade -> documento atual, por tipo
+    private final Map<ResultadoBusca.Tipo, Map<String, Integer>> documentos =
+            new EnumMap<>(ResultadoBusca.Tipo.class);
+
+    // Construtor
+    public IndiceTextual() {
+        for (ResultadoBusca.Tipo tipo : ResultadoBusca.Tipo.values()) {
+            documentos.put(tipo, new HashMap<>());
+        }
+    }
+
+    /**
+     * Cria o índice e passa a acompanhar os repositórios, começando pelo estado que
+     * eles já têm
+     * @param usuarioRepository Repositório de usuários
+     * @param projetoRepository Repositório de projetos
+     * @param equipeRepository Repositório de equipes
+     * @return Índice atualizado a cada alteração
+     */
+    public static IndiceTextual acompanhar(UsuarioRepository usuarioRepository, ProjetoRepository projetoRepository,
+                                           EquipeRepository equipeRepository) {
+        IndiceTextual indice = new IndiceTextual();
+        usuarioRepository.registrarOuvinteComEstado(indice);
+        projetoRepository.registrarOuvinteComEstado(indice);
+        equipeRepository.registrarOuvinteComEstado(indice);
+        return indice;
+    }
+
+    /**
+     * Busca as entidades que têm todos os termos da consulta
+     * @param consulta Texto da consulta; termos terminados em "*" valem como prefixo
+     * @param tipo Tipo de entidade procurado, ou null para todos
+     * @param limite Quantidade máxima de resultados
+     * @return Resultados em ordem decrescente de pontuação
+     */
+    public List<ResultadoBusca> buscar(String consulta, ResultadoBusca.Tipo tipo, int limite) {
+        List<String> termosConsulta = new ArrayList<>();
+        List<Boolean> prefixos = new ArrayList<>();
+        tokenizar(consulta, (termo, prefixo) -> {
+            termosConsulta.add(termo);
+            prefixos.add(prefixo);
+        });
+        if (termosConsulta.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+
+        trava.readLock().lock();
+        try {
+            // Números dos termos de cada termo da consulta (vários, para os prefixos)
+            int[][] grupos = new int[termosConsulta.size()][];
+            int menor = 0;
+            long menorCusto = Long.MAX_VALUE;
+            for (int i = 0; i < grupos.length; i++) {
+                grupos[i] = prefixos.get(i) ? expandir(termosConsulta.get(i)) : termoExato(termosConsulta.get(i));
+                if (grupos[i].length == 0) {
+                    return new ArrayList<>();
+                }
+                long custo = 0;
+                for (int termo : grupos[i]) {
+                    custo += tamanhosListas[termo];
+                }
+                if (custo < menorCusto) {
+                    menorCusto = custo;
+                    menor = i;
+                }
+            }
+
+            double[][] idfs = new double[grupos.length][];
+            for (int i = 0; i < grupos.length; i++) {
+                idfs[i] = new double[grupos[i].length];
+                for (int j = 0; j < grupos[i].length; j++) {
+                    double n = documentosComTermo[grupos[i][j]];
+                    idfs[i][j] = Math.log(1 + (documentosVivos - n + 0.5) / (n + 0.5));
+                }
+            }
+
+            // Os candidatos vêm do termo da consulta com as listas mais curtas; os
+            // demais são conferidos nos termos de cada candidato
+            double comprimentoMedio = (double) somaComprimentos / documentosVivos;
+            MelhoresResultados melhores = new MelhoresResultados(limite);
+            int[] candidatos = candidatos(grupos[menor]);
+            for (int documento : candidatos) {
+                Object entidade = entidades[documento];
+                if (entidade == null || (tipo != null && tipo != tipo(entidade))) {
+                    continue;
+                }
+                double normalizacao = K1 * (1 - B + B * comprimentos[documento] / comprimentoMedio);
+                double pontuacao = 0;
+                for (int i = 0; i < grupos.length; i++) {
+                    double parcial = pontuar(documento, grupos[i], idfs[i], normalizacao);
+                    if (parcial < 0) {
+                        pontuacao = -1;
+                        break;
+                    }
+                    pontuacao += parcial;
+                }
+                if (pontuacao >= 0) {
+                    melhores.oferecer(documento, pontuacao);
+                }
+            }
+
+            List<ResultadoBusca> resultados = new ArrayList<>(melhores.quantidade);
+            for (int posicao : melhores.emOrdem()) {
+                Object entidade = entidades[melhores.documentos[posicao]];
+                if (entidade instanceof Usuario) {
+                    // Usuários são entregues como cópias, como no repositório
+                    entidade = new Usuario((Usuario) entidade);
+                }
+                resultados.add(new ResultadoBusca(tipo(entidade), entidade, melhores.pontuacoes[posicao]));
+            }
+            return resultados;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quantidade de entidades indexadas
+     * @return Quantidade de documentos vivos
+     */
+    public int quantidadeDocumentos() {
+        trava.readLock().lock();
+        try {
+            return documentosVivos;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void usuarioGravado(Usuario usuario) {
+        gravar(ResultadoBusca.Tipo.USUARIO, usuario.getId(), usuario, usuario.getNomeCompleto(), usuario.getCargo());
+    }
+
+    @Override
+    public void usuarioRemovido(Usuario usuario) {
+        remover(ResultadoBusca.Tipo.USUARIO, usuario.getId());
+    }
+
+    @Override
+    public void projetoGravado(Projeto projeto) {
+        gravar(ResultadoBusca.Tipo.PROJETO, projeto.getId(), projeto, projeto.getNome(), projeto.getDescricao());
+    }
+
+    @Override
+    public void projetoRemovido(Projeto projeto) {
+        remover(ResultadoBusca.Tipo.PROJETO, projeto.getId());
+    }
+
+    @Override
+    public void equipeGravada(Equipe equipe) {
+        gravar(ResultadoBusca.Tipo.EQUIPE, equipe.getId(), equipe, equipe.getNome(), equipe.getDescricao());
+    }
+
+    @Override
+    public void equipeRemovida(Equipe equipe) {
+        remover(ResultadoBusca.Tipo.EQUIPE, equipe.getId());
+    }
+
+    /**
+     * Indexa a versão gravada de uma entidade. Se o nome e a descrição não mudaram,
+     * só a referência à entidade é trocada.
+     */
+    private void gravar(ResultadoBusca.Tipo tipo, String id, Object entidade, String nome, String descricao) {
+        // A divisão em termos é feita fora da trava
+        Map<String, Integer> contagem = new HashMap<>();
+        tokenizar(nome, (termo, prefixo) -> contagem.merge(termo, PESO_NOME, Integer::sum));
+        tokenizar(descricao, (termo, prefixo) -> contagem.merge(termo, 1, Integer::sum));
+
+        trava.writeLock().lock();
+        try {
+            Integer atual = documentos.get(tipo).get(id);
+            if (atual != null) {
+                if (nome != null && nome.equals(nomes[atual])
+                        && descricao != null && descricao.equals(descricoes[atual])) {
+                    entidades[atual] = entidade;
+                    return;
+                }
+                descartar(atual);
+            }
+            documentos.get(tipo).put(id, incluir(entidade, nome, descricao, contagem));
+            renumerarSeNecessario();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void remover(ResultadoBusca.Tipo tipo, String id) {
+        trava.writeLock().lock();
+        try {
+            Integer atual = documentos.get(tipo).remove(id);
+            if (atual != null) {
+                descartar(atual);
+                renumerarSeNecessario();
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private int incluir(Object entidade, String nome, String descricao, Map<String, Integer> contagem) {
+        int documento = quantidadeDocumentos++;
+        if (documento == entidades.length) {
+            int capacidade = entidades.length * 2;
+            entidades = Arrays.copyOf(entidades, capacidade);
+            nomes = Arrays.copyOf(nomes, capacidade);
+            descricoes = Arrays.copyOf(descricoes, capacidade);
+            termosDocumento = Arrays.copyOf(termosDocumento, capacidade);
+            frequencias = Arrays.copyOf(frequencias, capacidade);
+            comprimentos = Arrays.copyOf(comprimentos, capacidade);
+        }
+
+        // Pares (termo, frequência) em ordem de número do termo
+        long[] pares = new long[contagem.size()];
+        int comprimento = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entrada : contagem.entrySet()) {
+            pares[i++] = ((long) numeroTermo(entrada.getKey()) << 32) | entrada.getValue();
+            comprimento += entrada.getValue();
+        }
+        Arrays.sort(pares);
+        int[] termosOrdenados = new int[pares.length];
+        byte[] frequenciasTermos = new byte[pares.length];
+        for (i = 0; i < pares.length; i++) {
+            int termo = (int) (pares[i] >>> 32);
+            termosOrdenados[i] = termo;
+            frequenciasTermos[i] = (byte) Math.min((int) pares[i], 255);
+            acrescentar(termo, documento);
+        }
+
+        entidades[documento] = entidade;
+        nomes[documento] = nome;
+        descricoes[documento] = descricao;
+        termosDocumento[documento] = termosOrdenados;
+        frequencias[documento] = frequenciasTermos;
+        comprimentos[documento] = comprimento;
+        documentosVivos++;
+        somaComprimentos += comprimento;
+        return documento;
+    }
+
+    /**
+     * Marca um documento como descartado. Ele continua nas listas dos seus termos
+     * até que elas sejam compactadas.
+     */
+    private void descartar(int documento) {
+        for (int termo : termosDocumento[documento]) {
+            if (--documentosComTermo[termo] == 0) {
+                termosVivos--;
+            }
+        }
+        entidades[documento] = null;
+        nomes[documento] = null;
+        descricoes[documento] = null;
+        documentosVivos--;
+        somaComprimentos -= comprimentos[documento];
+        for (int termo : termosDocumento[documento]) {
+            if (tamanhosListas[termo] - documentosComTermo[termo] > documentosComTermo[termo] + 8) {
+                compactar(termo);
+            }
+        }
+        termosDocumento[documento] = null;
+        frequencias[documento] = null;
+    }
+
+    private int numeroTermo(String texto) {
+        Integer numero = vocabulario.get(texto);
+        if (numero == null) {
+            numero = quantidadeTermos++;
+            if (numero == termos.length) {
+                int capacidade = termos.length * 2;
+                termos = Arrays.copyOf(termos, capacidade);
+                listas = Arrays.copyOf(listas, capacidade);
+                tamanhosListas = Arrays.copyOf(tamanhosListas, capacidade);
+                documentosComTermo = Arrays.copyOf(documentosComTermo, capacidade);
+            }
+            termos[numero] = texto;
+            listas[numero] = new int[2];
+            vocabulario.put(texto, numero);
+        }
+        if (documentosComTermo[numero]++ == 0) {
+            termosVivos++;
+        }
+        return numero;
+    }
+
+    private void acrescentar(int termo, int documento) {
+        int[] lista = listas[termo];
+        if (tamanhosListas[termo] == lista.length) {
+            lista = Arrays.copyOf(lista, lista.length + (lista.length >> 1) + 1);
+            listas[termo] = lista;
+        }
+        lista[tamanhosListas[termo]++] = documento;
+    }
+
+    // Retira da lista do termo os documentos descartados
+    private void compactar(int termo) {
+        int[] lista = listas[termo];
+        int tamanho = 0;
+        for (int i = 0; i < tamanhosListas[termo]; i++) {
+            if (entidades[lista[i]] != null) {
+                lista[tamanho++] = lista[i];
+            }
+        }
+        tamanhosListas[termo] = tamanho;
+        if (lista.length > 2 * tamanho + 2) {
+            listas[termo] = Arrays.copyOf(lista, tamanho + 1);
+        }
+    }
+
+    private void renumerarSeNecessario() {
+        if (quantidadeDocumentos - documentosVivos > documentosVivos + FOLGA_DESCARTADOS
+                || quantidadeTermos - termosVivos > termosVivos + FOLGA_DESCARTADOS) {
+            renumerar();
+        }
+    }
+
+    /**
+     * Renumera documentos e termos vivos a partir de zero, mantendo a ordem, e
+     * descarta os demais. Como a ordem é mantida, listas e termos de cada documento
+     * continuam ordenados.
+     */
+    private void renumerar() {
+        int[] novoDocumento = new int[quantidadeDocumentos];
+        int documentosMantidos = 0;
+        for (int documento = 0; documento < quantidadeDocumentos; documento++) {
+            if (entidades[documento] == null) {
+                novoDocumento[documento] = -1;
+                continue;
+            }
+            int novo = documentosMantidos++;
+            novoDocumento[documento] = novo;
+            entidades[novo] = entidades[documento];
+            nomes[novo] = nomes[documento];
+            descricoes[novo] = descricoes[documento];
+            termosDocumento[novo] = termosDocumento[documento];
+            frequencias[novo] = frequencias[documento];
+            comprimentos[novo] = comprimentos[documento];
+        }
+        Arrays.fill(entidades, documentosMantidos, quantidadeDocumentos, null);
+        Arrays.fill(nomes, documentosMantidos, quantidadeDocumentos, null);
+        Arrays.fill(descricoes, documentosMantidos, quantidadeDocumentos, null);
+        Arrays.fill(termosDocumento, documentosMantidos, quantidadeDocumentos, null);
+        Arrays.fill(frequencias, documentosMantidos, quantidadeDocumentos, null);
+        quantidadeDocumentos = documentosMantidos;
+
+        int[] novoTermo = new int[quantidadeTermos];
+        int termosMantidos = 0;
+        vocabulario = new TreeMap<>();
+        for (int termo = 0; termo < quantidadeTermos; termo++) {
+            if (documentosComTermo[termo] == 0) {
+                novoTermo[termo] = -1;
+                continue;
+            }
+            int novo = termosMantidos++;
+            novoTermo[termo] = novo;
+            int[] lista = listas[termo];
+            int tamanho = 0;
+            for (int i = 0; i < tamanhosListas[termo]; i++) {
+                int documento = novoDocumento[lista[i]];
+                if (documento >= 0) {
+                    lista[tamanho++] = documento;
+                }
+            }
+            termos[novo] = termos[termo];
+            listas[novo] = tamanho < lista.length ? Arrays.copyOf(lista, tamanho + 1) : lista;
+            tamanhosListas[novo] = tamanho;
+            documentosComTermo[novo] = documentosComTermo[termo];
+            vocabulario.put(termos[novo], novo);
+        }
+        Arrays.fill(termos, termosMantidos, quantidadeTermos, null);
+        Arrays.fill(listas, termosMantidos, quantidadeTermos, null);
+        Arrays.fill(tamanhosListas, termosMantidos, quantidadeTermos, 0);
+        Arrays.fill(documentosComTermo, termosMantidos, quantidadeTermos, 0);
+        quantidadeTermos = termosMantidos;
+
+        for (int documento = 0; documento < quantidadeDocumentos; documento++) {
+            int[] termosOrdenados = termosDocumento[documento];
+            for (int i = 0; i < termosOrdenados.length; i++) {
+                termosOrdenados[i] = novoTermo[termosOrdenados[i]];
+            }
+        }
+        for (Map<String, Integer> porId : documentos.values()) {
+            porId.replaceAll((id, documento) -> novoDocumento[documento]);
+        }
+    }
+
+    private int[] termoExato(String texto) {
+        Integer termo = vocabulario.get(texto);
+        return termo == null || documentosComTermo[termo] == 0 ? new int[0] : new int[] {termo};
+    }
+
+    // Termos vivos que começam com o prefixo, em ordem crescente de número
+    private int[] expandir(String prefixo) {
+        int[] expansoes = new int[MAXIMO_EXPANSOES];
+        int quantidade = 0;
+        for (Integer termo : vocabulario.tailMap(prefixo).values()) {
+            if (!termos[termo].startsWith(prefixo) || quantidade == MAXIMO_EXPANSOES) {
+                break;
+            }
+            if (documentosComTermo[termo] > 0) {
+                expansoes[quantidade++] = termo;
+            }
+        }
+        int[] resultado = Arrays.copyOf(expansoes, quantidade);
+        Arrays.sort(resultado);
+        return resultado;
+    }
+
+    // Documentos que têm algum dos termos, sem repetição (podem estar descartados)
+    private int[] candidatos(int[] grupo) {
+        if (grupo.length == 1) {
+            return Arrays.copyOf(listas[grupo[0]], tamanhosListas[grupo[0]]);
+        }
+        int total = 0;
+        for (int termo : grupo) {
+            total += tamanhosListas[termo];
+        }
+        int[] documentosGrupo = new int[total];
+        int posicao = 0;
+        for (int termo : grupo) {
+            System.arraycopy(listas[termo], 0, documentosGrupo, posicao, tamanhosListas[termo]);
+            posicao += tamanhosListas[termo];
+        }
+        Arrays.sort(documentosGrupo);
+        int distintos = 0;
+        for (int i = 0; i < total; i++) {
+            if (distintos == 0 || documentosGrupo[distintos - 1] != documentosGrupo[i]) {
+                documentosGrupo[distintos++] = documentosGrupo[i];
+            }
+        }
+        return Arrays.copyOf(documentosGrupo, distintos);
+    }
+
+    /**
+     * Pontuação BM25 de um documento para um termo da consulta
+     * @return Soma das pontuações dos termos do grupo presentes no documento, ou -1 se nenhum estiver
+     */
+    private double pontuar(int documento, int[] grupo, double[] idfs, double normalizacao) {
+        int[] termosOrdenados = termosDocumento[documento];
+        byte[] frequenciasTermos = frequencias[documento];
+        double pontuacao = -1;
+        if (grupo.length == 1) {
+            int posicao = Arrays.binarySearch(termosOrdenados, grupo[0]);
+            if (posicao >= 0) {
+                int frequencia = frequenciasTermos[posicao] & 0xFF;
+                pontuacao = idfs[0] * frequencia * (K1 + 1) / (frequencia + normalizacao);
+            }
+            return pontuacao;
+        }
+        for (int i = 0; i < termosOrdenados.length; i++) {
+            int posicao = Arrays.binarySearch(grupo, termosOrdenados[i]);
+            if (posicao >= 0) {
+                int frequencia = frequenciasTermos[i] & 0xFF;
+                pontuacao = Math.max(pontuacao, 0)
+                        + idfs[posicao] * frequencia * (K1 + 1) / (frequencia + normalizacao);
+            }
+        }
+        return pontuacao;
+    }
+
+    private static ResultadoBusca.Tipo tipo(Object entidade) {
+        if (entidade instanceof Projeto) {
+            return ResultadoBusca.Tipo.PROJETO;
+        }
+        return entidade instanceof Equipe ? ResultadoBusca.Tipo.EQUIPE : ResultadoBusca.Tipo.USUARIO;
+    }
+
+    /**
+     * Divide um texto em termos: sequências de letras e dígitos, em minúsculas e sem
+     * acentos, sem as palavras vazias. Um termo seguido de "*" é marcado como prefixo.
+     * @param texto Texto a ser dividido (null é tratado como vazio)
+     * @param destino Recebe cada termo, na ordem do texto
+     */
+    static void tokenizar(String texto, DestinoTermos destino) {
+        if (texto == null) {
+            return;
+        }
+        StringBuilder termo = new StringBuilder(TAMANHO_MAXIMO_TERMO);
+        for (int i = 0; i <= texto.length(); i++) {
+            char c = i < texto.length() ? texto.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (termo.length() < TAMANHO_MAXIMO_TERMO) {
+                    termo.append(Chaves.semAcento(Character.toLowerCase(c)));
+                }
+                continue;
+            }
+            if (termo.length() > 0) {
+                boolean prefixo = c == '*';
+                String encontrado = termo.toString();
+                if (prefixo || !PALAVRAS_VAZIAS.contains(encontrado)) {
+                    destino.termo(encontrado, prefixo);
+                }
+                termo.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Recebe os termos encontrados por {@link #tokenizar}
+     */
+    interface DestinoTermos {
+        void termo(String termo, boolean prefixo);
+    }
+
+    /**
+     * Os melhores documentos vistos até o momento, em um heap de mínimo pela
+     * pontuação (em caso de empate, o documento mais recente é o menor)
+     */
+    private static final class MelhoresResultados {
+        private final int[] documentos;
+        private final double[] pontuacoes;
+        private int quantidade;
+
+        private MelhoresResultados(int limite) {
+            this.documentos = new int[limite];
+            this.pontuacoes = new double[limite];
+        }
+
+        private void oferecer(int documento, double pontuacao) {
+            if (quantidade < documentos.length) {
+                documentos[quantidade] = documento;
+                pontuacoes[quantidade] = pontuacao;
+                subir(quantidade++);
+            } else if (menor(0, documento, pontuacao)) {
+                documentos[0] = documento;
+                pontuacoes[0] = pontuacao;
+                descer(0);
+            }
+        }
+
+        // Se a posição é pior que o documento informado
+        private boolean menor(int posicao, int documento, double pontuacao) {
+            return pontuacoes[posicao] < pontuacao
+                    || (pontuacoes[posicao] == pontuacao && documentos[posicao] > documento);
+        }
+
+        private void subir(int posicao) {
+            while (posicao > 0) {
+                int pai = (posicao - 1) / 2;
+                if (!menor(posicao, documentos[pai], pontuacoes[pai])) {
+                    break;
+                }
+                trocar(posicao, pai);
+                posicao = pai;
+            }
+        }
+
+        private void descer(int posicao) {
+            while (true) {
+                int menorFilho = posicao;
+                for (int filho = 2 * posicao + 1; filho <= 2 * posicao + 2 && filho < quantidade; filho++) {
+                    if (menor(filho, documentos[menorFilho], pontuacoes[menorFilho])) {
+                        menorFilho = filho;
+                    }
+                }
+                if (menorFilho == posicao) {
+                    return;
+                }
+                trocar(posicao, menorFilho);
+                posicao = menorFilho;
+            }
+        }
+
+        private void trocar(int a, int b) {
+            int documento = documentos[a];
+            documentos[a] = documentos[b];
+            documentos[b] = documento;
+            double pontuacao = pontuacoes[a];
+            pontuacoes[a] = pontuacoes[b];
+            pontuacoes[b] = pontuacao;
+        }
+
+        // Posições do heap da maior para a menor pontuação
+        private int[] emOrdem() {
+            Integer[] posicoes = new Integer[quantidade];
+            for (int i = 0; i < quantidade; i++) {
+                posicoes[i] = i;
+            }
+            Arrays.sort(posicoes, (a, b) -> menor(a, documentos[b], pontuacoes[b]) ? 1
+                    : menor(b, documentos[a], pontuacoes[a]) ? -1 : 0);
+            int[] ordem = new int[quantidade];
+            for (int i = 0; i < quantidade; i++) {
+                ordem[i] = posicoes[i];
+            }
+            return ordem;
+        }
+    }
+}
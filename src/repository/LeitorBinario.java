@@ -0,0 +1,64 @@
+package repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Lê valores gravados por {@link EscritorBinario} a partir de um ByteBuffer.
+ */
+final class LeitorBinario {
+    private final ByteBuffer buffer;
+
+    /**
+     * Cria o leitor
+     * @param buffer Buffer posicionado no início dos dados
+     */
+    LeitorBinario(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    int lerByte() {
+        return buffer.get();
+    }
+
+    int lerInt() {
+        return buffer.getInt();
+    }
+
+    long lerLong() {
+        return buffer.getLong();
+    }
+
+    String lerTexto() {
+        int tamanho = buffer.getInt();
+        if (tamanho == EscritorBinario.TEXTO_NULO) {
+            return null;
+        }
+        String valor;
+        if (buffer.hasArray()) {
+            valor = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), tamanho, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + tamanho);
+        } else {
+            byte[] bytes = new byte[tamanho];
+            buffer.get(bytes);
+            valor = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return valor;
+    }
+
+    LocalDate lerData() {
+        long dia = buffer.getLong();
+        return dia == EscritorBinario.DATA_NULA ? null : LocalDate.ofEpochDay(dia);
+    }
+
+    LocalDateTime lerDataHora() {
+        long segundos = buffer.getLong();
+        if (segundos == EscritorBinario.DATA_NULA) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(segundos, buffer.getInt(), ZoneOffset.UTC);
+    }
+}
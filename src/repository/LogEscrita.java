@@ -0,0 +1,490 @@
+package repository;
+
+import model.Equipe;
+import model.Projeto;
+import model.Usuario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Log de escrita antecipada (write-ahead log) das alterações dos repositórios.
+ *
+ * Cada alteração vira um registro binário [tamanho][crc][tipo][dados] acrescentado ao
+ * final do arquivo. Os registros são acumulados em memória e gravados em lote pela
+ * thread de sincronização (group commit), conforme a {@link ConfiguracaoLog}.
+ *
+ * O log pode ser dividido em segmentos: {@link #rotacionar(Path)} passa a gravar os
+ * registros seguintes em um novo arquivo, o que permite descartar os segmentos
+ * antigos depois que um snapshot cobre o seu conteúdo.
+ */
+final class LogEscrita implements OuvinteAlteracoes, AutoCloseable {
+    // Tipos de registro
+    static final byte USUARIO_GRAVADO = 1;
+    static final byte USUARIO_REMOVIDO = 2;
+    static final byte PROJETO_GRAVADO = 3;
+    static final byte PROJETO_REMOVIDO = 4;
+    static final byte EQUIPE_GRAVADA = 5;
+    static final byte EQUIPE_REMOVIDA = 6;
+    static final byte MEMBRO_ADICIONADO = 7;
+    static final byte MEMBRO_REMOVIDO = 8;
+    static final byte FIM_SNAPSHOT = 9;
+
+    // Tamanho do cabeçalho de cada registro: tamanho (int) + crc (int)
+    static final int CABECALHO = 8;
+
+    // Tamanho acima do qual um registro é considerado corrompido
+    private static final int TAMANHO_MAXIMO_REGISTRO = 64 * 1024 * 1024;
+
+    private final ConfiguracaoLog configuracao;
+    private final Thread sincronizador;
+
+    // Segmento atual, usado apenas pela thread de sincronização depois da construção
+    private FileChannel canal;
+
+    // Bytes gravados no segmento atual
+    private volatile long tamanhoSegmento;
+
+    // Estado protegido por "trava"
+    private final Object trava = new Object();
+    private EscritorBinario pendente;
+    private EscritorBinario emEscrita;
+    private long sequenciaPendente;
+    private long sequenciaDuravel;
+    private boolean fechado;
+    private IOException falha;
+
+    // Rotação pendente: os bytes do lote antes do limite ainda vão para o segmento atual
+    private FileChannel proximoCanal;
+    private int limiteRotacao;
+    private long rotacoesConcluidas;
+
+    // Sequência do último registro do lote em andamento na thread (ausente fora de lote)
+    private final ThreadLocal<long[]> loteDaThread = new ThreadLocal<>();
+
+    /**
+     * Abre o log para acrescentar registros
+     * @param arquivo Arquivo do log
+     * @param tamanhoValido Quantidade de bytes válidos (o restante, se houver, é descartado)
+     * @param configuracao Configuração de sincronização
+     * @throws IOException em caso de erro ao abrir o arquivo
+     */
+    LogEscrita(Path arquivo, long tamanhoValido, ConfiguracaoLog configuracao) throws IOException {
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.canal.truncate(tamanhoValido);
+        this.canal.position(tamanhoValido);
+        this.tamanhoSegmento = tamanhoValido;
+        this.configuracao = configuracao;
+        this.pendente = new EscritorBinario(64 * 1024);
+        this.emEscrita = new EscritorBinario(64 * 1024);
+        this.sincronizador = new Thread(this::executarSincronizacao, "log-escrita-" + arquivo.getFileName());
+        this.sincronizador.setDaemon(true);
+        this.sincronizador.start();
+    }
+
+    @Override
+    public void usuarioGravado(Usuario usuario) {
+        registrar(USUARIO_GRAVADO, escritor -> CodificadorEntidades.escreverUsuario(escritor, usuario));
+    }
+
+    @Override
+    public void usuarioRemovido(Usuario usuario) {
+        registrar(USUARIO_REMOVIDO, escritor -> escritor.escreverTexto(usuario.getId()));
+    }
+
+    @Override
+    public void projetoGravado(Projeto projeto) {
+        registrar(PROJETO_GRAVADO, escritor -> CodificadorEntidades.escreverProjeto(escritor, projeto));
+    }
+
+    @Override
+    public void projetoRemovido(Projeto projeto) {
+        registrar(PROJETO_REMOVIDO, escritor -> escritor.escreverTexto(projeto.getId()));
+    }
+
+    @Override
+    public void equipeGravada(Equipe equipe) {
+        registrar(EQUIPE_GRAVADA, escritor -> CodificadorEntidades.escreverEquipe(escritor, equipe));
+    }
+
+    @Override
+    public void equipeRemovida(Equipe equipe) {
+        registrar(EQUIPE_REMOVIDA, escritor -> escritor.escreverTexto(equipe.getId()));
+    }
+
+    @Override
+    public void membroAdicionado(Equipe equipe, Usuario membro) {
+        registrar(MEMBRO_ADICIONADO, escritor -> {
+            escritor.escreverTexto(equipe.getId());
+            escritor.escreverTexto(membro.getId());
+        });
+    }
+
+    @Override
+    public void membroRemovido(Equipe equipe, Usuario membro) {
+        registrar(MEMBRO_REMOVIDO, escritor -> {
+            escritor.escreverTexto(equipe.getId());
+            escritor.escreverTexto(membro.getId());
+        });
+    }
+
+    @Override
+    public void loteIniciado() {
+        loteDaThread.set(new long[1]);
+    }
+
+    /**
+     * Fim de um lote: se configurado para aguardar a durabilidade, aguarda uma única
+     * vez, pelo último registro do lote, em vez de aguardar a cada registro
+     */
+    @Override
+    public void loteConcluido() {
+        long[] lote = loteDaThread.get();
+        loteDaThread.remove();
+        if (lote == null || lote[0] == 0 || !configuracao.isAguardarDurabilidade()) {
+            return;
+        }
+        synchronized (trava) {
+            trava.notifyAll();
+            aguardarDurabilidade(lote[0]);
+        }
+    }
+
+    /**
+     * Acrescenta um registro ao lote pendente
+     * @param tipo Tipo do registro
+     * @param conteudo Função que escreve os dados do registro
+     */
+    private void registrar(byte tipo, Consumer<EscritorBinario> conteudo) {
+        long sequencia;
+        synchronized (trava) {
+            verificarEstado();
+            escreverRegistro(pendente, tipo, conteudo);
+
+            sequencia = ++sequenciaPendente;
+            if (pendente.posicao() >= configuracao.getTamanhoMaximoLote()) {
+                trava.notifyAll();
+            }
+
+            if (configuracao.isAguardarDurabilidade()) {
+                long[] lote = loteDaThread.get();
+                if (lote != null) {
+                    lote[0] = sequencia;
+                } else {
+                    aguardarDurabilidade(sequencia);
+                }
+            }
+        }
+    }
+
+    /**
+     * Escreve um registro completo, com cabeçalho e CRC, no formato lido por {@link #reproduzir}
+     * @param escritor Escritor de destino
+     * @param tipo Tipo do registro
+     * @param conteudo Função que escreve os dados do registro
+     */
+    static void escreverRegistro(EscritorBinario escritor, byte tipo, Consumer<EscritorBinario> conteudo) {
+        int inicio = escritor.posicao();
+        escritor.escreverInt(0);
+        escritor.escreverInt(0);
+        escritor.escreverByte(tipo);
+        conteudo.accept(escritor);
+
+        int tamanho = escritor.posicao() - inicio - CABECALHO;
+        escritor.escreverIntEm(inicio, tamanho);
+        escritor.escreverIntEm(inicio + 4, crc(escritor.buffer().array(), inicio + CABECALHO, tamanho));
+    }
+
+    /**
+     * Passa a gravar os próximos registros em um novo segmento. Os registros já
+     * acumulados continuam no segmento atual, que é sincronizado e fechado antes
+     * do retorno.
+     * @param novoSegmento Arquivo do novo segmento (não pode existir)
+     * @throws IOException em caso de erro ao criar o arquivo ou ao gravar o segmento atual
+     */
+    void rotacionar(Path novoSegmento) throws IOException {
+        FileChannel novo = FileChannel.open(novoSegmento, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        synchronized (trava) {
+            try {
+                verificarEstado();
+                if (proximoCanal != null) {
+                    throw new IllegalStateException("Rotação do log já em andamento");
+                }
+            } catch (RuntimeException e) {
+                novo.close();
+                throw e;
+            }
+
+            proximoCanal = novo;
+            limiteRotacao = pendente.posicao();
+            long alvo = rotacoesConcluidas + 1;
+            trava.notifyAll();
+
+            boolean interrompida = false;
+            while (rotacoesConcluidas < alvo) {
+                if (falha != null) {
+                    throw falha;
+                }
+                try {
+                    trava.wait();
+                } catch (InterruptedException e) {
+                    interrompida = true;
+                }
+            }
+            if (interrompida) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Retorna a quantidade de bytes gravados no segmento atual
+     * @return Tamanho do segmento atual
+     */
+    long getTamanhoSegmento() {
+        return tamanhoSegmento;
+    }
+
+    /**
+     * Aguarda até que um registro tenha sido gravado e sincronizado em disco.
+     * Deve ser chamado com a trava retida.
+     * @param sequencia Sequência do registro
+     */
+    private void aguardarDurabilidade(long sequencia) {
+        boolean interrompida = false;
+        while (sequenciaDuravel < sequencia) {
+            verificarEstado();
+            try {
+                trava.wait();
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void verificarEstado() {
+        if (falha != null) {
+            throw new UncheckedIOException("Falha ao gravar o log de escrita", falha);
+        }
+        if (fechado) {
+            throw new IllegalStateException("Log de escrita fechado");
+        }
+    }
+
+    /**
+     * Laço da thread de sincronização: troca o lote pendente pelo lote vazio,
+     * grava o lote no arquivo e chama fsync, tudo fora da trava dos escritores.
+     */
+    private void executarSincronizacao() {
+        while (true) {
+            long sequencia;
+            boolean encerrar;
+            FileChannel proximo;
+            int limite;
+            synchronized (trava) {
+                if (!fechado && pendente.posicao() < configuracao.getTamanhoMaximoLote()) {
+                    try {
+                        trava.wait(configuracao.getIntervaloSincronizacaoMillis());
+                    } catch (InterruptedException e) {
+                        fechado = true;
+                    }
+                }
+                encerrar = fechado;
+                EscritorBinario lote = pendente;
+                pendente = emEscrita;
+                emEscrita = lote;
+                sequencia = sequenciaPendente;
+                proximo = proximoCanal;
+                limite = limiteRotacao;
+                proximoCanal = null;
+            }
+
+            try {
+                gravar(emEscrita, proximo, limite);
+                synchronized (trava) {
+                    sequenciaDuravel = sequencia;
+                    if (proximo != null) {
+                        rotacoesConcluidas++;
+                    }
+                    trava.notifyAll();
+                }
+            } catch (IOException e) {
+                fecharSilenciosamente(proximo);
+                synchronized (trava) {
+                    falha = e;
+                    trava.notifyAll();
+                }
+                return;
+            }
+
+            if (encerrar) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Grava um lote no arquivo e sincroniza com o disco
+     * @param lote Lote a ser gravado
+     * @param proximo Novo segmento, se houver rotação pendente (ou null)
+     * @param limite Bytes do lote que pertencem ao segmento atual quando há rotação
+     * @throws IOException em caso de erro de escrita
+     */
+    private void gravar(EscritorBinario lote, FileChannel proximo, int limite) throws IOException {
+        if (lote.posicao() == 0 && proximo == null) {
+            return;
+        }
+        ByteBuffer buffer = lote.buffer();
+        buffer.flip();
+
+        if (proximo != null) {
+            ByteBuffer anterior = buffer.duplicate();
+            anterior.limit(limite);
+            escreverTudo(anterior);
+            canal.force(false);
+            canal.close();
+            canal = proximo;
+            tamanhoSegmento = 0;
+            buffer.position(limite);
+        }
+
+        if (buffer.hasRemaining()) {
+            escreverTudo(buffer);
+            canal.force(false);
+        }
+        lote.limpar();
+    }
+
+    private void escreverTudo(ByteBuffer buffer) throws IOException {
+        tamanhoSegmento += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    private static void fecharSilenciosamente(FileChannel canal) {
+        if (canal == null) {
+            return;
+        }
+        try {
+            canal.close();
+        } catch (IOException e) {
+            // A falha original de gravação é a que importa
+        }
+    }
+
+    /**
+     * Grava o que estiver pendente, encerra a thread de sincronização e fecha o arquivo
+     * @throws IOException em caso de erro na gravação final
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (trava) {
+            if (fechado && !sincronizador.isAlive()) {
+                return;
+            }
+            fechado = true;
+            trava.notifyAll();
+        }
+        try {
+            sincronizador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        canal.close();
+        if (falha != null) {
+            throw falha;
+        }
+    }
+
+    /**
+     * Lê todos os registros válidos de um arquivo de log, na ordem em que foram gravados.
+     * A leitura para no primeiro registro incompleto ou corrompido (por exemplo,
+     * o último registro de uma queda no meio da gravação).
+     * @param arquivo Arquivo do log
+     * @param aplicador Função que recebe o tipo e os dados de cada registro
+     * @return Quantidade de bytes válidos do arquivo
+     * @throws IOException em caso de erro de leitura
+     */
+    static long reproduzir(Path arquivo, AplicadorRegistros aplicador) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return 0;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+            long validos = 0;
+            boolean fimDoArquivo = false;
+
+            while (true) {
+                if (!fimDoArquivo && buffer.hasRemaining()) {
+                    fimDoArquivo = canal.read(buffer) < 0;
+                }
+                buffer.flip();
+
+                while (buffer.remaining() >= CABECALHO) {
+                    int inicio = buffer.position();
+                    int tamanho = buffer.getInt(inicio);
+                    if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_REGISTRO) {
+                        return validos;
+                    }
+                    if (buffer.remaining() < CABECALHO + tamanho) {
+                        break;
+                    }
+                    int crcEsperado = buffer.getInt(inicio + 4);
+                    if (crc(buffer.array(), inicio + CABECALHO, tamanho) != crcEsperado) {
+                        return validos;
+                    }
+
+                    ByteBuffer registro = buffer.duplicate();
+                    registro.position(inicio + CABECALHO).limit(inicio + CABECALHO + tamanho);
+                    LeitorBinario leitor = new LeitorBinario(registro);
+                    aplicador.aplicar(leitor.lerByte(), leitor);
+
+                    buffer.position(inicio + CABECALHO + tamanho);
+                    validos += CABECALHO + tamanho;
+                }
+
+                if (fimDoArquivo && buffer.remaining() < CABECALHO + Math.max(0, tamanhoPendente(buffer))) {
+                    return validos;
+                }
+
+                // Registro maior que o buffer: aumenta o buffer para caber o registro inteiro
+                int necessario = CABECALHO + Math.max(0, tamanhoPendente(buffer));
+                if (necessario > buffer.capacity()) {
+                    ByteBuffer maior = ByteBuffer.allocate(necessario);
+                    maior.put(buffer);
+                    buffer = maior;
+                } else {
+                    buffer.compact();
+                }
+            }
+        }
+    }
+
+    private static int tamanhoPendente(ByteBuffer buffer) {
+        return buffer.remaining() >= 4 ? buffer.getInt(buffer.position()) : 0;
+    }
+
+    private static int crc(byte[] dados, int inicio, int tamanho) {
+        CRC32C crc = new CRC32C();
+        crc.update(dados, inicio, tamanho);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Recebe os registros lidos do log durante a recuperação.
+     */
+    interface AplicadorRegistros {
+        void aplicar(int tipo, LeitorBinario leitor);
+    }
+}
@@ -0,0 +1,87 @@
+package repository;
+
+import model.Equipe;
+import model.Projeto;
+import model.Usuario;
+
+/**
+ * Ouvinte notificado pelos repositórios a cada alteração aplicada.
+ *
+ * As notificações acontecem depois que a alteração já está visível no repositório
+ * e enquanto a trava da entidade ainda está retida, de modo que as alterações de
+ * uma mesma entidade chegam ao ouvinte na ordem em que foram aplicadas.
+ * Os métodos têm implementação vazia para que cada ouvinte trate só o que precisa.
+ */
+public interface OuvinteAlteracoes {
+
+    /**
+     * Usuário incluído ou atualizado
+     * @param usuario Usuário no estado gravado
+     */
+    default void usuarioGravado(Usuario usuario) {
+    }
+
+    /**
+     * Usuário removido
+     * @param usuario Usuário que foi removido
+     */
+    default void usuarioRemovido(Usuario usuario) {
+    }
+
+    /**
+     * Projeto incluído ou atualizado
+     * @param projeto Projeto no estado gravado
+     */
+    default void projetoGravado(Projeto projeto) {
+    }
+
+    /**
+     * Projeto removido
+     * @param projeto Projeto que foi removido
+     */
+    default void projetoRemovido(Projeto projeto) {
+    }
+
+    /**
+     * Equipe incluída ou atualizada (os membros são notificados à parte)
+     * @param equipe Equipe no estado gravado
+     */
+    default void equipeGravada(Equipe equipe) {
+    }
+
+    /**
+     * Equipe removida
+     * @param equipe Equipe que foi removida
+     */
+    default void equipeRemovida(Equipe equipe) {
+    }
+
+    /**
+     * Usuário passou a fazer parte de uma equipe
+     * @param equipe Equipe alterada
+     * @param membro Usuário incluído
+     */
+    default void membroAdicionado(Equipe equipe, Usuario membro) {
+    }
+
+    /**
+     * Usuário deixou de fazer parte de uma equipe
+     * @param equipe Equipe alterada
+     * @param membro Usuário retirado
+     */
+    default void membroRemovido(Equipe equipe, Usuario membro) {
+    }
+
+    /**
+     * Início de um lote de alterações feitas em sequência pela thread atual.
+     * Lotes não são aninhados.
+     */
+    default void loteIniciado() {
+    }
+
+    /**
+     * Fim do lote de alterações iniciado pela thread atual
+     */
+    default void loteConcluido() {
+    }
+}
@@ -0,0 +1,36 @@
+package repository;
+
+import java.util.List;
+
+/**
+ * Página de uma listagem ordenada. O cursor da próxima página é opaco e continua
+ * válido enquanto os dados mudam: a próxima página começa logo depois da última
+ * entrada entregue, mesmo que ela tenha sido alterada ou removida.
+ * @param <T> Tipo dos itens
+ */
+public class Pagina<T> {
+    private final List<T> itens;
+    private final String proximoCursor;
+
+    // Construtor
+    public Pagina(List<T> itens, String proximoCursor) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
+    }
+
+    public List<T> getItens() {
+        return itens;
+    }
+
+    /**
+     * Cursor a ser informado para obter a próxima página
+     * @return Cursor, ou null se esta for a última página
+     */
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+
+    public boolean temProxima() {
+        return proximoCursor != null;
+    }
+}
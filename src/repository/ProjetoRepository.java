@@ -1,24 +1,131 @@
 package repository;
 
+import model.Periodo;
 import model.Projeto;
 import model.Usuario;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
  * Repositório para gerenciamento de projetos no sistema.
+ * Mantém um mapa principal por ID, um índice único pelo nome normalizado,
+ * um índice por status, um índice ordenado pelo prazo dos projetos não encerrados,
+ * um índice de intervalos de datas e índices ordenados por nome (geral e dentro
+ * de cada status), usados na paginação.
+ *
+ * É seguro para uso por várias threads: as leituras não usam travas, as escritas
+ * de um mesmo projeto são serializadas por uma trava distribuída pelo ID e a
+ * unicidade do nome é garantida por reserva atômica (putIfAbsent).
  */
 public class ProjetoRepository {
-    // Lista para armazenar projetos
-    private List<Projeto> projetos;
+    // Quantidade de travas distribuídas entre os projetos
+    private static final int QUANTIDADE_TRAVAS = 64;
+
+    // Mapa principal de projetos por ID
+    private ConcurrentMap<String, Projeto> projetos;
+
+    // Índice único: nome normalizado -> ID
+    private ConcurrentMap<String, String> idPorNome;
+
+    // Índice por status: cada status aponta para os IDs dos projetos nele
+    private Map<Projeto.Status, Set<String>> idsPorStatus;
+
+    // Índice de prazos: data de término prevista -> IDs dos projetos não encerrados
+    private ConcurrentNavigableMap<LocalDate, Set<String>> idsPorPrazo;
+
+    // Índices ordenados para paginação: por nome e por nome dentro de cada status
+    private IndiceOrdenado<String> porNome;
+    private Map<Projeto.Status, IndiceOrdenado<String>> porStatus;
+
+    // Índice de intervalos [dataInicio, dataTerminoPrevista]
+    private IndiceIntervalos intervalos;
+
+    // Durante uma carga em massa o índice de intervalos só é montado no final
+    private volatile boolean intervalosAdiados;
+
+    // Durante a recuperação o índice de nomes só é montado e conferido no final
+    private boolean unicidadeAdiada;
+
+    // Valores com que cada projeto foi indexado (ID -> chaves)
+    private ConcurrentMap<String, Indexacao> indexacoes;
+
+    // Travas de escrita por ID
+    private TravasPorChave travas;
+
+    // Ouvintes notificados a cada alteração
+    private List<OuvinteAlteracoes> ouvintes;
+
+    // Exportações em andamento
+    private List<ExportacaoConsistente<Projeto>> exportacoes;
 
     // Construtor
     public ProjetoRepository() {
-        this.projetos = new ArrayList<>();
+        this.projetos = new ConcurrentHashMap<>();
+        this.idPorNome = new ConcurrentHashMap<>();
+        this.idsPorStatus = new EnumMap<>(Projeto.Status.class);
+        for (Projeto.Status status : Projeto.Status.values()) {
+            idsPorStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+        this.idsPorPrazo = new ConcurrentSkipListMap<>();
+        this.porNome = IndiceOrdenado.porTexto();
+        this.porStatus = new EnumMap<>(Projeto.Status.class);
+        for (Projeto.Status status : Projeto.Status.values()) {
+            porStatus.put(status, IndiceOrdenado.porTexto());
+        }
+        this.intervalos = new IndiceIntervalos();
+        this.indexacoes = new ConcurrentHashMap<>();
+        this.travas = new TravasPorChave(QUANTIDADE_TRAVAS);
+        this.ouvintes = new CopyOnWriteArrayList<>();
+        this.exportacoes = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Registra um ouvinte para ser notificado das alterações aplicadas
+     * @param ouvinte Ouvinte a ser registrado
+     */
+    public void registrarOuvinte(OuvinteAlteracoes ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Registra um ouvinte e entrega a ele, como inclusões, os projetos já
+     * existentes. Cada projeto é entregue sob a sua trava, de modo que o ouvinte
+     * recebe o estado atual antes de qualquer alteração posterior; uma alteração
+     * feita durante o registro pode chegar duas vezes, por isso o ouvinte deve
+     * tratar as notificações de forma idempotente.
+     * @param ouvinte Ouvinte a ser registrado
+     */
+    public void registrarOuvinteComEstado(OuvinteAlteracoes ouvinte) {
+        ouvintes.add(ouvinte);
+        for (String id : projetos.keySet()) {
+            ReentrantLock trava = travas.trava(id);
+            trava.lock();
+            try {
+                Projeto projeto = projetos.get(id);
+                if (projeto != null) {
+                    ouvinte.projetoGravado(projeto);
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
     }
 
     /**
@@ -27,11 +134,59 @@ public class ProjetoRepository {
      * @return boolean indicando se a adição foi bem-sucedida
      */
     public boolean adicionar(Projeto projeto) {
-        // Verifica se já existe projeto com o mesmo nome
-        if (buscarPorNome(projeto.getNome()).isPresent()) {
-            return false;
+        String id = projeto.getId();
+        String nome = Chaves.nome(projeto.getNome());
+
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            // Verifica se já existe projeto com o mesmo ID ou nome
+            if (projetos.containsKey(id) || !reservarNome(nome, id)) {
+                return false;
+            }
+
+            for (ExportacaoConsistente<Projeto> exportacao : exportacoes) {
+                exportacao.antesDeIncluir(id);
+            }
+            Indexacao indexacao = new Indexacao(nome, projeto.getStatus());
+            indexacoes.put(id, indexacao);
+            idsPorStatus.get(projeto.getStatus()).add(id);
+            porNome.inserir(nome, id);
+            porStatus.get(projeto.getStatus()).inserir(nome, id);
+            indexarPrazo(projeto, indexacao);
+            indexarIntervalo(projeto, indexacao);
+            projetos.put(id, projeto);
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.projetoGravado(projeto);
+            }
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Adiciona vários projetos como um lote. Cada um é verificado e incluído como em
+     * {@link #adicionar(Projeto)}; os ouvintes são avisados do início e do fim do lote,
+     * o que permite, por exemplo, aguardar a gravação em disco uma única vez.
+     * @param novosProjetos Projetos a serem adicionados
+     * @return Para cada projeto, na mesma posição, se a adição foi bem-sucedida
+     */
+    public boolean[] adicionarTodos(List<Projeto> novosProjetos) {
+        boolean[] adicionados = new boolean[novosProjetos.size()];
+        for (OuvinteAlteracoes ouvinte : ouvintes) {
+            ouvinte.loteIniciado();
+        }
+        try {
+            for (int i = 0; i < novosProjetos.size(); i++) {
+                adicionados[i] = adicionar(novosProjetos.get(i));
+            }
+        } finally {
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.loteConcluido();
+            }
         }
-        return projetos.add(projeto);
+        return adicionados;
     }
 
     /**
@@ -40,9 +195,8 @@ public class ProjetoRepository {
      * @return Optional com o projeto encontrado
      */
     public Optional<Projeto> buscarPorNome(String nome) {
-        return projetos.stream()
-                .filter(p -> p.getNome().equalsIgnoreCase(nome))
-                .findFirst();
+        String id = idPorNome.get(Chaves.nome(nome));
+        return id == null ? Optional.empty() : Optional.ofNullable(projetos.get(id));
     }
 
     /**
@@ -51,9 +205,7 @@ public class ProjetoRepository {
      * @return Optional com o projeto encontrado
      */
     public Optional<Projeto> buscarPorId(String id) {
-        return projetos.stream()
-                .filter(p -> p.getId().equals(id))
-                .findFirst();
+        return Optional.ofNullable(projetos.get(id));
     }
 
     /**
@@ -61,7 +213,26 @@ public class ProjetoRepository {
      * @return Lista de todos os projetos
      */
     public List<Projeto> listarTodos() {
-        return new ArrayList<>(projetos);
+        return new ArrayList<>(projetos.values());
+    }
+
+    /**
+     * Exporta todos os projetos no estado em que estavam no início da exportação,
+     * sem interromper as escritas e sem montar uma lista intermediária
+     * @param destino Canal de destino (não é fechado)
+     * @param formato Formato da saída
+     * @return Quantidade de projetos exportados
+     * @throws IOException em caso de erro de escrita
+     */
+    public long exportar(WritableByteChannel destino, FormatoExportacao formato) throws IOException {
+        ExportacaoConsistente<Projeto> exportacao = new ExportacaoConsistente<>(ColunasExportacao::projeto);
+        exportacoes.add(exportacao);
+        try {
+            return exportacao.executar(projetos, travas,
+                    new EscritorLinhas(destino, formato, ColunasExportacao.PROJETO));
+        } finally {
+            exportacoes.remove(exportacao);
+        }
     }
 
     /**
@@ -70,9 +241,31 @@ public class ProjetoRepository {
      * @return Lista de projetos com o status especificado
      */
     public List<Projeto> listarPorStatus(Projeto.Status status) {
-        return projetos.stream()
-                .filter(p -> p.getStatus() == status)
-                .collect(Collectors.toList());
+        if (status == null) {
+            return new ArrayList<>();
+        }
+        return resolver(idsPorStatus.get(status));
+    }
+
+    /**
+     * Página de projetos em ordem alfabética de nome
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de projetos na página
+     * @return Página de projetos
+     */
+    public Pagina<Projeto> paginarPorNome(String cursor, int tamanho) {
+        return porNome.pagina(cursor, tamanho, projetos::get);
+    }
+
+    /**
+     * Página de projetos de um status, em ordem alfabética de nome
+     * @param status Status a ser filtrado
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de projetos na página
+     * @return Página de projetos com o status especificado
+     */
+    public Pagina<Projeto> paginarPorStatus(Projeto.Status status, String cursor, int tamanho) {
+        return porStatus.get(status).pagina(cursor, tamanho, projetos::get);
     }
 
     /**
@@ -81,8 +274,8 @@ public class ProjetoRepository {
      * @return Lista de projetos do gerente
      */
     public List<Projeto> listarPorGerente(Usuario gerente) {
-        return projetos.stream()
-                .filter(p -> p.getGerente().equals(gerente))
+        return projetos.values().stream()
+                .filter(p -> gerente.equals(p.getGerente()))
                 .collect(Collectors.toList());
     }
 
@@ -93,25 +286,126 @@ public class ProjetoRepository {
      * @return Lista de projetos no intervalo
      */
     public List<Projeto> listarPorIntervaloData(LocalDate dataInicio, LocalDate dataFim) {
-        return projetos.stream()
-                .filter(p -> !p.getDataInicio().isBefore(dataInicio) &&
-                        !p.getDataTerminoPrevista().isAfter(dataFim))
-                .collect(Collectors.toList());
+        return resolver(intervalos.contidos(dataInicio, dataFim));
+    }
+
+    /**
+     * Lista projetos cuja execução prevista se sobrepõe a um intervalo de datas
+     * @param dataInicio Data de início
+     * @param dataFim Data de término
+     * @return Lista de projetos com início até dataFim e término a partir de dataInicio
+     */
+    public List<Projeto> listarSobrepostosAoIntervalo(LocalDate dataInicio, LocalDate dataFim) {
+        return resolver(intervalos.sobrepostos(dataInicio, dataFim));
     }
 
     /**
-     * Atualiza um projeto existente
+     * Lista projetos contidos em cada um de vários períodos, com uma única varredura do índice
+     * @param periodos Períodos a serem consultados
+     * @return Para cada período, na mesma posição, a lista de projetos contidos nele
+     */
+    public List<List<Projeto>> listarPorIntervalosData(List<Periodo> periodos) {
+        return resolverLote(intervalos.contidosEmLote(periodos));
+    }
+
+    /**
+     * Lista projetos sobrepostos a cada um de vários períodos, com uma única varredura do índice
+     * @param periodos Períodos a serem consultados
+     * @return Para cada período, na mesma posição, a lista de projetos sobrepostos a ele
+     */
+    public List<List<Projeto>> listarSobrepostosAosIntervalos(List<Periodo> periodos) {
+        return resolverLote(intervalos.sobrepostosEmLote(periodos));
+    }
+
+    /**
+     * Atualiza um projeto existente.
+     * Se o nome, o status ou o prazo tiverem sido alterados com setNome,
+     * setStatus ou setDataTerminoPrevista, os índices correspondentes são atualizados.
+     * A versão não é verificada.
      * @param projetoAtualizado Projeto com informações atualizadas
      * @return boolean indicando se a atualização foi bem-sucedida
      */
     public boolean atualizar(Projeto projetoAtualizado) {
-        for (int i = 0; i < projetos.size(); i++) {
-            if (projetos.get(i).getId().equals(projetoAtualizado.getId())) {
-                projetos.set(i, projetoAtualizado);
-                return true;
+        return gravarAtualizacao(projetoAtualizado, false, 0);
+    }
+
+    /**
+     * Atualiza um projeto somente se ele não foi alterado desde a leitura: a versão
+     * gravada é comparada com a esperada sob a trava do projeto (compare-and-set)
+     * @param projetoAtualizado Cópia do projeto com informações atualizadas
+     * @param versaoEsperada Versão do projeto quando foi lido
+     * @return boolean indicando se a atualização foi bem-sucedida (false se o projeto
+     *         não existe ou se o novo nome pertence a outro projeto)
+     * @throws ConflitoVersaoException se o projeto foi alterado desde a leitura
+     */
+    public boolean atualizar(Projeto projetoAtualizado, long versaoEsperada) {
+        return gravarAtualizacao(projetoAtualizado, true, versaoEsperada);
+    }
+
+    private boolean gravarAtualizacao(Projeto projetoAtualizado, boolean verificarVersao, long versaoEsperada) {
+        String id = projetoAtualizado.getId();
+
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            Indexacao indexacao = indexacoes.get(id);
+            if (indexacao == null) {
+                return false;
+            }
+            long versao = projetos.get(id).getVersao();
+            if (verificarVersao && versao != versaoEsperada) {
+                throw new ConflitoVersaoException(id, versaoEsperada, versao);
+            }
+            for (ExportacaoConsistente<Projeto> exportacao : exportacoes) {
+                exportacao.antesDeAlterar(id, projetos.get(id));
+            }
+
+            String nome = Chaves.nome(projetoAtualizado.getNome());
+            String nomeAnterior = indexacao.nome;
+            Projeto.Status statusAnterior = indexacao.status;
+            if (!Objects.equals(nome, indexacao.nome)) {
+                // Não permite renomear para o nome de outro projeto
+                if (!reservarNome(nome, id)) {
+                    return false;
+                }
+                porNome.alterar(indexacao.nome, nome, id);
+                indexacao.nome = nome;
+            }
+
+            if (projetoAtualizado.getStatus() != indexacao.status) {
+                idsPorStatus.get(projetoAtualizado.getStatus()).add(id);
+                idsPorStatus.get(indexacao.status).remove(id);
+                indexacao.status = projetoAtualizado.getStatus();
+            }
+            if (statusAnterior != indexacao.status || !Objects.equals(nomeAnterior, nome)) {
+                porStatus.get(indexacao.status).inserir(nome, id);
+                porStatus.get(statusAnterior).remover(nomeAnterior, id);
+            }
+
+            desindexarPrazo(id, indexacao);
+            indexarPrazo(projetoAtualizado, indexacao);
+
+            if (!Objects.equals(projetoAtualizado.getDataInicio(), indexacao.inicio)
+                    || !Objects.equals(projetoAtualizado.getDataTerminoPrevista(), indexacao.fim)) {
+                desindexarIntervalo(id, indexacao);
+                indexarIntervalo(projetoAtualizado, indexacao);
+            }
+
+            projetoAtualizado.setVersao(versao + 1);
+            projetos.put(id, projetoAtualizado);
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.projetoGravado(projetoAtualizado);
             }
+
+            // O nome anterior só é liberado depois de os ouvintes (o log de escrita)
+            // registrarem a alteração: quem o tomar é registrado depois
+            if (!Objects.equals(nomeAnterior, nome)) {
+                idPorNome.remove(nomeAnterior, id);
+            }
+            return true;
+        } finally {
+            trava.unlock();
         }
-        return false;
     }
 
     /**
@@ -120,7 +414,68 @@ public class ProjetoRepository {
      * @return boolean indicando se a remoção foi bem-sucedida
      */
     public boolean remover(String nome) {
-        return projetos.removeIf(p -> p.getNome().equalsIgnoreCase(nome));
+        String chave = Chaves.nome(nome);
+        String id = idPorNome.get(chave);
+        if (id == null) {
+            return false;
+        }
+
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            // O nome pode ter sido liberado enquanto a trava era aguardada
+            if (!id.equals(idPorNome.get(chave))) {
+                return false;
+            }
+            excluir(id);
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Remove um projeto pelo ID. Usado na recuperação, quando o índice de nomes
+     * ainda não foi montado.
+     * @param id ID do projeto a ser removido
+     * @return boolean indicando se a remoção foi bem-sucedida
+     */
+    boolean removerPorId(String id) {
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            if (!indexacoes.containsKey(id)) {
+                return false;
+            }
+            excluir(id);
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Retira o projeto do mapa e dos índices e avisa os ouvintes. Deve ser chamado
+     * sob a trava do projeto, que precisa existir.
+     * @param id ID do projeto
+     */
+    private void excluir(String id) {
+        for (ExportacaoConsistente<Projeto> exportacao : exportacoes) {
+            exportacao.antesDeAlterar(id, projetos.get(id));
+        }
+        Projeto removido = projetos.remove(id);
+        Indexacao indexacao = indexacoes.remove(id);
+        idsPorStatus.get(indexacao.status).remove(id);
+        porNome.remover(indexacao.nome, id);
+        porStatus.get(indexacao.status).remover(indexacao.nome, id);
+        desindexarPrazo(id, indexacao);
+        desindexarIntervalo(id, indexacao);
+        for (OuvinteAlteracoes ouvinte : ouvintes) {
+            ouvinte.projetoRemovido(removido);
+        }
+
+        // Liberado só depois do registro da remoção, como na atualização
+        idPorNome.remove(indexacao.nome, id);
     }
 
     /**
@@ -137,9 +492,22 @@ public class ProjetoRepository {
      * @return Quantidade de projetos com o status especificado
      */
     public int contarProjetosPorStatus(Projeto.Status status) {
-        return (int) projetos.stream()
-                .filter(p -> p.getStatus() == status)
-                .count();
+        if (status == null) {
+            return 0;
+        }
+        return idsPorStatus.get(status).size();
+    }
+
+    /**
+     * Conta projetos de todos os status de uma só vez
+     * @return Mapa com a quantidade de projetos de cada status
+     */
+    public EnumMap<Projeto.Status, Integer> contarTodosPorStatus() {
+        EnumMap<Projeto.Status, Integer> contagem = new EnumMap<>(Projeto.Status.class);
+        for (Map.Entry<Projeto.Status, Set<String>> entrada : idsPorStatus.entrySet()) {
+            contagem.put(entrada.getKey(), entrada.getValue().size());
+        }
+        return contagem;
     }
 
     /**
@@ -147,8 +515,228 @@ public class ProjetoRepository {
      * @return Lista de projetos atrasados
      */
     public List<Projeto> listarProjetosAtrasados() {
-        return projetos.stream()
-                .filter(Projeto::estaAtrasado)
-                .collect(Collectors.toList());
+        return listarProjetosAtrasados(LocalDate.now());
+    }
+
+    /**
+     * Lista projetos atrasados em relação a uma data de referência
+     * @param hoje Data de referência
+     * @return Lista de projetos não encerrados com término previsto antes da data
+     */
+    public List<Projeto> listarProjetosAtrasados(LocalDate hoje) {
+        return resolverPrazos(idsPorPrazo.headMap(hoje, false));
+    }
+
+    /**
+     * Lista projetos não encerrados que vencem nos próximos dias
+     * @param hoje Data de referência
+     * @param dias Quantidade de dias a partir da data de referência
+     * @return Lista de projetos com término previsto entre hoje e hoje + dias, em ordem de prazo
+     */
+    public List<Projeto> listarProjetosAVencer(LocalDate hoje, int dias) {
+        return resolverPrazos(idsPorPrazo.subMap(hoje, true, hoje.plusDays(dias), true));
+    }
+
+    /**
+     * Converte IDs de um índice nos respectivos projetos,
+     * ignorando os que foram removidos durante a leitura
+     * @param ids IDs a serem resolvidos
+     * @return Lista de projetos
+     */
+    private List<Projeto> resolver(Collection<String> ids) {
+        List<Projeto> resultado = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Projeto projeto = projetos.get(id);
+            if (projeto != null) {
+                resultado.add(projeto);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Inclui o projeto no índice de prazos, caso não esteja encerrado
+     * @param projeto Projeto a ser indexado
+     * @param indexacao Chaves indexadas do projeto
+     */
+    private void indexarPrazo(Projeto projeto, Indexacao indexacao) {
+        if (projeto.estaEncerrado() || projeto.getDataTerminoPrevista() == null) {
+            return;
+        }
+        indexacao.prazo = projeto.getDataTerminoPrevista();
+        while (true) {
+            Set<String> ids = idsPorPrazo.computeIfAbsent(indexacao.prazo, prazo -> ConcurrentHashMap.newKeySet());
+            synchronized (ids) {
+                // Um conjunto que ficou vazio pode ter sido retirado depois de lido;
+                // nesse caso, tenta de novo com o conjunto atual da data
+                if (idsPorPrazo.get(indexacao.prazo) == ids) {
+                    ids.add(projeto.getId());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retira o projeto do índice de prazos, junto com a data se o conjunto dela
+     * ficar vazio, para que a consulta de atrasados não percorra datas antigas.
+     * O compute do ConcurrentSkipListMap não é atômico, então a retirada e as
+     * inclusões na mesma data se coordenam pelo próprio conjunto.
+     * @param id ID do projeto
+     * @param indexacao Chaves indexadas do projeto
+     */
+    private void desindexarPrazo(String id, Indexacao indexacao) {
+        if (indexacao.prazo == null) {
+            return;
+        }
+        Set<String> ids = idsPorPrazo.get(indexacao.prazo);
+        if (ids != null) {
+            synchronized (ids) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsPorPrazo.remove(indexacao.prazo, ids);
+                }
+            }
+        }
+        indexacao.prazo = null;
+    }
+
+    /**
+     * Inclui o projeto no índice de intervalos
+     * @param projeto Projeto a ser indexado
+     * @param indexacao Chaves indexadas do projeto
+     */
+    private void indexarIntervalo(Projeto projeto, Indexacao indexacao) {
+        if (projeto.getDataInicio() == null || projeto.getDataTerminoPrevista() == null) {
+            return;
+        }
+        indexacao.inicio = projeto.getDataInicio();
+        indexacao.fim = projeto.getDataTerminoPrevista();
+        if (!intervalosAdiados) {
+            intervalos.inserir(projeto.getId(), indexacao.inicio, indexacao.fim);
+        }
+    }
+
+    /**
+     * Retira o projeto do índice de intervalos
+     * @param id ID do projeto
+     * @param indexacao Chaves indexadas do projeto
+     */
+    private void desindexarIntervalo(String id, Indexacao indexacao) {
+        if (indexacao.inicio == null) {
+            return;
+        }
+        if (!intervalosAdiados) {
+            intervalos.remover(id, indexacao.inicio);
+        }
+        indexacao.inicio = null;
+        indexacao.fim = null;
+    }
+
+    /**
+     * Passa a adiar o índice de intervalos, os índices ordenados e o índice de nomes
+     * até {@link #reconstruirIndices()}. Usado na recuperação, antes que o repositório
+     * seja exposto a outras threads; enquanto adiados, as consultas por intervalo,
+     * as páginas e as buscas por nome não enxergam as alterações, e a unicidade do
+     * nome só é conferida no final.
+     */
+    void adiarIndices() {
+        intervalosAdiados = true;
+        unicidadeAdiada = true;
+        porNome.adiar();
+        for (IndiceOrdenado<String> indice : porStatus.values()) {
+            indice.adiar();
+        }
+    }
+
+    /**
+     * Monta o índice de intervalos, os índices ordenados e o índice de nomes de uma
+     * vez, a partir das chaves já indexadas, e volta a mantê-los a cada alteração
+     * @throws IllegalStateException se dois projetos carregados têm o mesmo nome
+     */
+    void reconstruirIndices() {
+        List<String> ids = new ArrayList<>(indexacoes.size());
+        List<LocalDate> inicios = new ArrayList<>(indexacoes.size());
+        List<LocalDate> fins = new ArrayList<>(indexacoes.size());
+        List<String> todos = new ArrayList<>(indexacoes.size());
+        List<String> nomes = new ArrayList<>(indexacoes.size());
+
+        for (Map.Entry<String, Indexacao> entrada : indexacoes.entrySet()) {
+            Indexacao indexacao = entrada.getValue();
+            if (indexacao.inicio != null) {
+                ids.add(entrada.getKey());
+                inicios.add(indexacao.inicio);
+                fins.add(indexacao.fim);
+            }
+            todos.add(entrada.getKey());
+            nomes.add(indexacao.nome);
+        }
+
+        if (unicidadeAdiada) {
+            idPorNome.clear();
+            for (int i = 0; i < todos.size(); i++) {
+                Chaves.exigirUnica(idPorNome, nomes.get(i), todos.get(i), "nome de projeto");
+            }
+            unicidadeAdiada = false;
+        }
+        intervalos.reconstruir(ids, inicios, fins);
+        intervalosAdiados = false;
+        porNome.reconstruir(nomes, todos);
+        IndiceOrdenado.reconstruirPorGrupo(porNome, porStatus, id -> indexacoes.get(id).status);
+    }
+
+    /**
+     * Reserva atomicamente um nome para um projeto
+     * @param nome Nome normalizado
+     * @param id ID do projeto que está sendo gravado
+     * @return boolean indicando se o nome estava livre (sempre true enquanto a
+     *         unicidade estiver adiada)
+     */
+    private boolean reservarNome(String nome, String id) {
+        return unicidadeAdiada || idPorNome.putIfAbsent(nome, id) == null;
+    }
+
+    /**
+     * Converte o resultado de uma consulta em lote nos respectivos projetos
+     * @param lote Listas de IDs por período
+     * @return Listas de projetos por período
+     */
+    private List<List<Projeto>> resolverLote(List<List<String>> lote) {
+        List<List<Projeto>> resultado = new ArrayList<>(lote.size());
+        for (List<String> ids : lote) {
+            resultado.add(resolver(ids));
+        }
+        return resultado;
+    }
+
+    /**
+     * Converte uma faixa do índice de prazos nos respectivos projetos
+     * @param faixa Faixa do índice de prazos
+     * @return Lista de projetos em ordem de prazo
+     */
+    private List<Projeto> resolverPrazos(Map<LocalDate, Set<String>> faixa) {
+        List<Projeto> resultado = new ArrayList<>();
+        for (Set<String> ids : faixa.values()) {
+            resultado.addAll(resolver(ids));
+        }
+        return resultado;
+    }
+
+    /**
+     * Chaves com que um projeto está indexado, usadas para
+     * localizar as entradas antigas quando o projeto é alterado.
+     * Só é lida e alterada sob a trava do projeto.
+     */
+    private static class Indexacao {
+        private String nome;
+        private Projeto.Status status;
+        private LocalDate prazo; // null quando o projeto não está no índice de prazos
+        private LocalDate inicio; // null quando o projeto não está no índice de intervalos
+        private LocalDate fim;
+
+        private Indexacao(String nome, Projeto.Status status) {
+            this.nome = nome;
+            this.status = status;
+        }
     }
 }
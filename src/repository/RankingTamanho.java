@@ -0,0 +1,391 @@
+package repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Ranking de entidades por tamanho (maiores primeiro, com desempate pelo ID), usado
+ * para as equipes por quantidade de membros.
+ *
+ * É uma árvore de busca balanceada por prioridades aleatórias (treap) em que cada nó
+ * guarda a quantidade de nós da sua subárvore. Com isso, além da ordem, é possível
+ * obter a posição de uma entidade em O(log n) e as k primeiras em O(log n + k), e a
+ * listagem completa é um percurso em ordem, sem ordenação.
+ *
+ * As leituras usam a trava compartilhada e as alterações, que vêm dos repositórios
+ * sob a trava da entidade, usam a trava exclusiva.
+ */
+final class RankingTamanho {
+    // Separa o tamanho do ID no conteúdo do cursor
+    private static final char SEPARADOR = '\u0000';
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private No raiz;
+
+    // Durante uma carga em massa as alterações são ignoradas até a reconstrução
+    private boolean adiado;
+
+    void inserir(int tamanho, String id) {
+        trava.writeLock().lock();
+        try {
+            if (!adiado) {
+                raiz = inserir(raiz, new No(tamanho, id, ThreadLocalRandom.current().nextInt()));
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    void remover(int tamanho, String id) {
+        trava.writeLock().lock();
+        try {
+            if (!adiado) {
+                raiz = remover(raiz, tamanho, id);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Troca o tamanho de uma entidade, se tiver mudado
+     * @param anterior Tamanho com que a entidade está no ranking
+     * @param atual Novo tamanho
+     * @param id ID da entidade
+     */
+    void alterar(int anterior, int atual, String id) {
+        if (anterior == atual) {
+            return;
+        }
+        trava.writeLock().lock();
+        try {
+            if (!adiado) {
+                raiz = remover(raiz, anterior, id);
+                raiz = inserir(raiz, new No(atual, id, ThreadLocalRandom.current().nextInt()));
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Posição de uma entidade no ranking
+     * @param tamanho Tamanho com que a entidade está no ranking
+     * @param id ID da entidade
+     * @return Posição a partir de 1, ou 0 se a entidade não estiver no ranking
+     */
+    int posicao(int tamanho, String id) {
+        trava.readLock().lock();
+        try {
+            int anteriores = 0;
+            No no = raiz;
+            while (no != null) {
+                int comparacao = comparar(tamanho, id, no);
+                if (comparacao < 0) {
+                    no = no.esquerda;
+                } else if (comparacao > 0) {
+                    anteriores += quantidade(no.esquerda) + 1;
+                    no = no.direita;
+                } else {
+                    return anteriores + quantidade(no.esquerda) + 1;
+                }
+            }
+            return 0;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * As primeiras entidades do ranking
+     * @param quantidade Quantidade máxima de entidades
+     * @param resolver Obtém a entidade pelo ID (null se não existir mais)
+     * @return Até quantidade entidades, das maiores para as menores
+     */
+    <T> List<T> topo(int quantidade, Function<String, T> resolver) {
+        trava.readLock().lock();
+        try {
+            List<T> itens = new ArrayList<>(Math.min(quantidade, quantidade(raiz)));
+            Deque<No> pendentes = new ArrayDeque<>();
+            descerEsquerda(raiz, pendentes);
+            while (!pendentes.isEmpty() && itens.size() < quantidade) {
+                No no = proximo(pendentes);
+                T item = resolver.apply(no.id);
+                if (item != null) {
+                    itens.add(item);
+                }
+            }
+            return itens;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lista todas as entidades na ordem do ranking
+     * @param resolver Obtém a entidade pelo ID (null se não existir mais)
+     * @return Entidades em ordem
+     */
+    <T> List<T> listar(Function<String, T> resolver) {
+        return topo(Integer.MAX_VALUE, resolver);
+    }
+
+    /**
+     * Monta uma página, resolvendo os IDs nas entidades. IDs cuja entidade foi
+     * removida durante a leitura são ignorados.
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanhoPagina Quantidade máxima de itens
+     * @param resolver Obtém a entidade pelo ID (null se não existir mais)
+     * @return Página com até tamanhoPagina itens
+     */
+    <T> Pagina<T> pagina(String cursor, int tamanhoPagina, Function<String, T> resolver) {
+        if (tamanhoPagina < 1) {
+            throw new IllegalArgumentException("Tamanho da página deve ser de pelo menos 1 item");
+        }
+        No inicio = cursor == null ? null : lerCursor(cursor);
+
+        trava.readLock().lock();
+        try {
+            // Pilha com os nós posteriores ao cursor cujas subárvores esquerdas faltam visitar
+            Deque<No> pendentes = new ArrayDeque<>();
+            if (inicio == null) {
+                descerEsquerda(raiz, pendentes);
+            } else {
+                No no = raiz;
+                while (no != null) {
+                    if (comparar(inicio.tamanho, inicio.id, no) < 0) {
+                        pendentes.push(no);
+                        no = no.esquerda;
+                    } else {
+                        no = no.direita;
+                    }
+                }
+            }
+
+            List<T> itens = new ArrayList<>(tamanhoPagina);
+            No ultimo = null;
+            while (!pendentes.isEmpty() && itens.size() < tamanhoPagina) {
+                ultimo = proximo(pendentes);
+                T item = resolver.apply(ultimo.id);
+                if (item != null) {
+                    itens.add(item);
+                }
+            }
+            return new Pagina<>(itens, pendentes.isEmpty() ? null : escreverCursor(ultimo));
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    int tamanho() {
+        trava.readLock().lock();
+        try {
+            return quantidade(raiz);
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passa a ignorar as alterações até {@link #reconstruir}. Usado na recuperação,
+     * antes que o repositório seja exposto a outras threads.
+     */
+    void adiar() {
+        trava.writeLock().lock();
+        try {
+            adiado = true;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Monta o ranking de uma vez: as entradas são ordenadas e a árvore é montada
+     * balanceada em tempo linear a partir delas
+     * @param tamanhos Tamanho de cada entidade
+     * @param ids ID de cada entidade, na mesma posição do tamanho
+     */
+    void reconstruir(List<Integer> tamanhos, List<String> ids) {
+        List<No> nos = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            nos.add(new No(tamanhos.get(i), ids.get(i), 0));
+        }
+        nos.sort((a, b) -> comparar(a.tamanho, a.id, b));
+
+        trava.writeLock().lock();
+        try {
+            raiz = montar(nos, 0, nos.size(), Integer.MAX_VALUE);
+            adiado = false;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Monta uma subárvore balanceada com os nós de [inicio, fim). As prioridades
+     * são sorteadas abaixo da prioridade do pai, mantendo a propriedade de heap.
+     */
+    private static No montar(List<No> nos, int inicio, int fim, int prioridadePai) {
+        if (inicio >= fim) {
+            return null;
+        }
+        int meio = (inicio + fim) >>> 1;
+        No modelo = nos.get(meio);
+        int prioridade = prioridadePai == Integer.MIN_VALUE ? Integer.MIN_VALUE
+                : (int) ThreadLocalRandom.current().nextLong(Integer.MIN_VALUE, (long) prioridadePai + 1);
+        No no = new No(modelo.tamanho, modelo.id, prioridade);
+        no.esquerda = montar(nos, inicio, meio, prioridade);
+        no.direita = montar(nos, meio + 1, fim, prioridade);
+        atualizar(no);
+        return no;
+    }
+
+    private static No inserir(No no, No novo) {
+        if (no == null) {
+            return novo;
+        }
+        if (novo.prioridade > no.prioridade) {
+            dividir(no, novo);
+            atualizar(novo);
+            return novo;
+        }
+        if (comparar(novo.tamanho, novo.id, no) < 0) {
+            no.esquerda = inserir(no.esquerda, novo);
+        } else {
+            no.direita = inserir(no.direita, novo);
+        }
+        atualizar(no);
+        return no;
+    }
+
+    /**
+     * Divide a árvore pela chave do novo nó, pendurando as partes menor e maior
+     * à esquerda e à direita dele
+     */
+    private static void dividir(No no, No novo) {
+        if (no == null) {
+            novo.esquerda = null;
+            novo.direita = null;
+            return;
+        }
+        if (comparar(novo.tamanho, novo.id, no) < 0) {
+            dividir(no.esquerda, novo);
+            no.esquerda = novo.direita;
+            atualizar(no);
+            novo.direita = no;
+        } else {
+            dividir(no.direita, novo);
+            no.direita = novo.esquerda;
+            atualizar(no);
+            novo.esquerda = no;
+        }
+    }
+
+    private static No remover(No no, int tamanho, String id) {
+        if (no == null) {
+            return null;
+        }
+        int comparacao = comparar(tamanho, id, no);
+        if (comparacao < 0) {
+            no.esquerda = remover(no.esquerda, tamanho, id);
+        } else if (comparacao > 0) {
+            no.direita = remover(no.direita, tamanho, id);
+        } else {
+            return unir(no.esquerda, no.direita);
+        }
+        atualizar(no);
+        return no;
+    }
+
+    /**
+     * Une duas árvores em que todas as chaves da primeira vêm antes das da segunda
+     */
+    private static No unir(No menores, No maiores) {
+        if (menores == null) {
+            return maiores;
+        }
+        if (maiores == null) {
+            return menores;
+        }
+        if (menores.prioridade > maiores.prioridade) {
+            menores.direita = unir(menores.direita, maiores);
+            atualizar(menores);
+            return menores;
+        }
+        maiores.esquerda = unir(menores, maiores.esquerda);
+        atualizar(maiores);
+        return maiores;
+    }
+
+    private static void descerEsquerda(No no, Deque<No> pendentes) {
+        while (no != null) {
+            pendentes.push(no);
+            no = no.esquerda;
+        }
+    }
+
+    private static No proximo(Deque<No> pendentes) {
+        No no = pendentes.pop();
+        descerEsquerda(no.direita, pendentes);
+        return no;
+    }
+
+    // Maiores primeiro; mesmo tamanho em ordem de ID
+    private static int comparar(int tamanho, String id, No no) {
+        if (tamanho != no.tamanho) {
+            return tamanho > no.tamanho ? -1 : 1;
+        }
+        return id.compareTo(no.id);
+    }
+
+    private static int quantidade(No no) {
+        return no == null ? 0 : no.quantidade;
+    }
+
+    private static void atualizar(No no) {
+        no.quantidade = quantidade(no.esquerda) + quantidade(no.direita) + 1;
+    }
+
+    private static String escreverCursor(No no) {
+        byte[] conteudo = ("=" + no.tamanho + SEPARADOR + no.id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(conteudo);
+    }
+
+    private static No lerCursor(String cursor) {
+        try {
+            String conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = conteudo.lastIndexOf(SEPARADOR);
+            if (separador < 1 || conteudo.charAt(0) != '=') {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new No(Integer.parseInt(conteudo.substring(1, separador)), conteudo.substring(separador + 1), 0);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    /**
+     * Nó da árvore: chave (tamanho e ID), prioridade e quantidade de nós da subárvore
+     */
+    private static final class No {
+        private final int tamanho;
+        private final String id;
+        private final int prioridade;
+        private int quantidade = 1;
+        private No esquerda;
+        private No direita;
+
+        private No(int tamanho, String id, int prioridade) {
+            this.tamanho = tamanho;
+            this.id = id;
+            this.prioridade = prioridade;
+        }
+    }
+}
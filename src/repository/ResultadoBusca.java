@@ -0,0 +1,63 @@
+package repository;
+
+import model.Equipe;
+import model.Projeto;
+import model.Usuario;
+
+/**
+ * Entidade encontrada por uma busca textual, com a sua pontuação (BM25).
+ * A entidade é a recebida na última alteração indexada.
+ */
+public class ResultadoBusca {
+
+    /**
+     * Tipos de entidade indexados
+     */
+    public enum Tipo {
+        PROJETO,
+        EQUIPE,
+        USUARIO
+    }
+
+    private final Tipo tipo;
+    private final Object entidade;
+    private final double pontuacao;
+
+    // Construtor
+    ResultadoBusca(Tipo tipo, Object entidade, double pontuacao) {
+        this.tipo = tipo;
+        this.entidade = entidade;
+        this.pontuacao = pontuacao;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Entidade encontrada
+     * @return Projeto, Equipe ou Usuario, conforme o tipo
+     */
+    public Object getEntidade() {
+        return entidade;
+    }
+
+    public double getPontuacao() {
+        return pontuacao;
+    }
+
+    /**
+     * Nome exibido da entidade
+     * @return Nome do projeto ou da equipe, ou nome completo do usuário
+     */
+    public String getNome() {
+        switch (tipo) {
+            case PROJETO:
+                return ((Projeto) entidade).getNome();
+            case EQUIPE:
+                return ((Equipe) entidade).getNome();
+            default:
+                return ((Usuario) entidade).getNomeCompleto();
+        }
+    }
+}
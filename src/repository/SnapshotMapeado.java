@@ -0,0 +1,522 @@
+package repository;
+
+import model.Equipe;
+import model.Perfil;
+import model.Projeto;
+import model.Usuario;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshot em formato de tabelas de largura fixa, lido por mapeamento em memória.
+ *
+ * Layout do arquivo: cabeçalho, tabela de usuários, de projetos, de equipes e de
+ * membros, seguidas de um pool de textos sem repetição. Os campos de texto das
+ * tabelas guardam apenas a posição do texto no pool (-1 para nulo), de modo que
+ * o i-ésimo registro de cada tabela é acessado diretamente pela sua posição.
+ *
+ * A leitura é feita por visões reutilizáveis (flyweights) posicionadas sobre o
+ * arquivo mapeado: nada é copiado para o heap até que um campo seja lido ou a
+ * entidade seja materializada. Cada texto do pool é gravado como [tamanho]
+ * [compartilhado][bytes UTF-8]; os marcados como compartilhados (referenciados mais
+ * de uma vez, como cargos, descrições e IDs de gerentes) são decodificados uma única
+ * vez e reaproveitados entre as entidades.
+ *
+ * Uma instância aberta para leitura não é segura para uso por várias threads.
+ */
+final class SnapshotMapeado {
+    // Identificação do formato ("GSNP") e versão
+    static final int MAGIA = 0x47534E50;
+    private static final int VERSAO = 1;
+
+    // Tamanho do cabeçalho e dos registros de cada tabela, em bytes
+    private static final int CABECALHO = 64;
+    private static final int TAMANHO_USUARIO = 7 * 4 + 4 + 12;
+    private static final int TAMANHO_PROJETO = 3 * 4 + 8 + 8 + 4 + 4;
+    private static final int TAMANHO_EQUIPE = 3 * 4 + 4 + 12;
+    private static final int TAMANHO_MEMBRO = 4 + 4;
+
+    // Referência de texto nulo
+    private static final int SEM_TEXTO = -1;
+
+    private final ByteBuffer dados;
+    private final int quantidadeUsuarios;
+    private final int quantidadeProjetos;
+    private final int quantidadeEquipes;
+    private final int quantidadeMembros;
+    private final int inicioUsuarios;
+    private final int inicioProjetos;
+    private final int inicioEquipes;
+    private final int inicioMembros;
+    private final int inicioTextos;
+
+    // Textos compartilhados já decodificados, pela posição no pool
+    private final Map<Integer, String> compartilhados;
+    private byte[] temporario;
+
+    private SnapshotMapeado(ByteBuffer dados) throws IOException {
+        this.dados = dados;
+        if (dados.capacity() < CABECALHO || dados.getInt(0) != MAGIA) {
+            throw new IOException("Arquivo não é um snapshot mapeado");
+        }
+        if (dados.getInt(4) != VERSAO) {
+            throw new IOException("Versão de snapshot mapeado não suportada: " + dados.getInt(4));
+        }
+        if (dados.getInt(40) != crcCabecalho(dados)) {
+            throw new IOException("Cabeçalho do snapshot mapeado corrompido");
+        }
+
+        this.quantidadeUsuarios = dados.getInt(8);
+        this.quantidadeProjetos = dados.getInt(12);
+        this.quantidadeEquipes = dados.getInt(16);
+        this.quantidadeMembros = dados.getInt(20);
+        this.inicioTextos = dados.getInt(24);
+        if (dados.getInt(28) != dados.capacity()) {
+            throw new IOException("Snapshot mapeado incompleto");
+        }
+
+        this.inicioUsuarios = CABECALHO;
+        this.inicioProjetos = inicioUsuarios + quantidadeUsuarios * TAMANHO_USUARIO;
+        this.inicioEquipes = inicioProjetos + quantidadeProjetos * TAMANHO_PROJETO;
+        this.inicioMembros = inicioEquipes + quantidadeEquipes * TAMANHO_EQUIPE;
+        if (inicioMembros + quantidadeMembros * TAMANHO_MEMBRO != inicioTextos) {
+            throw new IOException("Tabelas do snapshot mapeado inconsistentes");
+        }
+
+        this.compartilhados = new HashMap<>();
+        this.temporario = new byte[256];
+    }
+
+    /**
+     * Verifica se um arquivo está no formato mapeado
+     * @param arquivo Arquivo de snapshot
+     * @return true se o arquivo começa com a identificação do formato
+     * @throws IOException em caso de erro de leitura
+     */
+    static boolean reconhecer(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer inicio = ByteBuffer.allocate(4);
+            while (inicio.hasRemaining() && canal.read(inicio) >= 0) {
+                // Lê até completar a identificação ou chegar ao fim do arquivo
+            }
+            return !inicio.hasRemaining() && inicio.getInt(0) == MAGIA;
+        }
+    }
+
+    /**
+     * Mapeia um snapshot para leitura. O mapeamento continua válido depois que o
+     * arquivo é fechado e é liberado quando a instância deixa de ser usada.
+     * @param arquivo Arquivo do snapshot
+     * @return Snapshot aberto
+     * @throws IOException se o arquivo não puder ser lido ou for inválido
+     */
+    static SnapshotMapeado abrir(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot mapeado maior que 2 GB: " + arquivo);
+            }
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            return new SnapshotMapeado(mapa);
+        }
+    }
+
+    /**
+     * Grava o estado atual dos repositórios no formato mapeado. Como em
+     * {@link ArquivoSnapshot}, os repositórios são lidos sem travas, e duas entidades
+     * podem sair com a mesma chave única até que o final do log seja reproduzido.
+     * @param arquivo Arquivo de destino
+     * @param usuarioRepository Repositório de usuários
+     * @param projetoRepository Repositório de projetos
+     * @param equipeRepository Repositório de equipes
+     * @return Quantidade de registros gravados (entidades e membros)
+     * @throws IOException em caso de erro de escrita ou se o snapshot passar de 2 GB
+     */
+    static long gravar(Path arquivo, UsuarioRepository usuarioRepository,
+                       ProjetoRepository projetoRepository, EquipeRepository equipeRepository) throws IOException {
+        List<Usuario> usuarios = usuarioRepository.listarTodos();
+        List<Projeto> projetos = projetoRepository.listarTodos();
+        List<Equipe> equipes = equipeRepository.listarTodas();
+
+        // Fixa o conjunto de membros de cada equipe para que a contagem e a tabela coincidam
+        List<Set<Usuario>> membros = new ArrayList<>(equipes.size());
+        int quantidadeMembros = 0;
+        for (Equipe equipe : equipes) {
+            Set<Usuario> daEquipe = equipe.getMembros();
+            membros.add(daEquipe);
+            quantidadeMembros += daEquipe.size();
+        }
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            PoolTextos pool = new PoolTextos();
+            EscritorBinario tabela = new EscritorBinario(ArquivoSnapshot.TAMANHO_BLOCO * 2);
+            canal.position(CABECALHO);
+
+            for (Usuario usuario : usuarios) {
+                tabela.escreverInt(pool.referencia(usuario.getId()));
+                tabela.escreverInt(pool.referencia(usuario.getNomeCompleto()));
+                tabela.escreverInt(pool.referencia(usuario.getCpf()));
+                tabela.escreverInt(pool.referencia(usuario.getEmail()));
+                tabela.escreverInt(pool.referencia(usuario.getCargo()));
+                tabela.escreverInt(pool.referencia(usuario.getLogin()));
+                tabela.escreverInt(pool.referencia(usuario.getSenha()));
+                tabela.escreverInt(usuario.getPerfil() == null ? -1 : usuario.getPerfil().ordinal());
+                escreverDataHora(tabela, usuario.getDataCriacao());
+                ArquivoSnapshot.descarregarSeCheio(canal, tabela);
+            }
+            for (Projeto projeto : projetos) {
+                tabela.escreverInt(pool.referencia(projeto.getId()));
+                tabela.escreverInt(pool.referencia(projeto.getNome()));
+                tabela.escreverInt(pool.referencia(projeto.getDescricao()));
+                tabela.escreverData(projeto.getDataInicio());
+                tabela.escreverData(projeto.getDataTerminoPrevista());
+                tabela.escreverInt(projeto.getStatus().ordinal());
+                tabela.escreverInt(pool.referencia(projeto.getGerente() == null ? null : projeto.getGerente().getId()));
+                ArquivoSnapshot.descarregarSeCheio(canal, tabela);
+            }
+            for (Equipe equipe : equipes) {
+                tabela.escreverInt(pool.referencia(equipe.getId()));
+                tabela.escreverInt(pool.referencia(equipe.getNome()));
+                tabela.escreverInt(pool.referencia(equipe.getDescricao()));
+                tabela.escreverInt(equipe.getCapacidadeMaxima());
+                escreverDataHora(tabela, equipe.getDataCriacao());
+                ArquivoSnapshot.descarregarSeCheio(canal, tabela);
+            }
+            for (int i = 0; i < equipes.size(); i++) {
+                int equipe = pool.referencia(equipes.get(i).getId());
+                for (Usuario membro : membros.get(i)) {
+                    tabela.escreverInt(equipe);
+                    tabela.escreverInt(pool.referencia(membro.getId()));
+                }
+                ArquivoSnapshot.descarregarSeCheio(canal, tabela);
+            }
+            ArquivoSnapshot.descarregar(canal, tabela);
+
+            long inicioTextos = canal.position();
+            ArquivoSnapshot.descarregar(canal, pool.conteudo());
+            long tamanho = canal.position();
+            if (tamanho > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot mapeado maior que 2 GB");
+            }
+
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+            cabecalho.putInt(0, MAGIA);
+            cabecalho.putInt(4, VERSAO);
+            cabecalho.putInt(8, usuarios.size());
+            cabecalho.putInt(12, projetos.size());
+            cabecalho.putInt(16, equipes.size());
+            cabecalho.putInt(20, quantidadeMembros);
+            cabecalho.putInt(24, (int) inicioTextos);
+            cabecalho.putInt(28, (int) tamanho);
+            cabecalho.putInt(40, crcCabecalho(cabecalho));
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho, cabecalho.position());
+            }
+            canal.force(true);
+        }
+
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return (long) usuarios.size() + projetos.size() + equipes.size() + quantidadeMembros;
+    }
+
+    // Quantidades
+    int quantidadeUsuarios() {
+        return quantidadeUsuarios;
+    }
+
+    int quantidadeProjetos() {
+        return quantidadeProjetos;
+    }
+
+    int quantidadeEquipes() {
+        return quantidadeEquipes;
+    }
+
+    int quantidadeMembros() {
+        return quantidadeMembros;
+    }
+
+    // Visões reutilizáveis sobre as tabelas
+    VisaoUsuario visaoUsuario() {
+        return new VisaoUsuario();
+    }
+
+    VisaoProjeto visaoProjeto() {
+        return new VisaoProjeto();
+    }
+
+    VisaoEquipe visaoEquipe() {
+        return new VisaoEquipe();
+    }
+
+    VisaoMembro visaoMembro() {
+        return new VisaoMembro();
+    }
+
+    /**
+     * Visão de um registro da tabela de usuários
+     */
+    final class VisaoUsuario {
+        private int base;
+
+        VisaoUsuario posicionar(int indice) {
+            base = inicioUsuarios + verificarIndice(indice, quantidadeUsuarios) * TAMANHO_USUARIO;
+            return this;
+        }
+
+        String getId() {
+            return texto(dados.getInt(base));
+        }
+
+        String getNomeCompleto() {
+            return texto(dados.getInt(base + 4));
+        }
+
+        String getCpf() {
+            return texto(dados.getInt(base + 8));
+        }
+
+        String getEmail() {
+            return texto(dados.getInt(base + 12));
+        }
+
+        String getCargo() {
+            return texto(dados.getInt(base + 16));
+        }
+
+        String getLogin() {
+            return texto(dados.getInt(base + 20));
+        }
+
+        Perfil getPerfil() {
+            int perfil = dados.getInt(base + 28);
+            return perfil < 0 ? null : Perfil.values()[perfil];
+        }
+
+        /**
+         * Cria o usuário correspondente ao registro
+         * @return Usuário materializado
+         */
+        Usuario materializar() {
+            return new Usuario(getId(), getNomeCompleto(), getCpf(), getEmail(), getCargo(), getLogin(),
+                    texto(dados.getInt(base + 24)), getPerfil(), dataHora(base + 32));
+        }
+    }
+
+    /**
+     * Visão de um registro da tabela de projetos
+     */
+    final class VisaoProjeto {
+        private int base;
+
+        VisaoProjeto posicionar(int indice) {
+            base = inicioProjetos + verificarIndice(indice, quantidadeProjetos) * TAMANHO_PROJETO;
+            return this;
+        }
+
+        String getId() {
+            return texto(dados.getInt(base));
+        }
+
+        String getNome() {
+            return texto(dados.getInt(base + 4));
+        }
+
+        LocalDate getDataInicio() {
+            return data(base + 12);
+        }
+
+        LocalDate getDataTerminoPrevista() {
+            return data(base + 20);
+        }
+
+        Projeto.Status getStatus() {
+            return Projeto.Status.values()[dados.getInt(base + 28)];
+        }
+
+        String getIdGerente() {
+            return texto(dados.getInt(base + 32));
+        }
+
+        /**
+         * Cria o projeto correspondente ao registro
+         * @param usuarioPorId Função que resolve o gerente pelo ID (pode devolver null)
+         * @return Projeto materializado
+         */
+        Projeto materializar(Function<String, Usuario> usuarioPorId) {
+            String idGerente = getIdGerente();
+            Usuario gerente = idGerente == null ? null : usuarioPorId.apply(idGerente);
+            return new Projeto(getId(), getNome(), texto(dados.getInt(base + 8)), getDataInicio(),
+                    getDataTerminoPrevista(), getStatus(), gerente);
+        }
+    }
+
+    /**
+     * Visão de um registro da tabela de equipes
+     */
+    final class VisaoEquipe {
+        private int base;
+
+        VisaoEquipe posicionar(int indice) {
+            base = inicioEquipes + verificarIndice(indice, quantidadeEquipes) * TAMANHO_EQUIPE;
+            return this;
+        }
+
+        String getId() {
+            return texto(dados.getInt(base));
+        }
+
+        String getNome() {
+            return texto(dados.getInt(base + 4));
+        }
+
+        int getCapacidadeMaxima() {
+            return dados.getInt(base + 12);
+        }
+
+        /**
+         * Cria a equipe correspondente ao registro, sem membros
+         * @return Equipe materializada
+         */
+        Equipe materializar() {
+            return new Equipe(getId(), getNome(), texto(dados.getInt(base + 8)), getCapacidadeMaxima(),
+                    dataHora(base + 16));
+        }
+    }
+
+    /**
+     * Visão de um registro da tabela de membros
+     */
+    final class VisaoMembro {
+        private int base;
+
+        VisaoMembro posicionar(int indice) {
+            base = inicioMembros + verificarIndice(indice, quantidadeMembros) * TAMANHO_MEMBRO;
+            return this;
+        }
+
+        String getIdEquipe() {
+            return texto(dados.getInt(base));
+        }
+
+        String getIdUsuario() {
+            return texto(dados.getInt(base + 4));
+        }
+    }
+
+    private static int verificarIndice(int indice, int quantidade) {
+        if (indice < 0 || indice >= quantidade) {
+            throw new IndexOutOfBoundsException("Índice " + indice + " fora da tabela de " + quantidade);
+        }
+        return indice;
+    }
+
+    /**
+     * Decodifica um texto do pool, reaproveitando a decodificação dos textos compartilhados
+     * @param referencia Posição do texto no pool
+     * @return Texto, ou null para a referência nula
+     */
+    private String texto(int referencia) {
+        if (referencia == SEM_TEXTO) {
+            return null;
+        }
+        int posicao = inicioTextos + referencia;
+        if (dados.get(posicao + 4) == 0) {
+            return decodificar(posicao);
+        }
+        String texto = compartilhados.get(referencia);
+        if (texto == null) {
+            texto = decodificar(posicao);
+            compartilhados.put(referencia, texto);
+        }
+        return texto;
+    }
+
+    private String decodificar(int posicao) {
+        int tamanho = dados.getInt(posicao);
+        if (temporario.length < tamanho) {
+            temporario = new byte[Math.max(tamanho, temporario.length * 2)];
+        }
+        dados.get(posicao + 5, temporario, 0, tamanho);
+        return new String(temporario, 0, tamanho, StandardCharsets.UTF_8);
+    }
+
+    private LocalDate data(int posicao) {
+        long dia = dados.getLong(posicao);
+        return dia == EscritorBinario.DATA_NULA ? null : LocalDate.ofEpochDay(dia);
+    }
+
+    private LocalDateTime dataHora(int posicao) {
+        long segundos = dados.getLong(posicao);
+        if (segundos == EscritorBinario.DATA_NULA) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(segundos, dados.getInt(posicao + 8), ZoneOffset.UTC);
+    }
+
+    /**
+     * Escreve data e hora sempre com 12 bytes, para manter a largura fixa do registro
+     */
+    private static void escreverDataHora(EscritorBinario escritor, LocalDateTime valor) {
+        escritor.escreverLong(valor == null ? EscritorBinario.DATA_NULA : valor.toEpochSecond(ZoneOffset.UTC));
+        escritor.escreverInt(valor == null ? 0 : valor.getNano());
+    }
+
+    private static int crcCabecalho(ByteBuffer dados) {
+        CRC32C crc = new CRC32C();
+        for (int i = 0; i < 40; i++) {
+            crc.update(dados.get(i));
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Pool de textos sem repetição usado na gravação
+     */
+    private static final class PoolTextos {
+        private final Map<String, Integer> referencias = new HashMap<>();
+        private final EscritorBinario conteudo = new EscritorBinario(64 * 1024);
+
+        int referencia(String texto) {
+            if (texto == null) {
+                return SEM_TEXTO;
+            }
+            Integer referencia = referencias.get(texto);
+            if (referencia == null) {
+                byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+                referencia = conteudo.posicao();
+                conteudo.escreverInt(bytes.length);
+                conteudo.escreverByte(0);
+                conteudo.escreverBytes(ByteBuffer.wrap(bytes));
+                referencias.put(texto, referencia);
+            } else {
+                // Segunda referência em diante: marca o texto como compartilhado
+                conteudo.buffer().put(referencia + 4, (byte) 1);
+            }
+            return referencia;
+        }
+
+        EscritorBinario conteudo() {
+            return conteudo;
+        }
+    }
+}
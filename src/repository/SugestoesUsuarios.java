@@ -0,0 +1,477 @@
+package repository;
+
+import model.Perfil;
+import model.Usuario;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sugestões de usuários pelo início do nome completo, de qualquer palavra do nome
+ * ou do login, sem diferenciar acentos e maiúsculas, mantidas a cada alteração do
+ * repositório de usuários.
+ *
+ * Para cada perfil há um vetor ordenado de chaves (a base), em que o prefixo é
+ * localizado por busca binária, mais um vetor ordenado pequeno com as chaves
+ * gravadas depois da última reconstrução e os IDs dos usuários cujas entradas na
+ * base deixaram de valer. Os três são imutáveis e trocados juntos a cada alteração,
+ * de modo que as consultas não usam travas. Quando as alterações acumuladas passam
+ * de um múltiplo da raiz quadrada do tamanho da base, a base é reconstruída
+ * intercalando os vetores, o que mantém o custo de cada alteração em O(raiz de n)
+ * amortizado. Os usuários já existentes ao acompanhar o repositório são ordenados
+ * de uma vez.
+ */
+public class SugestoesUsuarios implements OuvinteAlteracoes {
+    // Alterações acumuladas aceitas antes de reconstruir a base: no mínimo esta
+    // quantidade, ou o fator vezes a raiz quadrada do tamanho da base
+    private static final int ALTERACOES_MINIMAS = 256;
+    private static final int FATOR_ALTERACOES = 8;
+
+    private static final Camada VAZIA = new Camada(new String[0], new Usuario[0]);
+
+    private static final Estado INICIAL = new Estado(VAZIA, VAZIA, new String[0]);
+
+    // Estado das sugestões de cada perfil, pela posição do perfil; a última posição
+    // é a dos usuários sem perfil, que só aparecem quando o perfil não é filtrado
+    private final AtomicReferenceArray<Estado> estados = new AtomicReferenceArray<>(Perfil.values().length + 1);
+
+    // Perfil e chaves de cada usuário indexado, por ID (alterado sob a trava do objeto)
+    private final Map<String, Indexado> indexados = new HashMap<>();
+
+    // Usuários recebidos durante a carga inicial, ainda não ordenados (null fora da carga)
+    private Map<String, Usuario> carga;
+
+    // Construtor
+    public SugestoesUsuarios() {
+        for (int i = 0; i < estados.length(); i++) {
+            estados.set(i, INICIAL);
+        }
+    }
+
+    /**
+     * Cria as sugestões e passa a acompanhar o repositório, começando pelos
+     * usuários que ele já tem
+     * @param usuarioRepository Repositório de usuários
+     * @return Sugestões atualizadas a cada alteração
+     */
+    public static SugestoesUsuarios acompanhar(UsuarioRepository usuarioRepository) {
+        SugestoesUsuarios sugestoes = new SugestoesUsuarios();
+        synchronized (sugestoes) {
+            sugestoes.carga = new LinkedHashMap<>();
+        }
+        usuarioRepository.registrarOuvinteComEstado(sugestoes);
+        sugestoes.concluirCarga();
+        return sugestoes;
+    }
+
+    /**
+     * Usuários cujo nome completo, alguma palavra do nome ou o login começa com o prefixo
+     * @param prefixo Início procurado (vazio traz os primeiros em ordem alfabética)
+     * @param perfil Perfil dos usuários, ou null para todos
+     * @param limite Quantidade máxima de usuários
+     * @return Usuários em ordem alfabética da chave encontrada, sem repetição
+     */
+    public List<Usuario> sugerir(String prefixo, Perfil perfil, int limite) {
+        String chave = prefixo == null ? "" : Chaves.busca(prefixo);
+        List<Cursor> cursores = new ArrayList<>();
+        if (perfil != null) {
+            cursores.add(new Cursor(estados.get(perfil.ordinal()), chave));
+        } else {
+            for (int i = 0; i < estados.length(); i++) {
+                cursores.add(new Cursor(estados.get(i), chave));
+            }
+        }
+
+        // Intercala os cursores dos perfis em ordem de chave
+        Set<Usuario> encontrados = new LinkedHashSet<>();
+        while (encontrados.size() < limite) {
+            Cursor menor = null;
+            for (Cursor cursor : cursores) {
+                if (cursor.temAtual() && (menor == null || cursor.compararCom(menor) < 0)) {
+                    menor = cursor;
+                }
+            }
+            if (menor == null) {
+                break;
+            }
+            encontrados.add(menor.usuarioAtual());
+            menor.avancar();
+        }
+
+        // As camadas guardam as instâncias gravadas no repositório; quem chama recebe cópias
+        List<Usuario> sugeridos = new ArrayList<>(encontrados.size());
+        for (Usuario usuario : encontrados) {
+            sugeridos.add(new Usuario(usuario));
+        }
+        return sugeridos;
+    }
+
+    @Override
+    public synchronized void usuarioGravado(Usuario usuario) {
+        if (carga != null) {
+            carga.put(usuario.getId(), usuario);
+            return;
+        }
+        retirar(usuario.getId());
+        int perfil = posicao(usuario.getPerfil());
+        Estado estado = estados.get(perfil);
+
+        // As entradas novas vão para os recentes. Se o usuário tinha entradas na base
+        // deste perfil, retirar() já o incluiu entre os descartados
+        String[] chaves = chaves(usuario);
+        Camada recentes = inserir(estado.recentes, chaves, usuario);
+        alterar(perfil, new Estado(estado.base, recentes, estado.descartados));
+        indexados.put(usuario.getId(), new Indexado(perfil, chaves));
+    }
+
+    @Override
+    public synchronized void usuarioRemovido(Usuario usuario) {
+        if (carga != null) {
+            carga.remove(usuario.getId());
+            return;
+        }
+        retirar(usuario.getId());
+    }
+
+    // Ordena de uma vez os usuários recebidos durante a carga inicial
+    private synchronized void concluirCarga() {
+        List<List<Entrada>> entradas = new ArrayList<>();
+        for (int i = 0; i < estados.length(); i++) {
+            entradas.add(new ArrayList<>());
+        }
+        for (Usuario usuario : carga.values()) {
+            int perfil = posicao(usuario.getPerfil());
+            String[] chaves = chaves(usuario);
+            for (String chave : chaves) {
+                entradas.get(perfil).add(new Entrada(chave, usuario));
+            }
+            indexados.put(usuario.getId(), new Indexado(perfil, chaves));
+        }
+        Comparator<Entrada> ordem = Comparator.<Entrada, String>comparing(entrada -> entrada.chave)
+                .thenComparing(entrada -> entrada.usuario.getId());
+        for (int perfil = 0; perfil < estados.length(); perfil++) {
+            List<Entrada> doPerfil = entradas.get(perfil);
+            doPerfil.sort(ordem);
+            String[] chaves = new String[doPerfil.size()];
+            Usuario[] usuarios = new Usuario[doPerfil.size()];
+            for (int i = 0; i < chaves.length; i++) {
+                chaves[i] = doPerfil.get(i).chave;
+                usuarios[i] = doPerfil.get(i).usuario;
+            }
+            estados.set(perfil, new Estado(new Camada(chaves, usuarios), VAZIA, INICIAL.descartados));
+        }
+        carga = null;
+    }
+
+    /**
+     * Retira as entradas de um usuário do perfil em que ele está. As que estão nos
+     * recentes saem deles; se restarem entradas na base, elas continuam lá, mas o
+     * usuário passa a ser descartado até a reconstrução
+     */
+    private void retirar(String id) {
+        Indexado indexado = indexados.remove(id);
+        if (indexado == null) {
+            return;
+        }
+        Estado estado = estados.get(indexado.perfil);
+        Camada recentes = estado.recentes;
+
+        // Posições das chaves gravadas do usuário que ainda estão nos recentes, em ordem
+        int[] posicoes = new int[indexado.chaves.length];
+        int encontradas = 0;
+        for (String chave : indexado.chaves) {
+            int posicao = recentes.posicao(chave, id) - 1;
+            if (posicao >= 0 && recentes.chaves[posicao].equals(chave) && recentes.usuarios[posicao].getId().equals(id)) {
+                posicoes[encontradas++] = posicao;
+            }
+        }
+        if (encontradas > 0) {
+            int total = recentes.chaves.length - encontradas;
+            String[] chaves = new String[total];
+            Usuario[] usuarios = new Usuario[total];
+            int origem = 0;
+            int destino = 0;
+            for (int i = 0; i < encontradas; i++) {
+                System.arraycopy(recentes.chaves, origem, chaves, destino, posicoes[i] - origem);
+                System.arraycopy(recentes.usuarios, origem, usuarios, destino, posicoes[i] - origem);
+                destino += posicoes[i] - origem;
+                origem = posicoes[i] + 1;
+            }
+            System.arraycopy(recentes.chaves, origem, chaves, destino, recentes.chaves.length - origem);
+            System.arraycopy(recentes.usuarios, origem, usuarios, destino, recentes.usuarios.length - origem);
+            recentes = new Camada(chaves, usuarios);
+        }
+
+        // Chaves que não estavam nos recentes estão na base
+        String[] descartados = estado.descartados;
+        int posicao = Arrays.binarySearch(descartados, id);
+        if (encontradas < indexado.chaves.length && posicao < 0) {
+            posicao = -posicao - 1;
+            String[] novos = new String[descartados.length + 1];
+            System.arraycopy(descartados, 0, novos, 0, posicao);
+            novos[posicao] = id;
+            System.arraycopy(descartados, posicao, novos, posicao + 1, descartados.length - posicao);
+            descartados = novos;
+        }
+        alterar(indexado.perfil, new Estado(estado.base, recentes, descartados));
+    }
+
+    // Publica o novo estado do perfil, reconstruindo a base se houver alterações demais
+    private void alterar(int perfil, Estado estado) {
+        int limite = Math.max(ALTERACOES_MINIMAS, FATOR_ALTERACOES * (int) Math.sqrt(estado.base.chaves.length));
+        if (estado.recentes.chaves.length + estado.descartados.length > limite) {
+            Set<String> descartados = new HashSet<>(Arrays.asList(estado.descartados));
+            estado = new Estado(intercalar(estado.base, descartados, estado.recentes), VAZIA, INICIAL.descartados);
+        }
+        estados.set(perfil, estado);
+    }
+
+    private int posicao(Perfil perfil) {
+        return perfil == null ? estados.length() - 1 : perfil.ordinal();
+    }
+
+    /**
+     * Chaves de um usuário: nome completo, o nome a partir de cada palavra seguinte e login
+     */
+    private static String[] chaves(Usuario usuario) {
+        Set<String> chaves = new HashSet<>();
+        String nome = Chaves.busca(usuario.getNomeCompleto());
+        if (nome != null && !nome.isEmpty()) {
+            chaves.add(nome);
+            for (int i = nome.indexOf(' '); i >= 0; i = nome.indexOf(' ', i + 1)) {
+                chaves.add(nome.substring(i + 1));
+            }
+        }
+        String login = Chaves.busca(usuario.getLogin());
+        if (login != null && !login.isEmpty()) {
+            chaves.add(login);
+        }
+        String[] ordenadas = chaves.toArray(new String[0]);
+        Arrays.sort(ordenadas);
+        return ordenadas;
+    }
+
+    /**
+     * Insere as chaves (em ordem) de um usuário numa camada ordenada, copiando os
+     * trechos entre as posições encontradas por busca binária
+     */
+    private static Camada inserir(Camada camada, String[] novas, Usuario usuario) {
+        int total = camada.chaves.length + novas.length;
+        String[] chaves = new String[total];
+        Usuario[] usuarios = new Usuario[total];
+        int origem = 0;
+        int destino = 0;
+        for (String chave : novas) {
+            int posicao = camada.posicao(chave, usuario.getId());
+            System.arraycopy(camada.chaves, origem, chaves, destino, posicao - origem);
+            System.arraycopy(camada.usuarios, origem, usuarios, destino, posicao - origem);
+            destino += posicao - origem;
+            origem = posicao;
+            chaves[destino] = chave;
+            usuarios[destino++] = usuario;
+        }
+        System.arraycopy(camada.chaves, origem, chaves, destino, camada.chaves.length - origem);
+        System.arraycopy(camada.usuarios, origem, usuarios, destino, camada.usuarios.length - origem);
+        return new Camada(chaves, usuarios);
+    }
+
+    /**
+     * Intercala duas camadas ordenadas, deixando de fora da primeira as entradas dos
+     * usuários descartados
+     */
+    private static Camada intercalar(Camada primeira, Set<String> descartados, Camada segunda) {
+        int total = primeira.chaves.length + segunda.chaves.length;
+        String[] chaves = new String[total];
+        Usuario[] usuarios = new Usuario[total];
+        int i = 0;
+        int j = 0;
+        int tamanho = 0;
+        while (i < primeira.chaves.length || j < segunda.chaves.length) {
+            if (j == segunda.chaves.length
+                    || (i < primeira.chaves.length && comparar(primeira, i, segunda, j) <= 0)) {
+                if (!descartados.contains(primeira.usuarios[i].getId())) {
+                    chaves[tamanho] = primeira.chaves[i];
+                    usuarios[tamanho++] = primeira.usuarios[i];
+                }
+                i++;
+            } else {
+                chaves[tamanho] = segunda.chaves[j];
+                usuarios[tamanho++] = segunda.usuarios[j++];
+            }
+        }
+        if (tamanho < total) {
+            chaves = Arrays.copyOf(chaves, tamanho);
+            usuarios = Arrays.copyOf(usuarios, tamanho);
+        }
+        return new Camada(chaves, usuarios);
+    }
+
+    // Ordem das entradas: chave e, no empate, ID do usuário
+    private static int comparar(Camada a, int i, Camada b, int j) {
+        int comparacao = a.chaves[i].compareTo(b.chaves[j]);
+        return comparacao != 0 ? comparacao : a.usuarios[i].getId().compareTo(b.usuarios[j].getId());
+    }
+
+    /**
+     * Perfil e chaves com que um usuário foi indexado
+     */
+    private static final class Indexado {
+        private final int perfil;
+        private final String[] chaves;
+
+        private Indexado(int perfil, String[] chaves) {
+            this.perfil = perfil;
+            this.chaves = chaves;
+        }
+    }
+
+    /**
+     * Chave de um usuário, usada apenas na carga inicial
+     */
+    private static final class Entrada {
+        private final String chave;
+        private final Usuario usuario;
+
+        private Entrada(String chave, Usuario usuario) {
+            this.chave = chave;
+            this.usuario = usuario;
+        }
+    }
+
+    /**
+     * Vetores paralelos de chaves e usuários, em ordem de chave
+     */
+    private static final class Camada {
+        private final String[] chaves;
+        private final Usuario[] usuarios;
+
+        private Camada(String[] chaves, Usuario[] usuarios) {
+            this.chaves = chaves;
+            this.usuarios = usuarios;
+        }
+
+        // Primeira posição com chave maior ou igual à informada
+        private int inicio(String chave) {
+            int baixo = 0;
+            int alto = chaves.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (chaves[meio].compareTo(chave) < 0) {
+                    baixo = meio + 1;
+                } else {
+                    alto = meio;
+                }
+            }
+            return baixo;
+        }
+
+        // Primeira posição com entrada maior que a chave e o ID informados
+        private int posicao(String chave, String id) {
+            int baixo = 0;
+            int alto = chaves.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                int comparacao = chaves[meio].compareTo(chave);
+                if (comparacao < 0 || (comparacao == 0 && usuarios[meio].getId().compareTo(id) <= 0)) {
+                    baixo = meio + 1;
+                } else {
+                    alto = meio;
+                }
+            }
+            return baixo;
+        }
+    }
+
+    /**
+     * Base, recentes e IDs (em ordem) dos usuários descartados da base de um perfil
+     */
+    private static final class Estado {
+        private final Camada base;
+        private final Camada recentes;
+        private final String[] descartados;
+
+        private Estado(Camada base, Camada recentes, String[] descartados) {
+            this.base = base;
+            this.recentes = recentes;
+            this.descartados = descartados;
+        }
+
+        private boolean descartado(Usuario usuario) {
+            return descartados.length > 0 && Arrays.binarySearch(descartados, usuario.getId()) >= 0;
+        }
+    }
+
+    /**
+     * Percorre, em ordem, as entradas de um perfil que começam com o prefixo,
+     * intercalando a base (sem os descartados) e os recentes
+     */
+    private static final class Cursor {
+        private final Estado estado;
+        private final String prefixo;
+        private int posicaoBase;
+        private int posicaoRecentes;
+
+        // Camada e posição da entrada atual (camada null quando não há mais entradas)
+        private Camada camada;
+        private int posicao;
+
+        private Cursor(Estado estado, String prefixo) {
+            this.estado = estado;
+            this.prefixo = prefixo;
+            this.posicaoBase = estado.base.inicio(prefixo);
+            this.posicaoRecentes = estado.recentes.inicio(prefixo);
+            posicionar();
+        }
+
+        private boolean temAtual() {
+            return camada != null;
+        }
+
+        private Usuario usuarioAtual() {
+            return camada.usuarios[posicao];
+        }
+
+        private int compararCom(Cursor outro) {
+            return comparar(camada, posicao, outro.camada, outro.posicao);
+        }
+
+        private void avancar() {
+            if (camada == estado.base) {
+                posicaoBase++;
+            } else {
+                posicaoRecentes++;
+            }
+            posicionar();
+        }
+
+        private void posicionar() {
+            Camada base = estado.base;
+            while (posicaoBase < base.chaves.length && base.chaves[posicaoBase].startsWith(prefixo)
+                    && estado.descartado(base.usuarios[posicaoBase])) {
+                posicaoBase++;
+            }
+            boolean temBase = posicaoBase < base.chaves.length && base.chaves[posicaoBase].startsWith(prefixo);
+            Camada recentes = estado.recentes;
+            boolean temRecentes = posicaoRecentes < recentes.chaves.length
+                    && recentes.chaves[posicaoRecentes].startsWith(prefixo);
+            if (temBase && (!temRecentes || comparar(base, posicaoBase, recentes, posicaoRecentes) <= 0)) {
+                camada = base;
+                posicao = posicaoBase;
+            } else if (temRecentes) {
+                camada = recentes;
+                posicao = posicaoRecentes;
+            } else {
+                camada = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package repository;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conjunto fixo de travas distribuídas por chave (lock striping).
+ * Entidades diferentes costumam cair em travas diferentes, de modo que
+ * escritas independentes não disputam a mesma trava.
+ */
+final class TravasPorChave {
+    private final ReentrantLock[] travas;
+    private final int mascara;
+
+    /**
+     * Cria o conjunto de travas
+     * @param quantidade Quantidade mínima de travas (arredondada para potência de 2)
+     */
+    TravasPorChave(int quantidade) {
+        int tamanho = Integer.highestOneBit(Math.max(1, quantidade - 1)) << 1;
+        this.travas = new ReentrantLock[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            travas[i] = new ReentrantLock();
+        }
+        this.mascara = tamanho - 1;
+    }
+
+    /**
+     * Obtém a trava responsável por uma chave
+     * @param chave Chave da entidade (normalmente o ID)
+     * @return Trava associada à chave
+     */
+    ReentrantLock trava(String chave) {
+        int h = chave.hashCode();
+        h ^= (h >>> 16);
+        return travas[h & mascara];
+    }
+
+    /**
+     * Espera as seções críticas em andamento terminarem, adquirindo e liberando
+     * cada trava. Quem adquirir uma trava depois disso enxerga o que foi publicado antes.
+     */
+    void aguardarLiberacao() {
+        for (ReentrantLock trava : travas) {
+            trava.lock();
+            trava.unlock();
+        }
+    }
+}
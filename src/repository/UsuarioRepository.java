@@ -3,21 +3,112 @@ package repository;
 import model.Usuario;
 import model.Perfil;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
  * Repositório para gerenciamento de usuários no sistema.
+ * Mantém um mapa principal por ID, índices únicos por CPF e login normalizados e
+ * índices ordenados por nome, por data de criação e por nome dentro de cada perfil,
+ * usados na paginação.
+ *
+ * É seguro para uso por várias threads: as leituras não usam travas, as escritas
+ * de um mesmo usuário são serializadas por uma trava distribuída pelo ID e a
+ * unicidade de CPF e login é garantida por reservas atômicas (putIfAbsent).
+ *
+ * O repositório guarda cópias dos usuários gravados e devolve cópias nas buscas,
+ * listagens e páginas: alterar um usuário obtido ou informado não altera o que está
+ * gravado, e toda alteração passa por atualizar, que a registra nos ouvintes. Só os
+ * ouvintes recebem as instâncias gravadas e não devem alterá-las.
  */
 public class UsuarioRepository {
-    // Lista para armazenar usuários
-    private List<Usuario> usuarios;
+    // Quantidade de travas distribuídas entre os usuários
+    private static final int QUANTIDADE_TRAVAS = 64;
+
+    // Mapa principal de usuários por ID
+    private ConcurrentMap<String, Usuario> usuarios;
+
+    // Índices únicos: CPF normalizado -> ID e login normalizado -> ID
+    private ConcurrentMap<String, String> idPorCpf;
+    private ConcurrentMap<String, String> idPorLogin;
+
+    // Índices ordenados para paginação
+    private IndiceOrdenado<String> porNome;
+    private IndiceOrdenado<LocalDateTime> porDataCriacao;
+    private Map<Perfil, IndiceOrdenado<String>> porPerfil;
+
+    // Durante a recuperação os índices únicos só são montados e conferidos no final
+    private boolean unicidadeAdiada;
+
+    // Travas de escrita por ID
+    private TravasPorChave travas;
+
+    // Ouvintes notificados a cada alteração
+    private List<OuvinteAlteracoes> ouvintes;
+
+    // Exportações em andamento
+    private List<ExportacaoConsistente<Usuario>> exportacoes;
 
     // Construtor
     public UsuarioRepository() {
-        this.usuarios = new ArrayList<>();
+        this.usuarios = new ConcurrentHashMap<>();
+        this.idPorCpf = new ConcurrentHashMap<>();
+        this.idPorLogin = new ConcurrentHashMap<>();
+        this.porNome = IndiceOrdenado.porTexto();
+        this.porDataCriacao = new IndiceOrdenado<>(Comparator.<LocalDateTime>naturalOrder(),
+                LocalDateTime::toString, LocalDateTime::parse);
+        this.porPerfil = new EnumMap<>(Perfil.class);
+        for (Perfil perfil : Perfil.values()) {
+            porPerfil.put(perfil, IndiceOrdenado.porTexto());
+        }
+        this.travas = new TravasPorChave(QUANTIDADE_TRAVAS);
+        this.ouvintes = new CopyOnWriteArrayList<>();
+        this.exportacoes = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Registra um ouvinte para ser notificado das alterações aplicadas
+     * @param ouvinte Ouvinte a ser registrado
+     */
+    public void registrarOuvinte(OuvinteAlteracoes ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Registra um ouvinte e entrega a ele, como inclusões, os usuários já
+     * existentes. Cada usuário é entregue sob a sua trava, de modo que o ouvinte
+     * recebe o estado atual antes de qualquer alteração posterior; uma alteração
+     * feita durante o registro pode chegar duas vezes, por isso o ouvinte deve
+     * tratar as notificações de forma idempotente.
+     * @param ouvinte Ouvinte a ser registrado
+     */
+    public void registrarOuvinteComEstado(OuvinteAlteracoes ouvinte) {
+        ouvintes.add(ouvinte);
+        for (String id : usuarios.keySet()) {
+            ReentrantLock trava = travas.trava(id);
+            trava.lock();
+            try {
+                Usuario usuario = usuarios.get(id);
+                if (usuario != null) {
+                    ouvinte.usuarioGravado(usuario);
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
     }
 
     /**
@@ -26,11 +117,62 @@ public class UsuarioRepository {
      * @return boolean indicando se a adição foi bem-sucedida
      */
     public boolean adicionar(Usuario usuario) {
-        // Verifica se já existe usuário com o mesmo CPF
-        if (buscarPorCPF(usuario.getCpf()).isPresent()) {
-            return false;
+        String id = usuario.getId();
+        String cpf = Chaves.cpf(usuario.getCpf());
+        String login = Chaves.login(usuario.getLogin());
+
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            // Verifica se já existe usuário com o mesmo ID, CPF ou login
+            if (usuarios.containsKey(id)) {
+                return false;
+            }
+            if (!reservar(idPorCpf, cpf, id)) {
+                return false;
+            }
+            if (!reservar(idPorLogin, login, id)) {
+                idPorCpf.remove(cpf, id);
+                return false;
+            }
+
+            for (ExportacaoConsistente<Usuario> exportacao : exportacoes) {
+                exportacao.antesDeIncluir(id);
+            }
+            Usuario gravado = new Usuario(usuario);
+            usuarios.put(id, gravado);
+            indexarOrdenacao(gravado, gravado);
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.usuarioGravado(gravado);
+            }
+            return true;
+        } finally {
+            trava.unlock();
         }
-        return usuarios.add(usuario);
+    }
+
+    /**
+     * Adiciona vários usuários como um lote. Cada um é verificado e incluído como em
+     * {@link #adicionar(Usuario)}; os ouvintes são avisados do início e do fim do lote,
+     * o que permite, por exemplo, aguardar a gravação em disco uma única vez.
+     * @param novosUsuarios Usuários a serem adicionados
+     * @return Para cada usuário, na mesma posição, se a adição foi bem-sucedida
+     */
+    public boolean[] adicionarTodos(List<Usuario> novosUsuarios) {
+        boolean[] adicionados = new boolean[novosUsuarios.size()];
+        for (OuvinteAlteracoes ouvinte : ouvintes) {
+            ouvinte.loteIniciado();
+        }
+        try {
+            for (int i = 0; i < novosUsuarios.size(); i++) {
+                adicionados[i] = adicionar(novosUsuarios.get(i));
+            }
+        } finally {
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.loteConcluido();
+            }
+        }
+        return adicionados;
     }
 
     /**
@@ -39,9 +181,7 @@ public class UsuarioRepository {
      * @return Optional com o usuário encontrado
      */
     public Optional<Usuario> buscarPorCPF(String cpf) {
-        return usuarios.stream()
-                .filter(u -> u.getCpf().equals(cpf))
-                .findFirst();
+        return buscarPorIndice(idPorCpf, Chaves.cpf(cpf));
     }
 
     /**
@@ -50,9 +190,16 @@ public class UsuarioRepository {
      * @return Optional com o usuário encontrado
      */
     public Optional<Usuario> buscarPorLogin(String login) {
-        return usuarios.stream()
-                .filter(u -> u.getLogin().equals(login))
-                .findFirst();
+        return buscarPorIndice(idPorLogin, Chaves.login(login));
+    }
+
+    /**
+     * Busca usuário por ID
+     * @param id ID do usuário
+     * @return Optional com o usuário encontrado
+     */
+    public Optional<Usuario> buscarPorId(String id) {
+        return Optional.ofNullable(copia(id));
     }
 
     /**
@@ -60,7 +207,30 @@ public class UsuarioRepository {
      * @return Lista de todos os usuários
      */
     public List<Usuario> listarTodos() {
-        return new ArrayList<>(usuarios);
+        List<Usuario> todos = new ArrayList<>(usuarios.size());
+        for (Usuario usuario : usuarios.values()) {
+            todos.add(new Usuario(usuario));
+        }
+        return todos;
+    }
+
+    /**
+     * Exporta todos os usuários (sem as senhas) no estado em que estavam no início da
+     * exportação, sem interromper as escritas e sem montar uma lista intermediária
+     * @param destino Canal de destino (não é fechado)
+     * @param formato Formato da saída
+     * @return Quantidade de usuários exportados
+     * @throws IOException em caso de erro de escrita
+     */
+    public long exportar(WritableByteChannel destino, FormatoExportacao formato) throws IOException {
+        ExportacaoConsistente<Usuario> exportacao = new ExportacaoConsistente<>(ColunasExportacao::usuario);
+        exportacoes.add(exportacao);
+        try {
+            return exportacao.executar(usuarios, travas,
+                    new EscritorLinhas(destino, formato, ColunasExportacao.USUARIO));
+        } finally {
+            exportacoes.remove(exportacao);
+        }
     }
 
     /**
@@ -69,24 +239,120 @@ public class UsuarioRepository {
      * @return Lista de usuários com o perfil especificado
      */
     public List<Usuario> listarPorPerfil(Perfil perfil) {
-        return usuarios.stream()
+        return usuarios.values().stream()
                 .filter(u -> u.getPerfil() == perfil)
+                .map(Usuario::new)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Atualiza um usuário existente
+     * Página de usuários em ordem alfabética de nome
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de usuários na página
+     * @return Página de usuários
+     */
+    public Pagina<Usuario> paginarPorNome(String cursor, int tamanho) {
+        return porNome.pagina(cursor, tamanho, this::copia);
+    }
+
+    /**
+     * Página de usuários em ordem de data de criação, dos mais antigos aos mais novos
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de usuários na página
+     * @return Página de usuários
+     */
+    public Pagina<Usuario> paginarPorDataCriacao(String cursor, int tamanho) {
+        return porDataCriacao.pagina(cursor, tamanho, this::copia);
+    }
+
+    /**
+     * Página de usuários de um perfil, em ordem alfabética de nome
+     * @param perfil Perfil a ser filtrado
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de usuários na página
+     * @return Página de usuários do perfil
+     */
+    public Pagina<Usuario> paginarPorPerfil(Perfil perfil, String cursor, int tamanho) {
+        return porPerfil.get(perfil).pagina(cursor, tamanho, this::copia);
+    }
+
+    /**
+     * Atualiza um usuário existente, sem verificar a versão. O repositório grava uma
+     * cópia; o usuário informado só recebe a nova versão.
      * @param usuarioAtualizado Usuário com informações atualizadas
      * @return boolean indicando se a atualização foi bem-sucedida
      */
     public boolean atualizar(Usuario usuarioAtualizado) {
-        for (int i = 0; i < usuarios.size(); i++) {
-            if (usuarios.get(i).getId().equals(usuarioAtualizado.getId())) {
-                usuarios.set(i, usuarioAtualizado);
-                return true;
+        return gravarAtualizacao(usuarioAtualizado, false, 0);
+    }
+
+    /**
+     * Atualiza um usuário somente se ele não foi alterado desde a leitura: a versão
+     * gravada é comparada com a esperada sob a trava do usuário (compare-and-set)
+     * @param usuarioAtualizado Cópia do usuário com informações atualizadas
+     * @param versaoEsperada Versão do usuário quando foi lido
+     * @return boolean indicando se a atualização foi bem-sucedida (false se o usuário
+     *         não existe ou se o CPF ou o login pertencem a outro usuário)
+     * @throws ConflitoVersaoException se o usuário foi alterado desde a leitura
+     */
+    public boolean atualizar(Usuario usuarioAtualizado, long versaoEsperada) {
+        return gravarAtualizacao(usuarioAtualizado, true, versaoEsperada);
+    }
+
+    private boolean gravarAtualizacao(Usuario usuarioAtualizado, boolean verificarVersao, long versaoEsperada) {
+        String id = usuarioAtualizado.getId();
+
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            Usuario atual = usuarios.get(id);
+            if (atual == null) {
+                return false;
+            }
+            long versao = atual.getVersao();
+            if (verificarVersao && versao != versaoEsperada) {
+                throw new ConflitoVersaoException(id, versaoEsperada, versao);
+            }
+            for (ExportacaoConsistente<Usuario> exportacao : exportacoes) {
+                exportacao.antesDeAlterar(id, atual);
+            }
+
+            String cpfAnterior = Chaves.cpf(atual.getCpf());
+            String loginAnterior = Chaves.login(atual.getLogin());
+            String cpf = Chaves.cpf(usuarioAtualizado.getCpf());
+            String login = Chaves.login(usuarioAtualizado.getLogin());
+
+            // Não permite que a atualização tome o CPF ou o login de outro usuário
+            if (!reservar(idPorCpf, cpf, id)) {
+                return false;
+            }
+            if (!reservar(idPorLogin, login, id)) {
+                if (!cpf.equals(cpfAnterior)) {
+                    idPorCpf.remove(cpf, id);
+                }
+                return false;
             }
+
+            usuarioAtualizado.setVersao(versao + 1);
+            Usuario gravado = new Usuario(usuarioAtualizado);
+            usuarios.put(id, gravado);
+            indexarOrdenacao(atual, gravado);
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.usuarioGravado(gravado);
+            }
+
+            // CPF e login anteriores só são liberados depois de os ouvintes (o log de
+            // escrita) registrarem a alteração: quem os tomar é registrado depois
+            if (!cpf.equals(cpfAnterior)) {
+                idPorCpf.remove(cpfAnterior, id);
+            }
+            if (!login.equals(loginAnterior)) {
+                idPorLogin.remove(loginAnterior, id);
+            }
+            return true;
+        } finally {
+            trava.unlock();
         }
-        return false;
     }
 
     /**
@@ -95,30 +361,236 @@ public class UsuarioRepository {
      * @return boolean indicando se a remoção foi bem-sucedida
      */
     public boolean remover(String cpf) {
-        return usuarios.removeIf(u -> u.getCpf().equals(cpf));
+        String chave = Chaves.cpf(cpf);
+        String id = idPorCpf.get(chave);
+        if (id == null) {
+            return false;
+        }
+
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            // O CPF pode ter sido liberado enquanto a trava era aguardada
+            if (!id.equals(idPorCpf.get(chave))) {
+                return false;
+            }
+            excluir(id);
+            return true;
+        } finally {
+            trava.unlock();
+        }
     }
 
     /**
-     * Verifica se o login e senha correspondem a um usuário
+     * Remove um usuário pelo ID. Usado na recuperação, quando o índice por CPF
+     * ainda não foi montado.
+     * @param id ID do usuário a ser removido
+     * @return boolean indicando se a remoção foi bem-sucedida
+     */
+    boolean removerPorId(String id) {
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            if (!usuarios.containsKey(id)) {
+                return false;
+            }
+            excluir(id);
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Retira o usuário do mapa e dos índices e avisa os ouvintes. Deve ser chamado
+     * sob a trava do usuário, que precisa existir.
+     * @param id ID do usuário
+     */
+    private void excluir(String id) {
+        for (ExportacaoConsistente<Usuario> exportacao : exportacoes) {
+            exportacao.antesDeAlterar(id, usuarios.get(id));
+        }
+        Usuario removido = usuarios.remove(id);
+        desindexarOrdenacao(removido);
+        for (OuvinteAlteracoes ouvinte : ouvintes) {
+            ouvinte.usuarioRemovido(removido);
+        }
+
+        // Liberados só depois do registro da remoção, como na atualização
+        idPorCpf.remove(Chaves.cpf(removido.getCpf()), id);
+        idPorLogin.remove(Chaves.login(removido.getLogin()), id);
+    }
+
+    /**
+     * Verifica se o login e senha correspondem a um usuário. A senha é conferida com
+     * o hash armazenado, o que é deliberadamente custoso; o serviço de usuários
+     * mantém um cache das verificações recentes.
      * @param login Login do usuário
      * @param senha Senha do usuário
      * @return Optional com o usuário autenticado
      */
     public Optional<Usuario> autenticar(String login, String senha) {
-        return usuarios.stream()
-                .filter(u -> u.getLogin().equals(login) && senhaCorresponde(u, senha))
-                .findFirst();
+        return buscarPorLogin(login)
+                .filter(u -> u.verificarSenha(senha));
     }
 
     /**
-     * Método privado para verificar correspondência de senha
-     * @param usuario Usuário a ser verificado
-     * @param senhaDigitada Senha digitada para comparação
-     * @return boolean indicando se a senha está correta
+     * Troca a senha armazenada de um usuário se ela ainda for a esperada, sem
+     * sobrescrever uma troca feita por outra thread. Como as demais gravações,
+     * incrementa a versão do usuário.
+     * @param id ID do usuário
+     * @param anterior Senha armazenada esperada
+     * @param nova Nova senha armazenada
+     * @return boolean indicando se a troca foi feita
+     */
+    public boolean substituirSenha(String id, String anterior, String nova) {
+        ReentrantLock trava = travas.trava(id);
+        trava.lock();
+        try {
+            Usuario atual = usuarios.get(id);
+            if (atual == null || !Objects.equals(atual.getSenha(), anterior)) {
+                return false;
+            }
+            for (ExportacaoConsistente<Usuario> exportacao : exportacoes) {
+                exportacao.antesDeAlterar(id, atual);
+            }
+            // Grava uma cópia com a versão seguinte, como as demais atualizações: uma
+            // cópia lida antes da troca não pode mais ser gravada por cima dela
+            Usuario atualizado = new Usuario(atual);
+            atualizado.setSenha(nova);
+            atualizado.setVersao(atual.getVersao() + 1);
+            usuarios.put(id, atualizado);
+            for (OuvinteAlteracoes ouvinte : ouvintes) {
+                ouvinte.usuarioGravado(atualizado);
+            }
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Resolve um usuário a partir de um índice secundário
+     * @param indice Índice a ser consultado
+     * @param chave Chave normalizada
+     * @return Optional com o usuário encontrado
      */
-    private boolean senhaCorresponde(Usuario usuario, String senhaDigitada) {
-        // Na prática, use hash de senha
-        return usuario.getSenha().equals(senhaDigitada);
+    private Optional<Usuario> buscarPorIndice(Map<String, String> indice, String chave) {
+        String id = indice.get(chave);
+        return id == null ? Optional.empty() : Optional.ofNullable(copia(id));
+    }
+
+    /**
+     * Cópia do usuário gravado, para ser entregue fora do repositório
+     * @param id ID do usuário
+     * @return Cópia do usuário, ou null se ele não existir
+     */
+    private Usuario copia(String id) {
+        Usuario usuario = usuarios.get(id);
+        return usuario == null ? null : new Usuario(usuario);
+    }
+
+    /**
+     * Atualiza os índices ordenados. Deve ser chamado sob a trava do usuário.
+     * Como o perfil pode ter sido alterado no próprio objeto, o usuário é retirado
+     * dos índices de todos os outros perfis.
+     * @param anterior Usuário como estava indexado (o próprio usuário, se for novo)
+     * @param atual Usuário no estado atual
+     */
+    private void indexarOrdenacao(Usuario anterior, Usuario atual) {
+        String id = atual.getId();
+        String nomeAnterior = Chaves.nome(anterior.getNomeCompleto());
+        String nome = Chaves.nome(atual.getNomeCompleto());
+        if (anterior == atual) {
+            porNome.inserir(nome, id);
+            porDataCriacao.inserir(atual.getDataCriacao(), id);
+        } else {
+            porNome.alterar(nomeAnterior, nome, id);
+            porDataCriacao.alterar(anterior.getDataCriacao(), atual.getDataCriacao(), id);
+        }
+        for (Map.Entry<Perfil, IndiceOrdenado<String>> entrada : porPerfil.entrySet()) {
+            if (entrada.getKey() == atual.getPerfil()) {
+                entrada.getValue().inserir(nome, id);
+                if (!Objects.equals(nome, nomeAnterior)) {
+                    entrada.getValue().remover(nomeAnterior, id);
+                }
+            } else {
+                entrada.getValue().remover(nomeAnterior, id);
+            }
+        }
+    }
+
+    /**
+     * Retira o usuário dos índices ordenados. Deve ser chamado sob a trava do usuário.
+     * @param usuario Usuário removido
+     */
+    private void desindexarOrdenacao(Usuario usuario) {
+        String nome = Chaves.nome(usuario.getNomeCompleto());
+        porNome.remover(nome, usuario.getId());
+        porDataCriacao.remover(usuario.getDataCriacao(), usuario.getId());
+        for (IndiceOrdenado<String> indice : porPerfil.values()) {
+            indice.remover(nome, usuario.getId());
+        }
+    }
+
+    /**
+     * Passa a adiar os índices ordenados e os índices únicos até
+     * {@link #reconstruirIndices()}. Usado na recuperação, antes que o repositório
+     * seja exposto a outras threads; enquanto adiados, as páginas e as buscas por
+     * CPF e login não enxergam as alterações, e a unicidade só é conferida no final.
+     */
+    void adiarIndices() {
+        unicidadeAdiada = true;
+        porNome.adiar();
+        porDataCriacao.adiar();
+        for (IndiceOrdenado<String> indice : porPerfil.values()) {
+            indice.adiar();
+        }
+    }
+
+    /**
+     * Monta os índices únicos e os ordenados de uma vez, a partir dos usuários
+     * carregados, e volta a mantê-los a cada alteração
+     * @throws IllegalStateException se dois usuários carregados têm o mesmo CPF ou login
+     */
+    void reconstruirIndices() {
+        List<String> ids = new ArrayList<>(usuarios.size());
+        List<String> nomes = new ArrayList<>(usuarios.size());
+        List<LocalDateTime> datas = new ArrayList<>(usuarios.size());
+        for (Usuario usuario : usuarios.values()) {
+            ids.add(usuario.getId());
+            nomes.add(Chaves.nome(usuario.getNomeCompleto()));
+            datas.add(usuario.getDataCriacao());
+        }
+
+        if (unicidadeAdiada) {
+            idPorCpf.clear();
+            idPorLogin.clear();
+            for (Usuario usuario : usuarios.values()) {
+                Chaves.exigirUnica(idPorCpf, Chaves.cpf(usuario.getCpf()), usuario.getId(), "CPF");
+                Chaves.exigirUnica(idPorLogin, Chaves.login(usuario.getLogin()), usuario.getId(), "login");
+            }
+            unicidadeAdiada = false;
+        }
+        porNome.reconstruir(nomes, ids);
+        porDataCriacao.reconstruir(datas, ids);
+        IndiceOrdenado.reconstruirPorGrupo(porNome, porPerfil, id -> usuarios.get(id).getPerfil());
+    }
+
+    /**
+     * Reserva atomicamente a chave de um índice único para um usuário
+     * @param indice Índice a ser alterado
+     * @param chave Chave normalizada
+     * @param id ID do usuário que está sendo gravado
+     * @return boolean indicando se a chave está livre ou já pertence ao próprio usuário
+     *         (sempre true enquanto a unicidade estiver adiada)
+     */
+    private boolean reservar(ConcurrentMap<String, String> indice, String chave, String id) {
+        if (unicidadeAdiada) {
+            return true;
+        }
+        String dono = indice.putIfAbsent(chave, id);
+        return dono == null || dono.equals(id);
     }
 
     /**
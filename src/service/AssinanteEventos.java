@@ -0,0 +1,35 @@
+package service;
+
+import java.util.List;
+
+/**
+ * Assinante dos eventos de domínio publicados no {@link BarramentoEventos}.
+ *
+ * Cada assinante é chamado sempre pela mesma thread, própria dele, com os eventos
+ * em ordem de publicação, agrupados no lote de tudo o que foi publicado desde a
+ * chamada anterior. Um assinante lento atrasa apenas a si mesmo, até o limite da
+ * capacidade do barramento.
+ *
+ * Se processar lançar qualquer Throwable, inclusive um {@link Error}, o lote inteiro
+ * é dado como processado e não é reentregue: os eventos vão para o
+ * {@link TratadorFalhasEventos} informado na assinatura (o padrão apenas escreve o
+ * erro em System.err) e a falha é contada em
+ * {@link BarramentoEventos.Assinatura#falhas()}. Quem não pode perder eventos deve
+ * tratar os erros de cada evento dentro de processar ou guardar o lote no tratador.
+ *
+ * Com a política {@link BarramentoEventos.PoliticaCheio#BLOQUEAR}, a padrão, o
+ * assinante não deve publicar no mesmo barramento de dentro de processar: quando o
+ * vetor enche, a publicação espera que o próprio assinante libere posições, e a
+ * thread fica parada para sempre. Para reagir a um evento com outro, publique em
+ * outra thread ou use um barramento com a política DESCARTAR.
+ */
+@FunctionalInterface
+public interface AssinanteEventos {
+
+    /**
+     * Processa um lote de eventos
+     * @param eventos Eventos em ordem de publicação; a lista é reaproveitada e só
+     *                vale durante a chamada
+     */
+    void processar(List<EventoDominio> eventos);
+}
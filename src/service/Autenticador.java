@@ -0,0 +1,254 @@
+package service;
+
+import model.HashSenha;
+import model.Usuario;
+import repository.UsuarioRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Autenticação de usuários com senhas armazenadas em hash PBKDF2.
+ *
+ * Conferir um hash é propositalmente caro. Para que uma onda de logins não ocupe
+ * todos os processadores, as conferências rodam em um executor de tamanho fixo com
+ * fila limitada: com a fila cheia, a autenticação é recusada na hora em vez de
+ * acumular trabalho.
+ *
+ * As conferências bem-sucedidas ficam em um cache limitado e com validade, de modo
+ * que autenticações repetidas não refazem a derivação. O cache guarda apenas um HMAC
+ * da senha com uma chave aleatória que só existe em memória, e cada entrada vale
+ * apenas enquanto o hash armazenado do usuário for o mesmo da conferência.
+ */
+public class Autenticador {
+    // Quantidade máxima de usuários no cache de conferências
+    public static final int CAPACIDADE_CACHE_PADRAO = 10_000;
+
+    // Tempo durante o qual uma conferência bem-sucedida é reaproveitada
+    public static final long VALIDADE_CACHE_PADRAO_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    // Conferências aguardando na fila, por thread do executor
+    private static final int FILA_POR_THREAD = 32;
+
+    private static final String ALGORITMO_CACHE = "HmacSHA256";
+
+    private UsuarioRepository usuarioRepository;
+    private int iteracoes;
+    private long validadeNanos;
+
+    // Iterações acima das quais um hash armazenado é recusado sem ser derivado
+    private int iteracoesMaximas;
+
+    // Cache de conferências por ID do usuário, do menos para o mais recentemente usado
+    private Map<String, Conferencia> cache;
+
+    // HMAC da senha com a chave do cache, um por thread
+    private ThreadLocal<Mac> resumos;
+
+    // Executor das conferências de hash
+    private ThreadPoolExecutor conferencias;
+
+    // Construtor com a configuração padrão: uma thread por processador
+    public Autenticador(UsuarioRepository usuarioRepository) {
+        this(usuarioRepository, HashSenha.ITERACOES_PADRAO, Runtime.getRuntime().availableProcessors(),
+                CAPACIDADE_CACHE_PADRAO, VALIDADE_CACHE_PADRAO_MILLIS);
+    }
+
+    /**
+     * Cria o autenticador
+     * @param usuarioRepository Repositório de usuários
+     * @param iteracoes Iterações do PBKDF2 para as senhas novas ou refeitas; hashes
+     *                  armazenados com mais de {@link HashSenha#FATOR_ITERACOES_MAXIMAS}
+     *                  vezes esse valor são recusados
+     * @param threads Quantidade máxima de conferências simultâneas
+     * @param capacidadeCache Quantidade máxima de usuários no cache (0 desativa o cache)
+     * @param validadeCacheMillis Tempo durante o qual uma conferência é reaproveitada
+     */
+    public Autenticador(UsuarioRepository usuarioRepository, int iteracoes, int threads,
+                        int capacidadeCache, long validadeCacheMillis) {
+        if (iteracoes < 1) {
+            throw new IllegalArgumentException("Quantidade de iterações deve ser de pelo menos 1");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Quantidade de threads deve ser de pelo menos 1");
+        }
+        this.usuarioRepository = usuarioRepository;
+        this.iteracoes = iteracoes;
+        this.iteracoesMaximas = HashSenha.iteracoesMaximas(iteracoes);
+        this.validadeNanos = TimeUnit.MILLISECONDS.toNanos(validadeCacheMillis);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Conferencia> maisAntiga) {
+                return size() > capacidadeCache;
+            }
+        };
+
+        byte[] chave = new byte[32];
+        new SecureRandom().nextBytes(chave);
+        SecretKeySpec chaveCache = new SecretKeySpec(chave, ALGORITMO_CACHE);
+        this.resumos = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITMO_CACHE);
+                mac.init(chaveCache);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC indisponível", e);
+            }
+        });
+
+        AtomicInteger numero = new AtomicInteger();
+        this.conferencias = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * FILA_POR_THREAD), tarefa -> {
+                    Thread thread = new Thread(tarefa, "autenticacao-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.conferencias.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gera o hash de uma senha digitada. O texto é sempre tratado como senha, mesmo
+     * que tenha o formato de um hash.
+     * @param senha Senha em texto puro
+     * @return Senha a ser armazenada
+     */
+    public String protegerSenha(String senha) {
+        return HashSenha.gerar(senha, iteracoes);
+    }
+
+    /**
+     * Confere uma senha que já chega em hash, como nas importações de dados de
+     * outra instalação
+     * @param hash Senha em hash PBKDF2
+     * @return O próprio hash, a ser armazenado como está
+     * @throws IllegalArgumentException se o hash for malformado ou tiver iterações
+     *         acima do limite aceito na autenticação
+     */
+    public String aceitarHash(String hash) {
+        if (!HashSenha.hashValido(hash, iteracoesMaximas)) {
+            throw new IllegalArgumentException("Senha em hash inválida");
+        }
+        return hash;
+    }
+
+    /**
+     * Autentica um usuário. Senhas antigas, em texto puro ou com menos iterações
+     * que as configuradas, são refeitas na primeira autenticação bem-sucedida.
+     * @param login Login do usuário
+     * @param senha Senha digitada
+     * @return Optional com o usuário autenticado
+     * @throws IllegalStateException se houver conferências demais em andamento
+     */
+    public Optional<Usuario> autenticar(String login, String senha) {
+        if (login == null || senha == null) {
+            return Optional.empty();
+        }
+        Optional<Usuario> encontrado = usuarioRepository.buscarPorLogin(login);
+        if (encontrado.isEmpty()) {
+            return encontrado;
+        }
+
+        Usuario usuario = encontrado.get();
+        String armazenada = usuario.getSenha();
+        byte[] resumo = resumir(senha);
+        if (emCache(usuario.getId(), armazenada, resumo)) {
+            return encontrado;
+        }
+
+        Future<String> conferencia;
+        try {
+            conferencia = conferencias.submit(() -> conferir(usuario, armazenada, senha));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Muitas autenticações em andamento, tente novamente");
+        }
+        String conferida = aguardar(conferencia);
+        if (conferida == null) {
+            return Optional.empty();
+        }
+        guardar(usuario.getId(), conferida, resumo);
+        return encontrado;
+    }
+
+    /**
+     * Confere a senha e, se necessário, refaz o hash armazenado
+     * @return Hash armazenado ao final da conferência, ou null se a senha estiver errada
+     */
+    private String conferir(Usuario usuario, String armazenada, String senha) {
+        if (!HashSenha.confere(armazenada, senha, iteracoesMaximas)) {
+            return null;
+        }
+        if (HashSenha.precisaAtualizar(armazenada, iteracoes)) {
+            String nova = HashSenha.gerar(senha, iteracoes);
+            if (usuarioRepository.substituirSenha(usuario.getId(), armazenada, nova)) {
+                return nova;
+            }
+        }
+        return armazenada;
+    }
+
+    private static String aguardar(Future<String> conferencia) {
+        try {
+            return conferencia.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Autenticação interrompida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Falha na autenticação", e.getCause());
+        }
+    }
+
+    private byte[] resumir(String senha) {
+        return resumos.get().doFinal(senha.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean emCache(String id, String armazenada, byte[] resumo) {
+        Conferencia conferencia;
+        synchronized (cache) {
+            conferencia = cache.get(id);
+        }
+        return conferencia != null
+                && conferencia.armazenada.equals(armazenada)
+                && System.nanoTime() - conferencia.instante < validadeNanos
+                && MessageDigest.isEqual(conferencia.resumo, resumo);
+    }
+
+    private void guardar(String id, String armazenada, byte[] resumo) {
+        Conferencia conferencia = new Conferencia(armazenada, resumo, System.nanoTime());
+        synchronized (cache) {
+            cache.put(id, conferencia);
+        }
+    }
+
+    /**
+     * Conferência bem-sucedida: hash armazenado na ocasião, HMAC da senha digitada
+     * e momento da conferência
+     */
+    private static final class Conferencia {
+        private final String armazenada;
+        private final byte[] resumo;
+        private final long instante;
+
+        private Conferencia(String armazenada, byte[] resumo, long instante) {
+            this.armazenada = armazenada;
+            this.resumo = resumo;
+            this.instante = instante;
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Barramento dos eventos de domínio publicados pelos serviços, no estilo do
+ * disruptor: um vetor circular de capacidade fixa, sem travas, em que os
+ * publicadores reservam posições com compare-and-set sobre uma sequência e cada
+ * assinante percorre o vetor na sua própria thread, no seu próprio ritmo.
+ *
+ * Uma posição só é reutilizada depois que todos os assinantes passaram por ela.
+ * Quando o vetor está cheio, a {@link PoliticaCheio} decide se o publicador espera
+ * (contrapressão) ou se o evento é descartado. Cada assinante recebe de uma vez
+ * todos os eventos publicados desde a chamada anterior, de modo que o custo de
+ * acordar a thread se divide por lote quando a carga aumenta.
+ *
+ * Sem assinantes, os eventos publicados são apenas sobrescritos. Um lote em que o
+ * assinante lança exceção não é reentregue; vai para o {@link TratadorFalhasEventos}
+ * da assinatura.
+ */
+public class BarramentoEventos implements AutoCloseable {
+    // Capacidade usada pela aplicação
+    public static final int CAPACIDADE_PADRAO = 8_192;
+
+    // Voltas de espera ativa antes de o assinante dormir
+    private static final int ESPERAS_ATIVAS = 200;
+
+    // Tempo máximo de sono de um assinante ou de um publicador à espera de espaço
+    private static final long ESPERA_MAXIMA_NANOS = 1_000_000;
+
+    // Tratador das assinaturas que não informam um: apenas registra o erro
+    private static final TratadorFalhasEventos TRATADOR_PADRAO = (assinante, eventos, erro) ->
+            System.err.println("Erro no assinante de eventos " + assinante + " (" + eventos.size()
+                    + " eventos descartados): " + erro);
+
+    /**
+     * O que fazer com um evento publicado quando o vetor está cheio
+     */
+    public enum PoliticaCheio {
+        // O publicador espera o assinante mais lento liberar uma posição. Um assinante
+        // que publica no próprio barramento de dentro de processar fica parado para
+        // sempre quando o vetor enche, pois espera por si mesmo
+        BLOQUEAR,
+        // O evento é descartado e contado; o publicador não espera
+        DESCARTAR
+    }
+
+    private final PoliticaCheio politica;
+
+    // Vetor circular; cada posição é lida só depois de a sua volta ser publicada
+    private final EventoDominio[] eventos;
+
+    // Volta (sequência / capacidade) do evento publicado em cada posição
+    private final AtomicIntegerArray voltas;
+
+    private final int mascara;
+    private final int deslocamento;
+
+    // Última sequência reservada por um publicador
+    private final AtomicLong cursor = new AtomicLong(-1);
+
+    // Menor sequência processada por todos os assinantes, na última vez em que foi calculada
+    private volatile long minimoProcessado = -1;
+
+    // Assinantes ativos (cópia na escrita, alterada sob a trava do objeto)
+    private volatile Assinatura[] assinaturas = new Assinatura[0];
+
+    private final LongAdder descartados = new LongAdder();
+
+    private volatile boolean encerrado;
+
+    // Construtor
+    public BarramentoEventos() {
+        this(CAPACIDADE_PADRAO, PoliticaCheio.BLOQUEAR);
+    }
+
+    /**
+     * Cria o barramento
+     * @param capacidade Quantidade de eventos que cabem no vetor (potência de 2)
+     * @param politica O que fazer quando o vetor está cheio
+     * @throws IllegalArgumentException se a capacidade não for uma potência de 2 positiva
+     */
+    public BarramentoEventos(int capacidade, PoliticaCheio politica) {
+        if (capacidade <= 0 || Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("Capacidade do barramento deve ser uma potência de 2");
+        }
+        if (politica == null) {
+            throw new IllegalArgumentException("Política do barramento é obrigatória");
+        }
+        this.politica = politica;
+        this.eventos = new EventoDominio[capacidade];
+        this.voltas = new AtomicIntegerArray(capacidade);
+        for (int i = 0; i < capacidade; i++) {
+            voltas.set(i, -1);
+        }
+        this.mascara = capacidade - 1;
+        this.deslocamento = Integer.numberOfTrailingZeros(capacidade);
+    }
+
+    /**
+     * Publica um evento para todos os assinantes
+     * @param evento Evento a ser publicado
+     * @return true se o evento foi publicado; false se foi descartado por falta de
+     *         espaço (política DESCARTAR) ou porque o barramento foi encerrado
+     */
+    public boolean publicar(EventoDominio evento) {
+        long sequencia = reservar();
+        if (sequencia < 0) {
+            descartados.increment();
+            return false;
+        }
+        int posicao = (int) sequencia & mascara;
+        eventos[posicao] = evento;
+        voltas.set(posicao, (int) (sequencia >>> deslocamento));
+
+        // A escrita da volta e a leitura do indicador são voláteis: um assinante que
+        // decidiu dormir depois de não ver o evento é sempre visto aqui
+        for (Assinatura assinatura : assinaturas) {
+            if (assinatura.dormindo) {
+                LockSupport.unpark(assinatura.thread);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reserva a próxima sequência, esperando ou desistindo se o vetor estiver cheio
+     * @return Sequência reservada, ou -1 se o evento deve ser descartado
+     */
+    private long reservar() {
+        int esperas = 0;
+        while (!encerrado) {
+            long atual = cursor.get();
+            long proxima = atual + 1;
+
+            // A posição da próxima sequência guarda a sequência (proxima - capacidade),
+            // que precisa já ter sido processada por todos os assinantes
+            long reutilizada = proxima - eventos.length;
+            if (reutilizada > minimoProcessado) {
+                long minimo = minimoProcessado(atual);
+                minimoProcessado = minimo;
+                if (reutilizada > minimo) {
+                    if (politica == PoliticaCheio.DESCARTAR) {
+                        return -1;
+                    }
+                    esperar(esperas++);
+                    continue;
+                }
+            }
+            if (cursor.compareAndSet(atual, proxima)) {
+                return proxima;
+            }
+        }
+        return -1;
+    }
+
+    // Menor sequência processada pelos assinantes, ou a atual se não houver assinantes
+    private long minimoProcessado(long atual) {
+        long minimo = atual;
+        for (Assinatura assinatura : assinaturas) {
+            minimo = Math.min(minimo, assinatura.processada.get());
+        }
+        return minimo;
+    }
+
+    /**
+     * Passa a entregar a um assinante os eventos publicados a partir de agora. Os
+     * lotes em que o assinante falhar são apenas registrados em System.err.
+     * @param nome Nome do assinante, usado no nome da sua thread
+     * @param assinante Assinante chamado com cada lote de eventos
+     * @return Assinatura, com os contadores do assinante e o cancelamento
+     * @throws IllegalStateException se o barramento já foi encerrado
+     */
+    public Assinatura assinar(String nome, AssinanteEventos assinante) {
+        return assinar(nome, assinante, TRATADOR_PADRAO);
+    }
+
+    /**
+     * Passa a entregar a um assinante os eventos publicados a partir de agora
+     * @param nome Nome do assinante, usado no nome da sua thread
+     * @param assinante Assinante chamado com cada lote de eventos
+     * @param tratadorFalhas Recebe os lotes em que o assinante lançar exceção
+     * @return Assinatura, com os contadores do assinante e o cancelamento
+     * @throws IllegalArgumentException se o tratador for nulo
+     * @throws IllegalStateException se o barramento já foi encerrado
+     */
+    public synchronized Assinatura assinar(String nome, AssinanteEventos assinante,
+                                           TratadorFalhasEventos tratadorFalhas) {
+        if (tratadorFalhas == null) {
+            throw new IllegalArgumentException("Tratador de falhas é obrigatório");
+        }
+        if (encerrado) {
+            throw new IllegalStateException("Barramento de eventos encerrado");
+        }
+        Assinatura assinatura = new Assinatura(nome, assinante, tratadorFalhas, cursor.get());
+        Assinatura[] novas = Arrays.copyOf(assinaturas, assinaturas.length + 1);
+        novas[novas.length - 1] = assinatura;
+        assinaturas = novas;
+
+        // Um publicador que calculou o mínimo sem a nova assinatura leu o cursor antes
+        // desta leitura, de modo que começar nela não deixa nenhuma posição pendente
+        // ser sobrescrita
+        assinatura.inicio = cursor.get();
+        assinatura.processada.set(assinatura.inicio);
+        assinatura.thread.start();
+        return assinatura;
+    }
+
+    private synchronized void retirar(Assinatura assinatura) {
+        List<Assinatura> restantes = new ArrayList<>(Arrays.asList(assinaturas));
+        restantes.remove(assinatura);
+        assinaturas = restantes.toArray(new Assinatura[0]);
+    }
+
+    /**
+     * Quantidade de eventos descartados por falta de espaço ou após o encerramento
+     * @return Total de eventos descartados
+     */
+    public long descartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Quantidade de eventos publicados
+     * @return Total de sequências reservadas desde a criação
+     */
+    public long publicados() {
+        return cursor.get() + 1;
+    }
+
+    public int capacidade() {
+        return eventos.length;
+    }
+
+    public PoliticaCheio getPolitica() {
+        return politica;
+    }
+
+    /**
+     * Recusa novas publicações e espera cada assinante processar o que já foi publicado
+     */
+    @Override
+    public void close() {
+        Assinatura[] ativas;
+        synchronized (this) {
+            encerrado = true;
+            ativas = assinaturas;
+        }
+        for (Assinatura assinatura : ativas) {
+            LockSupport.unpark(assinatura.thread);
+        }
+        for (Assinatura assinatura : ativas) {
+            try {
+                assinatura.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void esperar(int esperas) {
+        if (esperas < ESPERAS_ATIVAS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(Math.min(ESPERA_MAXIMA_NANOS, 1_000L << Math.min(esperas - ESPERAS_ATIVAS, 10)));
+        }
+    }
+
+    /**
+     * Assinante registrado, com a sua thread e a sua posição no vetor
+     */
+    public final class Assinatura {
+        private final String nome;
+        private final AssinanteEventos assinante;
+        private final TratadorFalhasEventos tratadorFalhas;
+        private final Thread thread;
+
+        // Última sequência processada pelo assinante e a anterior à primeira entregue
+        private final AtomicLong processada;
+        private long inicio;
+
+        // Se a thread está (ou está prestes a ficar) parada à espera de eventos
+        private volatile boolean dormindo;
+        private volatile boolean cancelada;
+
+        private final LongAdder lotes = new LongAdder();
+        private final LongAdder falhas = new LongAdder();
+
+        private Assinatura(String nome, AssinanteEventos assinante, TratadorFalhasEventos tratadorFalhas,
+                           long inicio) {
+            this.nome = nome;
+            this.assinante = assinante;
+            this.tratadorFalhas = tratadorFalhas;
+            this.processada = new AtomicLong(inicio);
+            this.inicio = inicio;
+            this.thread = new Thread(this::consumir, "eventos-" + nome);
+            this.thread.setDaemon(true);
+        }
+
+        private void consumir() {
+            try {
+                entregar();
+            } finally {
+                // Mesmo se a thread morrer, a assinatura sai do cálculo do mínimo e os
+                // publicadores não ficam à espera de posições que ninguém vai liberar
+                retirar(this);
+            }
+        }
+
+        private void entregar() {
+            List<EventoDominio> lote = new ArrayList<>();
+            long proxima = processada.get() + 1;
+            int esperas = 0;
+            while (!cancelada) {
+                long disponivel = ultimaPublicada(proxima);
+                if (disponivel >= proxima) {
+                    for (long sequencia = proxima; sequencia <= disponivel; sequencia++) {
+                        lote.add(eventos[(int) sequencia & mascara]);
+                    }
+                    try {
+                        assinante.processar(lote);
+                    } catch (Throwable e) {
+                        // Inclui Error: um assinante com defeito perde o lote, mas não a thread
+                        falhas.increment();
+                        tratarFalha(lote, e);
+                    }
+                    lote.clear();
+                    lotes.increment();
+                    processada.set(disponivel);
+                    proxima = disponivel + 1;
+                    esperas = 0;
+                } else if (encerrado && proxima > cursor.get()) {
+                    // Encerrado: sai depois de processar tudo o que foi reservado até aqui
+                    break;
+                } else if (esperas < ESPERAS_ATIVAS) {
+                    esperas++;
+                    Thread.onSpinWait();
+                } else {
+                    dormindo = true;
+                    if (ultimaPublicada(proxima) < proxima && !cancelada && !encerrado) {
+                        LockSupport.parkNanos(this, ESPERA_MAXIMA_NANOS);
+                    }
+                    dormindo = false;
+                }
+            }
+        }
+
+        // Entrega ao tratador uma cópia do lote, que continua sendo reaproveitado aqui
+        private void tratarFalha(List<EventoDominio> lote, Throwable erro) {
+            try {
+                tratadorFalhas.tratar(nome, List.copyOf(lote), erro);
+            } catch (Throwable e) {
+                // Uma falha do tratador não pode parar a entrega dos próximos lotes
+                e.addSuppressed(erro);
+                System.err.println("Erro no tratador de falhas do assinante de eventos " + nome + ": " + e);
+            }
+        }
+
+        // Última sequência publicada em sequência a partir de "desde", ou desde - 1
+        private long ultimaPublicada(long desde) {
+            long reservada = cursor.get();
+            long sequencia = desde;
+            while (sequencia <= reservada
+                    && voltas.get((int) sequencia & mascara) == (int) (sequencia >>> deslocamento)) {
+                sequencia++;
+            }
+            return sequencia - 1;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        /**
+         * Eventos publicados que o assinante ainda não processou
+         * @return Distância entre a última sequência reservada e a última processada
+         */
+        public long atraso() {
+            return Math.max(0, cursor.get() - processada.get());
+        }
+
+        /**
+         * Quantidade de eventos processados pelo assinante
+         * @return Total de eventos entregues desde a assinatura
+         */
+        public long processados() {
+            return processada.get() - inicio;
+        }
+
+        public long lotes() {
+            return lotes.sum();
+        }
+
+        /**
+         * Quantidade de lotes em que o assinante lançou exceção
+         * @return Total de lotes com falha (os eventos do lote não são reentregues;
+         *         vão para o tratador de falhas da assinatura)
+         */
+        public long falhas() {
+            return falhas.sum();
+        }
+
+        /**
+         * Para de entregar eventos ao assinante, depois do lote em andamento
+         */
+        public void cancelar() {
+            cancelada = true;
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package service;
+
+import repository.EquipeRepository;
+import repository.IndiceTextual;
+import repository.ProjetoRepository;
+import repository.ResultadoBusca;
+import repository.UsuarioRepository;
+
+import java.util.List;
+
+/**
+ * Serviço de busca textual em projetos, equipes e usuários. O índice é mantido a
+ * cada alteração dos repositórios, de modo que as buscas não percorrem os dados.
+ */
+public class BuscaService {
+    // Quantidade máxima de resultados de uma busca
+    public static final int LIMITE_MAXIMO = 1_000;
+
+    // Índice mantido a partir dos repositórios
+    private IndiceTextual indice;
+
+    // Métricas das buscas
+    private MetricaOperacao metricaBusca;
+
+    // Construtor: passa a acompanhar os repositórios a partir do estado atual
+    public BuscaService(UsuarioRepository usuarioRepository, ProjetoRepository projetoRepository,
+                        EquipeRepository equipeRepository) {
+        this(IndiceTextual.acompanhar(usuarioRepository, projetoRepository, equipeRepository), Metricas.padrao());
+    }
+
+    // Construtor com índice já registrado nos repositórios e registro de métricas informado
+    public BuscaService(IndiceTextual indice, Metricas metricas) {
+        this.indice = indice;
+        this.metricaBusca = metricas.operacao("BuscaService.buscar");
+    }
+
+    /**
+     * Busca projetos, equipes e usuários pelo nome e pela descrição (ou cargo).
+     * Acentos e maiúsculas são ignorados e termos terminados em "*" valem como prefixo.
+     * @param consulta Termos procurados; todos precisam estar presentes
+     * @param tipo Tipo de entidade procurado, ou null para todos
+     * @param limite Quantidade máxima de resultados
+     * @return Resultados do mais para o menos relevante
+     * @throws IllegalArgumentException se a consulta estiver vazia ou o limite for inválido
+     */
+    public List<ResultadoBusca> buscar(String consulta, ResultadoBusca.Tipo tipo, int limite) {
+        long inicio = metricaBusca.iniciar();
+        try {
+            if (consulta == null || consulta.trim().isEmpty()) {
+                throw new IllegalArgumentException("Consulta de busca é obrigatória");
+            }
+            if (limite <= 0 || limite > LIMITE_MAXIMO) {
+                throw new IllegalArgumentException("Limite de resultados deve estar entre 1 e " + LIMITE_MAXIMO);
+            }
+            return indice.buscar(consulta, tipo, limite);
+        } catch (RuntimeException e) {
+            metricaBusca.falhou(e);
+            throw e;
+        } finally {
+            metricaBusca.concluir(inicio);
+        }
+    }
+}
@@ -2,22 +2,75 @@ package service;
 
 import model.Equipe;
 import model.Usuario;
+import repository.ConflitoVersaoException;
 import repository.EquipeRepository;
+import repository.FormatoExportacao;
+import repository.Pagina;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
 
 
 public class EquipeService {
     // Repositório de equipes
     private EquipeRepository equipeRepository;
 
+    // Barramento em que as mudanças de membros e remoções são publicadas (null se não publica)
+    private BarramentoEventos eventos;
+
+    // Métricas das operações
+    private MetricaOperacao metricaCadastro;
+    private MetricaOperacao metricaAdicaoMembro;
+    private MetricaOperacao metricaRemocaoMembro;
+    private MetricaOperacao metricaAtualizacao;
+    private MetricaOperacao metricaRemocao;
+
     // Construtor
     public EquipeService() {
-        this.equipeRepository = new EquipeRepository();
+        this(new EquipeRepository());
+    }
+
+    // Construtor com repositório informado (por exemplo, um repositório persistente)
+    public EquipeService(EquipeRepository equipeRepository) {
+        this(equipeRepository, Metricas.padrao());
+    }
+
+    // Construtor com registro de métricas informado
+    public EquipeService(EquipeRepository equipeRepository, Metricas metricas) {
+        this(equipeRepository, metricas, null);
+    }
+
+    // Construtor com barramento de eventos informado (null para não publicar eventos)
+    public EquipeService(EquipeRepository equipeRepository, Metricas metricas, BarramentoEventos eventos) {
+        this.equipeRepository = equipeRepository;
+        this.eventos = eventos;
+        this.metricaCadastro = metricas.operacao("EquipeService.cadastrarEquipe");
+        this.metricaAdicaoMembro = metricas.operacao("EquipeService.adicionarMembroNaEquipe");
+        this.metricaRemocaoMembro = metricas.operacao("EquipeService.removerMembroDaEquipe");
+        this.metricaAtualizacao = metricas.operacao("EquipeService.atualizarEquipe");
+        this.metricaRemocao = metricas.operacao("EquipeService.removerEquipe");
     }
 
     public boolean cadastrarEquipe(Equipe equipe) {
+        long inicio = metricaCadastro.iniciar();
+        try {
+            validarNovaEquipe(equipe);
+
+            // Adiciona equipe
+            return equipeRepository.adicionar(equipe);
+        } catch (RuntimeException e) {
+            metricaCadastro.falhou(e);
+            throw e;
+        } finally {
+            metricaCadastro.concluir(inicio);
+        }
+    }
+
+    void validarNovaEquipe(Equipe equipe) {
         // Validações
         validarDadosEquipe(equipe);
 
@@ -25,9 +78,10 @@ public class EquipeService {
         if (equipeRepository.buscarPorNome(equipe.getNome()).isPresent()) {
             throw new IllegalArgumentException("Equipe com este nome já existe");
         }
+    }
 
-        // Adiciona equipe
-        return equipeRepository.adicionar(equipe);
+    boolean[] cadastrarValidadas(List<Equipe> equipes) {
+        return equipeRepository.adicionarTodos(equipes);
     }
 
     private void validarDadosEquipe(Equipe equipe) {
@@ -40,55 +94,84 @@ public class EquipeService {
         if (equipe.getDescricao() == null || equipe.getDescricao().trim().length() < 10) {
             throw new IllegalArgumentException("Descrição da equipe muito curta");
         }
+
+        // Validação de capacidade
+        if (equipe.getCapacidadeMaxima() < equipe.quantidadeMembros()) {
+            throw new IllegalArgumentException("Capacidade da equipe menor que a quantidade de membros");
+        }
     }
 
     public boolean adicionarMembroNaEquipe(String nomeEquipe, Usuario membro) {
-        Optional<Equipe> equipeOptional = equipeRepository.buscarPorNome(nomeEquipe);
+        long inicio = metricaAdicaoMembro.iniciar();
+        try {
+            Optional<Equipe> equipeOptional = equipeRepository.buscarPorNome(nomeEquipe);
 
-        if (equipeOptional.isPresent()) {
-            Equipe equipe = equipeOptional.get();
+            if (equipeOptional.isPresent()) {
+                Equipe equipe = equipeOptional.get();
 
-            // Verifica se o membro já está na equipe
-            if (equipe.contemMembro(membro)) {
-                throw new IllegalArgumentException("Usuário já é membro da equipe");
-            }
+                // Verifica se o membro já está na equipe
+                if (equipe.contemMembro(membro)) {
+                    throw new IllegalArgumentException("Usuário já é membro da equipe");
+                }
 
-            // Verifica limite de membros
-            if (!equipeRepository.podAdicionarMembro(equipe, membro)) {
-                throw new IllegalArgumentException("Limite de membros atingido");
+                // Adiciona membro; o repositório refaz as verificações de forma atômica
+                if (!equipeRepository.adicionarMembroNaEquipe(nomeEquipe, membro)) {
+                    if (equipe.contemMembro(membro)) {
+                        throw new IllegalArgumentException("Usuário já é membro da equipe");
+                    }
+                    throw new IllegalArgumentException("Limite de membros atingido");
+                }
+                publicar(EventoDominio.membroAdicionado(equipe, membro));
+                return true;
             }
 
-            // Adiciona membro
-            equipe.adicionarMembro(membro);
-            return equipeRepository.atualizar(equipe);
+            throw new IllegalArgumentException("Equipe não encontrada");
+        } catch (RuntimeException e) {
+            metricaAdicaoMembro.falhou(e);
+            throw e;
+        } finally {
+            metricaAdicaoMembro.concluir(inicio);
         }
-
-        throw new IllegalArgumentException("Equipe não encontrada");
     }
 
     public boolean removerMembroDaEquipe(String nomeEquipe, Usuario membro) {
-        Optional<Equipe> equipeOptional = equipeRepository.buscarPorNome(nomeEquipe);
-
-        if (equipeOptional.isPresent()) {
-            Equipe equipe = equipeOptional.get();
+        long inicio = metricaRemocaoMembro.iniciar();
+        try {
+            Optional<Equipe> equipeOptional = equipeRepository.buscarPorNome(nomeEquipe);
 
-            // Verifica se o membro está na equipe
-            if (!equipe.contemMembro(membro)) {
-                throw new IllegalArgumentException("Usuário não é membro da equipe");
+            if (equipeOptional.isPresent()) {
+                // Remove membro; a verificação de participação é feita sob a trava da equipe
+                if (!equipeRepository.removerMembroDaEquipe(nomeEquipe, membro)) {
+                    throw new IllegalArgumentException("Usuário não é membro da equipe");
+                }
+                publicar(EventoDominio.membroRemovido(equipeOptional.get(), membro));
+                return true;
             }
 
-            // Remove membro
-            equipe.removerMembro(membro);
-            return equipeRepository.atualizar(equipe);
+            throw new IllegalArgumentException("Equipe não encontrada");
+        } catch (RuntimeException e) {
+            metricaRemocaoMembro.falhou(e);
+            throw e;
+        } finally {
+            metricaRemocaoMembro.concluir(inicio);
         }
-
-        throw new IllegalArgumentException("Equipe não encontrada");
     }
 
     public List<Equipe> listarEquipesPorMembro(Usuario membro) {
         return equipeRepository.listarPorMembro(membro);
     }
 
+    /**
+     * Exportar equipes para um canal, em CSV ou JSON Lines, sem carregar a lista em memória
+     * @param destino Canal de destino (não é fechado)
+     * @param formato Formato da saída
+     * @return Quantidade de equipes exportadas
+     * @throws IOException em caso de erro de escrita
+     */
+    public long exportarEquipes(WritableByteChannel destino, FormatoExportacao formato) throws IOException {
+        return equipeRepository.exportar(destino, formato);
+    }
+
     public List<Equipe> listarTodasEquipes() {
         return equipeRepository.listarTodas();
     }
@@ -97,18 +180,122 @@ public class EquipeService {
         return equipeRepository.listarPorTamanho();
     }
 
+    /**
+     * Lista as maiores equipes
+     * @param quantidade Quantidade máxima de equipes
+     * @return Até quantidade equipes, das maiores para as menores
+     */
+    public List<Equipe> listarMaioresEquipes(int quantidade) {
+        return equipeRepository.listarMaiores(quantidade);
+    }
+
+    /**
+     * Posição de uma equipe na ordem por quantidade de membros
+     * @param nome Nome da equipe
+     * @return Posição a partir de 1, ou vazio se a equipe não existir
+     */
+    public OptionalInt posicaoEquipePorTamanho(String nome) {
+        return equipeRepository.posicaoPorTamanho(nome);
+    }
+
+    /**
+     * Página de equipes em ordem alfabética de nome
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de itens na página
+     * @return Página com os itens e o cursor da próxima
+     */
+    public Pagina<Equipe> paginarEquipesPorNome(String cursor, int tamanho) {
+        return equipeRepository.paginarPorNome(cursor, tamanho);
+    }
+
+    /**
+     * Página de equipes ordenadas por quantidade de membros, das maiores para as menores
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de itens na página
+     * @return Página com os itens e o cursor da próxima
+     */
+    public Pagina<Equipe> paginarEquipesPorTamanho(String cursor, int tamanho) {
+        return equipeRepository.paginarPorTamanho(cursor, tamanho);
+    }
+
     public int quantidadeEquipes() {
         return equipeRepository.quantidadeEquipes();
     }
 
+    /**
+     * Atualizar equipe, desde que ela não tenha sido alterada depois de lida
+     * @param equipe Equipe a ser atualizada, com a versão com que foi lida
+     * @return boolean indicando sucesso na atualização
+     * @throws ConflitoVersaoException se outra operação gravou a equipe depois da leitura
+     */
     public boolean atualizarEquipe(Equipe equipe) {
-        // Validações
-        validarDadosEquipe(equipe);
+        long inicio = metricaAtualizacao.iniciar();
+        try {
+            // Validações
+            validarDadosEquipe(equipe);
 
-        return equipeRepository.atualizar(equipe);
+            return equipeRepository.atualizar(equipe, equipe.getVersao());
+        } catch (RuntimeException e) {
+            metricaAtualizacao.falhou(e);
+            throw e;
+        } finally {
+            metricaAtualizacao.concluir(inicio);
+        }
+    }
+
+    /**
+     * Atualizar equipe aplicando uma alteração a uma cópia da versão gravada. Se outra
+     * operação gravar a equipe antes (inclusive a entrada ou saída de um membro), a
+     * alteração é reaplicada sobre a nova versão.
+     * @param nomeEquipe Nome da equipe
+     * @param alteracao Alteração da cópia; pode ser chamada mais de uma vez
+     * @return boolean indicando sucesso na atualização (false se a equipe não existe
+     *         ou se o novo nome pertence a outra equipe)
+     * @throws IllegalArgumentException em caso de dados inválidos
+     * @throws ConflitoVersaoException se o conflito persistir em todas as tentativas
+     */
+    public boolean atualizarEquipe(String nomeEquipe, Consumer<Equipe> alteracao) {
+        long inicio = metricaAtualizacao.iniciar();
+        try {
+            return Retentativas.repetirEmConflito(Retentativas.TENTATIVAS_PADRAO, () -> {
+                Optional<Equipe> gravada = equipeRepository.buscarPorNome(nomeEquipe);
+                if (gravada.isEmpty()) {
+                    return false;
+                }
+                long versao = gravada.get().getVersao();
+                Equipe equipe = new Equipe(gravada.get());
+                alteracao.accept(equipe);
+                validarDadosEquipe(equipe);
+                return equipeRepository.atualizar(equipe, versao);
+            });
+        } catch (RuntimeException e) {
+            metricaAtualizacao.falhou(e);
+            throw e;
+        } finally {
+            metricaAtualizacao.concluir(inicio);
+        }
     }
 
     public boolean removerEquipe(String nomeEquipe) {
-        return equipeRepository.remover(nomeEquipe);
+        long inicio = metricaRemocao.iniciar();
+        try {
+            Optional<Equipe> equipe = eventos == null ? Optional.empty() : equipeRepository.buscarPorNome(nomeEquipe);
+            if (!equipeRepository.remover(nomeEquipe)) {
+                return false;
+            }
+            equipe.ifPresent(removida -> publicar(EventoDominio.equipeRemovida(removida)));
+            return true;
+        } catch (RuntimeException e) {
+            metricaRemocao.falhou(e);
+            throw e;
+        } finally {
+            metricaRemocao.concluir(inicio);
+        }
+    }
+
+    private void publicar(EventoDominio evento) {
+        if (eventos != null) {
+            eventos.publicar(evento);
+        }
     }
 }
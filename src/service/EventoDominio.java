@@ -0,0 +1,131 @@
+package service;
+
+import model.Equipe;
+import model.Projeto;
+import model.Usuario;
+
+/**
+ * Fato de negócio publicado pelos serviços depois de uma alteração bem-sucedida.
+ * Os campos preenchidos dependem do tipo; os demais ficam nulos. As entidades são
+ * as mesmas instâncias usadas pelos serviços, sem cópia.
+ */
+public class EventoDominio {
+
+    /**
+     * Tipos de evento publicados
+     */
+    public enum Tipo {
+        USUARIO_CADASTRADO,
+        USUARIO_REMOVIDO,
+        PROJETO_STATUS_ALTERADO,
+        PROJETO_REMOVIDO,
+        MEMBRO_ADICIONADO,
+        MEMBRO_REMOVIDO,
+        EQUIPE_REMOVIDA
+    }
+
+    private final Tipo tipo;
+    private final long instante;
+    private final Usuario usuario;
+    private final Projeto projeto;
+    private final Equipe equipe;
+    private final Projeto.Status statusAnterior;
+    private final Projeto.Status statusNovo;
+
+    // Construtor
+    private EventoDominio(Tipo tipo, Usuario usuario, Projeto projeto, Equipe equipe,
+                          Projeto.Status statusAnterior, Projeto.Status statusNovo) {
+        this.tipo = tipo;
+        this.instante = System.currentTimeMillis();
+        this.usuario = usuario;
+        this.projeto = projeto;
+        this.equipe = equipe;
+        this.statusAnterior = statusAnterior;
+        this.statusNovo = statusNovo;
+    }
+
+    public static EventoDominio usuarioCadastrado(Usuario usuario) {
+        return new EventoDominio(Tipo.USUARIO_CADASTRADO, usuario, null, null, null, null);
+    }
+
+    public static EventoDominio usuarioRemovido(Usuario usuario) {
+        return new EventoDominio(Tipo.USUARIO_REMOVIDO, usuario, null, null, null, null);
+    }
+
+    public static EventoDominio statusAlterado(Projeto projeto, Projeto.Status statusAnterior, Projeto.Status statusNovo) {
+        return new EventoDominio(Tipo.PROJETO_STATUS_ALTERADO, null, projeto, null, statusAnterior, statusNovo);
+    }
+
+    public static EventoDominio projetoRemovido(Projeto projeto) {
+        return new EventoDominio(Tipo.PROJETO_REMOVIDO, null, projeto, null, null, null);
+    }
+
+    public static EventoDominio membroAdicionado(Equipe equipe, Usuario membro) {
+        return new EventoDominio(Tipo.MEMBRO_ADICIONADO, membro, null, equipe, null, null);
+    }
+
+    public static EventoDominio membroRemovido(Equipe equipe, Usuario membro) {
+        return new EventoDominio(Tipo.MEMBRO_REMOVIDO, membro, null, equipe, null, null);
+    }
+
+    public static EventoDominio equipeRemovida(Equipe equipe) {
+        return new EventoDominio(Tipo.EQUIPE_REMOVIDA, null, null, equipe, null, null);
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Momento da publicação
+     * @return Milissegundos desde a época, como em System.currentTimeMillis()
+     */
+    public long getInstante() {
+        return instante;
+    }
+
+    /**
+     * Usuário cadastrado, removido ou que entrou ou saiu da equipe
+     * @return Usuário, ou null nos eventos de projeto e de remoção de equipe
+     */
+    public Usuario getUsuario() {
+        return usuario;
+    }
+
+    /**
+     * Projeto com status alterado ou removido
+     * @return Projeto, ou null nos demais eventos
+     */
+    public Projeto getProjeto() {
+        return projeto;
+    }
+
+    /**
+     * Equipe alterada ou removida
+     * @return Equipe, ou null nos demais eventos
+     */
+    public Equipe getEquipe() {
+        return equipe;
+    }
+
+    /**
+     * Status do projeto antes da alteração
+     * @return Status anterior, ou null nos demais eventos
+     */
+    public Projeto.Status getStatusAnterior() {
+        return statusAnterior;
+    }
+
+    /**
+     * Status do projeto depois da alteração (o projeto pode ter mudado de novo desde então)
+     * @return Novo status, ou null nos demais eventos
+     */
+    public Projeto.Status getStatusNovo() {
+        return statusNovo;
+    }
+
+    @Override
+    public String toString() {
+        return tipo + "@" + instante;
+    }
+}
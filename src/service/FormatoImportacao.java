@@ -0,0 +1,11 @@
+package service;
+
+/**
+ * Formatos de arquivo aceitos na importação em lote.
+ */
+public enum FormatoImportacao {
+    // Primeira linha com os nomes dos campos, separados por ";" ou ","
+    CSV,
+    // Um objeto JSON de um nível por linha
+    JSON_LINHAS
+}
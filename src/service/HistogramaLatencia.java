@@ -0,0 +1,134 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências em nanossegundos com faixas log-lineares, como no
+ * HdrHistogram: cada potência de 2 é dividida em 16 faixas iguais, de modo que o
+ * erro relativo de qualquer valor é de no máximo 1/16 (6,25%). Valores abaixo de 16 ns
+ * têm uma faixa cada e valores acima de 2^42 ns (cerca de 73 minutos) vão para a
+ * última faixa.
+ *
+ * O registro apenas incrementa contadores atômicos, sem travas nem alocação.
+ */
+public final class HistogramaLatencia {
+    // Bits da subdivisão de cada potência de 2
+    private static final int BITS_SUBFAIXA = 4;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+
+    // Maior expoente com faixas próprias
+    private static final int EXPOENTE_MAXIMO = 42;
+
+    private static final int FAIXAS = (EXPOENTE_MAXIMO - BITS_SUBFAIXA + 2) * SUBFAIXAS;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra uma latência
+     * @param nanos Duração em nanossegundos (valores negativos contam como 0)
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        contagens.getAndIncrement(faixa(valor));
+        soma.add(valor);
+        long atual = maximo.get();
+        while (valor > atual && !maximo.compareAndSet(atual, valor)) {
+            atual = maximo.get();
+        }
+    }
+
+    /**
+     * Cópia das contagens para cálculo dos percentis. Como os contadores são
+     * lidos um a um, registros concorrentes podem aparecer apenas em parte.
+     * @return Retrato do histograma
+     */
+    public Retrato retrato() {
+        long[] copia = new long[FAIXAS];
+        long total = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = contagens.get(i);
+            total += copia[i];
+        }
+        return new Retrato(copia, total, soma.sum(), maximo.get());
+    }
+
+    static int faixa(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        if (expoente > EXPOENTE_MAXIMO) {
+            return FAIXAS - 1;
+        }
+        int subfaixa = (int) (valor >>> (expoente - BITS_SUBFAIXA)) & (SUBFAIXAS - 1);
+        return (expoente - BITS_SUBFAIXA + 1) * SUBFAIXAS + subfaixa;
+    }
+
+    // Menor valor que cai na faixa
+    static long inicioFaixa(int faixa) {
+        if (faixa < SUBFAIXAS) {
+            return faixa;
+        }
+        int expoente = faixa / SUBFAIXAS + BITS_SUBFAIXA - 1;
+        long subfaixa = faixa % SUBFAIXAS;
+        return (SUBFAIXAS + subfaixa) << (expoente - BITS_SUBFAIXA);
+    }
+
+    /**
+     * Retrato imutável de um histograma
+     */
+    public static final class Retrato {
+        private final long[] contagens;
+        private final long total;
+        private final long soma;
+        private final long maximo;
+
+        private Retrato(long[] contagens, long total, long soma, long maximo) {
+            this.contagens = contagens;
+            this.total = total;
+            this.soma = soma;
+            this.maximo = maximo;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getMaximo() {
+            return maximo;
+        }
+
+        /**
+         * Média das latências
+         * @return Média em nanossegundos, ou 0 sem registros
+         */
+        public double getMedia() {
+            return total == 0 ? 0 : (double) soma / total;
+        }
+
+        /**
+         * Percentil das latências, pelo maior valor da faixa em que cai
+         * @param percentil Percentil entre 0 e 100
+         * @return Latência em nanossegundos, ou 0 sem registros
+         */
+        public long percentil(double percentil) {
+            if (total == 0) {
+                return 0;
+            }
+            long posicao = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentil)) / 100));
+            long acumulado = 0;
+            for (int i = 0; i < contagens.length; i++) {
+                acumulado += contagens[i];
+                if (acumulado >= posicao) {
+                    long fimFaixa = i + 1 < contagens.length ? inicioFaixa(i + 1) - 1 : Long.MAX_VALUE;
+                    return Math.min(fimFaixa, maximo);
+                }
+            }
+            return maximo;
+        }
+    }
+}
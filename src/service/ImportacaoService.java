@@ -0,0 +1,323 @@
+package service;
+
+import model.Equipe;
+import model.Perfil;
+import model.Projeto;
+import model.Usuario;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Serviço de importação em lote de usuários, projetos e equipes.
+ *
+ * O arquivo é lido em lotes de tamanho fixo, de modo que a memória usada não
+ * depende do tamanho do arquivo. Em cada lote, as linhas são interpretadas,
+ * validadas e conferidas contra os índices dos repositórios em paralelo; depois,
+ * as entidades válidas são gravadas de uma vez no repositório e as rejeitadas
+ * entram no relatório com o número da linha.
+ *
+ * As validações são as mesmas do cadastro individual. Registros repetidos dentro
+ * do próprio arquivo são detectados na gravação, que refaz as verificações de
+ * unicidade de forma atômica.
+ */
+public class ImportacaoService {
+    // Quantidade padrão de linhas por lote
+    public static final int TAMANHO_LOTE_PADRAO = 10_000;
+
+    // Separador dos logins na lista de membros de uma equipe
+    private static final String SEPARADOR_MEMBROS = "\\|";
+
+    private UsuarioService usuarioService;
+    private ProjetoService projetoService;
+    private EquipeService equipeService;
+    private int tamanhoLote;
+
+    // Construtor
+    public ImportacaoService(UsuarioService usuarioService, ProjetoService projetoService,
+                             EquipeService equipeService) {
+        this(usuarioService, projetoService, equipeService, TAMANHO_LOTE_PADRAO);
+    }
+
+    // Construtor com tamanho de lote informado
+    public ImportacaoService(UsuarioService usuarioService, ProjetoService projetoService,
+                             EquipeService equipeService, int tamanhoLote) {
+        if (tamanhoLote < 1) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser de pelo menos 1 linha");
+        }
+        this.usuarioService = usuarioService;
+        this.projetoService = projetoService;
+        this.equipeService = equipeService;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * Importa usuários. Campos: nomeCompleto, cpf, email, cargo, login, senha e
+     * perfil (opcional, COLABORADOR quando ausente). O hash das senhas é gerado na
+     * etapa paralela.
+     * @param origem Conteúdo a ser importado
+     * @param formato Formato do conteúdo
+     * @return Relatório da importação
+     * @throws IOException em caso de erro de leitura
+     */
+    public RelatorioImportacao importarUsuarios(Reader origem, FormatoImportacao formato) throws IOException {
+        return importarUsuarios(origem, formato, false);
+    }
+
+    /**
+     * Importa usuários, como em {@link #importarUsuarios(Reader, FormatoImportacao)}
+     * @param origem Conteúdo a ser importado
+     * @param formato Formato do conteúdo
+     * @param senhasEmHash Se as senhas que já venham em hash PBKDF2, como as de outra
+     *                     instalação, são gravadas como estão; os hashes malformados ou
+     *                     com iterações acima do limite da autenticação são rejeitados
+     * @return Relatório da importação
+     * @throws IOException em caso de erro de leitura
+     */
+    public RelatorioImportacao importarUsuarios(Reader origem, FormatoImportacao formato,
+                                                boolean senhasEmHash) throws IOException {
+        Consumer<Usuario> validador = senhasEmHash
+                ? usuarioService::prepararUsuarioImportado : usuarioService::prepararNovoUsuario;
+        return importar(origem, formato, this::criarUsuario, validador, usuarioService::cadastrarValidados);
+    }
+
+    /**
+     * Importa projetos. Campos: nome, descricao, dataInicio e dataTerminoPrevista
+     * (AAAA-MM-DD), gerente (login de um usuário já cadastrado) e status (opcional)
+     * @param origem Conteúdo a ser importado
+     * @param formato Formato do conteúdo
+     * @return Relatório da importação
+     * @throws IOException em caso de erro de leitura
+     */
+    public RelatorioImportacao importarProjetos(Reader origem, FormatoImportacao formato) throws IOException {
+        return importar(origem, formato, this::criarProjeto,
+                projetoService::validarNovoProjeto, projetoService::cadastrarValidados);
+    }
+
+    /**
+     * Importa equipes. Campos: nome, descricao, capacidadeMaxima (opcional) e
+     * membros (opcional, logins de usuários já cadastrados separados por "|")
+     * @param origem Conteúdo a ser importado
+     * @param formato Formato do conteúdo
+     * @return Relatório da importação
+     * @throws IOException em caso de erro de leitura
+     */
+    public RelatorioImportacao importarEquipes(Reader origem, FormatoImportacao formato) throws IOException {
+        return importar(origem, formato, this::criarEquipe,
+                equipeService::validarNovaEquipe, equipeService::cadastrarValidadas);
+    }
+
+    /**
+     * Lê um objeto JSON de um único nível, como as linhas de uma importação em JSON Lines
+     * @param json Texto do objeto
+     * @return Mapa campo -> valor, sem os valores vazios ou null
+     * @throws IllegalArgumentException se o texto não for um objeto válido
+     */
+    public static Map<String, String> lerObjetoJson(String json) {
+        return LeitorRegistros.interpretarJson(json);
+    }
+
+    /**
+     * Cria um usuário a partir de um objeto JSON com os campos da importação
+     * @param json Texto do objeto
+     * @return Usuário ainda não cadastrado
+     * @throws IllegalArgumentException em caso de campos ausentes ou inválidos
+     */
+    public Usuario usuarioDeJson(String json) {
+        return criarUsuario(lerObjetoJson(json));
+    }
+
+    /**
+     * Cria um projeto a partir de um objeto JSON com os campos da importação
+     * @param json Texto do objeto
+     * @return Projeto ainda não cadastrado
+     * @throws IllegalArgumentException em caso de campos ausentes ou inválidos
+     */
+    public Projeto projetoDeJson(String json) {
+        return criarProjeto(lerObjetoJson(json));
+    }
+
+    /**
+     * Cria uma equipe a partir de um objeto JSON com os campos da importação
+     * @param json Texto do objeto
+     * @return Equipe ainda não cadastrada
+     * @throws IllegalArgumentException em caso de campos ausentes ou inválidos
+     */
+    public Equipe equipeDeJson(String json) {
+        return criarEquipe(lerObjetoJson(json));
+    }
+
+    /**
+     * Lê o conteúdo em lotes e importa cada lote
+     * @param origem Conteúdo a ser importado
+     * @param formato Formato do conteúdo
+     * @param conversor Cria a entidade a partir dos campos da linha
+     * @param validador Valida a entidade e verifica duplicidade com o que já está cadastrado
+     * @param gravador Grava as entidades válidas de um lote
+     * @return Relatório da importação
+     * @throws IOException em caso de erro de leitura
+     */
+    private <T> RelatorioImportacao importar(Reader origem, FormatoImportacao formato,
+                                             Function<Map<String, String>, T> conversor,
+                                             Consumer<T> validador,
+                                             Function<List<T>, boolean[]> gravador) throws IOException {
+        LeitorRegistros leitor = new LeitorRegistros(origem, formato);
+        RelatorioImportacao relatorio = new RelatorioImportacao();
+        String[] linhas = new String[tamanhoLote];
+        long[] numeros = new long[tamanhoLote];
+
+        int quantidade;
+        while ((quantidade = leitor.lerLote(linhas, numeros)) > 0) {
+            relatorio.registrarLinhas(quantidade);
+            importarLote(leitor, linhas, numeros, quantidade, conversor, validador, gravador, relatorio);
+        }
+        return relatorio;
+    }
+
+    private <T> void importarLote(LeitorRegistros leitor, String[] linhas, long[] numeros, int quantidade,
+                                  Function<Map<String, String>, T> conversor, Consumer<T> validador,
+                                  Function<List<T>, boolean[]> gravador, RelatorioImportacao relatorio) {
+        // Interpretação e validação em paralelo: cada posição é escrita por uma única tarefa
+        AtomicReferenceArray<T> entidades = new AtomicReferenceArray<>(quantidade);
+        String[] erros = new String[quantidade];
+        IntStream.range(0, quantidade).parallel().forEach(i -> {
+            try {
+                T entidade = conversor.apply(leitor.interpretar(linhas[i]));
+                validador.accept(entidade);
+                entidades.set(i, entidade);
+            } catch (IllegalArgumentException e) {
+                erros[i] = e.getMessage();
+            }
+        });
+
+        // Gravação do lote na ordem do arquivo
+        List<T> validas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            if (erros[i] == null) {
+                validas.add(entidades.get(i));
+            }
+        }
+        boolean[] gravadas = gravador.apply(validas);
+
+        int proxima = 0;
+        for (int i = 0; i < quantidade; i++) {
+            if (erros[i] != null) {
+                relatorio.registrarErro(numeros[i], erros[i]);
+            } else if (gravadas[proxima++]) {
+                relatorio.registrarImportado();
+            } else {
+                relatorio.registrarErro(numeros[i], motivoRejeicao(entidades.get(i), validador));
+            }
+        }
+    }
+
+    /**
+     * Descobre por que uma entidade válida foi recusada na gravação (normalmente,
+     * outra linha do arquivo com o mesmo CPF, login ou nome gravada antes dela)
+     */
+    private static <T> String motivoRejeicao(T entidade, Consumer<T> validador) {
+        try {
+            validador.accept(entidade);
+            return "Registro duplicado";
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private Usuario criarUsuario(Map<String, String> campos) {
+        String perfil = campos.get("perfil");
+        return new Usuario(
+                obrigatorio(campos, "nomeCompleto"),
+                obrigatorio(campos, "cpf"),
+                obrigatorio(campos, "email"),
+                campos.get("cargo"),
+                obrigatorio(campos, "login"),
+                obrigatorio(campos, "senha"),
+                perfil == null ? Perfil.COLABORADOR : constante(Perfil.class, perfil, "Perfil")
+        );
+    }
+
+    private Projeto criarProjeto(Map<String, String> campos) {
+        String loginGerente = obrigatorio(campos, "gerente");
+        Usuario gerente = usuarioService.buscarUsuarioPorLogin(loginGerente)
+                .orElseThrow(() -> new IllegalArgumentException("Gerente não encontrado: " + loginGerente));
+
+        Projeto projeto = new Projeto(
+                obrigatorio(campos, "nome"),
+                obrigatorio(campos, "descricao"),
+                data(campos, "dataInicio"),
+                data(campos, "dataTerminoPrevista"),
+                gerente
+        );
+        String status = campos.get("status");
+        if (status != null) {
+            projeto.setStatus(constante(Projeto.Status.class, status, "Status"));
+        }
+        return projeto;
+    }
+
+    private Equipe criarEquipe(Map<String, String> campos) {
+        String capacidade = campos.get("capacidadeMaxima");
+        Equipe equipe = new Equipe(
+                obrigatorio(campos, "nome"),
+                obrigatorio(campos, "descricao"),
+                capacidade == null ? Equipe.CAPACIDADE_PADRAO : inteiro(capacidade, "capacidadeMaxima")
+        );
+
+        String membros = campos.get("membros");
+        if (membros != null) {
+            for (String login : membros.split(SEPARADOR_MEMBROS)) {
+                if (login.isBlank()) {
+                    continue;
+                }
+                Usuario membro = usuarioService.buscarUsuarioPorLogin(login.trim())
+                        .orElseThrow(() -> new IllegalArgumentException("Membro não encontrado: " + login.trim()));
+                equipe.adicionarMembro(membro);
+            }
+        }
+        return equipe;
+    }
+
+    private static String obrigatorio(Map<String, String> campos, String nome) {
+        String valor = campos.get(nome);
+        if (valor == null) {
+            throw new IllegalArgumentException("Campo obrigatório ausente: " + nome);
+        }
+        return valor;
+    }
+
+    private static LocalDate data(Map<String, String> campos, String nome) {
+        String valor = obrigatorio(campos, nome);
+        try {
+            return LocalDate.parse(valor.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data inválida em " + nome + ": " + valor);
+        }
+    }
+
+    private static int inteiro(String valor, String nome) {
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido em " + nome + ": " + valor);
+        }
+    }
+
+    private static <E extends Enum<E>> E constante(Class<E> tipo, String valor, String descricao) {
+        try {
+            return Enum.valueOf(tipo, valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(descricao + " inválido: " + valor);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lê um arquivo de importação linha a linha e converte cada linha em um mapa
+ * campo -> valor. A leitura das linhas é sequencial; a interpretação de uma linha
+ * não altera o estado do leitor e pode ser feita em paralelo.
+ *
+ * Em CSV, a primeira linha traz os nomes dos campos e define o separador (";" se
+ * aparecer no cabeçalho, senão ","). Valores podem vir entre aspas, com aspas
+ * internas duplicadas, mas não podem ocupar mais de uma linha. Em JSON Lines, cada
+ * linha é um objeto de um único nível, com valores texto, número, booleano ou null.
+ * Valores vazios ou null são tratados como ausentes.
+ */
+final class LeitorRegistros {
+    private final BufferedReader leitor;
+    private final FormatoImportacao formato;
+    private final String[] cabecalho;
+    private final char separador;
+    private long numeroLinha;
+
+    /**
+     * Prepara a leitura, consumindo o cabeçalho no caso de CSV
+     * @param origem Conteúdo a ser importado
+     * @param formato Formato do conteúdo
+     * @throws IOException em caso de erro de leitura
+     */
+    LeitorRegistros(Reader origem, FormatoImportacao formato) throws IOException {
+        this.leitor = origem instanceof BufferedReader ? (BufferedReader) origem : new BufferedReader(origem);
+        this.formato = formato;
+        if (formato == FormatoImportacao.CSV) {
+            String linha = proximaLinha();
+            if (linha == null) {
+                throw new IllegalArgumentException("Arquivo CSV sem cabeçalho");
+            }
+            this.separador = linha.indexOf(';') >= 0 ? ';' : ',';
+            List<String> campos = dividirCsv(linha, separador);
+            this.cabecalho = campos.toArray(new String[0]);
+        } else {
+            this.separador = ',';
+            this.cabecalho = null;
+        }
+    }
+
+    /**
+     * Lê as próximas linhas não vazias
+     * @param linhas Destino do texto das linhas
+     * @param numeros Destino do número de cada linha no arquivo
+     * @return Quantidade de linhas lidas (0 no fim do arquivo)
+     * @throws IOException em caso de erro de leitura
+     */
+    int lerLote(String[] linhas, long[] numeros) throws IOException {
+        int quantidade = 0;
+        while (quantidade < linhas.length) {
+            String linha = proximaLinha();
+            if (linha == null) {
+                break;
+            }
+            linhas[quantidade] = linha;
+            numeros[quantidade] = numeroLinha;
+            quantidade++;
+        }
+        return quantidade;
+    }
+
+    /**
+     * Converte uma linha em um mapa campo -> valor
+     * @param linha Texto da linha
+     * @return Valores presentes na linha
+     * @throws IllegalArgumentException se a linha estiver mal formada
+     */
+    Map<String, String> interpretar(String linha) {
+        return formato == FormatoImportacao.CSV ? interpretarCsv(linha) : interpretarJson(linha);
+    }
+
+    private String proximaLinha() throws IOException {
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            numeroLinha++;
+            if (numeroLinha == 1 && !linha.isEmpty() && linha.charAt(0) == '\uFEFF') {
+                linha = linha.substring(1);
+            }
+            if (!linha.isBlank()) {
+                return linha;
+            }
+        }
+        return null;
+    }
+
+    private Map<String, String> interpretarCsv(String linha) {
+        List<String> valores = dividirCsv(linha, separador);
+        if (valores.size() != cabecalho.length) {
+            throw new IllegalArgumentException("Linha com " + valores.size() + " campos, cabeçalho com " + cabecalho.length);
+        }
+        Map<String, String> campos = new HashMap<>();
+        for (int i = 0; i < cabecalho.length; i++) {
+            if (!valores.get(i).isEmpty()) {
+                campos.put(cabecalho[i], valores.get(i));
+            }
+        }
+        return campos;
+    }
+
+    private static List<String> dividirCsv(String linha, char separador) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        int i = 0;
+        while (true) {
+            atual.setLength(0);
+            while (i < linha.length() && linha.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < linha.length() && linha.charAt(i) == '"') {
+                // Valor entre aspas: "" representa uma aspa
+                i++;
+                while (true) {
+                    if (i >= linha.length()) {
+                        throw new IllegalArgumentException("Aspas não fechadas");
+                    }
+                    char c = linha.charAt(i++);
+                    if (c == '"') {
+                        if (i < linha.length() && linha.charAt(i) == '"') {
+                            atual.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        atual.append(c);
+                    }
+                }
+                while (i < linha.length() && linha.charAt(i) == ' ') {
+                    i++;
+                }
+                if (i < linha.length() && linha.charAt(i) != separador) {
+                    throw new IllegalArgumentException("Texto após o fechamento das aspas");
+                }
+                valores.add(atual.toString());
+            } else {
+                int fim = linha.indexOf(separador, i);
+                valores.add(linha.substring(i, fim < 0 ? linha.length() : fim).trim());
+                i = fim < 0 ? linha.length() : fim;
+            }
+            if (i >= linha.length()) {
+                return valores;
+            }
+            i++; // Separador
+        }
+    }
+
+    static Map<String, String> interpretarJson(String linha) {
+        CursorJson cursor = new CursorJson(linha);
+        Map<String, String> campos = new HashMap<>();
+        cursor.esperar('{');
+        if (!cursor.consumir('}')) {
+            do {
+                String nome = cursor.lerTexto();
+                cursor.esperar(':');
+                String valor = cursor.lerValor();
+                if (valor != null && !valor.isEmpty()) {
+                    campos.put(nome, valor);
+                }
+            } while (cursor.consumir(','));
+            cursor.esperar('}');
+        }
+        cursor.esperarFim();
+        return campos;
+    }
+
+    /**
+     * Leitura de um objeto JSON de um único nível
+     */
+    private static final class CursorJson {
+        private final String texto;
+        private int posicao;
+
+        private CursorJson(String texto) {
+            this.texto = texto;
+        }
+
+        private void pularEspacos() {
+            while (posicao < texto.length() && Character.isWhitespace(texto.charAt(posicao))) {
+                posicao++;
+            }
+        }
+
+        private boolean consumir(char esperado) {
+            pularEspacos();
+            if (posicao < texto.length() && texto.charAt(posicao) == esperado) {
+                posicao++;
+                return true;
+            }
+            return false;
+        }
+
+        private void esperar(char esperado) {
+            if (!consumir(esperado)) {
+                throw erro("esperado '" + esperado + "'");
+            }
+        }
+
+        private void esperarFim() {
+            pularEspacos();
+            if (posicao < texto.length()) {
+                throw erro("conteúdo após o fim do objeto");
+            }
+        }
+
+        /**
+         * Lê um valor: texto, número, booleano ou null (devolvido como null)
+         */
+        private String lerValor() {
+            pularEspacos();
+            if (posicao >= texto.length()) {
+                throw erro("valor ausente");
+            }
+            char c = texto.charAt(posicao);
+            if (c == '"') {
+                return lerTexto();
+            }
+            if (c == '{' || c == '[') {
+                throw erro("objetos e listas aninhados não são suportados");
+            }
+            int inicio = posicao;
+            while (posicao < texto.length() && ",}".indexOf(texto.charAt(posicao)) < 0
+                    && !Character.isWhitespace(texto.charAt(posicao))) {
+                posicao++;
+            }
+            String literal = texto.substring(inicio, posicao);
+            if (literal.isEmpty()) {
+                throw erro("valor ausente");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String lerTexto() {
+            esperar('"');
+            StringBuilder valor = new StringBuilder();
+            while (true) {
+                if (posicao >= texto.length()) {
+                    throw erro("texto não terminado");
+                }
+                char c = texto.charAt(posicao++);
+                if (c == '"') {
+                    return valor.toString();
+                }
+                if (c != '\\') {
+                    valor.append(c);
+                    continue;
+                }
+                if (posicao >= texto.length()) {
+                    throw erro("escape incompleto");
+                }
+                char escape = texto.charAt(posicao++);
+                switch (escape) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        valor.append(escape);
+                        break;
+                    case 'b':
+                        valor.append('\b');
+                        break;
+                    case 'f':
+                        valor.append('\f');
+                        break;
+                    case 'n':
+                        valor.append('\n');
+                        break;
+                    case 'r':
+                        valor.append('\r');
+                        break;
+                    case 't':
+                        valor.append('\t');
+                        break;
+                    case 'u':
+                        if (posicao + 4 > texto.length()) {
+                            throw erro("escape unicode incompleto");
+                        }
+                        try {
+                            valor.append((char) Integer.parseInt(texto.substring(posicao, posicao + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw erro("escape unicode inválido");
+                        }
+                        posicao += 4;
+                        break;
+                    default:
+                        throw erro("escape inválido");
+                }
+            }
+        }
+
+        private IllegalArgumentException erro(String motivo) {
+            return new IllegalArgumentException("JSON inválido na coluna " + (posicao + 1) + ": " + motivo);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de uma operação: chamadas, erros por mensagem e histograma de latências.
+ *
+ * Uso em volta do corpo da operação:
+ * <pre>
+ * long inicio = metrica.iniciar();
+ * try {
+ *     ...
+ * } catch (RuntimeException e) {
+ *     metrica.falhou(e);
+ *     throw e;
+ * } finally {
+ *     metrica.concluir(inicio);
+ * }
+ * </pre>
+ * O caminho sem erro não trava nem aloca; os erros alocam apenas na primeira
+ * ocorrência de cada mensagem.
+ */
+public final class MetricaOperacao {
+    // Mensagens distintas contadas separadamente; as demais vão para OUTRAS_MENSAGENS
+    static final int MAXIMO_MENSAGENS = 64;
+    static final String OUTRAS_MENSAGENS = "(outras)";
+
+    private final String nome;
+    private final LongAdder chamadas = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> errosPorMensagem = new ConcurrentHashMap<>();
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+
+    MetricaOperacao(String nome) {
+        this.nome = nome;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Início de uma chamada
+     * @return Instante a ser passado para {@link #concluir}
+     */
+    public long iniciar() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Fim de uma chamada, bem-sucedida ou não
+     * @param inicio Instante devolvido por {@link #iniciar}
+     */
+    public void concluir(long inicio) {
+        latencias.registrar(System.nanoTime() - inicio);
+        chamadas.increment();
+    }
+
+    /**
+     * Conta um erro da chamada atual pela mensagem da exceção
+     * @param erro Exceção lançada pela operação
+     */
+    public void falhou(Throwable erro) {
+        erros.increment();
+        String mensagem = erro.getMessage() == null ? erro.getClass().getSimpleName() : erro.getMessage();
+        LongAdder contador = errosPorMensagem.get(mensagem);
+        if (contador == null) {
+            if (errosPorMensagem.size() >= MAXIMO_MENSAGENS) {
+                mensagem = OUTRAS_MENSAGENS;
+            }
+            contador = errosPorMensagem.computeIfAbsent(mensagem, m -> new LongAdder());
+        }
+        contador.increment();
+    }
+
+    /**
+     * Retrato das métricas acumuladas
+     * @return Resumo da operação
+     */
+    public ResumoOperacao resumo() {
+        Map<String, Long> mensagens = new TreeMap<>();
+        errosPorMensagem.forEach((mensagem, contador) -> mensagens.put(mensagem, contador.sum()));
+        return new ResumoOperacao(nome, chamadas.sum(), erros.sum(), mensagens, latencias.retrato());
+    }
+}
@@ -0,0 +1,118 @@
+package service;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro das métricas das operações dos serviços. Os serviços obtêm a métrica de
+ * cada operação na construção e a atualizam a cada chamada; os resumos são
+ * calculados apenas na leitura, pelo relatório em texto ou pelo MBean.
+ *
+ * Os serviços usam por padrão o registro compartilhado {@link #padrao()}, que é o
+ * exposto pela aplicação.
+ */
+public class Metricas implements MetricasMBean {
+    // Nome do MBean registrado por registrarMBean()
+    public static final String NOME_MBEAN = "gestaoprojetos:type=Metricas";
+
+    // Quantis exibidos no relatório
+    private static final String[] QUANTIS = {"0.5", "0.9", "0.99", "0.999"};
+
+    private static final Metricas PADRAO = new Metricas();
+
+    // Nome da operação -> métricas
+    private final ConcurrentHashMap<String, MetricaOperacao> operacoes = new ConcurrentHashMap<>();
+
+    /**
+     * Registro compartilhado pelos serviços criados sem um registro próprio
+     * @return Registro padrão
+     */
+    public static Metricas padrao() {
+        return PADRAO;
+    }
+
+    /**
+     * Métricas de uma operação, criadas no primeiro pedido
+     * @param nome Nome da operação, no formato Classe.metodo
+     * @return Métricas da operação
+     */
+    public MetricaOperacao operacao(String nome) {
+        return operacoes.computeIfAbsent(nome, MetricaOperacao::new);
+    }
+
+    /**
+     * Resumo de todas as operações
+     * @return Resumos em ordem alfabética de operação
+     */
+    public List<ResumoOperacao> resumos() {
+        List<ResumoOperacao> resumos = new ArrayList<>(operacoes.size());
+        for (MetricaOperacao operacao : operacoes.values()) {
+            resumos.add(operacao.resumo());
+        }
+        resumos.sort((a, b) -> a.getNome().compareTo(b.getNome()));
+        return resumos;
+    }
+
+    @Override
+    public String[] getOperacoes() {
+        return operacoes.keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    @Override
+    public String getRelatorio() {
+        StringBuilder relatorio = new StringBuilder();
+        relatorio.append("# TYPE servico_chamadas_total counter\n");
+        relatorio.append("# TYPE servico_erros_total counter\n");
+        relatorio.append("# TYPE servico_erros_por_mensagem_total counter\n");
+        relatorio.append("# TYPE servico_latencia_nanos summary\n");
+        relatorio.append("# TYPE servico_latencia_nanos_max gauge\n");
+        relatorio.append("# TYPE servico_latencia_nanos_media gauge\n");
+        for (ResumoOperacao resumo : resumos()) {
+            String operacao = "operacao=\"" + escapar(resumo.getNome()) + "\"";
+            HistogramaLatencia.Retrato latencias = resumo.getLatencias();
+
+            linha(relatorio, "servico_chamadas_total", operacao, resumo.getChamadas());
+            linha(relatorio, "servico_erros_total", operacao, resumo.getErros());
+            for (Map.Entry<String, Long> erro : resumo.getErrosPorMensagem().entrySet()) {
+                linha(relatorio, "servico_erros_por_mensagem_total",
+                        operacao + ",mensagem=\"" + escapar(erro.getKey()) + "\"", erro.getValue());
+            }
+            for (String quantil : QUANTIS) {
+                linha(relatorio, "servico_latencia_nanos", operacao + ",quantile=\"" + quantil + "\"",
+                        latencias.percentil(Double.parseDouble(quantil) * 100));
+            }
+            linha(relatorio, "servico_latencia_nanos_max", operacao, latencias.getMaximo());
+            relatorio.append("servico_latencia_nanos_media{").append(operacao).append("} ")
+                    .append(String.format(Locale.ROOT, "%.1f", latencias.getMedia())).append('\n');
+        }
+        return relatorio.toString();
+    }
+
+    /**
+     * Registra este registro no servidor de MBeans da plataforma
+     * @throws IllegalStateException se o registro falhar (por exemplo, nome já registrado)
+     */
+    public void registrarMBean() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            servidor.registerMBean(this, new ObjectName(NOME_MBEAN));
+        } catch (JMException e) {
+            throw new IllegalStateException("Não foi possível registrar as métricas no JMX", e);
+        }
+    }
+
+    private static void linha(StringBuilder relatorio, String nome, String rotulos, long valor) {
+        relatorio.append(nome).append('{').append(rotulos).append("} ").append(valor).append('\n');
+    }
+
+    private static String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,18 @@
+package service;
+
+/**
+ * Interface JMX das métricas das operações dos serviços
+ */
+public interface MetricasMBean {
+    /**
+     * Nomes das operações medidas
+     * @return Nomes em ordem alfabética
+     */
+    String[] getOperacoes();
+
+    /**
+     * Relatório em texto, no formato de exposição do Prometheus
+     * @return Contadores, erros por mensagem e percentis de latência de cada operação
+     */
+    String getRelatorio();
+}
@@ -0,0 +1,85 @@
+package service;
+
+import model.Perfil;
+import model.Projeto;
+import model.Usuario;
+import repository.EquipeRepository;
+import repository.Estatisticas;
+import repository.ProjetoRepository;
+import repository.UsuarioRepository;
+
+import java.util.EnumMap;
+import java.util.SortedMap;
+
+/**
+ * Serviço com os números do painel. Os agregados são mantidos a cada alteração
+ * dos repositórios, de modo que as consultas não percorrem os dados.
+ */
+public class PainelService {
+    // Agregados mantidos a partir dos repositórios
+    private Estatisticas estatisticas;
+
+    // Construtor: passa a acompanhar os repositórios a partir do estado atual
+    public PainelService(UsuarioRepository usuarioRepository, ProjetoRepository projetoRepository,
+                         EquipeRepository equipeRepository) {
+        this(Estatisticas.acompanhar(usuarioRepository, projetoRepository, equipeRepository));
+    }
+
+    // Construtor com estatísticas já registradas nos repositórios
+    public PainelService(Estatisticas estatisticas) {
+        this.estatisticas = estatisticas;
+    }
+
+    /**
+     * Quantidade de projetos de cada status
+     * @return Mapa com a quantidade de projetos de cada status
+     */
+    public EnumMap<Projeto.Status, Long> quantidadeProjetosPorStatus() {
+        return estatisticas.projetosPorStatus();
+    }
+
+    /**
+     * Quantidade de projetos gerenciados por um usuário
+     * @param gerente Gerente dos projetos
+     * @return Quantidade de projetos
+     */
+    public long quantidadeProjetosPorGerente(Usuario gerente) {
+        return estatisticas.projetosPorGerente(gerente);
+    }
+
+    /**
+     * Quantidade de projetos atrasados hoje
+     * @return Quantidade de projetos não encerrados com o prazo vencido
+     */
+    public long quantidadeProjetosAtrasados() {
+        return estatisticas.projetosAtrasados();
+    }
+
+    /**
+     * Duração prevista média dos projetos
+     * @return Média em dias
+     */
+    public double duracaoPrevistaMedia() {
+        return estatisticas.duracaoPrevistaMedia();
+    }
+
+    /**
+     * Quantidade de usuários de cada perfil
+     * @return Mapa com a quantidade de usuários de cada perfil
+     */
+    public EnumMap<Perfil, Long> quantidadeUsuariosPorPerfil() {
+        EnumMap<Perfil, Long> contagem = new EnumMap<>(Perfil.class);
+        for (Perfil perfil : Perfil.values()) {
+            contagem.put(perfil, estatisticas.usuariosPorPerfil(perfil));
+        }
+        return contagem;
+    }
+
+    /**
+     * Histograma do tamanho das equipes
+     * @return Quantidade de membros -> quantidade de equipes, em ordem crescente
+     */
+    public SortedMap<Integer, Long> histogramaTamanhoEquipes() {
+        return estatisticas.histogramaTamanhoEquipes();
+    }
+}
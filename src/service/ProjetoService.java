@@ -1,10 +1,17 @@
 package service;
 
+import model.Periodo;
 import model.Projeto;
 import model.Usuario;
+import repository.ConflitoVersaoException;
+import repository.FormatoExportacao;
+import repository.Pagina;
 import repository.ProjetoRepository;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.time.LocalDate;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,9 +23,36 @@ public class ProjetoService {
     // Repositório de projetos
     private ProjetoRepository projetoRepository;
 
+    // Barramento em que as mudanças de status e remoções são publicadas (null se não publica)
+    private BarramentoEventos eventos;
+
+    // Métricas das operações
+    private MetricaOperacao metricaCadastro;
+    private MetricaOperacao metricaAtualizacaoStatus;
+    private MetricaOperacao metricaRemocao;
+
     // Construtor
     public ProjetoService() {
-        this.projetoRepository = new ProjetoRepository();
+        this(new ProjetoRepository());
+    }
+
+    // Construtor com repositório informado (por exemplo, um repositório persistente)
+    public ProjetoService(ProjetoRepository projetoRepository) {
+        this(projetoRepository, Metricas.padrao());
+    }
+
+    // Construtor com registro de métricas informado
+    public ProjetoService(ProjetoRepository projetoRepository, Metricas metricas) {
+        this(projetoRepository, metricas, null);
+    }
+
+    // Construtor com barramento de eventos informado (null para não publicar eventos)
+    public ProjetoService(ProjetoRepository projetoRepository, Metricas metricas, BarramentoEventos eventos) {
+        this.projetoRepository = projetoRepository;
+        this.eventos = eventos;
+        this.metricaCadastro = metricas.operacao("ProjetoService.cadastrarProjeto");
+        this.metricaAtualizacaoStatus = metricas.operacao("ProjetoService.atualizarStatusProjeto");
+        this.metricaRemocao = metricas.operacao("ProjetoService.removerProjeto");
     }
 
     /**
@@ -28,6 +62,26 @@ public class ProjetoService {
      * @throws IllegalArgumentException em caso de dados inválidos
      */
     public boolean cadastrarProjeto(Projeto projeto) {
+        long inicio = metricaCadastro.iniciar();
+        try {
+            validarNovoProjeto(projeto);
+
+            // Adiciona projeto
+            return projetoRepository.adicionar(projeto);
+        } catch (RuntimeException e) {
+            metricaCadastro.falhou(e);
+            throw e;
+        } finally {
+            metricaCadastro.concluir(inicio);
+        }
+    }
+
+    /**
+     * Valida os dados de um novo projeto e verifica se o nome está livre
+     * @param projeto Projeto a ser cadastrado
+     * @throws IllegalArgumentException em caso de dados inválidos ou duplicados
+     */
+    void validarNovoProjeto(Projeto projeto) {
         // Validações
         validarDadosProjeto(projeto);
 
@@ -35,9 +89,15 @@ public class ProjetoService {
         if (projetoRepository.buscarPorNome(projeto.getNome()).isPresent()) {
             throw new IllegalArgumentException("Projeto com este nome já existe");
         }
+    }
 
-        // Adiciona projeto
-        return projetoRepository.adicionar(projeto);
+    /**
+     * Cadastra em lote projetos já validados
+     * @param projetos Projetos a serem cadastrados
+     * @return Para cada projeto, na mesma posição, se o cadastro foi bem-sucedido
+     */
+    boolean[] cadastrarValidados(List<Projeto> projetos) {
+        return projetoRepository.adicionarTodos(projetos);
     }
 
     /**
@@ -85,21 +145,40 @@ public class ProjetoService {
     }
 
     /**
-     * Atualizar status do projeto
+     * Atualizar status do projeto. O status é alterado em uma cópia gravada com a
+     * versão lida; se outra operação gravar o projeto antes, a leitura é refeita.
      * @param nomeProjeto Nome do projeto
      * @param novoStatus Novo status do projeto
      * @return boolean indicando sucesso na atualização
+     * @throws ConflitoVersaoException se o conflito persistir em todas as tentativas
      */
     public boolean atualizarStatusProjeto(String nomeProjeto, Projeto.Status novoStatus) {
-        Optional<Projeto> projetoOptional = projetoRepository.buscarPorNome(nomeProjeto);
+        long inicio = metricaAtualizacaoStatus.iniciar();
+        try {
+            return Retentativas.repetirEmConflito(Retentativas.TENTATIVAS_PADRAO, () -> {
+                Optional<Projeto> projetoOptional = projetoRepository.buscarPorNome(nomeProjeto);
+                if (projetoOptional.isEmpty()) {
+                    return false;
+                }
 
-        if (projetoOptional.isPresent()) {
-            Projeto projeto = projetoOptional.get();
-            projeto.setStatus(novoStatus);
-            return projetoRepository.atualizar(projeto);
+                long versao = projetoOptional.get().getVersao();
+                Projeto projeto = new Projeto(projetoOptional.get());
+                Projeto.Status statusAnterior = projeto.getStatus();
+                projeto.setStatus(novoStatus);
+                if (!projetoRepository.atualizar(projeto, versao)) {
+                    return false;
+                }
+                if (statusAnterior != novoStatus) {
+                    publicar(EventoDominio.statusAlterado(projeto, statusAnterior, novoStatus));
+                }
+                return true;
+            });
+        } catch (RuntimeException e) {
+            metricaAtualizacaoStatus.falhou(e);
+            throw e;
+        } finally {
+            metricaAtualizacaoStatus.concluir(inicio);
         }
-
-        return false;
     }
 
     /**
@@ -111,6 +190,38 @@ public class ProjetoService {
         return projetoRepository.listarPorGerente(gerente);
     }
 
+    /**
+     * Exportar projetos para um canal, em CSV ou JSON Lines, sem carregar a lista em memória
+     * @param destino Canal de destino (não é fechado)
+     * @param formato Formato da saída
+     * @return Quantidade de projetos exportados
+     * @throws IOException em caso de erro de escrita
+     */
+    public long exportarProjetos(WritableByteChannel destino, FormatoExportacao formato) throws IOException {
+        return projetoRepository.exportar(destino, formato);
+    }
+
+    /**
+     * Página de projetos em ordem alfabética de nome
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de itens na página
+     * @return Página com os itens e o cursor da próxima
+     */
+    public Pagina<Projeto> paginarProjetosPorNome(String cursor, int tamanho) {
+        return projetoRepository.paginarPorNome(cursor, tamanho);
+    }
+
+    /**
+     * Página de projetos de um status, em ordem alfabética de nome
+     * @param status Status a ser filtrado
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de itens na página
+     * @return Página com os itens e o cursor da próxima
+     */
+    public Pagina<Projeto> paginarProjetosPorStatus(Projeto.Status status, String cursor, int tamanho) {
+        return projetoRepository.paginarPorStatus(status, cursor, tamanho);
+    }
+
     /**
      * Listar projetos por status
      * @param status Status dos projetos
@@ -130,6 +241,34 @@ public class ProjetoService {
         return projetoRepository.listarPorIntervaloData(dataInicio, dataFim);
     }
 
+    /**
+     * Listar projetos cuja execução prevista se sobrepõe a um intervalo de datas
+     * @param dataInicio Data inicial
+     * @param dataFim Data final
+     * @return Lista de projetos em andamento previsto no intervalo
+     */
+    public List<Projeto> listarProjetosSobrepostosAoIntervalo(LocalDate dataInicio, LocalDate dataFim) {
+        return projetoRepository.listarSobrepostosAoIntervalo(dataInicio, dataFim);
+    }
+
+    /**
+     * Listar projetos contidos em cada um de vários períodos
+     * @param periodos Períodos a serem consultados
+     * @return Para cada período, na mesma posição, a lista de projetos contidos nele
+     */
+    public List<List<Projeto>> listarProjetosNosIntervalos(List<Periodo> periodos) {
+        return projetoRepository.listarPorIntervalosData(periodos);
+    }
+
+    /**
+     * Listar projetos sobrepostos a cada um de vários períodos
+     * @param periodos Períodos a serem consultados
+     * @return Para cada período, na mesma posição, a lista de projetos sobrepostos a ele
+     */
+    public List<List<Projeto>> listarProjetosSobrepostosAosIntervalos(List<Periodo> periodos) {
+        return projetoRepository.listarSobrepostosAosIntervalos(periodos);
+    }
+
     /**
      * Listar projetos atrasados
      * @return Lista de projetos atrasados
@@ -138,6 +277,18 @@ public class ProjetoService {
         return projetoRepository.listarProjetosAtrasados();
     }
 
+    /**
+     * Listar projetos que vencem nos próximos dias
+     * @param dias Quantidade de dias a partir de hoje
+     * @return Lista de projetos não encerrados com término previsto no período
+     */
+    public List<Projeto> listarProjetosAVencer(int dias) {
+        if (dias < 0) {
+            throw new IllegalArgumentException("Quantidade de dias não pode ser negativa");
+        }
+        return projetoRepository.listarProjetosAVencer(LocalDate.now(), dias);
+    }
+
     /**
      * Quantidade total de projetos
      * @return Número de projetos cadastrados
@@ -155,12 +306,39 @@ public class ProjetoService {
         return projetoRepository.contarProjetosPorStatus(status);
     }
 
+    /**
+     * Quantidade de projetos de cada status
+     * @return Mapa com o número de projetos por status
+     */
+    public EnumMap<Projeto.Status, Integer> quantidadeProjetosPorStatus() {
+        return projetoRepository.contarTodosPorStatus();
+    }
+
     /**
      * Remover projeto
      * @param nomeProjeto Nome do projeto a ser removido
      * @return boolean indicando sucesso na remoção
      */
     public boolean removerProjeto(String nomeProjeto) {
-        return projetoRepository.remover(nomeProjeto);
+        long inicio = metricaRemocao.iniciar();
+        try {
+            Optional<Projeto> projeto = eventos == null ? Optional.empty() : projetoRepository.buscarPorNome(nomeProjeto);
+            if (!projetoRepository.remover(nomeProjeto)) {
+                return false;
+            }
+            projeto.ifPresent(removido -> publicar(EventoDominio.projetoRemovido(removido)));
+            return true;
+        } catch (RuntimeException e) {
+            metricaRemocao.falhou(e);
+            throw e;
+        } finally {
+            metricaRemocao.concluir(inicio);
+        }
+    }
+
+    private void publicar(EventoDominio evento) {
+        if (eventos != null) {
+            eventos.publicar(evento);
+        }
     }
 }
@@ -0,0 +1,92 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma importação em lote: contagens e erros por linha.
+ * Só os primeiros erros são guardados, para que a memória usada não cresça
+ * com o tamanho do arquivo; as contagens são sempre completas.
+ */
+public class RelatorioImportacao {
+    // Quantidade máxima de erros guardados com detalhes
+    public static final int LIMITE_ERROS = 1000;
+
+    private long linhasLidas;
+    private long importados;
+    private long rejeitados;
+    private List<ErroImportacao> erros;
+
+    // Construtor
+    RelatorioImportacao() {
+        this.erros = new ArrayList<>();
+    }
+
+    void registrarLinhas(int quantidade) {
+        linhasLidas += quantidade;
+    }
+
+    void registrarImportado() {
+        importados++;
+    }
+
+    void registrarErro(long linha, String mensagem) {
+        rejeitados++;
+        if (erros.size() < LIMITE_ERROS) {
+            erros.add(new ErroImportacao(linha, mensagem));
+        }
+    }
+
+    // Getters
+    public long getLinhasLidas() {
+        return linhasLidas;
+    }
+
+    public long getImportados() {
+        return importados;
+    }
+
+    public long getRejeitados() {
+        return rejeitados;
+    }
+
+    public List<ErroImportacao> getErros() {
+        return Collections.unmodifiableList(erros);
+    }
+
+    @Override
+    public String toString() {
+        return "RelatorioImportacao{" +
+                "linhasLidas=" + linhasLidas +
+                ", importados=" + importados +
+                ", rejeitados=" + rejeitados +
+                '}';
+    }
+
+    /**
+     * Erro de uma linha do arquivo importado
+     */
+    public static class ErroImportacao {
+        private final long linha;
+        private final String mensagem;
+
+        ErroImportacao(long linha, String mensagem) {
+            this.linha = linha;
+            this.mensagem = mensagem;
+        }
+
+        public long getLinha() {
+            return linha;
+        }
+
+        public String getMensagem() {
+            return mensagem;
+        }
+
+        @Override
+        public String toString() {
+            return "Linha " + linha + ": " + mensagem;
+        }
+    }
+}
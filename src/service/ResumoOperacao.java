@@ -0,0 +1,45 @@
+package service;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Retrato das métricas de uma operação em um instante
+ */
+public final class ResumoOperacao {
+    private final String nome;
+    private final long chamadas;
+    private final long erros;
+    private final Map<String, Long> errosPorMensagem;
+    private final HistogramaLatencia.Retrato latencias;
+
+    ResumoOperacao(String nome, long chamadas, long erros, Map<String, Long> errosPorMensagem,
+                   HistogramaLatencia.Retrato latencias) {
+        this.nome = nome;
+        this.chamadas = chamadas;
+        this.erros = erros;
+        this.errosPorMensagem = Collections.unmodifiableMap(errosPorMensagem);
+        this.latencias = latencias;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public long getChamadas() {
+        return chamadas;
+    }
+
+    public long getErros() {
+        return erros;
+    }
+
+    // Mensagem da exceção -> quantidade de erros, em ordem alfabética
+    public Map<String, Long> getErrosPorMensagem() {
+        return errosPorMensagem;
+    }
+
+    public HistogramaLatencia.Retrato getLatencias() {
+        return latencias;
+    }
+}
@@ -0,0 +1,46 @@
+package service;
+
+import repository.ConflitoVersaoException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Repetição das atualizações otimistas dos serviços. Cada tentativa lê a entidade,
+ * aplica a alteração a uma cópia e grava com a versão lida; se outra operação gravou
+ * antes, a tentativa inteira é refeita a partir da leitura.
+ */
+final class Retentativas {
+    // Tentativas antes de repassar o conflito a quem chamou
+    static final int TENTATIVAS_PADRAO = 10;
+
+    // Limite da espera entre tentativas
+    private static final long ESPERA_MAXIMA_NANOS = 1_000_000;
+
+    private Retentativas() {
+    }
+
+    /**
+     * Executa uma tentativa até que ela termine sem conflito de versão
+     * @param tentativas Quantidade máxima de tentativas
+     * @param tentativa Leitura, alteração e gravação com a versão lida
+     * @return Resultado da primeira tentativa sem conflito
+     * @throws ConflitoVersaoException se todas as tentativas encontrarem conflito
+     */
+    static boolean repetirEmConflito(int tentativas, BooleanSupplier tentativa) {
+        for (int numero = 1; ; numero++) {
+            try {
+                return tentativa.getAsBoolean();
+            } catch (ConflitoVersaoException e) {
+                if (numero >= tentativas) {
+                    throw e;
+                }
+                // Espera aleatória e crescente, para que as operações em conflito não
+                // voltem a se encontrar na tentativa seguinte
+                long limite = Math.min(ESPERA_MAXIMA_NANOS, 1_000L << Math.min(numero, 20));
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(limite));
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package service;
+
+import java.util.List;
+
+/**
+ * Recebe os lotes em que um {@link AssinanteEventos} lançou exceção ou erro. O
+ * barramento não reentrega esses eventos: o tratador é o ponto para registrá-los,
+ * guardá-los para reprocessamento ou alertar quem acompanha a aplicação.
+ *
+ * É chamado na thread do assinante, antes de ela seguir para o próximo lote.
+ */
+@FunctionalInterface
+public interface TratadorFalhasEventos {
+
+    /**
+     * Trata a falha de um lote
+     * @param assinante Nome do assinante que falhou
+     * @param eventos Eventos do lote, em ordem de publicação; a lista é uma cópia e
+     *                pode ser guardada
+     * @param erro Exceção ou erro lançado pelo assinante
+     */
+    void tratar(String assinante, List<EventoDominio> eventos, Throwable erro);
+}
@@ -1,12 +1,20 @@
 package service;
 
 import model.Usuario;
+import model.HashSenha;
 import model.Perfil;
+import repository.ConflitoVersaoException;
+import repository.FormatoExportacao;
+import repository.Pagina;
+import repository.SugestoesUsuarios;
 import repository.UsuarioRepository;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * Serviço para gerenciamento de usuários,
@@ -16,9 +24,51 @@ public class UsuarioService {
     // Repositório de usuários
     private UsuarioRepository usuarioRepository;
 
+    // Hash das senhas e autenticação
+    private Autenticador autenticador;
+
+    // Sugestões por prefixo para a seleção de usuários, criadas na primeira consulta
+    private volatile SugestoesUsuarios sugestoes;
+
+    // Barramento em que os cadastros e remoções são publicados (null se não publica)
+    private BarramentoEventos eventos;
+
+    // Métricas das operações
+    private MetricaOperacao metricaCadastro;
+    private MetricaOperacao metricaAutenticacao;
+    private MetricaOperacao metricaAtualizacao;
+    private MetricaOperacao metricaRemocao;
+
     // Construtor
     public UsuarioService() {
-        this.usuarioRepository = new UsuarioRepository();
+        this(new UsuarioRepository());
+    }
+
+    // Construtor com repositório informado (por exemplo, um repositório persistente)
+    public UsuarioService(UsuarioRepository usuarioRepository) {
+        this(usuarioRepository, new Autenticador(usuarioRepository));
+    }
+
+    // Construtor com autenticador informado (por exemplo, com outra quantidade de iterações)
+    public UsuarioService(UsuarioRepository usuarioRepository, Autenticador autenticador) {
+        this(usuarioRepository, autenticador, Metricas.padrao());
+    }
+
+    // Construtor com registro de métricas informado
+    public UsuarioService(UsuarioRepository usuarioRepository, Autenticador autenticador, Metricas metricas) {
+        this(usuarioRepository, autenticador, metricas, null);
+    }
+
+    // Construtor com barramento de eventos informado (null para não publicar eventos)
+    public UsuarioService(UsuarioRepository usuarioRepository, Autenticador autenticador, Metricas metricas,
+                          BarramentoEventos eventos) {
+        this.usuarioRepository = usuarioRepository;
+        this.autenticador = autenticador;
+        this.eventos = eventos;
+        this.metricaCadastro = metricas.operacao("UsuarioService.cadastrarUsuario");
+        this.metricaAutenticacao = metricas.operacao("UsuarioService.autenticar");
+        this.metricaAtualizacao = metricas.operacao("UsuarioService.atualizarUsuario");
+        this.metricaRemocao = metricas.operacao("UsuarioService.removerUsuario");
     }
 
     /**
@@ -28,6 +78,30 @@ public class UsuarioService {
      * @throws IllegalArgumentException em caso de dados inválidos
      */
     public boolean cadastrarUsuario(Usuario usuario) {
+        long inicio = metricaCadastro.iniciar();
+        try {
+            prepararNovoUsuario(usuario);
+
+            // Adiciona usuário
+            if (!usuarioRepository.adicionar(usuario)) {
+                return false;
+            }
+            publicar(EventoDominio.usuarioCadastrado(usuario));
+            return true;
+        } catch (RuntimeException e) {
+            metricaCadastro.falhou(e);
+            throw e;
+        } finally {
+            metricaCadastro.concluir(inicio);
+        }
+    }
+
+    /**
+     * Valida os dados de um novo usuário e verifica se CPF e login estão livres
+     * @param usuario Usuário a ser cadastrado
+     * @throws IllegalArgumentException em caso de dados inválidos ou duplicados
+     */
+    void validarNovoUsuario(Usuario usuario) {
         // Validações
         validarDadosUsuario(usuario);
 
@@ -40,93 +114,86 @@ public class UsuarioService {
         if (usuarioRepository.buscarPorLogin(usuario.getLogin()).isPresent()) {
             throw new IllegalArgumentException("Login já existe");
         }
-
-        // Adiciona usuário
-        return usuarioRepository.adicionar(usuario);
     }
 
     /**
-     * Método para validar dados do usuário
-     * @param usuario Usuário a ser validado
-     * @throws IllegalArgumentException em caso de dados inválidos
+     * Valida um novo usuário e troca a senha digitada pelo seu hash
+     * @param usuario Usuário a ser cadastrado
+     * @throws IllegalArgumentException em caso de dados inválidos ou duplicados
      */
-    private void validarDadosUsuario(Usuario usuario) {
-        // Validação de nome
-        if (usuario.getNomeCompleto() == null || usuario.getNomeCompleto().trim().length() < 3) {
-            throw new IllegalArgumentException("Nome inválido");
-        }
-
-        // Validação de CPF
-        validarCPF(usuario.getCpf());
-
-        // Validação de email
-        validarEmail(usuario.getEmail());
-
-        // Validação de login
-        validarLogin(usuario.getLogin());
-
-        // Validação de senha
-        validarSenha(usuario.getSenha());
+    void prepararNovoUsuario(Usuario usuario) {
+        validarNovoUsuario(usuario);
+        usuario.setSenha(autenticador.protegerSenha(usuario.getSenha()));
     }
 
     /**
-     * Validação de CPF
-     * @param cpf CPF a ser validado
+     * Valida um usuário importado de outra instalação, mantendo a senha que já venha
+     * em hash PBKDF2 e gerando o hash das demais
+     * @param usuario Usuário a ser cadastrado
+     * @throws IllegalArgumentException em caso de dados inválidos ou duplicados, ou de
+     *         hash malformado ou com iterações acima do limite
      */
-    private void validarCPF(String cpf) {
-        // Remove caracteres não numéricos
-        String cpfLimpo = cpf.replaceAll("[^0-9]", "");
-
-        // Verifica se tem 11 dígitos
-        if (cpfLimpo.length() != 11) {
-            throw new IllegalArgumentException("CPF inválido");
-        }
-
-        // Implementar algoritmo de validação de CPF
-        // (pode ser adicionada lógica mais complexa)
+    void prepararUsuarioImportado(Usuario usuario) {
+        validarNovoUsuario(usuario);
+        usuario.setSenha(HashSenha.ehHash(usuario.getSenha())
+                ? autenticador.aceitarHash(usuario.getSenha())
+                : autenticador.protegerSenha(usuario.getSenha()));
     }
 
     /**
-     * Validação de email
-     * @param email Email a ser validado
+     * Cadastra em lote usuários já validados
+     * @param usuarios Usuários a serem cadastrados
+     * @return Para cada usuário, na mesma posição, se o cadastro foi bem-sucedido
      */
-    private void validarEmail(String email) {
-        // Regex para validação de email
-        String emailRegex = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
-
-        if (email == null || !Pattern.matches(emailRegex, email)) {
-            throw new IllegalArgumentException("Email inválido");
+    boolean[] cadastrarValidados(List<Usuario> usuarios) {
+        boolean[] cadastrados = usuarioRepository.adicionarTodos(usuarios);
+        for (int i = 0; i < cadastrados.length; i++) {
+            if (cadastrados[i]) {
+                publicar(EventoDominio.usuarioCadastrado(usuarios.get(i)));
+            }
         }
+        return cadastrados;
     }
 
     /**
-     * Validação de login
-     * @param login Login a ser validado
+     * Método para validar dados do usuário. Todas as regras são verificadas e a
+     * mensagem traz todas as violações encontradas.
+     * @param usuario Usuário a ser validado
+     * @throws IllegalArgumentException em caso de dados inválidos
      */
-    private void validarLogin(String login) {
-        if (login == null || login.length() < 4) {
-            throw new IllegalArgumentException("Login deve ter no mínimo 4 caracteres");
+    private void validarDadosUsuario(Usuario usuario) {
+        int violacoes = ValidadorUsuario.validar(usuario);
+        if (violacoes != 0) {
+            throw new IllegalArgumentException(ValidadorUsuario.descrever(violacoes));
         }
     }
 
     /**
-     * Validação de senha
-     * @param senha Senha a ser validada
+     * Método de autenticação de usuário
+     * @param login Login do usuário
+     * @param senha Senha do usuário
+     * @return Optional com usuário autenticado
+     * @throws IllegalStateException se houver autenticações demais em andamento
      */
-    private void validarSenha(String senha) {
-        if (senha == null || senha.length() < 6) {
-            throw new IllegalArgumentException("Senha deve ter no mínimo 6 caracteres");
+    public Optional<Usuario> autenticar(String login, String senha) {
+        long inicio = metricaAutenticacao.iniciar();
+        try {
+            return autenticador.autenticar(login, senha);
+        } catch (RuntimeException e) {
+            metricaAutenticacao.falhou(e);
+            throw e;
+        } finally {
+            metricaAutenticacao.concluir(inicio);
         }
     }
 
     /**
-     * Método de autenticação de usuário
+     * Buscar usuário pelo login
      * @param login Login do usuário
-     * @param senha Senha do usuário
-     * @return Optional com usuário autenticado
+     * @return Optional com o usuário encontrado
      */
-    public Optional<Usuario> autenticar(String login, String senha) {
-        return usuarioRepository.autenticar(login, senha);
+    public Optional<Usuario> buscarUsuarioPorLogin(String login) {
+        return usuarioRepository.buscarPorLogin(login);
     }
 
     /**
@@ -137,6 +204,48 @@ public class UsuarioService {
         return usuarioRepository.listarTodos();
     }
 
+    /**
+     * Exportar usuários para um canal, em CSV ou JSON Lines, sem carregar a lista em memória
+     * @param destino Canal de destino (não é fechado)
+     * @param formato Formato da saída
+     * @return Quantidade de usuários exportados
+     * @throws IOException em caso de erro de escrita
+     */
+    public long exportarUsuarios(WritableByteChannel destino, FormatoExportacao formato) throws IOException {
+        return usuarioRepository.exportar(destino, formato);
+    }
+
+    /**
+     * Página de usuários em ordem alfabética de nome
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de itens na página
+     * @return Página com os itens e o cursor da próxima
+     */
+    public Pagina<Usuario> paginarUsuariosPorNome(String cursor, int tamanho) {
+        return usuarioRepository.paginarPorNome(cursor, tamanho);
+    }
+
+    /**
+     * Página de usuários em ordem de cadastro
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de itens na página
+     * @return Página com os itens e o cursor da próxima
+     */
+    public Pagina<Usuario> paginarUsuariosPorDataCriacao(String cursor, int tamanho) {
+        return usuarioRepository.paginarPorDataCriacao(cursor, tamanho);
+    }
+
+    /**
+     * Página de usuários de um perfil, em ordem alfabética de nome
+     * @param perfil Perfil a ser filtrado
+     * @param cursor Cursor da página anterior, ou null para a primeira página
+     * @param tamanho Quantidade máxima de itens na página
+     * @return Página com os itens e o cursor da próxima
+     */
+    public Pagina<Usuario> paginarUsuariosPorPerfil(Perfil perfil, String cursor, int tamanho) {
+        return usuarioRepository.paginarPorPerfil(perfil, cursor, tamanho);
+    }
+
     /**
      * Listar usuários por perfil
      * @param perfil Perfil a ser filtrado
@@ -147,15 +256,104 @@ public class UsuarioService {
     }
 
     /**
-     * Atualizar usuário
-     * @param usuario Usuário a ser atualizado
+     * Sugestões para a seleção de um usuário: usuários cujo nome completo, alguma
+     * palavra do nome ou o login começa com o prefixo, sem diferenciar acentos e maiúsculas
+     * @param prefixo Início digitado (vazio traz os primeiros em ordem alfabética)
+     * @param perfil Perfil dos usuários, ou null para todos
+     * @param limite Quantidade máxima de sugestões
+     * @return Usuários em ordem alfabética
+     * @throws IllegalArgumentException se o limite não for positivo
+     */
+    public List<Usuario> sugerirUsuarios(String prefixo, Perfil perfil, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite de sugestões deve ser positivo");
+        }
+        SugestoesUsuarios atuais = sugestoes;
+        if (atuais == null) {
+            synchronized (this) {
+                if (sugestoes == null) {
+                    sugestoes = SugestoesUsuarios.acompanhar(usuarioRepository);
+                }
+                atuais = sugestoes;
+            }
+        }
+        return atuais.sugerir(prefixo, perfil, limite);
+    }
+
+    /**
+     * Atualizar usuário, desde que ele não tenha sido alterado depois de lido. A senha
+     * que não estiver em hash é tratada como digitada e recebe o hash.
+     * @param usuario Usuário a ser atualizado, com a versão com que foi lido
      * @return boolean indicando sucesso na atualização
+     * @throws IllegalArgumentException em caso de dados inválidos ou de hash novo
+     *         malformado ou com iterações acima do limite
+     * @throws ConflitoVersaoException se outra operação gravou o usuário depois da leitura
      */
     public boolean atualizarUsuario(Usuario usuario) {
-        // Validações
-        validarDadosUsuario(usuario);
+        long inicio = metricaAtualizacao.iniciar();
+        try {
+            // Validações
+            validarDadosUsuario(usuario);
 
-        return usuarioRepository.atualizar(usuario);
+            Optional<Usuario> gravado = usuarioRepository.buscarPorId(usuario.getId());
+            usuario.setSenha(senhaParaGravar(usuario.getSenha(), gravado.map(Usuario::getSenha).orElse(null)));
+            return usuarioRepository.atualizar(usuario, usuario.getVersao());
+        } catch (RuntimeException e) {
+            metricaAtualizacao.falhou(e);
+            throw e;
+        } finally {
+            metricaAtualizacao.concluir(inicio);
+        }
+    }
+
+    /**
+     * Atualizar usuário aplicando uma alteração a uma cópia da versão gravada. Se
+     * outra operação gravar o usuário antes, a alteração é reaplicada sobre a nova versão.
+     * @param id ID do usuário
+     * @param alteracao Alteração da cópia; pode ser chamada mais de uma vez
+     * @return boolean indicando sucesso na atualização (false se o usuário não existe
+     *         ou se o CPF ou o login pertencem a outro usuário)
+     * @throws IllegalArgumentException em caso de dados inválidos
+     * @throws ConflitoVersaoException se o conflito persistir em todas as tentativas
+     */
+    public boolean atualizarUsuario(String id, Consumer<Usuario> alteracao) {
+        long inicio = metricaAtualizacao.iniciar();
+        try {
+            return Retentativas.repetirEmConflito(Retentativas.TENTATIVAS_PADRAO, () -> {
+                Optional<Usuario> gravado = usuarioRepository.buscarPorId(id);
+                if (gravado.isEmpty()) {
+                    return false;
+                }
+                long versao = gravado.get().getVersao();
+                Usuario usuario = new Usuario(gravado.get());
+                alteracao.accept(usuario);
+                validarDadosUsuario(usuario);
+                usuario.setSenha(senhaParaGravar(usuario.getSenha(), gravado.get().getSenha()));
+                return usuarioRepository.atualizar(usuario, versao);
+            });
+        } catch (RuntimeException e) {
+            metricaAtualizacao.falhou(e);
+            throw e;
+        } finally {
+            metricaAtualizacao.concluir(inicio);
+        }
+    }
+
+    /**
+     * Senha a gravar em uma atualização: o hash já gravado é mantido, um hash novo é
+     * conferido como na importação e qualquer outro valor é a senha digitada, que
+     * recebe o hash. Assim nenhuma senha em texto chega ao repositório.
+     * @param senha Senha informada na atualização
+     * @param gravada Senha gravada atualmente, ou null se o usuário não existe
+     * @return Hash a ser gravado
+     * @throws IllegalArgumentException se o hash novo for malformado ou tiver
+     *         iterações acima do limite
+     */
+    private String senhaParaGravar(String senha, String gravada) {
+        if (!HashSenha.ehHash(senha)) {
+            return autenticador.protegerSenha(senha);
+        }
+        return Objects.equals(senha, gravada) ? senha : autenticador.aceitarHash(senha);
     }
 
     /**
@@ -164,7 +362,26 @@ public class UsuarioService {
      * @return boolean indicando sucesso na remoção
      */
     public boolean removerUsuario(String cpf) {
-        return usuarioRepository.remover(cpf);
+        long inicio = metricaRemocao.iniciar();
+        try {
+            Optional<Usuario> usuario = eventos == null ? Optional.empty() : usuarioRepository.buscarPorCPF(cpf);
+            if (!usuarioRepository.remover(cpf)) {
+                return false;
+            }
+            usuario.ifPresent(removido -> publicar(EventoDominio.usuarioRemovido(removido)));
+            return true;
+        } catch (RuntimeException e) {
+            metricaRemocao.falhou(e);
+            throw e;
+        } finally {
+            metricaRemocao.concluir(inicio);
+        }
+    }
+
+    private void publicar(EventoDominio evento) {
+        if (eventos != null) {
+            eventos.publicar(evento);
+        }
     }
 
     /**
@@ -0,0 +1,147 @@
+package service;
+
+import model.Cpf;
+import model.Usuario;
+
+/**
+ * Validação dos dados de um usuário, usada no cadastro individual, na atualização
+ * e na importação em lote.
+ *
+ * Todas as regras são verificadas de uma vez e o resultado é um conjunto de bits,
+ * um por regra violada, de modo que validar um usuário correto não cria nenhum
+ * objeto; o texto das mensagens só é montado quando há violações. As verificações
+ * são feitas percorrendo os caracteres, sem expressões regulares.
+ */
+public final class ValidadorUsuario {
+    // Regras, uma por bit
+    public static final int NOME = 1;
+    public static final int CPF = 1 << 1;
+    public static final int EMAIL = 1 << 2;
+    public static final int LOGIN = 1 << 3;
+    public static final int SENHA = 1 << 4;
+
+    // Tamanhos mínimos
+    private static final int MINIMO_NOME = 3;
+    private static final int MINIMO_LOGIN = 4;
+    private static final int MINIMO_SENHA = 6;
+
+    private ValidadorUsuario() {
+    }
+
+    /**
+     * Verifica todas as regras
+     * @param usuario Usuário a ser validado
+     * @return Regras violadas (0 se o usuário for válido)
+     */
+    public static int validar(Usuario usuario) {
+        int violacoes = 0;
+        if (!nomeValido(usuario.getNomeCompleto())) {
+            violacoes |= NOME;
+        }
+        if (!Cpf.valido(usuario.getCpf())) {
+            violacoes |= CPF;
+        }
+        if (!emailValido(usuario.getEmail())) {
+            violacoes |= EMAIL;
+        }
+        if (!loginValido(usuario.getLogin())) {
+            violacoes |= LOGIN;
+        }
+        if (!senhaValida(usuario.getSenha())) {
+            violacoes |= SENHA;
+        }
+        return violacoes;
+    }
+
+    /**
+     * Monta a mensagem com todas as regras violadas
+     * @param violacoes Regras violadas, como devolvidas por {@link #validar(Usuario)}
+     * @return Mensagens separadas por "; "
+     */
+    public static String descrever(int violacoes) {
+        StringBuilder mensagem = new StringBuilder();
+        acrescentar(mensagem, violacoes, NOME, "Nome inválido");
+        acrescentar(mensagem, violacoes, CPF, "CPF inválido");
+        acrescentar(mensagem, violacoes, EMAIL, "Email inválido");
+        acrescentar(mensagem, violacoes, LOGIN, "Login deve ter no mínimo " + MINIMO_LOGIN + " caracteres");
+        acrescentar(mensagem, violacoes, SENHA, "Senha deve ter no mínimo " + MINIMO_SENHA + " caracteres");
+        return mensagem.toString();
+    }
+
+    /**
+     * Nome com pelo menos 3 caracteres, sem contar os espaços das bordas
+     * @param nome Nome a ser validado
+     * @return boolean indicando se o nome é válido
+     */
+    public static boolean nomeValido(String nome) {
+        if (nome == null) {
+            return false;
+        }
+        int inicio = 0;
+        int fim = nome.length();
+        while (inicio < fim && nome.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fim > inicio && nome.charAt(fim - 1) <= ' ') {
+            fim--;
+        }
+        return fim - inicio >= MINIMO_NOME;
+    }
+
+    /**
+     * Email no formato local@domínio, com letras, dígitos e "+_.-" na parte local
+     * e letras, dígitos e ".-" no domínio
+     * @param email Email a ser validado
+     * @return boolean indicando se o email é válido
+     */
+    public static boolean emailValido(String email) {
+        if (email == null) {
+            return false;
+        }
+        int arroba = -1;
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                if (arroba >= 0 || i == 0) {
+                    return false;
+                }
+                arroba = i;
+            } else if (!alfanumerico(c) && c != '.' && c != '-'
+                    && (arroba >= 0 || (c != '+' && c != '_'))) {
+                return false;
+            }
+        }
+        return arroba > 0 && arroba < email.length() - 1;
+    }
+
+    /**
+     * Login com pelo menos 4 caracteres
+     * @param login Login a ser validado
+     * @return boolean indicando se o login é válido
+     */
+    public static boolean loginValido(String login) {
+        return login != null && login.length() >= MINIMO_LOGIN;
+    }
+
+    /**
+     * Senha com pelo menos 6 caracteres
+     * @param senha Senha a ser validada
+     * @return boolean indicando se a senha é válida
+     */
+    public static boolean senhaValida(String senha) {
+        return senha != null && senha.length() >= MINIMO_SENHA;
+    }
+
+    private static boolean alfanumerico(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static void acrescentar(StringBuilder mensagem, int violacoes, int regra, String texto) {
+        if ((violacoes & regra) != 0) {
+            if (mensagem.length() > 0) {
+                mensagem.append("; ");
+            }
+            mensagem.append(texto);
+        }
+    }
+}
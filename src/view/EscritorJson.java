@@ -0,0 +1,220 @@
+package view;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escrita de JSON diretamente no destino, sem montar o documento em memória: o
+ * texto passa por um buffer de tamanho fixo, que é esvaziado no destino quando
+ * enche e em {@link #descarregar}. Objetos e listas são abertos e fechados
+ * explicitamente; as vírgulas são colocadas pelo escritor conforme o nível em que está.
+ *
+ * Exemplo:
+ * <pre>
+ * json.inicioObjeto().campo("nome", "Ana").nome("projetos").inicioLista();
+ * ...
+ * json.fimLista().fimObjeto();
+ * </pre>
+ */
+final class EscritorJson {
+    // Profundidade máxima de aninhamento
+    private static final int PROFUNDIDADE_MAXIMA = 32;
+
+    // Caracteres acumulados antes de passar ao destino
+    private static final int TAMANHO_BUFFER = 8 * 1024;
+
+    private final Writer destino;
+
+    // Buffer próprio: o destino recebe blocos grandes em vez de um pedaço por valor
+    private final char[] buffer = new char[TAMANHO_BUFFER];
+    private int posicao;
+
+    // Para cada nível aberto, se já tem algum elemento (e o próximo precisa de vírgula)
+    private final boolean[] comElementos = new boolean[PROFUNDIDADE_MAXIMA];
+    private int profundidade;
+
+    // Se o último texto escrito foi o nome de um campo, que ainda espera o valor
+    private boolean esperandoValor;
+
+    EscritorJson(Writer destino) {
+        this.destino = destino;
+    }
+
+    EscritorJson inicioObjeto() throws IOException {
+        abrir('{');
+        return this;
+    }
+
+    EscritorJson fimObjeto() throws IOException {
+        fechar('}');
+        return this;
+    }
+
+    EscritorJson inicioLista() throws IOException {
+        abrir('[');
+        return this;
+    }
+
+    EscritorJson fimLista() throws IOException {
+        fechar(']');
+        return this;
+    }
+
+    /**
+     * Nome do próximo campo do objeto atual
+     * @param nome Nome do campo
+     * @return O próprio escritor
+     */
+    EscritorJson nome(String nome) throws IOException {
+        separar();
+        escreverTexto(nome);
+        escrever(':');
+        esperandoValor = true;
+        return this;
+    }
+
+    EscritorJson valor(String valor) throws IOException {
+        separar();
+        if (valor == null) {
+            escrever("null");
+        } else {
+            escreverTexto(valor);
+        }
+        return this;
+    }
+
+    EscritorJson valor(long valor) throws IOException {
+        separar();
+        escrever(Long.toString(valor));
+        return this;
+    }
+
+    EscritorJson valor(double valor) throws IOException {
+        separar();
+        escrever(Double.isFinite(valor) ? Double.toString(valor) : "null");
+        return this;
+    }
+
+    EscritorJson valor(boolean valor) throws IOException {
+        separar();
+        escrever(valor ? "true" : "false");
+        return this;
+    }
+
+    EscritorJson campo(String nome, String valor) throws IOException {
+        return nome(nome).valor(valor);
+    }
+
+    EscritorJson campo(String nome, long valor) throws IOException {
+        return nome(nome).valor(valor);
+    }
+
+    EscritorJson campo(String nome, double valor) throws IOException {
+        return nome(nome).valor(valor);
+    }
+
+    // Passa ao destino o que estiver no buffer e o descarrega
+    void descarregar() throws IOException {
+        esvaziar();
+        destino.flush();
+    }
+
+    private void abrir(char abertura) throws IOException {
+        if (profundidade == PROFUNDIDADE_MAXIMA) {
+            throw new IllegalStateException("Aninhamento de JSON muito profundo");
+        }
+        separar();
+        escrever(abertura);
+        comElementos[profundidade++] = false;
+    }
+
+    private void fechar(char fechamento) throws IOException {
+        if (profundidade == 0 || esperandoValor) {
+            throw new IllegalStateException("Fechamento de JSON fora de ordem");
+        }
+        profundidade--;
+        escrever(fechamento);
+    }
+
+    /**
+     * Coloca a vírgula antes de um novo elemento, exceto logo após o nome de um campo
+     */
+    private void separar() throws IOException {
+        if (esperandoValor) {
+            esperandoValor = false;
+            return;
+        }
+        if (profundidade > 0) {
+            if (comElementos[profundidade - 1]) {
+                escrever(',');
+            }
+            comElementos[profundidade - 1] = true;
+        }
+    }
+
+    private void escreverTexto(String valor) throws IOException {
+        escrever('"');
+        int inicio = 0;
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            // Trechos sem escape são escritos de uma vez
+            escrever(valor, inicio, i - inicio);
+            inicio = i + 1;
+            switch (c) {
+                case '"':
+                    escrever("\\\"");
+                    break;
+                case '\\':
+                    escrever("\\\\");
+                    break;
+                case '\n':
+                    escrever("\\n");
+                    break;
+                case '\r':
+                    escrever("\\r");
+                    break;
+                case '\t':
+                    escrever("\\t");
+                    break;
+                default:
+                    escrever(String.format("\\u%04x", (int) c));
+            }
+        }
+        escrever(valor, inicio, valor.length() - inicio);
+        escrever('"');
+    }
+
+    private void escrever(char c) throws IOException {
+        if (posicao == buffer.length) {
+            esvaziar();
+        }
+        buffer[posicao++] = c;
+    }
+
+    private void escrever(String texto) throws IOException {
+        escrever(texto, 0, texto.length());
+    }
+
+    private void escrever(String texto, int inicio, int quantidade) throws IOException {
+        while (quantidade > 0) {
+            if (posicao == buffer.length) {
+                esvaziar();
+            }
+            int parte = Math.min(quantidade, buffer.length - posicao);
+            texto.getChars(inicio, inicio + parte, buffer, posicao);
+            posicao += parte;
+            inicio += parte;
+            quantidade -= parte;
+        }
+    }
+
+    private void esvaziar() throws IOException {
+        if (posicao > 0) {
+            destino.write(buffer, 0, posicao);
+            posicao = 0;
+        }
+    }
+}
@@ -0,0 +1,655 @@
+package view;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.Equipe;
+import model.Perfil;
+import model.Projeto;
+import model.Usuario;
+import repository.Pagina;
+import repository.ResultadoBusca;
+import service.BuscaService;
+import service.EquipeService;
+import service.ImportacaoService;
+import service.Metricas;
+import service.PainelService;
+import service.ProjetoService;
+import service.UsuarioService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * API HTTP/JSON com as operações dos serviços, sobre o servidor HTTP do JDK. Cada
+ * requisição é atendida em uma thread virtual própria, de modo que muitos clientes
+ * simultâneos não ficam presos a um conjunto fixo de threads.
+ *
+ * Os corpos das requisições são objetos JSON com os mesmos campos da importação e
+ * as respostas são escritas diretamente na conexão. Todas as rotas exigem
+ * autenticação HTTP Basic, exceto o cadastro de usuários.
+ *
+ * Rotas:
+ * <pre>
+ * GET    /usuarios?cursor=&amp;tamanho=&amp;perfil=     POST /usuarios
+ * GET    /usuarios/{login}                       DELETE /usuarios/{login}
+ * GET    /usuarios/sugestoes?prefixo=&amp;perfil=&amp;tamanho=
+ * GET    /projetos?cursor=&amp;tamanho=&amp;status=     POST /projetos
+ * GET    /projetos/atrasados                     DELETE /projetos/{nome}
+ * PUT    /projetos/{nome}/status                 {"status": "EM_ANDAMENTO"}
+ * GET    /equipes?cursor=&amp;tamanho=&amp;ordem=nome|tamanho
+ * POST   /equipes                                DELETE /equipes/{nome}
+ * GET    /equipes/maiores?quantidade=
+ * POST   /equipes/{nome}/membros                 {"login": "..."}
+ * DELETE /equipes/{nome}/membros/{login}
+ * GET    /busca?q=&amp;tipo=PROJETO|EQUIPE|USUARIO&amp;limite=
+ * GET    /painel
+ * GET    /metricas                               (texto no formato do Prometheus)
+ * </pre>
+ */
+public class ServidorApi implements AutoCloseable {
+    // Itens por página quando o parâmetro tamanho não é informado
+    public static final int TAMANHO_PAGINA_PADRAO = 20;
+
+    private static final int TAMANHO_PAGINA_MAXIMO = 1_000;
+
+    // Tamanho máximo aceito para o corpo de uma requisição
+    private static final int TAMANHO_MAXIMO_CORPO = 64 * 1024;
+
+    // Conexões aguardando aceitação
+    private static final int FILA_CONEXOES = 4_096;
+
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+    static {
+        // Sem isso as respostas em partes esperam o ACK da anterior (algoritmo de Nagle),
+        // somando dezenas de milissegundos a cada requisição em conexões persistentes.
+        // A configuração é lida uma vez, quando o servidor do JDK é carregado.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private UsuarioService usuarioService;
+    private ProjetoService projetoService;
+    private EquipeService equipeService;
+    private PainelService painelService;
+    private BuscaService buscaService;
+    private ImportacaoService importacaoService;
+    private Metricas metricas;
+
+    private HttpServer servidor;
+    private ExecutorService executor;
+
+    // Construtor
+    public ServidorApi(UsuarioService usuarioService, ProjetoService projetoService, EquipeService equipeService,
+                       PainelService painelService, BuscaService buscaService, Metricas metricas) {
+        this.usuarioService = usuarioService;
+        this.projetoService = projetoService;
+        this.equipeService = equipeService;
+        this.painelService = painelService;
+        this.buscaService = buscaService;
+        this.importacaoService = new ImportacaoService(usuarioService, projetoService, equipeService);
+        this.metricas = metricas;
+    }
+
+    /**
+     * Começa a aceitar conexões
+     * @param endereco Endereço e porta (porta 0 escolhe uma porta livre)
+     * @throws IOException se não for possível abrir a porta
+     */
+    public void iniciar(InetSocketAddress endereco) throws IOException {
+        servidor = HttpServer.create(endereco, FILA_CONEXOES);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        servidor.setExecutor(executor);
+        servidor.createContext("/usuarios", troca -> atender(troca, this::usuarios));
+        servidor.createContext("/projetos", troca -> atender(troca, this::projetos));
+        servidor.createContext("/equipes", troca -> atender(troca, this::equipes));
+        servidor.createContext("/busca", troca -> atender(troca, this::busca));
+        servidor.createContext("/painel", troca -> atender(troca, this::painel));
+        servidor.createContext("/metricas", troca -> atender(troca, this::metricas));
+        servidor.start();
+    }
+
+    // Porta em que o servidor está aceitando conexões
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Para de aceitar conexões e aguarda as requisições em andamento
+     */
+    @Override
+    public void close() {
+        if (servidor != null) {
+            servidor.stop(1);
+            executor.close();
+        }
+    }
+
+    /**
+     * Atende uma requisição, convertendo as exceções dos serviços em respostas de erro
+     */
+    private void atender(HttpExchange troca, Rota rota) throws IOException {
+        try (troca) {
+            Requisicao requisicao = new Requisicao(troca);
+            try {
+                requisicao.interpretar();
+                rota.atender(requisicao);
+            } catch (ErroHttp e) {
+                requisicao.responderErro(e.status, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                requisicao.responderErro(400, e.getMessage());
+            } catch (IllegalStateException e) {
+                // Sobrecarga (por exemplo, autenticações demais em andamento)
+                troca.getResponseHeaders().set("Retry-After", "1");
+                requisicao.responderErro(503, e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao atender " + troca.getRequestMethod() + " "
+                        + troca.getRequestURI() + ": " + e);
+                requisicao.responderErro(500, "Erro interno");
+            }
+        }
+    }
+
+    private void usuarios(Requisicao requisicao) throws IOException {
+        List<String> caminho = requisicao.caminho;
+        if (caminho.isEmpty() && requisicao.metodo.equals("POST")) {
+            // Cadastro aberto, como no console
+            Usuario usuario = importacaoService.usuarioDeJson(requisicao.corpo());
+            if (!usuarioService.cadastrarUsuario(usuario)) {
+                throw new ErroHttp(409, "Usuário já cadastrado");
+            }
+            requisicao.responderJson(201, json -> escreverUsuario(json, usuario));
+            return;
+        }
+        requisicao.exigirUsuario();
+
+        if (caminho.isEmpty()) {
+            requisicao.exigirMetodo("GET");
+            String perfil = requisicao.parametro("perfil");
+            int tamanho = requisicao.tamanhoPagina();
+            Pagina<Usuario> pagina = perfil == null
+                    ? usuarioService.paginarUsuariosPorNome(requisicao.parametro("cursor"), tamanho)
+                    : usuarioService.paginarUsuariosPorPerfil(constante(Perfil.class, perfil, "Perfil"),
+                    requisicao.parametro("cursor"), tamanho);
+            requisicao.responderJson(200, json -> escreverPagina(json, pagina, ServidorApi::escreverUsuario));
+        } else if (caminho.size() == 1 && caminho.get(0).equals("sugestoes") && requisicao.metodo.equals("GET")) {
+            String perfil = requisicao.parametro("perfil");
+            List<Usuario> usuarios = usuarioService.sugerirUsuarios(requisicao.parametro("prefixo"),
+                    perfil == null ? null : constante(Perfil.class, perfil, "Perfil"), requisicao.tamanhoPagina());
+            requisicao.responderJson(200, json -> escreverLista(json, usuarios, ServidorApi::escreverUsuario));
+        } else if (caminho.size() == 1) {
+            Usuario usuario = usuarioService.buscarUsuarioPorLogin(caminho.get(0))
+                    .orElseThrow(() -> new ErroHttp(404, "Usuário não encontrado"));
+            switch (requisicao.metodo) {
+                case "GET":
+                    requisicao.responderJson(200, json -> escreverUsuario(json, usuario));
+                    break;
+                case "DELETE":
+                    if (!usuarioService.removerUsuario(usuario.getCpf())) {
+                        throw new ErroHttp(404, "Usuário não encontrado");
+                    }
+                    requisicao.responderSemConteudo();
+                    break;
+                default:
+                    throw new ErroHttp(405, "Método não permitido");
+            }
+        } else {
+            throw new ErroHttp(404, "Rota não encontrada");
+        }
+    }
+
+    private void projetos(Requisicao requisicao) throws IOException {
+        requisicao.exigirUsuario();
+        List<String> caminho = requisicao.caminho;
+
+        if (caminho.isEmpty()) {
+            switch (requisicao.metodo) {
+                case "GET":
+                    String status = requisicao.parametro("status");
+                    int tamanho = requisicao.tamanhoPagina();
+                    Pagina<Projeto> pagina = status == null
+                            ? projetoService.paginarProjetosPorNome(requisicao.parametro("cursor"), tamanho)
+                            : projetoService.paginarProjetosPorStatus(constante(Projeto.Status.class, status,
+                            "Status"), requisicao.parametro("cursor"), tamanho);
+                    requisicao.responderJson(200, json -> escreverPagina(json, pagina, ServidorApi::escreverProjeto));
+                    break;
+                case "POST":
+                    Projeto projeto = importacaoService.projetoDeJson(requisicao.corpo());
+                    if (!projetoService.cadastrarProjeto(projeto)) {
+                        throw new ErroHttp(409, "Projeto com este nome já existe");
+                    }
+                    requisicao.responderJson(201, json -> escreverProjeto(json, projeto));
+                    break;
+                default:
+                    throw new ErroHttp(405, "Método não permitido");
+            }
+        } else if (caminho.size() == 1 && caminho.get(0).equals("atrasados")) {
+            requisicao.exigirMetodo("GET");
+            List<Projeto> projetos = projetoService.listarProjetosAtrasados();
+            requisicao.responderJson(200, json -> escreverLista(json, projetos, ServidorApi::escreverProjeto));
+        } else if (caminho.size() == 1) {
+            requisicao.exigirMetodo("DELETE");
+            if (!projetoService.removerProjeto(caminho.get(0))) {
+                throw new ErroHttp(404, "Projeto não encontrado");
+            }
+            requisicao.responderSemConteudo();
+        } else if (caminho.size() == 2 && caminho.get(1).equals("status")) {
+            requisicao.exigirMetodo("PUT");
+            String status = obrigatorio(ImportacaoService.lerObjetoJson(requisicao.corpo()), "status");
+            if (!projetoService.atualizarStatusProjeto(caminho.get(0),
+                    constante(Projeto.Status.class, status, "Status"))) {
+                throw new ErroHttp(404, "Projeto não encontrado");
+            }
+            requisicao.responderSemConteudo();
+        } else {
+            throw new ErroHttp(404, "Rota não encontrada");
+        }
+    }
+
+    private void equipes(Requisicao requisicao) throws IOException {
+        requisicao.exigirUsuario();
+        List<String> caminho = requisicao.caminho;
+
+        if (caminho.isEmpty()) {
+            switch (requisicao.metodo) {
+                case "GET":
+                    String ordem = requisicao.parametro("ordem");
+                    int tamanho = requisicao.tamanhoPagina();
+                    Pagina<Equipe> pagina;
+                    if (ordem == null || ordem.equals("nome")) {
+                        pagina = equipeService.paginarEquipesPorNome(requisicao.parametro("cursor"), tamanho);
+                    } else if (ordem.equals("tamanho")) {
+                        pagina = equipeService.paginarEquipesPorTamanho(requisicao.parametro("cursor"), tamanho);
+                    } else {
+                        throw new IllegalArgumentException("Ordem inválida: " + ordem);
+                    }
+                    requisicao.responderJson(200, json -> escreverPagina(json, pagina, ServidorApi::escreverEquipe));
+                    break;
+                case "POST":
+                    Equipe equipe = importacaoService.equipeDeJson(requisicao.corpo());
+                    if (!equipeService.cadastrarEquipe(equipe)) {
+                        throw new ErroHttp(409, "Equipe com este nome já existe");
+                    }
+                    requisicao.responderJson(201, json -> escreverEquipe(json, equipe));
+                    break;
+                default:
+                    throw new ErroHttp(405, "Método não permitido");
+            }
+        } else if (caminho.size() == 1 && caminho.get(0).equals("maiores")) {
+            requisicao.exigirMetodo("GET");
+            String quantidade = requisicao.parametro("quantidade");
+            List<Equipe> equipes = equipeService.listarMaioresEquipes(
+                    quantidade == null ? 10 : inteiro(quantidade, "quantidade"));
+            requisicao.responderJson(200, json -> escreverLista(json, equipes, ServidorApi::escreverEquipe));
+        } else if (caminho.size() == 1) {
+            requisicao.exigirMetodo("DELETE");
+            if (!equipeService.removerEquipe(caminho.get(0))) {
+                throw new ErroHttp(404, "Equipe não encontrada");
+            }
+            requisicao.responderSemConteudo();
+        } else if (caminho.size() == 2 && caminho.get(1).equals("membros")) {
+            requisicao.exigirMetodo("POST");
+            String login = obrigatorio(ImportacaoService.lerObjetoJson(requisicao.corpo()), "login");
+            equipeService.adicionarMembroNaEquipe(caminho.get(0), buscarMembro(login));
+            requisicao.responderSemConteudo();
+        } else if (caminho.size() == 3 && caminho.get(1).equals("membros")) {
+            requisicao.exigirMetodo("DELETE");
+            equipeService.removerMembroDaEquipe(caminho.get(0), buscarMembro(caminho.get(2)));
+            requisicao.responderSemConteudo();
+        } else {
+            throw new ErroHttp(404, "Rota não encontrada");
+        }
+    }
+
+    private void busca(Requisicao requisicao) throws IOException {
+        requisicao.exigirUsuario();
+        requisicao.exigirMetodo("GET");
+        if (!requisicao.caminho.isEmpty()) {
+            throw new ErroHttp(404, "Rota não encontrada");
+        }
+        String tipo = requisicao.parametro("tipo");
+        String limite = requisicao.parametro("limite");
+        List<ResultadoBusca> resultados = buscaService.buscar(requisicao.parametro("q"),
+                tipo == null ? null : constante(ResultadoBusca.Tipo.class, tipo, "Tipo"),
+                limite == null ? TAMANHO_PAGINA_PADRAO : inteiro(limite, "limite"));
+        requisicao.responderJson(200, json -> escreverLista(json, resultados, ServidorApi::escreverResultado));
+    }
+
+    private void painel(Requisicao requisicao) throws IOException {
+        Usuario usuario = requisicao.exigirUsuario();
+        requisicao.exigirMetodo("GET");
+        if (!requisicao.caminho.isEmpty()) {
+            throw new ErroHttp(404, "Rota não encontrada");
+        }
+        requisicao.responderJson(200, json -> {
+            json.inicioObjeto();
+            json.nome("usuariosPorPerfil").inicioObjeto();
+            for (Map.Entry<Perfil, Long> entrada : painelService.quantidadeUsuariosPorPerfil().entrySet()) {
+                json.campo(entrada.getKey().name(), entrada.getValue());
+            }
+            json.fimObjeto();
+            json.nome("projetosPorStatus").inicioObjeto();
+            for (Map.Entry<Projeto.Status, Long> entrada : painelService.quantidadeProjetosPorStatus().entrySet()) {
+                json.campo(entrada.getKey().name(), entrada.getValue());
+            }
+            json.fimObjeto();
+            json.campo("projetosAtrasados", painelService.quantidadeProjetosAtrasados());
+            json.campo("duracaoPrevistaMedia", painelService.duracaoPrevistaMedia());
+            json.campo("projetosSobSuaGerencia", painelService.quantidadeProjetosPorGerente(usuario));
+            json.nome("equipesPorTamanho").inicioObjeto();
+            for (Map.Entry<Integer, Long> entrada : painelService.histogramaTamanhoEquipes().entrySet()) {
+                json.campo(entrada.getKey().toString(), entrada.getValue());
+            }
+            json.fimObjeto();
+            json.fimObjeto();
+        });
+    }
+
+    private void metricas(Requisicao requisicao) throws IOException {
+        requisicao.exigirUsuario();
+        requisicao.exigirMetodo("GET");
+        byte[] relatorio = metricas.getRelatorio().getBytes(StandardCharsets.UTF_8);
+        requisicao.troca.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        requisicao.troca.sendResponseHeaders(200, relatorio.length);
+        requisicao.troca.getResponseBody().write(relatorio);
+    }
+
+    private Usuario buscarMembro(String login) {
+        return usuarioService.buscarUsuarioPorLogin(login)
+                .orElseThrow(() -> new ErroHttp(404, "Usuário não encontrado: " + login));
+    }
+
+    private static void escreverUsuario(EscritorJson json, Usuario usuario) throws IOException {
+        json.inicioObjeto()
+                .campo("id", usuario.getId())
+                .campo("nomeCompleto", usuario.getNomeCompleto())
+                .campo("cpf", usuario.getCpf())
+                .campo("email", usuario.getEmail())
+                .campo("cargo", usuario.getCargo())
+                .campo("login", usuario.getLogin())
+                .campo("perfil", texto(usuario.getPerfil()))
+                .fimObjeto();
+    }
+
+    private static void escreverProjeto(EscritorJson json, Projeto projeto) throws IOException {
+        json.inicioObjeto()
+                .campo("id", projeto.getId())
+                .campo("nome", projeto.getNome())
+                .campo("descricao", projeto.getDescricao())
+                .campo("dataInicio", texto(projeto.getDataInicio()))
+                .campo("dataTerminoPrevista", texto(projeto.getDataTerminoPrevista()))
+                .campo("status", texto(projeto.getStatus()))
+                .campo("gerente", projeto.getGerente() == null ? null : projeto.getGerente().getLogin())
+                .fimObjeto();
+    }
+
+    private static void escreverEquipe(EscritorJson json, Equipe equipe) throws IOException {
+        json.inicioObjeto()
+                .campo("id", equipe.getId())
+                .campo("nome", equipe.getNome())
+                .campo("descricao", equipe.getDescricao())
+                .campo("capacidadeMaxima", equipe.getCapacidadeMaxima())
+                .nome("membros").inicioLista();
+        for (Usuario membro : equipe.getMembros()) {
+            json.valor(membro.getLogin());
+        }
+        json.fimLista().fimObjeto();
+    }
+
+    private static void escreverResultado(EscritorJson json, ResultadoBusca resultado) throws IOException {
+        json.inicioObjeto()
+                .campo("tipo", resultado.getTipo().name())
+                .campo("pontuacao", resultado.getPontuacao())
+                .nome("entidade");
+        switch (resultado.getTipo()) {
+            case PROJETO:
+                escreverProjeto(json, (Projeto) resultado.getEntidade());
+                break;
+            case EQUIPE:
+                escreverEquipe(json, (Equipe) resultado.getEntidade());
+                break;
+            default:
+                escreverUsuario(json, (Usuario) resultado.getEntidade());
+        }
+        json.fimObjeto();
+    }
+
+    private static <T> void escreverPagina(EscritorJson json, Pagina<T> pagina, EscritaItem<T> escrita)
+            throws IOException {
+        json.inicioObjeto().nome("itens");
+        escreverLista(json, pagina.getItens(), escrita);
+        json.campo("proximoCursor", pagina.getProximoCursor()).fimObjeto();
+    }
+
+    private static <T> void escreverLista(EscritorJson json, List<T> itens, EscritaItem<T> escrita)
+            throws IOException {
+        json.inicioLista();
+        for (T item : itens) {
+            escrita.escrever(json, item);
+        }
+        json.fimLista();
+    }
+
+    private static String texto(Object valor) {
+        return valor == null ? null : valor.toString();
+    }
+
+    private static String obrigatorio(Map<String, String> campos, String nome) {
+        String valor = campos.get(nome);
+        if (valor == null) {
+            throw new IllegalArgumentException("Campo obrigatório ausente: " + nome);
+        }
+        return valor;
+    }
+
+    private static int inteiro(String valor, String nome) {
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido em " + nome + ": " + valor);
+        }
+    }
+
+    private static <E extends Enum<E>> E constante(Class<E> tipo, String valor, String descricao) {
+        try {
+            return Enum.valueOf(tipo, valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(descricao + " inválido: " + valor);
+        }
+    }
+
+    /**
+     * Tratamento de uma rota
+     */
+    private interface Rota {
+        void atender(Requisicao requisicao) throws IOException;
+    }
+
+    /**
+     * Escrita de um item de uma lista
+     */
+    private interface EscritaItem<T> {
+        void escrever(EscritorJson json, T item) throws IOException;
+    }
+
+    /**
+     * Escrita do corpo de uma resposta JSON
+     */
+    private interface EscritaResposta {
+        void escrever(EscritorJson json) throws IOException;
+    }
+
+    /**
+     * Erro com um status HTTP específico
+     */
+    private static final class ErroHttp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private ErroHttp(int status, String mensagem) {
+            super(mensagem);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Dados de uma requisição e envio da resposta
+     */
+    private final class Requisicao {
+        private final HttpExchange troca;
+        private final String metodo;
+
+        // Segmentos do caminho após o prefixo da rota, já decodificados
+        private List<String> caminho;
+        private Map<String, String> parametros;
+        private boolean respondida;
+
+        private Requisicao(HttpExchange troca) {
+            this.troca = troca;
+            this.metodo = troca.getRequestMethod().toUpperCase(Locale.ROOT);
+        }
+
+        /**
+         * Decodifica o caminho e os parâmetros da consulta
+         * @throws IllegalArgumentException se houver codificação inválida
+         */
+        void interpretar() {
+            String resto = troca.getRequestURI().getRawPath().substring(troca.getHttpContext().getPath().length());
+            if (!resto.isEmpty() && resto.charAt(0) != '/') {
+                // O prefixo da rota casou apenas com o início de um segmento
+                throw new ErroHttp(404, "Rota não encontrada");
+            }
+            this.caminho = segmentos(resto);
+            this.parametros = parametros(troca.getRequestURI().getRawQuery());
+        }
+
+        String parametro(String nome) {
+            return parametros.get(nome);
+        }
+
+        int tamanhoPagina() {
+            String tamanho = parametros.get("tamanho");
+            if (tamanho == null) {
+                return TAMANHO_PAGINA_PADRAO;
+            }
+            return Math.min(inteiro(tamanho, "tamanho"), TAMANHO_PAGINA_MAXIMO);
+        }
+
+        void exigirMetodo(String esperado) {
+            if (!metodo.equals(esperado)) {
+                throw new ErroHttp(405, "Método não permitido");
+            }
+        }
+
+        /**
+         * Autentica o usuário pelo cabeçalho Authorization (HTTP Basic)
+         * @return Usuário autenticado
+         */
+        Usuario exigirUsuario() {
+            String cabecalho = troca.getRequestHeaders().getFirst("Authorization");
+            if (cabecalho != null && cabecalho.regionMatches(true, 0, "Basic ", 0, 6)) {
+                String credenciais;
+                try {
+                    credenciais = new String(Base64.getDecoder().decode(cabecalho.substring(6).trim()),
+                            StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                    credenciais = "";
+                }
+                int separador = credenciais.indexOf(':');
+                if (separador > 0) {
+                    Optional<Usuario> usuario = usuarioService.autenticar(credenciais.substring(0, separador),
+                            credenciais.substring(separador + 1));
+                    if (usuario.isPresent()) {
+                        return usuario.get();
+                    }
+                }
+            }
+            troca.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"gestao\", charset=\"UTF-8\"");
+            throw new ErroHttp(401, "Usuário ou senha inválidos");
+        }
+
+        /**
+         * Lê o corpo da requisição como texto
+         * @return Corpo em UTF-8
+         */
+        String corpo() throws IOException {
+            try (InputStream entrada = troca.getRequestBody()) {
+                byte[] bytes = entrada.readNBytes(TAMANHO_MAXIMO_CORPO + 1);
+                if (bytes.length > TAMANHO_MAXIMO_CORPO) {
+                    throw new ErroHttp(413, "Corpo da requisição muito grande");
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        void responderJson(int status, EscritaResposta escrita) throws IOException {
+            troca.getResponseHeaders().set("Content-Type", TIPO_JSON);
+            troca.sendResponseHeaders(status, 0);
+            respondida = true;
+            Writer destino = new BufferedWriter(new OutputStreamWriter(troca.getResponseBody(),
+                    StandardCharsets.UTF_8));
+            EscritorJson json = new EscritorJson(destino);
+            escrita.escrever(json);
+            json.descarregar();
+        }
+
+        void responderSemConteudo() throws IOException {
+            troca.sendResponseHeaders(204, -1);
+            respondida = true;
+        }
+
+        void responderErro(int status, String mensagem) throws IOException {
+            if (respondida) {
+                // O cabeçalho já foi enviado; resta encerrar a conexão
+                return;
+            }
+            responderJson(status, json -> json.inicioObjeto().campo("erro", mensagem).fimObjeto());
+        }
+    }
+
+    private static List<String> segmentos(String caminho) {
+        List<String> segmentos = new ArrayList<>();
+        for (String segmento : caminho.split("/")) {
+            if (!segmento.isEmpty()) {
+                // No caminho, "+" é literal
+                segmentos.add(URLDecoder.decode(segmento.replace("+", "%2B"), StandardCharsets.UTF_8));
+            }
+        }
+        return segmentos;
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        if (consulta == null || consulta.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parametros = new HashMap<>();
+        for (String par : consulta.split("&")) {
+            int separador = par.indexOf('=');
+            String nome = separador < 0 ? par : par.substring(0, separador);
+            String valor = separador < 0 ? "" : par.substring(separador + 1);
+            if (!valor.isEmpty()) {
+                parametros.put(URLDecoder.decode(nome, StandardCharsets.UTF_8),
+                        URLDecoder.decode(valor, StandardCharsets.UTF_8));
+            }
+        }
+        return parametros;
+    }
+}
@@ -4,27 +4,80 @@ import model.Usuario;
 import model.Perfil;
 import model.Projeto;
 import model.Equipe;
+import repository.ArmazenamentoPersistente;
+import repository.EquipeRepository;
+import repository.FormatoExportacao;
+import repository.Pagina;
+import repository.ProjetoRepository;
+import repository.ResultadoBusca;
+import repository.UsuarioRepository;
+import service.Autenticador;
+import service.BarramentoEventos;
+import service.BuscaService;
 import service.UsuarioService;
 import service.ProjetoService;
 import service.EquipeService;
-
+import service.Metricas;
+import service.PainelService;
+import service.FormatoImportacao;
+import service.ImportacaoService;
+import service.RelatorioImportacao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 
 public class SistemaGestaoView {
+    // Quantidade de itens mostrados por página nas listagens
+    private static final int TAMANHO_PAGINA = 20;
+
+    // Quantidade de usuários sugeridos na seleção
+    private static final int TAMANHO_SUGESTOES = 10;
+
     private Scanner scanner;
     private UsuarioService usuarioService;
     private ProjetoService projetoService;
     private EquipeService equipeService;
+    private ImportacaoService importacaoService;
+    private PainelService painelService;
+    private BuscaService buscaService;
     private Usuario usuarioLogado;
 
     public SistemaGestaoView() {
+        this(new UsuarioRepository(), new ProjetoRepository(), new EquipeRepository());
+    }
+
+    private SistemaGestaoView(UsuarioRepository usuarioRepository, ProjetoRepository projetoRepository,
+                              EquipeRepository equipeRepository) {
+        this(new UsuarioService(usuarioRepository), new ProjetoService(projetoRepository),
+                new EquipeService(equipeRepository),
+                new PainelService(usuarioRepository, projetoRepository, equipeRepository),
+                new BuscaService(usuarioRepository, projetoRepository, equipeRepository));
+    }
+
+    public SistemaGestaoView(UsuarioService usuarioService, ProjetoService projetoService,
+                             EquipeService equipeService, PainelService painelService,
+                             BuscaService buscaService) {
         this.scanner = new Scanner(System.in);
-        this.usuarioService = new UsuarioService();
-        this.projetoService = new ProjetoService();
-        this.equipeService = new EquipeService();
+        this.usuarioService = usuarioService;
+        this.projetoService = projetoService;
+        this.equipeService = equipeService;
+        this.painelService = painelService;
+        this.buscaService = buscaService;
+        this.importacaoService = new ImportacaoService(usuarioService, projetoService, equipeService);
     }
 
     public void iniciar() {
@@ -123,7 +176,9 @@ public class SistemaGestaoView {
         System.out.println("1 - Gerenciar Usuários");
         System.out.println("2 - Gerenciar Projetos");
         System.out.println("3 - Gerenciar Equipes");
-        System.out.println("4 - Sair");
+        System.out.println("4 - Painel");
+        System.out.println("5 - Buscar");
+        System.out.println("6 - Sair");
         System.out.print("Escolha uma opção: ");
 
         int opcao = scanner.nextInt();
@@ -140,6 +195,12 @@ public class SistemaGestaoView {
                 menuGerenciarEquipes();
                 break;
             case 4:
+                exibirPainel();
+                break;
+            case 5:
+                buscar();
+                break;
+            case 6:
                 usuarioLogado = null;
                 break;
             default:
@@ -147,10 +208,49 @@ public class SistemaGestaoView {
         }
     }
 
+    private void exibirPainel() {
+        System.out.println("\n--- PAINEL ---");
+        System.out.println("Usuários por perfil:");
+        for (Map.Entry<Perfil, Long> entrada : painelService.quantidadeUsuariosPorPerfil().entrySet()) {
+            System.out.println("  " + entrada.getKey() + ": " + entrada.getValue());
+        }
+        System.out.println("Projetos por status:");
+        for (Map.Entry<Projeto.Status, Long> entrada : painelService.quantidadeProjetosPorStatus().entrySet()) {
+            System.out.println("  " + entrada.getKey() + ": " + entrada.getValue());
+        }
+        System.out.println("Projetos atrasados: " + painelService.quantidadeProjetosAtrasados());
+        System.out.printf("Duração prevista média: %.1f dias%n", painelService.duracaoPrevistaMedia());
+        System.out.println("Projetos sob sua gerência: " + painelService.quantidadeProjetosPorGerente(usuarioLogado));
+        System.out.println("Equipes por quantidade de membros:");
+        for (Map.Entry<Integer, Long> entrada : painelService.histogramaTamanhoEquipes().entrySet()) {
+            System.out.println("  " + entrada.getKey() + " membro(s): " + entrada.getValue());
+        }
+    }
+
+    private void buscar() {
+        System.out.print("Buscar (use * no fim de um termo para buscar por prefixo): ");
+        String consulta = scanner.nextLine();
+
+        try {
+            List<ResultadoBusca> resultados = buscaService.buscar(consulta, null, TAMANHO_PAGINA);
+            if (resultados.isEmpty()) {
+                System.out.println("Nenhum resultado encontrado.");
+                return;
+            }
+            for (ResultadoBusca resultado : resultados) {
+                System.out.println(resultado.getTipo() + ": " + resultado.getNome());
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Erro: " + e.getMessage());
+        }
+    }
+
     private void menuGerenciarUsuarios() {
         System.out.println("\n--- GERENCIAR USUÁRIOS ---");
         System.out.println("1 - Listar Usuários");
         System.out.println("2 - Buscar Usuário");
+        System.out.println("3 - Importar Usuários de Arquivo");
+        System.out.println("4 - Exportar Usuários para Arquivo");
         System.out.println("0 - Voltar");
 
         int opcao = scanner.nextInt();
@@ -163,14 +263,75 @@ public class SistemaGestaoView {
             case 2:
                 // Implementar busca de usuário
                 break;
+            case 3:
+                importarArquivo("usuários");
+                break;
+            case 4:
+                exportarArquivo("usuários");
+                break;
             case 0:
                 return;
         }
     }
 
     private void listarUsuarios() {
-        List<Usuario> usuarios = usuarioService.listarUsuarios();
-        usuarios.forEach(System.out::println);
+        exibirPaginas(usuarioService::paginarUsuariosPorNome, Usuario::toString);
+    }
+
+    /**
+     * Mostra uma listagem página por página, até o fim ou até o operador interromper
+     * @param consulta Obtém a página a partir do cursor e do tamanho
+     * @param formato Texto de cada item
+     */
+    private <T> void exibirPaginas(BiFunction<String, Integer, Pagina<T>> consulta, Function<T, String> formato) {
+        String cursor = null;
+        do {
+            Pagina<T> pagina = consulta.apply(cursor, TAMANHO_PAGINA);
+            pagina.getItens().forEach(item -> System.out.println(formato.apply(item)));
+            cursor = pagina.getProximoCursor();
+            if (cursor != null) {
+                System.out.print("Enter para a próxima página, 0 para parar: ");
+                if (scanner.nextLine().trim().equals("0")) {
+                    return;
+                }
+            }
+        } while (cursor != null);
+    }
+
+    /**
+     * Seleciona um usuário pelas sugestões: o operador digita o início do nome ou do
+     * login e escolhe entre os primeiros usuários encontrados, ou digita outro início
+     * @param perfil Perfil exigido, ou null para qualquer perfil
+     * @return Usuário escolhido, ou null se a seleção for cancelada
+     */
+    private Usuario selecionarUsuario(Perfil perfil) {
+        System.out.print("Início do nome ou do login do usuário (0 para cancelar): ");
+        String prefixo = scanner.nextLine().trim();
+        while (!prefixo.equals("0")) {
+            List<Usuario> usuarios = usuarioService.sugerirUsuarios(prefixo, perfil, TAMANHO_SUGESTOES);
+            if (usuarios.isEmpty()) {
+                System.out.println("Nenhum usuário encontrado.");
+            }
+            for (int i = 0; i < usuarios.size(); i++) {
+                Usuario usuario = usuarios.get(i);
+                System.out.println((i + 1) + " - " + usuario.getNomeCompleto() + " (" + usuario.getLogin() + ")");
+            }
+            System.out.print("Número do usuário, outro início para refinar ou 0 para cancelar: ");
+            String opcao = scanner.nextLine().trim();
+            try {
+                int escolha = Integer.parseInt(opcao);
+                if (escolha == 0) {
+                    return null;
+                }
+                if (escolha >= 1 && escolha <= usuarios.size()) {
+                    return usuarios.get(escolha - 1);
+                }
+                System.out.println("Opção inválida!");
+            } catch (NumberFormatException e) {
+                prefixo = opcao;
+            }
+        }
+        return null;
     }
 
     private void menuGerenciarProjetos() {
@@ -180,6 +341,8 @@ public class SistemaGestaoView {
         System.out.println("3 - Listar Projetos por Status");
         System.out.println("4 - Listar Projetos Atrasados");
         System.out.println("5 - Atualizar Status do Projeto");
+        System.out.println("6 - Importar Projetos de Arquivo");
+        System.out.println("7 - Exportar Projetos para Arquivo");
         System.out.println("0 - Voltar");
         System.out.print("Escolha uma opção: ");
 
@@ -202,6 +365,12 @@ public class SistemaGestaoView {
             case 5:
                 atualizarStatusProjeto();
                 break;
+            case 6:
+                importarArquivo("projetos");
+                break;
+            case 7:
+                exportarArquivo("projetos");
+                break;
             case 0:
                 return;
             default:
@@ -224,20 +393,18 @@ public class SistemaGestaoView {
             LocalDate dataTermino = LocalDate.parse(scanner.nextLine());
 
             // Selecionar gerente
-            List<Usuario> gerentes = usuarioService.listarUsuariosPorPerfil(Perfil.GERENTE);
-            System.out.println("Selecione o Gerente:");
-            for (int i = 0; i < gerentes.size(); i++) {
-                System.out.println(i + " - " + gerentes.get(i).getNomeCompleto());
+            System.out.println("Gerente do projeto:");
+            Usuario gerente = selecionarUsuario(Perfil.GERENTE);
+            if (gerente == null) {
+                return;
             }
-            int gerenteIndex = scanner.nextInt();
-            scanner.nextLine(); // Limpar buffer
 
             Projeto novoProjeto = new Projeto(
                     nome,
                     descricao,
                     dataInicio,
                     dataTermino,
-                    gerentes.get(gerenteIndex)
+                    gerente
             );
 
             if (projetoService.cadastrarProjeto(novoProjeto)) {
@@ -249,8 +416,7 @@ public class SistemaGestaoView {
     }
 
     private void listarProjetos() {
-        List<Projeto> projetos = projetoService.listarProjetosPorStatus(null);
-        projetos.forEach(System.out::println);
+        exibirPaginas(projetoService::paginarProjetosPorNome, Projeto::toString);
     }
 
     private void listarProjetosPorStatus() {
@@ -261,10 +427,9 @@ public class SistemaGestaoView {
         int statusIndex = scanner.nextInt();
         scanner.nextLine(); // Limpar buffer
 
-        List<Projeto> projetos = projetoService.listarProjetosPorStatus(
-                Projeto.Status.values()[statusIndex]
-        );
-        projetos.forEach(System.out::println);
+        Projeto.Status status = Projeto.Status.values()[statusIndex];
+        exibirPaginas((cursor, tamanho) -> projetoService.paginarProjetosPorStatus(status, cursor, tamanho),
+                Projeto::toString);
     }
 
     private void listarProjetosAtrasados() {
@@ -308,6 +473,8 @@ public class SistemaGestaoView {
         System.out.println("3 - Adicionar Membro à Equipe");
         System.out.println("4 - Remover Membro da Equipe");
         System.out.println("5 - Listar Equipes por Tamanho");
+        System.out.println("6 - Importar Equipes de Arquivo");
+        System.out.println("7 - Exportar Equipes para Arquivo");
         System.out.println("0 - Voltar");
         System.out.print("Escolha uma opção: ");
 
@@ -330,6 +497,12 @@ public class SistemaGestaoView {
             case 5:
                 listarEquipesPorTamanho();
                 break;
+            case 6:
+                importarArquivo("equipes");
+                break;
+            case 7:
+                exportarArquivo("equipes");
+                break;
             case 0:
                 return;
             default:
@@ -337,6 +510,69 @@ public class SistemaGestaoView {
         }
     }
 
+    /**
+     * Importa um arquivo CSV ou JSON Lines (extensão .jsonl) e mostra o resultado
+     * @param tipo "usuários", "projetos" ou "equipes"
+     */
+    private void importarArquivo(String tipo) {
+        System.out.print("Caminho do arquivo: ");
+        Path arquivo = Paths.get(scanner.nextLine().trim());
+        FormatoImportacao formato = arquivo.toString().toLowerCase().endsWith(".jsonl")
+                ? FormatoImportacao.JSON_LINHAS : FormatoImportacao.CSV;
+
+        try (Reader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            RelatorioImportacao relatorio;
+            switch (tipo) {
+                case "usuários":
+                    System.out.print("As senhas já estão em hash PBKDF2? (s/N): ");
+                    boolean senhasEmHash = scanner.nextLine().trim().equalsIgnoreCase("s");
+                    relatorio = importacaoService.importarUsuarios(leitor, formato, senhasEmHash);
+                    break;
+                case "projetos":
+                    relatorio = importacaoService.importarProjetos(leitor, formato);
+                    break;
+                default:
+                    relatorio = importacaoService.importarEquipes(leitor, formato);
+            }
+
+            System.out.println(relatorio);
+            relatorio.getErros().stream().limit(20).forEach(System.out::println);
+        } catch (IOException e) {
+            System.out.println("Erro ao ler o arquivo: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Erro na importação: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exporta para um arquivo CSV ou JSON Lines (extensão .jsonl)
+     * @param tipo "usuários", "projetos" ou "equipes"
+     */
+    private void exportarArquivo(String tipo) {
+        System.out.print("Caminho do arquivo: ");
+        Path arquivo = Paths.get(scanner.nextLine().trim());
+        FormatoExportacao formato = arquivo.toString().toLowerCase().endsWith(".jsonl")
+                ? FormatoExportacao.JSON_LINHAS : FormatoExportacao.CSV;
+
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long exportados;
+            switch (tipo) {
+                case "usuários":
+                    exportados = usuarioService.exportarUsuarios(canal, formato);
+                    break;
+                case "projetos":
+                    exportados = projetoService.exportarProjetos(canal, formato);
+                    break;
+                default:
+                    exportados = equipeService.exportarEquipes(canal, formato);
+            }
+            System.out.println("Exportação concluída (" + tipo + "): " + exportados + " registros em " + arquivo);
+        } catch (IOException e) {
+            System.out.println("Erro ao gravar o arquivo: " + e.getMessage());
+        }
+    }
+
     private void cadastrarNovaEquipe() {
         try {
             System.out.print("Nome da Equipe: ");
@@ -356,8 +592,7 @@ public class SistemaGestaoView {
     }
 
     private void listarEquipes() {
-        List<Equipe> equipes = equipeService.listarTodasEquipes();
-        equipes.forEach(System.out::println);
+        exibirPaginas(equipeService::paginarEquipesPorNome, Equipe::toString);
     }
 
     private void adicionarMembroEquipe() {
@@ -365,18 +600,12 @@ public class SistemaGestaoView {
             System.out.print("Nome da Equipe: ");
             String nomeEquipe = scanner.nextLine();
 
-            List<Usuario> usuarios = usuarioService.listarUsuarios();
-            System.out.println("Selecione o Usuário:");
-            for (int i = 0; i < usuarios.size(); i++) {
-                System.out.println(i + " - " + usuarios.get(i).getNomeCompleto());
+            Usuario usuario = selecionarUsuario(null);
+            if (usuario == null) {
+                return;
             }
-            int usuarioIndex = scanner.nextInt();
-            scanner.nextLine(); // Limpar buffer
 
-            if (equipeService.adicionarMembroNaEquipe(
-                    nomeEquipe,
-                    usuarios.get(usuarioIndex)
-            )) {
+            if (equipeService.adicionarMembroNaEquipe(nomeEquipe, usuario)) {
                 System.out.println("Membro adicionado com sucesso!");
             }
         } catch (Exception e) {
@@ -389,18 +618,12 @@ public class SistemaGestaoView {
             System.out.print("Nome da Equipe: ");
             String nomeEquipe = scanner.nextLine();
 
-            List<Usuario> usuarios = usuarioService.listarUsuarios();
-            System.out.println("Selecione o Usuário:");
-            for (int i = 0; i < usuarios.size(); i++) {
-                System.out.println(i + " - " + usuarios.get(i).getNomeCompleto());
+            Usuario usuario = selecionarUsuario(null);
+            if (usuario == null) {
+                return;
             }
-            int usuarioIndex = scanner.nextInt();
-            scanner.nextLine(); // Limpar buffer
 
-            if (equipeService.removerMembroDaEquipe(
-                    nomeEquipe,
-                    usuarios.get(usuarioIndex)
-            )) {
+            if (equipeService.removerMembroDaEquipe(nomeEquipe, usuario)) {
                 System.out.println("Membro removido com sucesso!");
             }
         } catch (Exception e) {
@@ -409,17 +632,76 @@ public class SistemaGestaoView {
     }
 
     private void listarEquipesPorTamanho() {
-        List<Equipe> equipes = equipeService.listarEquipesPorTamanho();
-        equipes.forEach(equipe ->
-                System.out.println(
-                        "Equipe: " + equipe.getNome() +
-                                " - Membros: " + equipe.quantidadeMembros()
-                )
-        );
+        exibirPaginas(equipeService::paginarEquipesPorTamanho, equipe ->
+                "Equipe: " + equipe.getNome() + " - Membros: " + equipe.quantidadeMembros());
     }
 
 
-    public static void main(String[] args) {
-        new SistemaGestaoView().iniciar();
+    public static void main(String[] args) throws IOException {
+        // Diretório de dados configurável por -Dgestao.dados=<diretório>
+        Path diretorio = Paths.get(System.getProperty("gestao.dados", "dados"));
+        ArmazenamentoPersistente armazenamento = ArmazenamentoPersistente.abrir(diretorio);
+
+        // Métricas das operações dos serviços, consultáveis por JMX (jconsole, VisualVM)
+        Metricas.padrao().registrarMBean();
+
+        // Eventos de domínio publicados pelos serviços, para assinantes fora dos repositórios
+        BarramentoEventos eventos = new BarramentoEventos();
+
+        UsuarioService usuarioService = new UsuarioService(armazenamento.getUsuarioRepository(),
+                new Autenticador(armazenamento.getUsuarioRepository()), Metricas.padrao(), eventos);
+        ProjetoService projetoService = new ProjetoService(armazenamento.getProjetoRepository(),
+                Metricas.padrao(), eventos);
+        EquipeService equipeService = new EquipeService(armazenamento.getEquipeRepository(),
+                Metricas.padrao(), eventos);
+        PainelService painelService = new PainelService(armazenamento.getUsuarioRepository(),
+                armazenamento.getProjetoRepository(), armazenamento.getEquipeRepository());
+        BuscaService buscaService = new BuscaService(armazenamento.getUsuarioRepository(),
+                armazenamento.getProjetoRepository(), armazenamento.getEquipeRepository());
+
+        // Com --http=<porta>, atende a API HTTP em vez do console
+        int porta = portaHttp(args);
+        ServidorApi servidor = porta < 0 ? null
+                : new ServidorApi(usuarioService, projetoService, equipeService, painelService, buscaService,
+                        Metricas.padrao());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // Termina as requisições em andamento antes de gravar os dados
+            if (servidor != null) {
+                servidor.close();
+            }
+            eventos.close();
+            try {
+                armazenamento.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar os dados: " + e.getMessage());
+            }
+        }));
+
+        if (servidor != null) {
+            servidor.iniciar(new InetSocketAddress(porta));
+            System.out.println("API HTTP disponível na porta " + servidor.getPorta());
+            return;
+        }
+
+        new SistemaGestaoView(usuarioService, projetoService, equipeService, painelService, buscaService).iniciar();
+    }
+
+    /**
+     * Porta informada em --http=<porta>
+     * @param args Argumentos da linha de comando
+     * @return Porta, ou -1 se a API HTTP não foi pedida
+     */
+    private static int portaHttp(String[] args) {
+        for (String argumento : args) {
+            if (argumento.startsWith("--http=")) {
+                try {
+                    return Integer.parseInt(argumento.substring("--http=".length()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Porta inválida: " + argumento);
+                }
+            }
+        }
+        return -1;
     }
 }
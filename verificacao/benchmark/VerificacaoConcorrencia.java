@@ -0,0 +1,424 @@
+package benchmark;
+
+import model.Equipe;
+import model.Perfil;
+import model.Usuario;
+import repository.ArmazenamentoPersistente;
+import repository.ConfiguracaoLog;
+import repository.ConflitoVersaoException;
+import repository.EquipeRepository;
+import repository.FormatoSnapshot;
+import repository.UsuarioRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Verificação de concorrência dos repositórios: várias threads disputam os mesmos
+ * CPFs, logins e vagas em equipes ao mesmo tempo, por todos os caminhos de escrita
+ * (inclusão, atualização com e sem versão, remoção, entrada e saída de membros,
+ * renomeação de equipes e gravação de cópias com membros ou capacidade alterados).
+ * Ao final confere que nenhum CPF ou login aparece em dois usuários, que os índices
+ * apontam para o usuário certo e que nenhuma equipe passou da capacidade.
+ *
+ * Em seguida repete a disputa sobre um {@link ArmazenamentoPersistente}, em cada
+ * formato de snapshot, gerando snapshots sem parar, e confere que o diretório
+ * reabre com o mesmo estado.
+ *
+ * Termina com código de saída 1 se encontrar alguma violação, o que faz falhar a
+ * tarefa verificarConcorrencia do Gradle, executada em gradle check.
+ *
+ * Uso:
+ * gradle verificarConcorrencia [-Pthreads=8] [-Poperacoes=200000] [-Pcpfs=500]
+ *     [-Pequipes=20] [-Pcapacidade=5] [-Psemente=42]
+ */
+public final class VerificacaoConcorrencia {
+
+    private VerificacaoConcorrencia() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = 8;
+        int operacoes = 200_000;
+        int cpfs = 500;
+        int equipes = 20;
+        int capacidade = 5;
+        long semente = 42;
+
+        for (String argumento : args) {
+            int separador = argumento.indexOf('=');
+            if (!argumento.startsWith("--") || separador < 0) {
+                throw new IllegalArgumentException("Argumento inválido: " + argumento);
+            }
+            String valor = argumento.substring(separador + 1);
+            switch (argumento.substring(2, separador)) {
+                case "threads":
+                    threads = Integer.parseInt(valor);
+                    break;
+                case "operacoes":
+                    operacoes = Integer.parseInt(valor);
+                    break;
+                case "cpfs":
+                    cpfs = Integer.parseInt(valor);
+                    break;
+                case "equipes":
+                    equipes = Integer.parseInt(valor);
+                    break;
+                case "capacidade":
+                    capacidade = Integer.parseInt(valor);
+                    break;
+                case "semente":
+                    semente = Long.parseLong(valor);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Argumento desconhecido: " + argumento);
+            }
+        }
+
+        System.out.printf("Verificando: %d threads, %d operações cada, %d CPFs, %d equipes de %d vagas%n",
+                threads, operacoes, cpfs, equipes, capacidade);
+
+        UsuarioRepository usuarioRepository = new UsuarioRepository();
+        EquipeRepository equipeRepository = new EquipeRepository();
+        List<Usuario> membros = popular(usuarioRepository, equipeRepository, cpfs, equipes, capacidade);
+
+        long inicio = System.nanoTime();
+        long conflitos = disputar(usuarioRepository, equipeRepository, membros, threads, operacoes, cpfs, equipes,
+                semente, null);
+        long duracaoMillis = (System.nanoTime() - inicio) / 1_000_000;
+
+        List<String> violacoes = new ArrayList<>();
+        verificarUsuarios(usuarioRepository, violacoes);
+        verificarEquipes(equipeRepository, violacoes);
+        System.out.printf("%d usuários, %d equipes, %d conflitos de versão, %d ms%n",
+                usuarioRepository.quantidadeUsuarios(), equipeRepository.quantidadeEquipes(),
+                conflitos, duracaoMillis);
+
+        // Snapshots gravados durante a disputa, com menos operações: cada uma vai para o log
+        for (FormatoSnapshot formato : FormatoSnapshot.values()) {
+            verificarSnapshots(formato, threads, Math.max(1, operacoes / 10), cpfs, equipes, capacidade,
+                    semente, violacoes);
+        }
+
+        if (violacoes.isEmpty()) {
+            System.out.println("Nenhuma violação encontrada");
+            return;
+        }
+        violacoes.stream().limit(20).forEach(System.out::println);
+        System.out.println(violacoes.size() + " violações encontradas");
+        System.exit(1);
+    }
+
+    /**
+     * Cadastra os usuários fixos, que as equipes disputam, e as equipes
+     * @return Usuários que entram e saem das equipes
+     */
+    private static List<Usuario> popular(UsuarioRepository usuarioRepository, EquipeRepository equipeRepository,
+                                         int cpfs, int equipes, int capacidade) {
+        // Os CPFs disputados ficam abaixo dos usuários fixos
+        List<Usuario> membros = new ArrayList<>();
+        for (int i = 0; i < capacidade * 4; i++) {
+            Usuario membro = GeradorDados.usuario(cpfs + i, Cenario.SENHA, Perfil.COLABORADOR);
+            usuarioRepository.adicionar(membro);
+            membros.add(membro);
+        }
+        for (int i = 0; i < equipes; i++) {
+            equipeRepository.adicionar(new Equipe("Equipe " + i, "Equipe da verificação " + i, capacidade));
+        }
+        return membros;
+    }
+
+    /**
+     * Executa as operações sorteadas em várias threads, ao mesmo tempo
+     * @param paralela Tarefa repetida em outra thread enquanto as operações não terminam,
+     *                 ou null
+     * @return Quantidade de conflitos de versão
+     */
+    private static long disputar(UsuarioRepository usuarioRepository, EquipeRepository equipeRepository,
+                                 List<Usuario> membros, int threads, int operacoes, int cpfs, int equipes,
+                                 long semente, Runnable paralela) throws InterruptedException {
+        LongAdder conflitos = new LongAdder();
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> executoras = new ArrayList<>();
+        SplittableRandom raiz = new SplittableRandom(semente);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom aleatorio = raiz.split();
+            Thread executora = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < operacoes; i++) {
+                    try {
+                        operar(aleatorio, usuarioRepository, equipeRepository, membros, cpfs, equipes);
+                    } catch (ConflitoVersaoException e) {
+                        conflitos.increment();
+                    }
+                }
+            }, "verificacao-" + t);
+            executoras.add(executora);
+            executora.start();
+        }
+
+        AtomicBoolean terminou = new AtomicBoolean();
+        Thread repetidora = new Thread(() -> {
+            while (!terminou.get()) {
+                paralela.run();
+            }
+        }, "verificacao-paralela");
+        if (paralela != null) {
+            repetidora.start();
+        }
+
+        largada.countDown();
+        try {
+            for (Thread executora : executoras) {
+                executora.join();
+            }
+        } finally {
+            terminou.set(true);
+            if (paralela != null) {
+                repetidora.join();
+            }
+        }
+        return conflitos.sum();
+    }
+
+    /**
+     * Disputa os mesmos CPFs, logins e nomes de equipe em repositórios persistentes
+     * enquanto outra thread grava snapshots sem parar, e depois reabre o diretório:
+     * a recuperação precisa aceitar snapshots em que a mesma chave aparece em duas
+     * entidades (liberada e tomada durante a cópia) e chegar ao estado gravado
+     */
+    private static void verificarSnapshots(FormatoSnapshot formato, int threads, int operacoes, int cpfs,
+                                           int equipes, int capacidade, long semente, List<String> violacoes)
+            throws IOException, InterruptedException {
+        Path diretorio = Files.createTempDirectory("verificacao-");
+        try {
+            ConfiguracaoLog configuracao = new ConfiguracaoLog(10, 1024 * 1024, false, 0, 0, formato);
+            Map<String, String> esperado;
+            LongAdder snapshots = new LongAdder();
+            List<String> falhas = new CopyOnWriteArrayList<>();
+            try (ArmazenamentoPersistente armazenamento = ArmazenamentoPersistente.abrir(diretorio, configuracao)) {
+                UsuarioRepository usuarioRepository = armazenamento.getUsuarioRepository();
+                EquipeRepository equipeRepository = armazenamento.getEquipeRepository();
+                List<Usuario> membros = popular(usuarioRepository, equipeRepository, cpfs, equipes, capacidade);
+                disputar(usuarioRepository, equipeRepository, membros, threads, operacoes, cpfs, equipes, semente,
+                        () -> {
+                            try {
+                                armazenamento.gerarSnapshot();
+                                snapshots.increment();
+                            } catch (IOException | RuntimeException e) {
+                                falhas.add("Snapshot " + formato + ": erro ao gravar: " + e);
+                            }
+                        });
+                esperado = descrever(usuarioRepository, equipeRepository);
+            }
+            violacoes.addAll(falhas);
+
+            try (ArmazenamentoPersistente armazenamento = ArmazenamentoPersistente.abrir(diretorio, configuracao)) {
+                UsuarioRepository usuarioRepository = armazenamento.getUsuarioRepository();
+                EquipeRepository equipeRepository = armazenamento.getEquipeRepository();
+                Map<String, String> recuperado = descrever(usuarioRepository, equipeRepository);
+                for (Map.Entry<String, String> entrada : esperado.entrySet()) {
+                    if (!entrada.getValue().equals(recuperado.get(entrada.getKey()))) {
+                        violacoes.add("Snapshot " + formato + ": " + entrada.getValue() + " recuperado como "
+                                + recuperado.get(entrada.getKey()));
+                    }
+                }
+                for (String id : recuperado.keySet()) {
+                    if (!esperado.containsKey(id)) {
+                        violacoes.add("Snapshot " + formato + ": recuperado a mais: " + recuperado.get(id));
+                    }
+                }
+                verificarUsuarios(usuarioRepository, violacoes);
+                verificarEquipes(equipeRepository, violacoes);
+            } catch (IllegalStateException e) {
+                violacoes.add("Snapshot " + formato + ": diretório não reabre: " + e.getMessage());
+            }
+            System.out.printf("Snapshot %s: %d snapshots durante a disputa, %d entidades reabertas%n",
+                    formato, snapshots.sum(), esperado.size());
+        } finally {
+            try (Stream<Path> arquivos = Files.walk(diretorio)) {
+                for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(arquivo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Descreve usuários e equipes pelo ID, com as chaves únicas e os membros, para
+     * comparar o estado gravado com o recuperado
+     */
+    private static Map<String, String> descrever(UsuarioRepository usuarioRepository,
+                                                 EquipeRepository equipeRepository) {
+        Map<String, String> descricoes = new HashMap<>();
+        for (Usuario usuario : usuarioRepository.listarTodos()) {
+            descricoes.put(usuario.getId(), "usuário " + usuario.getCpf() + " " + usuario.getLogin());
+        }
+        for (Equipe equipe : equipeRepository.listarTodas()) {
+            descricoes.put(equipe.getId(), "equipe " + equipe.getNome() + " (" + equipe.getCapacidadeMaxima()
+                    + " vagas) " + equipe.getMembros().stream().map(Usuario::getId).sorted().toList());
+        }
+        return descricoes;
+    }
+
+    /**
+     * Sorteia e executa uma operação de escrita
+     */
+    private static void operar(SplittableRandom aleatorio, UsuarioRepository usuarioRepository,
+                               EquipeRepository equipeRepository, List<Usuario> membros,
+                               int cpfs, int equipes) {
+        // Há alguns nomes de equipe a mais, livres para as renomeações
+        int nomes = equipes + equipes / 4 + 1;
+        int numero = aleatorio.nextInt(cpfs);
+        String nomeEquipe = "Equipe " + aleatorio.nextInt(nomes);
+        Usuario membro = membros.get(aleatorio.nextInt(membros.size()));
+
+        switch (aleatorio.nextInt(9)) {
+            case 0: {
+                // Inclusão de um CPF disputado, às vezes formatado, com login também disputado
+                usuarioRepository.adicionar(new Usuario("Usuário " + numero, cpfDisputado(aleatorio, numero),
+                        "disputa" + numero + "@empresa.com", "QA", "disputa" + aleatorio.nextInt(cpfs),
+                        Cenario.SENHA, Perfil.COLABORADOR));
+                break;
+            }
+            case 1: {
+                // Troca de CPF e login de um usuário existente, com versão
+                Optional<Usuario> gravado = usuarioRepository.buscarPorCPF(GeradorDados.cpf(aleatorio.nextInt(cpfs)));
+                if (gravado.isPresent()) {
+                    Usuario atual = gravado.get();
+                    Usuario copia = new Usuario(atual.getId(), atual.getNomeCompleto(), cpfDisputado(aleatorio, numero),
+                            atual.getEmail(), atual.getCargo(), "disputa" + aleatorio.nextInt(cpfs), atual.getSenha(),
+                            atual.getPerfil(), atual.getDataCriacao());
+                    usuarioRepository.atualizar(copia, atual.getVersao());
+                }
+                break;
+            }
+            case 2: {
+                // Remoção, que libera o CPF para outra inclusão
+                usuarioRepository.remover(GeradorDados.cpf(numero));
+                break;
+            }
+            case 3:
+                equipeRepository.adicionarMembroNaEquipe(nomeEquipe, membro);
+                break;
+            case 4:
+                equipeRepository.removerMembroDaEquipe(nomeEquipe, membro);
+                break;
+            case 5: {
+                // Cópia com membros a mais, gravada sem passar por adicionarMembroNaEquipe
+                Optional<Equipe> gravada = equipeRepository.buscarPorNome(nomeEquipe);
+                if (gravada.isPresent()) {
+                    Equipe copia = new Equipe(gravada.get());
+                    for (int j = 0; j < 3; j++) {
+                        copia.adicionarMembro(membros.get(aleatorio.nextInt(membros.size())));
+                    }
+                    if (aleatorio.nextBoolean()) {
+                        equipeRepository.atualizar(copia);
+                    } else {
+                        equipeRepository.atualizar(copia, gravada.get().getVersao());
+                    }
+                }
+                break;
+            }
+            case 6: {
+                // Cópia com a capacidade reduzida abaixo dos membros atuais
+                Optional<Equipe> gravada = equipeRepository.buscarPorNome(nomeEquipe);
+                if (gravada.isPresent() && gravada.get().quantidadeMembros() > 1) {
+                    Equipe copia = new Equipe(gravada.get());
+                    copia.setCapacidadeMaxima(copia.quantidadeMembros() - 1);
+                    equipeRepository.atualizar(copia);
+                }
+                break;
+            }
+            case 7: {
+                // Renomeação, que libera o nome para outra equipe
+                Optional<Equipe> gravada = equipeRepository.buscarPorNome(nomeEquipe);
+                if (gravada.isPresent()) {
+                    Equipe copia = new Equipe(gravada.get());
+                    copia.setNome("Equipe " + aleatorio.nextInt(nomes));
+                    equipeRepository.atualizar(copia);
+                }
+                break;
+            }
+            default: {
+                // Devolve a capacidade original, para que as entradas continuem sendo disputadas
+                Optional<Equipe> gravada = equipeRepository.buscarPorNome(nomeEquipe);
+                if (gravada.isPresent()) {
+                    Equipe copia = new Equipe(gravada.get());
+                    copia.setCapacidadeMaxima(Math.max(copia.quantidadeMembros(), membros.size() / 4));
+                    equipeRepository.atualizar(copia);
+                }
+            }
+        }
+    }
+
+    private static String cpfDisputado(SplittableRandom aleatorio, int numero) {
+        String cpf = GeradorDados.cpf(numero);
+        if (aleatorio.nextBoolean()) {
+            return cpf;
+        }
+        return cpf.substring(0, 3) + "." + cpf.substring(3, 6) + "." + cpf.substring(6, 9) + "-" + cpf.substring(9);
+    }
+
+    /**
+     * Confere a unicidade de CPF e login e se os índices apontam para o dono de cada um
+     */
+    private static void verificarUsuarios(UsuarioRepository usuarioRepository, List<String> violacoes) {
+        Map<String, Usuario> porCpf = new HashMap<>();
+        Map<String, Usuario> porLogin = new HashMap<>();
+        for (Usuario usuario : usuarioRepository.listarTodos()) {
+            String cpf = usuario.getCpf().replaceAll("[^0-9]", "");
+            Usuario outro = porCpf.put(cpf, usuario);
+            if (outro != null) {
+                violacoes.add("CPF duplicado: " + cpf + " em " + outro.getId() + " e " + usuario.getId());
+            }
+            outro = porLogin.put(usuario.getLogin().toLowerCase(), usuario);
+            if (outro != null) {
+                violacoes.add("Login duplicado: " + usuario.getLogin() + " em " + outro.getId() + " e " + usuario.getId());
+            }
+            Optional<Usuario> indexado = usuarioRepository.buscarPorCPF(cpf);
+            if (indexado.isEmpty() || !indexado.get().getId().equals(usuario.getId())) {
+                violacoes.add("Índice de CPF não aponta para o dono: " + cpf);
+            }
+            indexado = usuarioRepository.buscarPorLogin(usuario.getLogin());
+            if (indexado.isEmpty() || !indexado.get().getId().equals(usuario.getId())) {
+                violacoes.add("Índice de login não aponta para o dono: " + usuario.getLogin());
+            }
+        }
+    }
+
+    /**
+     * Confere a capacidade de cada equipe e o índice reverso de membros
+     */
+    private static void verificarEquipes(EquipeRepository equipeRepository, List<String> violacoes) {
+        for (Equipe equipe : equipeRepository.listarTodas()) {
+            if (equipe.quantidadeMembros() > equipe.getCapacidadeMaxima()) {
+                violacoes.add("Equipe acima da capacidade: " + equipe.getNome() + " com "
+                        + equipe.quantidadeMembros() + " membros e " + equipe.getCapacidadeMaxima() + " vagas");
+            }
+            for (Usuario membro : equipe.getMembros()) {
+                if (!equipeRepository.contemMembro(equipe.getId(), membro)) {
+                    violacoes.add("Membro fora do índice reverso: " + membro.getLogin() + " em " + equipe.getNome());
+                }
+            }
+        }
+    }
+}